@@ -0,0 +1,931 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The types mapped by the benchmarks, and the fixtures mapped by them: a
+ * flat bean, a deep graph, a cyclic graph, a polymorphic graph, a bean with
+ * collection, array and map fields, and a bean whose fields are mapped by
+ * the builtin converters.
+ */
+public final class BenchmarkModel {
+
+    private BenchmarkModel() {
+    }
+
+    /**
+     * @return a flat bean, with only primitive and String fields
+     */
+    public static Person newPerson() {
+        Person person = new Person();
+        person.setId(42L);
+        person.setFirstName("Ada");
+        person.setLastName("Lovelace");
+        person.setAge(36);
+        person.setActive(true);
+        person.setScore(98.5d);
+        return person;
+    }
+
+    /**
+     * @return a graph four levels deep
+     */
+    public static Order newOrder() {
+        Country country = new Country();
+        country.setCode("MA");
+        country.setName("Morocco");
+        Address address = new Address();
+        address.setStreet("1 Avenue Mohammed V");
+        address.setCity("Rabat");
+        address.setCountry(country);
+        Customer customer = new Customer();
+        customer.setName("Glasnost");
+        customer.setAddress(address);
+        Order order = new Order();
+        order.setId(1001L);
+        order.setCustomer(customer);
+        order.setShippingAddress(address);
+        return order;
+    }
+
+    /**
+     * @return a department whose employees refer back to it, and to each
+     *         other through their managers
+     */
+    public static Department newDepartment() {
+        Department department = new Department();
+        department.setName("Engineering");
+        List<Employee> employees = new ArrayList<Employee>();
+        Employee manager = null;
+        for (int i = 0; i < 10; ++i) {
+            Employee employee = new Employee();
+            employee.setName("employee" + i);
+            employee.setDepartment(department);
+            employee.setManager(manager);
+            employees.add(employee);
+            if (i % 3 == 0) {
+                manager = employee;
+            }
+        }
+        department.setEmployees(employees);
+        return department;
+    }
+
+    /**
+     * @return a drawing whose shapes are of several concrete types
+     */
+    public static Drawing newDrawing() {
+        List<Shape> shapes = new ArrayList<Shape>();
+        for (int i = 0; i < 10; ++i) {
+            if (i % 2 == 0) {
+                Circle circle = new Circle();
+                circle.setName("circle" + i);
+                circle.setRadius(i);
+                shapes.add(circle);
+            } else {
+                Rectangle rectangle = new Rectangle();
+                rectangle.setName("rectangle" + i);
+                rectangle.setWidth(i);
+                rectangle.setHeight(i * 2);
+                shapes.add(rectangle);
+            }
+        }
+        Drawing drawing = new Drawing();
+        drawing.setShapes(shapes);
+        return drawing;
+    }
+
+    /**
+     * @return a bean with collection, array and map fields
+     */
+    public static Inventory newInventory() {
+        Inventory inventory = new Inventory();
+        inventory.setTags(Arrays.asList("new", "sale", "featured", "clearance", "imported"));
+        inventory.setQuantities(new int[] { 1, 2, 3, 5, 8, 13, 21, 34, 55, 89 });
+        inventory.setCodes(new String[] { "A1", "B2", "C3", "D4", "E5" });
+        Map<String, Integer> stock = new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < 10; ++i) {
+            stock.put("item" + i, Integer.valueOf(i * 10));
+        }
+        inventory.setStock(stock);
+        List<Address> warehouses = new ArrayList<Address>();
+        for (int i = 0; i < 5; ++i) {
+            Address address = new Address();
+            address.setStreet(i + " Warehouse Road");
+            address.setCity("Casablanca");
+            warehouses.add(address);
+        }
+        inventory.setWarehouses(warehouses);
+        return inventory;
+    }
+
+    /**
+     * @return a bean whose fields are all mapped by builtin converters
+     */
+    public static Record newRecord() {
+        Record record = new Record();
+        record.setId(UUID.fromString("3f2504e0-4f89-11d3-9a0c-0305e82c3301"));
+        record.setCreated(new Date(1000000000000L));
+        record.setUpdated(Long.valueOf(1300000000000L));
+        record.setQuantity("250");
+        record.setCode(Integer.valueOf(7));
+        record.setStatus(Status.ACTIVE);
+        record.setPrice(new BigDecimal("19.99"));
+        return record;
+    }
+
+    public static class Person {
+        private long id;
+        private String firstName;
+        private String lastName;
+        private int age;
+        private boolean active;
+        private double score;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public void setFirstName(String firstName) {
+            this.firstName = firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public void setLastName(String lastName) {
+            this.lastName = lastName;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public void setScore(double score) {
+            this.score = score;
+        }
+    }
+
+    public static class PersonDto {
+        private long id;
+        private String firstName;
+        private String lastName;
+        private int age;
+        private boolean active;
+        private double score;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public void setFirstName(String firstName) {
+            this.firstName = firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public void setLastName(String lastName) {
+            this.lastName = lastName;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public void setScore(double score) {
+            this.score = score;
+        }
+    }
+
+    public static class Country {
+        private String code;
+        private String name;
+
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class CountryDto {
+        private String code;
+        private String name;
+
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class Address {
+        private String street;
+        private String city;
+        private Country country;
+
+        public String getStreet() {
+            return street;
+        }
+
+        public void setStreet(String street) {
+            this.street = street;
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        public void setCity(String city) {
+            this.city = city;
+        }
+
+        public Country getCountry() {
+            return country;
+        }
+
+        public void setCountry(Country country) {
+            this.country = country;
+        }
+    }
+
+    public static class AddressDto {
+        private String street;
+        private String city;
+        private CountryDto country;
+
+        public String getStreet() {
+            return street;
+        }
+
+        public void setStreet(String street) {
+            this.street = street;
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        public void setCity(String city) {
+            this.city = city;
+        }
+
+        public CountryDto getCountry() {
+            return country;
+        }
+
+        public void setCountry(CountryDto country) {
+            this.country = country;
+        }
+    }
+
+    public static class Customer {
+        private String name;
+        private Address address;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public void setAddress(Address address) {
+            this.address = address;
+        }
+    }
+
+    public static class CustomerDto {
+        private String name;
+        private AddressDto address;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public AddressDto getAddress() {
+            return address;
+        }
+
+        public void setAddress(AddressDto address) {
+            this.address = address;
+        }
+    }
+
+    public static class Order {
+        private long id;
+        private Customer customer;
+        private Address shippingAddress;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public Customer getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(Customer customer) {
+            this.customer = customer;
+        }
+
+        public Address getShippingAddress() {
+            return shippingAddress;
+        }
+
+        public void setShippingAddress(Address shippingAddress) {
+            this.shippingAddress = shippingAddress;
+        }
+    }
+
+    public static class OrderDto {
+        private long id;
+        private CustomerDto customer;
+        private AddressDto shippingAddress;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public CustomerDto getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(CustomerDto customer) {
+            this.customer = customer;
+        }
+
+        public AddressDto getShippingAddress() {
+            return shippingAddress;
+        }
+
+        public void setShippingAddress(AddressDto shippingAddress) {
+            this.shippingAddress = shippingAddress;
+        }
+    }
+
+    public static class Department {
+        private String name;
+        private List<Employee> employees;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public List<Employee> getEmployees() {
+            return employees;
+        }
+
+        public void setEmployees(List<Employee> employees) {
+            this.employees = employees;
+        }
+    }
+
+    public static class DepartmentDto {
+        private String name;
+        private List<EmployeeDto> employees;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public List<EmployeeDto> getEmployees() {
+            return employees;
+        }
+
+        public void setEmployees(List<EmployeeDto> employees) {
+            this.employees = employees;
+        }
+    }
+
+    public static class Employee {
+        private String name;
+        private Department department;
+        private Employee manager;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Department getDepartment() {
+            return department;
+        }
+
+        public void setDepartment(Department department) {
+            this.department = department;
+        }
+
+        public Employee getManager() {
+            return manager;
+        }
+
+        public void setManager(Employee manager) {
+            this.manager = manager;
+        }
+    }
+
+    public static class EmployeeDto {
+        private String name;
+        private DepartmentDto department;
+        private EmployeeDto manager;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public DepartmentDto getDepartment() {
+            return department;
+        }
+
+        public void setDepartment(DepartmentDto department) {
+            this.department = department;
+        }
+
+        public EmployeeDto getManager() {
+            return manager;
+        }
+
+        public void setManager(EmployeeDto manager) {
+            this.manager = manager;
+        }
+    }
+
+    public static abstract class Shape {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class Circle extends Shape {
+        private double radius;
+
+        public double getRadius() {
+            return radius;
+        }
+
+        public void setRadius(double radius) {
+            this.radius = radius;
+        }
+    }
+
+    public static class Rectangle extends Shape {
+        private double width;
+        private double height;
+
+        public double getWidth() {
+            return width;
+        }
+
+        public void setWidth(double width) {
+            this.width = width;
+        }
+
+        public double getHeight() {
+            return height;
+        }
+
+        public void setHeight(double height) {
+            this.height = height;
+        }
+    }
+
+    public static abstract class ShapeDto {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class CircleDto extends ShapeDto {
+        private double radius;
+
+        public double getRadius() {
+            return radius;
+        }
+
+        public void setRadius(double radius) {
+            this.radius = radius;
+        }
+    }
+
+    public static class RectangleDto extends ShapeDto {
+        private double width;
+        private double height;
+
+        public double getWidth() {
+            return width;
+        }
+
+        public void setWidth(double width) {
+            this.width = width;
+        }
+
+        public double getHeight() {
+            return height;
+        }
+
+        public void setHeight(double height) {
+            this.height = height;
+        }
+    }
+
+    public static class Drawing {
+        private List<Shape> shapes;
+
+        public List<Shape> getShapes() {
+            return shapes;
+        }
+
+        public void setShapes(List<Shape> shapes) {
+            this.shapes = shapes;
+        }
+    }
+
+    public static class DrawingDto {
+        private List<ShapeDto> shapes;
+
+        public List<ShapeDto> getShapes() {
+            return shapes;
+        }
+
+        public void setShapes(List<ShapeDto> shapes) {
+            this.shapes = shapes;
+        }
+    }
+
+    public static class Inventory {
+        private List<String> tags;
+        private int[] quantities;
+        private String[] codes;
+        private Map<String, Integer> stock;
+        private List<Address> warehouses;
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+        public int[] getQuantities() {
+            return quantities;
+        }
+
+        public void setQuantities(int[] quantities) {
+            this.quantities = quantities;
+        }
+
+        public String[] getCodes() {
+            return codes;
+        }
+
+        public void setCodes(String[] codes) {
+            this.codes = codes;
+        }
+
+        public Map<String, Integer> getStock() {
+            return stock;
+        }
+
+        public void setStock(Map<String, Integer> stock) {
+            this.stock = stock;
+        }
+
+        public List<Address> getWarehouses() {
+            return warehouses;
+        }
+
+        public void setWarehouses(List<Address> warehouses) {
+            this.warehouses = warehouses;
+        }
+    }
+
+    public static class InventoryDto {
+        private List<String> tags;
+        private int[] quantities;
+        private String[] codes;
+        private Map<String, Integer> stock;
+        private List<AddressDto> warehouses;
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+        public int[] getQuantities() {
+            return quantities;
+        }
+
+        public void setQuantities(int[] quantities) {
+            this.quantities = quantities;
+        }
+
+        public String[] getCodes() {
+            return codes;
+        }
+
+        public void setCodes(String[] codes) {
+            this.codes = codes;
+        }
+
+        public Map<String, Integer> getStock() {
+            return stock;
+        }
+
+        public void setStock(Map<String, Integer> stock) {
+            this.stock = stock;
+        }
+
+        public List<AddressDto> getWarehouses() {
+            return warehouses;
+        }
+
+        public void setWarehouses(List<AddressDto> warehouses) {
+            this.warehouses = warehouses;
+        }
+    }
+
+    public enum Status {
+        ACTIVE, SUSPENDED, CLOSED
+    }
+
+    public enum StatusDto {
+        ACTIVE, SUSPENDED, CLOSED
+    }
+
+    public static class Record {
+        private UUID id;
+        private Date created;
+        private Long updated;
+        private String quantity;
+        private Integer code;
+        private Status status;
+        private BigDecimal price;
+
+        public UUID getId() {
+            return id;
+        }
+
+        public void setId(UUID id) {
+            this.id = id;
+        }
+
+        public Date getCreated() {
+            return created;
+        }
+
+        public void setCreated(Date created) {
+            this.created = created;
+        }
+
+        public Long getUpdated() {
+            return updated;
+        }
+
+        public void setUpdated(Long updated) {
+            this.updated = updated;
+        }
+
+        public String getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(String quantity) {
+            this.quantity = quantity;
+        }
+
+        public Integer getCode() {
+            return code;
+        }
+
+        public void setCode(Integer code) {
+            this.code = code;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public void setPrice(BigDecimal price) {
+            this.price = price;
+        }
+    }
+
+    public static class RecordDto {
+        private UUID id;
+        private Calendar created;
+        private Date updated;
+        private Integer quantity;
+        private String code;
+        private StatusDto status;
+        private Double price;
+
+        public UUID getId() {
+            return id;
+        }
+
+        public void setId(UUID id) {
+            this.id = id;
+        }
+
+        public Calendar getCreated() {
+            return created;
+        }
+
+        public void setCreated(Calendar created) {
+            this.created = created;
+        }
+
+        public Date getUpdated() {
+            return updated;
+        }
+
+        public void setUpdated(Date updated) {
+            this.updated = updated;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+
+        public StatusDto getStatus() {
+            return status;
+        }
+
+        public void setStatus(StatusDto status) {
+            this.status = status;
+        }
+
+        public Double getPrice() {
+            return price;
+        }
+
+        public void setPrice(Double price) {
+            this.price = price;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import ma.glasnost.orika.benchmark.BenchmarkModel.InventoryDto;
+import ma.glasnost.orika.benchmark.BenchmarkModel.RecordDto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of mapping beans whose fields require more than a
+ * copy: collection, array and map fields, and fields mapped by the builtin
+ * converters; each through the MapperFacade and through a BoundMapperFacade.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldMappingBenchmark {
+
+    @Benchmark
+    public InventoryDto containerFieldsMapperFacade(MappingState state) {
+        return state.mapperFacade.map(state.inventory, InventoryDto.class);
+    }
+
+    @Benchmark
+    public InventoryDto containerFieldsBoundMapperFacade(MappingState state) {
+        return state.inventoryMapper.map(state.inventory);
+    }
+
+    @Benchmark
+    public RecordDto builtinConvertersMapperFacade(MappingState state) {
+        return state.mapperFacade.map(state.record, RecordDto.class);
+    }
+
+    @Benchmark
+    public RecordDto builtinConvertersBoundMapperFacade(MappingState state) {
+        return state.recordMapper.map(state.record);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import ma.glasnost.orika.benchmark.BenchmarkModel.DepartmentDto;
+import ma.glasnost.orika.benchmark.BenchmarkModel.DrawingDto;
+import ma.glasnost.orika.benchmark.BenchmarkModel.OrderDto;
+import ma.glasnost.orika.benchmark.BenchmarkModel.PersonDto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of mapping object graphs of different shapes (flat,
+ * deep, cyclic and polymorphic), through the MapperFacade and through a
+ * BoundMapperFacade, both with instantiation of the destination and in
+ * place.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphMappingBenchmark {
+
+    @Benchmark
+    public PersonDto flatMapperFacade(MappingState state) {
+        return state.mapperFacade.map(state.person, PersonDto.class);
+    }
+
+    @Benchmark
+    public PersonDto flatBoundMapperFacade(MappingState state) {
+        return state.personMapper.map(state.person);
+    }
+
+    @Benchmark
+    public OrderDto deepMapperFacade(MappingState state) {
+        return state.mapperFacade.map(state.order, OrderDto.class);
+    }
+
+    @Benchmark
+    public OrderDto deepBoundMapperFacade(MappingState state) {
+        return state.orderMapper.map(state.order);
+    }
+
+    @Benchmark
+    public DepartmentDto cyclicMapperFacade(MappingState state) {
+        return state.mapperFacade.map(state.department, DepartmentDto.class);
+    }
+
+    @Benchmark
+    public DepartmentDto cyclicBoundMapperFacade(MappingState state) {
+        return state.departmentMapper.map(state.department);
+    }
+
+    @Benchmark
+    public DrawingDto polymorphicMapperFacade(MappingState state) {
+        return state.mapperFacade.map(state.drawing, DrawingDto.class);
+    }
+
+    @Benchmark
+    public DrawingDto polymorphicBoundMapperFacade(MappingState state) {
+        return state.drawingMapper.map(state.drawing);
+    }
+
+    @Benchmark
+    public PersonDto flatInPlaceMapperFacade(MappingState state) {
+        state.mapperFacade.map(state.person, state.personDto);
+        return state.personDto;
+    }
+
+    @Benchmark
+    public PersonDto flatInPlaceBoundMapperFacade(MappingState state) {
+        return state.personMapper.map(state.person, state.personDto);
+    }
+
+    @Benchmark
+    public OrderDto deepInPlaceMapperFacade(MappingState state) {
+        state.mapperFacade.map(state.order, state.orderDto);
+        return state.orderDto;
+    }
+
+    @Benchmark
+    public OrderDto deepInPlaceBoundMapperFacade(MappingState state) {
+        return state.orderMapper.map(state.order, state.orderDto);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.benchmark;
+
+import ma.glasnost.orika.BoundMapperFacade;
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.benchmark.BenchmarkModel.Circle;
+import ma.glasnost.orika.benchmark.BenchmarkModel.CircleDto;
+import ma.glasnost.orika.benchmark.BenchmarkModel.Department;
+import ma.glasnost.orika.benchmark.BenchmarkModel.DepartmentDto;
+import ma.glasnost.orika.benchmark.BenchmarkModel.Drawing;
+import ma.glasnost.orika.benchmark.BenchmarkModel.DrawingDto;
+import ma.glasnost.orika.benchmark.BenchmarkModel.Inventory;
+import ma.glasnost.orika.benchmark.BenchmarkModel.InventoryDto;
+import ma.glasnost.orika.benchmark.BenchmarkModel.Order;
+import ma.glasnost.orika.benchmark.BenchmarkModel.OrderDto;
+import ma.glasnost.orika.benchmark.BenchmarkModel.Person;
+import ma.glasnost.orika.benchmark.BenchmarkModel.PersonDto;
+import ma.glasnost.orika.benchmark.BenchmarkModel.Record;
+import ma.glasnost.orika.benchmark.BenchmarkModel.RecordDto;
+import ma.glasnost.orika.benchmark.BenchmarkModel.Rectangle;
+import ma.glasnost.orika.benchmark.BenchmarkModel.RectangleDto;
+import ma.glasnost.orika.benchmark.BenchmarkModel.Shape;
+import ma.glasnost.orika.benchmark.BenchmarkModel.ShapeDto;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.impl.generator.CompilerStrategy;
+import ma.glasnost.orika.impl.generator.EclipseJdtCompilerStrategy;
+import ma.glasnost.orika.impl.generator.JavassistCompilerStrategy;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The state shared by the benchmarks: a mapper factory built with the
+ * compiler strategy under measurement, the MapperFacade and BoundMapperFacades
+ * it provides for each fixture, and the fixtures themselves (along with the
+ * destinations into which they are mapped in place).
+ */
+@State(Scope.Benchmark)
+public class MappingState {
+
+    /**
+     * The compiler strategy with which the mappers are generated
+     */
+    @Param({ "javassist", "eclipseJdt" })
+    public String compilerStrategy;
+
+    MapperFacade mapperFacade;
+
+    BoundMapperFacade<Person, PersonDto> personMapper;
+    BoundMapperFacade<Order, OrderDto> orderMapper;
+    BoundMapperFacade<Department, DepartmentDto> departmentMapper;
+    BoundMapperFacade<Drawing, DrawingDto> drawingMapper;
+    BoundMapperFacade<Inventory, InventoryDto> inventoryMapper;
+    BoundMapperFacade<Record, RecordDto> recordMapper;
+
+    Person person;
+    Order order;
+    Department department;
+    Drawing drawing;
+    Inventory inventory;
+    Record record;
+
+    PersonDto personDto;
+    OrderDto orderDto;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MapperFactory factory = new DefaultMapperFactory.Builder().compilerStrategy(newCompilerStrategy(compilerStrategy)).build();
+        factory.classMap(Shape.class, ShapeDto.class).byDefault().register();
+        factory.classMap(Circle.class, CircleDto.class).use(Shape.class, ShapeDto.class).byDefault().register();
+        factory.classMap(Rectangle.class, RectangleDto.class).use(Shape.class, ShapeDto.class).byDefault().register();
+
+        mapperFacade = factory.getMapperFacade();
+        personMapper = factory.getMapperFacade(Person.class, PersonDto.class, false);
+        orderMapper = factory.getMapperFacade(Order.class, OrderDto.class, false);
+        departmentMapper = factory.getMapperFacade(Department.class, DepartmentDto.class, true);
+        drawingMapper = factory.getMapperFacade(Drawing.class, DrawingDto.class, false);
+        inventoryMapper = factory.getMapperFacade(Inventory.class, InventoryDto.class, false);
+        recordMapper = factory.getMapperFacade(Record.class, RecordDto.class, false);
+
+        person = BenchmarkModel.newPerson();
+        order = BenchmarkModel.newOrder();
+        department = BenchmarkModel.newDepartment();
+        drawing = BenchmarkModel.newDrawing();
+        inventory = BenchmarkModel.newInventory();
+        record = BenchmarkModel.newRecord();
+
+        personDto = new PersonDto();
+        orderDto = new OrderDto();
+    }
+
+    private static CompilerStrategy newCompilerStrategy(String name) {
+        if ("javassist".equals(name)) {
+            return new JavassistCompilerStrategy();
+        } else if ("eclipseJdt".equals(name)) {
+            return new EclipseJdtCompilerStrategy();
+        } else {
+            throw new IllegalArgumentException("Unknown compiler strategy: " + name);
+        }
+    }
+}
@@ -17,6 +17,9 @@
  */
 package ma.glasnost.orika;
 
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * BoundMapperFacade represents a caching mapper configuration
@@ -123,4 +126,88 @@ public interface BoundMapperFacade<A, B> extends MappedTypePair<A, B> {
      * @return
      */
     A newObjectReverse(B source, MappingContext context);
+    
+    /**
+     * Generates new instances of the 'B' type based on the specified
+     * instances of 'A', mapping them on several threads at once; the
+     * instances are returned in the order of the source, skipping null
+     * elements.<br>
+     * <br>
+     * The elements are split into (at most) one partition per available
+     * processor, each mapped within a context of its own; the partitions
+     * share the objects they have mapped on a best-effort basis, so an object
+     * which two partitions reach at the same time may be mapped by each of
+     * them.
+     * 
+     * @param source
+     *            the instances of 'A' to map
+     * @param executor
+     *            the executor on which the partitions are mapped; the calling
+     *            thread also maps partitions, and waits for the others to
+     *            complete
+     * @return a new List of the mapped instances of 'B'
+     */
+    List<B> mapAll(Iterable<A> source, Executor executor);
+    
+    /**
+     * Generates new instances of the 'B' type based on the specified
+     * instances of 'A', mapping them on several threads at once; the
+     * instances are returned in the order of the source, skipping null
+     * elements.
+     * 
+     * @param source
+     *            the instances of 'A' to map
+     * @param executor
+     *            the executor on which the partitions are mapped; the calling
+     *            thread also maps partitions, and waits for the others to
+     *            complete
+     * @param parallelism
+     *            the maximum number of partitions into which the elements are
+     *            split
+     * @param shareMappedObjects
+     *            whether the partitions share the objects they have mapped,
+     *            on a best-effort basis (an object reached by two partitions
+     *            at the same time may still be mapped by each); if false, an
+     *            object reached from elements in different partitions is
+     *            mapped once by each partition, in exchange for less
+     *            contention between them
+     * @return a new List of the mapped instances of 'B'
+     */
+    List<B> mapAll(Iterable<A> source, Executor executor, int parallelism, boolean shareMappedObjects);
+    
+    /**
+     * Returns an Iterator which generates new instances of the 'B' type
+     * lazily, as they are consumed, from the instances of 'A' returned by the
+     * source; the identity of mapped objects is preserved within windows of
+     * 1024 consecutive elements.<br>
+     * <br>
+     * The returned Iterator also implements {@link java.io.Closeable}; close it
+     * if it is abandoned before the source is exhausted, so that the context it
+     * holds is released.
+     * 
+     * @param source
+     *            the instances of 'A' to map
+     * @return an Iterator over the mapped instances of 'B', in which null
+     *         elements remain null
+     */
+    Iterator<B> mapAsIterator(Iterator<A> source);
+    
+    /**
+     * Returns an Iterator which generates new instances of the 'B' type
+     * lazily, as they are consumed, from the instances of 'A' returned by the
+     * source.<br>
+     * <br>
+     * The returned Iterator also implements {@link java.io.Closeable}; close it
+     * if it is abandoned before the source is exhausted, so that the context it
+     * holds is released.
+     * 
+     * @param source
+     *            the instances of 'A' to map
+     * @param identityWindow
+     *            the number of consecutive elements within which the identity
+     *            of mapped objects is preserved
+     * @return an Iterator over the mapped instances of 'B', in which null
+     *         elements remain null
+     */
+    Iterator<B> mapAsIterator(Iterator<A> source, int identityWindow);
 }
@@ -19,9 +19,11 @@
 package ma.glasnost.orika;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import ma.glasnost.orika.impl.mapping.strategy.MappingStrategy;
 import ma.glasnost.orika.metadata.Type;
@@ -362,6 +364,195 @@ public interface MapperFacade {
     
     <S, D> List<D> mapAsList(S[] source, Type<S> sourceType, Type<D> destinationType, MappingContext context);
     
+    /**
+     * Maps the source Iterable into a new Set, sized to hold the expected
+     * number of elements.
+     * 
+     * @param source
+     *            the Iterable from which to map
+     * @param sourceType
+     *            the type of the source elements
+     * @param destinationType
+     *            the type of elements to be contained in the returned Set
+     * @param sizeHint
+     *            the expected number of elements, used to size the returned
+     *            Set
+     * @return a new Set containing the elements mapped from
+     *         <code>source</code>
+     */
+    <S, D> Set<D> mapAsSet(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, int sizeHint);
+    
+    /**
+     * Maps the source Iterable into a new Set, sized to hold the expected
+     * number of elements.
+     * 
+     * @param source
+     *            the Iterable from which to map
+     * @param sourceType
+     *            the type of the source elements
+     * @param destinationType
+     *            the type of elements to be contained in the returned Set
+     * @param sizeHint
+     *            the expected number of elements, used to size the returned
+     *            Set
+     * @param context
+     *            the context from the current mapping request
+     * @return a new Set containing the elements mapped from
+     *         <code>source</code>
+     */
+    <S, D> Set<D> mapAsSet(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, int sizeHint, MappingContext context);
+    
+    /**
+     * Maps the source Iterable into a new List, sized to hold the expected
+     * number of elements.
+     * 
+     * @param source
+     *            the Iterable from which to map
+     * @param sourceType
+     *            the type of the source elements
+     * @param destinationType
+     *            the type of elements to be contained in the returned List
+     * @param sizeHint
+     *            the expected number of elements, used to size the returned
+     *            List
+     * @return a new List containing the elements mapped from
+     *         <code>source</code>
+     */
+    <S, D> List<D> mapAsList(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, int sizeHint);
+    
+    /**
+     * Maps the source Iterable into a new List, sized to hold the expected
+     * number of elements.
+     * 
+     * @param source
+     *            the Iterable from which to map
+     * @param sourceType
+     *            the type of the source elements
+     * @param destinationType
+     *            the type of elements to be contained in the returned List
+     * @param sizeHint
+     *            the expected number of elements, used to size the returned
+     *            List
+     * @param context
+     *            the context from the current mapping request
+     * @return a new List containing the elements mapped from
+     *         <code>source</code>
+     */
+    <S, D> List<D> mapAsList(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, int sizeHint, MappingContext context);
+    
+    /**
+     * Maps the source Iterable into a new List, mapping its elements on
+     * several threads at once; the elements are returned in the order of the
+     * source.<br>
+     * <br>
+     * The elements are split into (at most) one partition per available
+     * processor, each mapped within a context of its own; the partitions
+     * share the objects they have mapped, so that an object reached from
+     * elements in more than one partition usually maps to a single
+     * destination object. This is done on a best-effort basis: unlike
+     * {@link #mapAsList(Iterable, Type, Type)}, an object which two
+     * partitions reach at the same time may be mapped by each of them, so
+     * the result is not guaranteed to preserve the identity of every shared
+     * object.
+     * 
+     * @param source
+     *            the Iterable from which to map
+     * @param sourceType
+     *            the type of the source elements
+     * @param destinationType
+     *            the type of elements to be contained in the returned List
+     * @param executor
+     *            the executor on which the partitions are mapped; the calling
+     *            thread also maps partitions, and waits for the others to
+     *            complete
+     * @return a new List containing the elements mapped from
+     *         <code>source</code>
+     */
+    <S, D> List<D> mapAsListParallel(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, Executor executor);
+    
+    /**
+     * Maps the source Iterable into a new List, mapping its elements on
+     * several threads at once; the elements are returned in the order of the
+     * source.
+     * 
+     * @param source
+     *            the Iterable from which to map
+     * @param sourceType
+     *            the type of the source elements
+     * @param destinationType
+     *            the type of elements to be contained in the returned List
+     * @param executor
+     *            the executor on which the partitions are mapped; the calling
+     *            thread also maps partitions, and waits for the others to
+     *            complete
+     * @param parallelism
+     *            the maximum number of partitions into which the elements are
+     *            split
+     * @param shareMappedObjects
+     *            whether the partitions share the objects they have mapped,
+     *            on a best-effort basis (an object reached by two partitions
+     *            at the same time may still be mapped by each); if false, an
+     *            object reached from elements in different partitions is
+     *            mapped once by each partition, in exchange for less
+     *            contention between them
+     * @return a new List containing the elements mapped from
+     *         <code>source</code>
+     */
+    <S, D> List<D> mapAsListParallel(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, Executor executor,
+            int parallelism, boolean shareMappedObjects);
+    
+    /**
+     * Returns an Iterator which maps the elements of the source lazily, as
+     * they are consumed, rather than collecting them all up front; it can be
+     * used to map a source of any size (such as a database cursor) without
+     * holding more than the current element.<br>
+     * <br>
+     * The identity of mapped objects is preserved within windows of 1024
+     * consecutive elements.<br>
+     * <br>
+     * The returned Iterator also implements {@link java.io.Closeable}; close it
+     * if it is abandoned before the source is exhausted, so that the context it
+     * holds is released.
+     * 
+     * @param source
+     *            the Iterator from which to map
+     * @param sourceType
+     *            the type of the source elements
+     * @param destinationType
+     *            the type of elements to be returned by the Iterator
+     * @return an Iterator over the elements mapped from <code>source</code>,
+     *         in which null elements remain null
+     */
+    <S, D> Iterator<D> mapAsIterator(Iterator<S> source, Type<S> sourceType, Type<D> destinationType);
+    
+    /**
+     * Returns an Iterator which maps the elements of the source lazily, as
+     * they are consumed, rather than collecting them all up front; it can be
+     * used to map a source of any size (such as a database cursor) without
+     * holding more than the current element.<br>
+     * <br>
+     * The elements are mapped within a single context, which is reset after
+     * every <code>identityWindow</code> elements; an object reached from
+     * elements in different windows is mapped once for each window.<br>
+     * <br>
+     * The returned Iterator also implements {@link java.io.Closeable}; close it
+     * if it is abandoned before the source is exhausted, so that the context it
+     * holds is released.
+     * 
+     * @param source
+     *            the Iterator from which to map
+     * @param sourceType
+     *            the type of the source elements
+     * @param destinationType
+     *            the type of elements to be returned by the Iterator
+     * @param identityWindow
+     *            the number of consecutive elements within which the identity
+     *            of mapped objects is preserved
+     * @return an Iterator over the elements mapped from <code>source</code>,
+     *         in which null elements remain null
+     */
+    <S, D> Iterator<D> mapAsIterator(Iterator<S> source, Type<S> sourceType, Type<D> destinationType, int identityWindow);
+    
     <S, D> D[] mapAsArray(D[] destination, Iterable<S> source, Type<S> sourceType, Type<D> destinationType);
     
     <S, D> D[] mapAsArray(D[] destination, S[] source, Type<S> sourceType, Type<D> destinationType);
@@ -488,6 +679,45 @@ public interface MapperFacade {
     <S, Dk, Dv> Map<Dk, Dv> mapAsMap(Iterable<S> source, Type<S> sourceType, Type<? extends Map<Dk, Dv>> destinationType,
             MappingContext context);
     
+    /**
+     * Maps the source Iterable into a new Map, sized to hold the expected
+     * number of entries.
+     * 
+     * @param source
+     *            the Iterable from which to map
+     * @param sourceType
+     *            the type of the source elements
+     * @param destinationType
+     *            the type of the returned Map
+     * @param sizeHint
+     *            the expected number of entries, used to size the returned
+     *            Map
+     * @return a new Map containing the entries mapped from
+     *         <code>source</code>
+     */
+    <S, Dk, Dv> Map<Dk, Dv> mapAsMap(Iterable<S> source, Type<S> sourceType, Type<? extends Map<Dk, Dv>> destinationType, int sizeHint);
+    
+    /**
+     * Maps the source Iterable into a new Map, sized to hold the expected
+     * number of entries.
+     * 
+     * @param source
+     *            the Iterable from which to map
+     * @param sourceType
+     *            the type of the source elements
+     * @param destinationType
+     *            the type of the returned Map
+     * @param sizeHint
+     *            the expected number of entries, used to size the returned
+     *            Map
+     * @param context
+     *            the context from the current mapping request
+     * @return a new Map containing the entries mapped from
+     *         <code>source</code>
+     */
+    <S, Dk, Dv> Map<Dk, Dv> mapAsMap(Iterable<S> source, Type<S> sourceType, Type<? extends Map<Dk, Dv>> destinationType, int sizeHint,
+            MappingContext context);
+    
     <S, Dk, Dv> Map<Dk, Dv> mapAsMap(S[] source, Type<S> sourceType, Type<? extends Map<Dk, Dv>> destinationType);
     
     <S, Dk, Dv> Map<Dk, Dv> mapAsMap(S[] source, Type<S> sourceType, Type<? extends Map<Dk, Dv>> destinationType, MappingContext context);
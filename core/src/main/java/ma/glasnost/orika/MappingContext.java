@@ -20,42 +20,126 @@ package ma.glasnost.orika;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import ma.glasnost.orika.metadata.ClassMap;
 import ma.glasnost.orika.metadata.MapperKey;
 import ma.glasnost.orika.metadata.Type;
 import ma.glasnost.orika.metadata.TypeFactory;
+import ma.glasnost.orika.util.StripedCounter;
 
 public class MappingContext {
 	
-	private final Map<Type<?>, Type<?>> mapping;
-	private final Map<java.lang.reflect.Type, Map<Object, Object>> cache;
+	/**
+	 * The number of entries beyond which a table is re-allocated, rather than
+	 * cleared, when the context is reset
+	 */
+	private static final int MAX_RETAINED_ENTRIES = 64;
+	
+	private Map<Type<?>, Type<?>> mapping;
+	private MappedObjects cache;
 	private List<Map<MapperKey, ClassMap<?,?>>> mappersSeen;
 	private Map<Object, Object> properties;
 	private Map<Object, Object> globalProperties;
 	private boolean isNew = true;
 	private int depth;
+	private MappingContext identityOwner;
 	private Type<?> resolvedSourceType;
 	private Type<?> resolvedDestinationType;
 	
+	/**
+	 * The default MappingContextFactory, which recycles released contexts through
+	 * a bounded pool.<br>
+	 * <br>
+	 * The pool is split into stripes of a few slots each; a thread always uses
+	 * the stripe selected by its id, so that threads running on different cores
+	 * rarely touch the same slots, and taking or returning a context is a single
+	 * compare-and-set, without any locking. When a thread finds no pooled
+	 * context in its stripe, a new one is created; when a released context finds
+	 * no free slot, it is simply discarded. The number of retained contexts
+	 * therefore never exceeds the capacity of the pool, regardless of how many
+	 * threads are mapping.<br>
+	 * <br>
+	 * Contexts whose internal tables have grown beyond a modest size (after
+	 * mapping a very large graph) are trimmed on release, so that they don't
+	 * retain that capacity, nor pay for clearing it on every subsequent reset.
+	 */
 	public static class Factory implements MappingContextFactory {
 
-	    LinkedBlockingQueue<MappingContext> contextQueue = new LinkedBlockingQueue<MappingContext>();
+	    /**
+	     * The number of slots in each stripe of the pool
+	     */
+	    private static final int SLOTS_PER_STRIPE = 4;
+
+	    private final AtomicReferenceArray<MappingContext> pool;
+	    private final int stripeMask;
+	    private final StripedCounter created = new StripedCounter();
+	    private final StripedCounter reused = new StripedCounter();
+	    private final StripedCounter discarded = new StripedCounter();
+	    private final StripedCounter trimmed = new StripedCounter();
 	    ConcurrentHashMap<Object, Object> globalProperties = new ConcurrentHashMap<Object, Object>();
-	    
+
+	    /**
+	     * Constructs a new Factory, whose pool capacity is proportional to the
+	     * number of available processors.
+	     */
+	    public Factory() {
+	        this(2 * SLOTS_PER_STRIPE * Runtime.getRuntime().availableProcessors());
+	    }
+
+	    /**
+	     * Constructs a new Factory with the specified pool capacity
+	     * 
+	     * @param capacity
+	     *            the (approximate) maximum number of released contexts retained
+	     *            for reuse; rounded up to a whole (power of 2) number of stripes
+	     */
+	    public Factory(int capacity) {
+	        if (capacity < 0) {
+	            throw new IllegalArgumentException("capacity must not be negative");
+	        }
+	        int stripes = 1;
+	        while (stripes * SLOTS_PER_STRIPE < capacity) {
+	            stripes <<= 1;
+	        }
+	        this.stripeMask = stripes - 1;
+	        this.pool = new AtomicReferenceArray<MappingContext>(stripes * SLOTS_PER_STRIPE);
+	    }
+
+	    private int stripeOffset() {
+	        return ((int) Thread.currentThread().getId() & stripeMask) * SLOTS_PER_STRIPE;
+	    }
+
         public MappingContext getContext() {
-            MappingContext context = contextQueue.poll();
-            return context != null ? context : new MappingContext(globalProperties);
+            int offset = stripeOffset();
+            for (int i = offset, end = offset + SLOTS_PER_STRIPE; i < end; ++i) {
+                if (pool.get(i) != null) {
+                    MappingContext context = pool.getAndSet(i, null);
+                    if (context != null) {
+                        reused.increment();
+                        return context;
+                    }
+                }
+            }
+            created.increment();
+            return new MappingContext(globalProperties);
         }
         
         public void release(MappingContext context) {
+            if (context.isOversized()) {
+                trimmed.increment();
+            }
             context.reset();
-            contextQueue.offer(context);
+            int offset = stripeOffset();
+            for (int i = offset, end = offset + SLOTS_PER_STRIPE; i < end; ++i) {
+                if (pool.get(i) == null && pool.compareAndSet(i, null, context)) {
+                    return;
+                }
+            }
+            discarded.increment();
         }
 
         /* (non-Javadoc)
@@ -64,12 +148,68 @@ public class MappingContext {
         public Map<Object, Object> getGlobalProperties() {
             return globalProperties;
         }
+
+        /**
+         * @return the maximum number of contexts retained by the pool
+         */
+        public int getPoolCapacity() {
+            return pool.length();
+        }
+
+        /**
+         * @return the number of released contexts currently held by the pool
+         */
+        public int getPoolSize() {
+            int size = 0;
+            for (int i = 0, len = pool.length(); i < len; ++i) {
+                if (pool.get(i) != null) {
+                    ++size;
+                }
+            }
+            return size;
+        }
+
+        /**
+         * @return the number of contexts created because none was available
+         *         from the pool
+         */
+        public long getCreatedCount() {
+            return created.get();
+        }
+
+        /**
+         * @return the number of contexts served from the pool
+         */
+        public long getReusedCount() {
+            return reused.get();
+        }
+
+        /**
+         * @return the number of released contexts which were discarded because
+         *         the pool was full
+         */
+        public long getDiscardedCount() {
+            return discarded.get();
+        }
+
+        /**
+         * @return the number of released contexts whose oversized tables were
+         *         trimmed
+         */
+        public long getTrimmedCount() {
+            return trimmed.get();
+        }
+        
+        public String toString() {
+            return getClass().getSimpleName() + "[poolSize=" + getPoolSize() + ", poolCapacity=" + getPoolCapacity() + ", created="
+                    + created + ", reused=" + reused + ", discarded=" + discarded + ", trimmed=" + trimmed + "]";
+        }
 	}
 	
 
 	private MappingContext(Map<Object, Object> globalProperties) {
 		this.mapping = new HashMap<Type<?>, Type<?>>();
-		this.cache = new HashMap<java.lang.reflect.Type, Map<Object, Object>>();
+		this.cache = new MappedObjects();
 		this.globalProperties = globalProperties;
 	}
 	
@@ -99,20 +239,13 @@ public class MappingContext {
 
 	public <S, D> void cacheMappedObject(S source, java.lang.reflect.Type destinationType,
 			D destination) {
-		Map<Object, Object> localCache = cache.get(destinationType);
-		if (localCache == null) {
-			localCache = new IdentityHashMap<Object, Object>(2);
-			cache.put(destinationType, localCache);
-			
-		}
-		localCache.put(source, destination);
-		
-		// Quick fix for Issue 68
-		Type<D> dest = TypeFactory.valueOf(destinationType);
-		for (Type<?> t : dest.getInterfaces()) {
-			cacheMappedObject(source, t, destination);
+		if (identityOwner != null) {
+		    synchronized (identityOwner) {
+		        identityOwner.cache.put(source, destinationType, destination);
+		    }
+		} else {
+		    cache.put(source, destinationType, destination);
 		}
-		
 		isNew = false;
 	}
 
@@ -124,21 +257,44 @@ public class MappingContext {
 	 */
 	@Deprecated
 	public <S, D> boolean isAlreadyMapped(S source, java.lang.reflect.Type destinationType) {
-		if (isNew) {
-		    return false;
-		}
-		Map<Object, Object> localCache = cache.get(destinationType);
-		return (localCache != null && localCache.get(source) != null);
+		return getMappedObject(source, destinationType) != null;
 	}
 
 	@SuppressWarnings("unchecked")
 	public <D> D getMappedObject(Object source, java.lang.reflect.Type destinationType) {
 		
+	    if (identityOwner != null) {
+	        synchronized (identityOwner) {
+	            return (D) identityOwner.cache.get(source, destinationType);
+	        }
+	    }
 	    if (isNew) {
 	        return null;
 	    }
-	    Map<Object, Object> localCache = cache.get(destinationType);
-		return (D) (localCache == null ? null : localCache.get(source));
+		return (D) cache.get(source, destinationType);
+	}
+	
+	/**
+	 * Shares the identity of mapped objects with another context, the owner:
+	 * until this context is reset, objects are cached in (and looked up from)
+	 * the owner's table of mapped objects, rather than this context's own.<br>
+	 * <br>
+	 * Access to the owner's table is synchronized on the owner, so that several
+	 * contexts, in use on different threads, may share the same owner; a source
+	 * object which is reached by each of them maps to a single destination
+	 * object, except when two of them first reach it at the same time. Since
+	 * looking up an object and caching its destination are synchronized
+	 * separately, the sharing is only best-effort. The owner itself should
+	 * not be used for mapping while it is shared.
+	 * 
+	 * @param owner
+	 *            the context whose table of mapped objects is to be shared
+	 */
+	public void shareMappedObjects(MappingContext owner) {
+	    if (owner == this) {
+	        throw new IllegalArgumentException("A context cannot share the mapped objects of itself");
+	    }
+	    this.identityOwner = owner.identityOwner != null ? owner.identityOwner : owner;
 	}
 
 	/**
@@ -174,17 +330,39 @@ public class MappingContext {
 	    --depth;
 	}
 	
+    /**
+     * @return true if any of this context's tables have grown beyond the size
+     *         which is retained across a reset
+     */
+    private boolean isOversized() {
+        return cache.size() > MAX_RETAINED_ENTRIES || mapping.size() > MAX_RETAINED_ENTRIES
+                || (properties != null && properties.size() > MAX_RETAINED_ENTRIES);
+    }
+    
     public void reset() {
-        cache.clear();
-        mapping.clear();
+        if (cache.size() > MAX_RETAINED_ENTRIES) {
+            cache = new MappedObjects();
+        } else {
+            cache.clear();
+        }
+        if (mapping.size() > MAX_RETAINED_ENTRIES) {
+            mapping = new HashMap<Type<?>, Type<?>>();
+        } else {
+            mapping.clear();
+        }
         if (properties != null) {
-            properties.clear();
+            if (properties.size() > MAX_RETAINED_ENTRIES) {
+                properties = null;
+            } else {
+                properties.clear();
+            }
         }
         if (mappersSeen != null) {
             mappersSeen.clear();
         }
         isNew = true;
         depth = 0;
+        identityOwner = null;
     }
     
     public void setProperty(Object key, Object value) {
@@ -257,4 +435,160 @@ public class MappingContext {
         }
     }
 	
+    /**
+     * The objects mapped within a context, keyed by the identity of the source
+     * object and the destination type (by equality).<br>
+     * <br>
+     * Entries are held in a single open-addressed table (with linear probing
+     * on the identity hash of the source), so that caching an object requires
+     * no allocation beyond the occasional growth of the table; the slots in use
+     * are recorded, so that clearing the table takes time proportional to the
+     * number of entries rather than its capacity.<br>
+     * <br>
+     * An object cached for a destination type is also returned when it is
+     * looked up by any of the interfaces of that type (see Issue 68); rather
+     * than storing an entry for each of those interfaces, the interfaces are
+     * only examined when a lookup by an interface type finds other entries for
+     * the same source; of several matches, the most recently cached wins.
+     */
+    private static final class MappedObjects {
+        
+        private static final int INITIAL_CAPACITY = 16;
+        
+        /*
+         * Triplets of (source, destinationType, destination)
+         */
+        private Object[] entries;
+        /*
+         * The order in which each slot was last written
+         */
+        private int[] stamps;
+        private int[] usedSlots;
+        private int size;
+        private int stamp;
+        
+        int size() {
+            return size;
+        }
+        
+        void put(Object source, java.lang.reflect.Type destinationType, Object destination) {
+            if (entries == null) {
+                allocate(INITIAL_CAPACITY);
+            }
+            int mask = stamps.length - 1;
+            for (int slot = indexFor(source, mask);; slot = (slot + 1) & mask) {
+                int index = slot * 3;
+                Object current = entries[index];
+                if (current == null) {
+                    entries[index] = source;
+                    entries[index + 1] = destinationType;
+                    entries[index + 2] = destination;
+                    stamps[slot] = ++stamp;
+                    usedSlots[size++] = slot;
+                    if (size * 2 > stamps.length) {
+                        grow();
+                    }
+                    return;
+                } else if (current == source && equals(destinationType, entries[index + 1])) {
+                    entries[index + 2] = destination;
+                    stamps[slot] = ++stamp;
+                    return;
+                }
+            }
+        }
+        
+        Object get(Object source, java.lang.reflect.Type destinationType) {
+            if (size == 0) {
+                return null;
+            }
+            Type<?> interfaceType = null;
+            if (destinationType instanceof Type && ((Type<?>) destinationType).getRawType().isInterface()) {
+                interfaceType = (Type<?>) destinationType;
+            }
+            Object result = null;
+            int resultStamp = 0;
+            int mask = stamps.length - 1;
+            for (int slot = indexFor(source, mask); entries[slot * 3] != null; slot = (slot + 1) & mask) {
+                int index = slot * 3;
+                if (entries[index] == source && stamps[slot] > resultStamp) {
+                    Object type = entries[index + 1];
+                    if (equals(destinationType, type)) {
+                        if (interfaceType == null) {
+                            return entries[index + 2];
+                        }
+                        result = entries[index + 2];
+                        resultStamp = stamps[slot];
+                    } else if (interfaceType != null && implementsInterface(type, interfaceType)) {
+                        result = entries[index + 2];
+                        resultStamp = stamps[slot];
+                    }
+                }
+            }
+            return result;
+        }
+        
+        void clear() {
+            for (int i = 0; i < size; ++i) {
+                int index = usedSlots[i] * 3;
+                entries[index] = null;
+                entries[index + 1] = null;
+                entries[index + 2] = null;
+            }
+            size = 0;
+            stamp = 0;
+        }
+        
+        private void allocate(int capacity) {
+            entries = new Object[capacity * 3];
+            stamps = new int[capacity];
+            usedSlots = new int[capacity / 2 + 1];
+        }
+        
+        private void grow() {
+            Object[] oldEntries = entries;
+            int[] oldStamps = stamps;
+            int[] oldUsedSlots = usedSlots;
+            int oldSize = size;
+            allocate(stamps.length * 2);
+            size = 0;
+            int mask = stamps.length - 1;
+            for (int i = 0; i < oldSize; ++i) {
+                int oldSlot = oldUsedSlots[i];
+                int oldIndex = oldSlot * 3;
+                int slot = indexFor(oldEntries[oldIndex], mask);
+                while (entries[slot * 3] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                System.arraycopy(oldEntries, oldIndex, entries, slot * 3, 3);
+                stamps[slot] = oldStamps[oldSlot];
+                usedSlots[size++] = slot;
+            }
+        }
+        
+        private static int indexFor(Object source, int mask) {
+            int h = System.identityHashCode(source);
+            h ^= (h >>> 16);
+            h *= 0x85ebca6b;
+            h ^= (h >>> 13);
+            return h & mask;
+        }
+        
+        private static boolean equals(java.lang.reflect.Type type, Object other) {
+            return type == other || (type != null && type.equals(other));
+        }
+        
+        /**
+         * @return true if the interfaceType is among the (generic) interfaces
+         *         of the given type, or of their super-interfaces
+         */
+        private static boolean implementsInterface(Object type, Type<?> interfaceType) {
+            Type<?> candidate = type instanceof Type ? (Type<?>) type : TypeFactory.valueOf((java.lang.reflect.Type) type);
+            for (Type<?> iface : candidate.getInterfaces()) {
+                if (interfaceType.equals(iface) || implementsInterface(iface, interfaceType)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
\ No newline at end of file
@@ -94,4 +94,28 @@ public final class OrikaSystemProperties {
      */
     public static final String USE_STRATEGY_CACHE = "ma.glasnost.orika.useStrategyCache";
     
+    /**
+     * Specifies a directory in which the bytecode of generated mappers and object factories
+     * should be cached, so that it can be reused (rather than compiled again) by later JVMs;
+     * see {@link ma.glasnost.orika.impl.generator.BytecodeCache}.<br><br>
+     * default value is <code>null</code> (no bytecode cache is used)
+     */
+    public static final String BYTECODE_CACHE_PATH = "ma.glasnost.orika.bytecodeCachePath";
+    
+    /**
+     * Specifies whether the mapper and object factory classes generated at build time
+     * (see {@link ma.glasnost.orika.impl.generator.MapperPregenerator}) should be used
+     * when they are found on the context class-loader;<br><br>
+     * default value is <code>true</code>
+     */
+    public static final String USE_PREGENERATED_CLASSES = "ma.glasnost.orika.usePregeneratedClasses";
+    
+    /**
+     * Specifies whether the classes generated by the Javassist compiler strategy should each be
+     * defined in a class-loader of their own, so that they can be unloaded once the mapper factory
+     * which uses them is no longer referenced; valid choices are "true" or "false".<br><br>
+     * default value is <code>false</code>
+     */
+    public static final String UNLOADABLE_CLASSES = "ma.glasnost.orika.unloadableClasses";
+    
 }
@@ -30,32 +30,64 @@ import ma.glasnost.orika.metadata.ConverterKey;
 import ma.glasnost.orika.metadata.Type;
 import ma.glasnost.orika.metadata.TypeFactory;
 import ma.glasnost.orika.util.Cache;
-import ma.glasnost.orika.util.CacheLRULinkedHashMap;
 import ma.glasnost.orika.util.SortedSet;
 
+/**
+ * DefaultConverterFactory is the default implementation of ConverterFactory.<br>
+ * <br>
+ * Resolved converters are kept in a concurrent index keyed by the (source,
+ * destination) type pair, which also records the pairs for which no converter
+ * exists; after the first lookup of a given pair, both <code>canConvert</code>
+ * and <code>getConverter</code> are answered by a single hash lookup, from any
+ * number of threads. The index is invalidated whenever a converter is
+ * registered.
+ */
 public class DefaultConverterFactory implements ConverterFactory {
     
-    private static final int CACHE_SIZE = 2000;
-    private final Cache<ConverterKey, Converter<Object, Object>> converterCache;
+    /**
+     * Marks a type pair for which no converter could be found
+     */
+    private static final Object NO_CONVERTER = new Object();
+    
+    private final ConcurrentHashMap<ConverterKey, Object> converterIndex;
     private final Set<Converter<Object, Object>> converters;
     private final Map<String, Converter<Object, Object>> convertersMap;
     private MapperFacade mapperFacade;
     
-    public DefaultConverterFactory(Cache<ConverterKey, Converter<Object, Object>> converterCache, Set<Converter<Object, Object>> converters) {
+    /**
+     * Constructs a new DefaultConverterFactory, initialized with the provided
+     * converters
+     * 
+     * @param converters
+     */
+    public DefaultConverterFactory(Set<Converter<Object, Object>> converters) {
         super();
-        this.converterCache = converterCache;
+        this.converterIndex = new ConcurrentHashMap<ConverterKey, Object>();
         this.converters = new SortedSet<Converter<Object,Object>>(converters, Comparators.CONVERTER);
         this.convertersMap = new ConcurrentHashMap<String, Converter<Object, Object>>();
     }
     
+    /**
+     * @param converterCache
+     *            ignored; resolved converters are held in an internal index
+     * @param converters
+     * @deprecated use {@link #DefaultConverterFactory(Set)} instead
+     */
+    @Deprecated
+    public DefaultConverterFactory(Cache<ConverterKey, Converter<Object, Object>> converterCache, Set<Converter<Object, Object>> converters) {
+        this(converters);
+    }
+    
     public DefaultConverterFactory() {
-        this(new CacheLRULinkedHashMap<ConverterKey, Converter<Object, Object>>(CACHE_SIZE), new LinkedHashSet<Converter<Object, Object>>());
+        this(new LinkedHashSet<Converter<Object, Object>>());
     }
     
     public void setMapperFacade(MapperFacade mapperFacade) {
     	this.mapperFacade = mapperFacade;
-    	for (Converter<?,?> converter: converters) {
-    		converter.setMapperFacade(mapperFacade);
+    	synchronized (converters) {
+    	    for (Converter<?,?> converter: converters) {
+    	        converter.setMapperFacade(mapperFacade);
+    	    }
     	}
     	for (Converter<?,?> converter: convertersMap.values()) {
     		converter.setMapperFacade(mapperFacade);
@@ -70,48 +102,7 @@ public class DefaultConverterFactory implements ConverterFactory {
      * java.lang.Class)
      */
     public boolean canConvert(Type<?> sourceType, Type<?> destinationType) {
-        boolean canConvert = _canConvert(sourceType, destinationType);
-        if (canConvert)
-            return true;
-        
-        // Maybe the converter is registered with wrapper type and meant to be
-        // used
-        // for primitive one (source or destination)
-        // source
-        if (sourceType.isPrimitive()) {
-            sourceType = TypeFactory.valueOf(ClassUtil.getWrapperType(sourceType.getRawType()));
-            canConvert = _canConvert(sourceType, destinationType);
-        }
-        if (canConvert)
-            return true;
-        
-        // Destination
-        if (destinationType.isPrimitive()) {
-            destinationType = TypeFactory.valueOf(ClassUtil.getWrapperType(destinationType.getRawType()));
-            canConvert = _canConvert(sourceType, destinationType);
-        }
-        if (canConvert)
-            return true;
-        
-        return false;
-    }
-    
-    @SuppressWarnings("unchecked")
-    private boolean _canConvert(Type<?> sourceType, Type<?> destinationType) {
-        boolean canConvert = false;
-        ConverterKey key = new ConverterKey(sourceType, destinationType);
-        if (converterCache.containsKey(key)) {
-            return true;
-        }
-        for (@SuppressWarnings("rawtypes")
-        Converter converter : converters) {
-            if (converter.canConvert(sourceType, destinationType)) {
-                converterCache.cache(key, converter);
-                canConvert = true;
-                break;
-            }
-        }
-        return canConvert;
+        return lookupConverter(sourceType, destinationType) != null;
     }
     
     /*
@@ -133,6 +124,47 @@ public class DefaultConverterFactory implements ConverterFactory {
      * , java.lang.Class)
      */
     public Converter<Object, Object> getConverter(Type<?> sourceClass, Type<?> destinationClass) {
+        return lookupConverter(sourceClass, destinationClass);
+    }
+    
+    /**
+     * Looks up the converter for the specified types in the index, resolving
+     * (and indexing) it on a miss.
+     * 
+     * @param sourceType
+     * @param destinationType
+     * @return the converter able to convert between the specified types, or
+     *         null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    private Converter<Object, Object> lookupConverter(Type<?> sourceType, Type<?> destinationType) {
+        ConverterKey key = new ConverterKey(sourceType, destinationType);
+        Object converter = converterIndex.get(key);
+        if (converter == null) {
+            synchronized (converters) {
+                converter = converterIndex.get(key);
+                if (converter == null) {
+                    converter = resolveConverter(sourceType, destinationType);
+                    if (converter == null) {
+                        converter = NO_CONVERTER;
+                    }
+                    converterIndex.put(key, converter);
+                }
+            }
+        }
+        return converter == NO_CONVERTER ? null : (Converter<Object, Object>) converter;
+    }
+    
+    /**
+     * Resolves the converter for the specified types by scanning the
+     * registered converters; must be called while holding the lock on the
+     * converters set.
+     * 
+     * @param sourceClass
+     * @param destinationClass
+     * @return the resolved converter, or null if none was found
+     */
+    private Converter<Object, Object> resolveConverter(Type<?> sourceClass, Type<?> destinationClass) {
         
         // Step verify if converter exists for sourceClass and destination
         Converter<Object, Object> converter = _converter(sourceClass, destinationClass);
@@ -163,18 +195,11 @@ public class DefaultConverterFactory implements ConverterFactory {
     }
     
     private Converter<Object, Object> _converter(Type<?> sourceClass, Type<?> destinationClass) {
-        ConverterKey key = new ConverterKey(sourceClass, destinationClass);
-        if (converterCache.containsKey(key)) {
-            return converterCache.get(key);
-        }
-        
         for (Converter<Object, Object> converter : converters) {
             if (converter.canConvert(sourceClass, destinationClass)) {
-                converterCache.cache(key, converter);
                 return converter;
             }
         }
-        
         return null;
     }
     
@@ -201,7 +226,10 @@ public class DefaultConverterFactory implements ConverterFactory {
     	if (this.mapperFacade != null) {
     		converter.setMapperFacade(mapperFacade);
     	}
-    	converters.add((Converter) converter);
+    	synchronized (converters) {
+    	    converters.add((Converter) converter);
+    	    converterIndex.clear();
+    	}
     }
     
     /*
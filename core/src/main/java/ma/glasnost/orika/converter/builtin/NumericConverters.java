@@ -33,6 +33,40 @@ import ma.glasnost.orika.metadata.Type;
  */
 public class NumericConverters {
 
+    /**
+     * Tests whether the specified converter is one of the converters between
+     * primitive wrapper types defined here which (not being configured to
+     * truncate) converts a value exactly as a cast between the primitive types
+     * would, except that an ArithmeticException is thrown for a value which is
+     * too large or too small to be represented by the smaller of the two types;
+     * generated code may perform such conversions inline.
+     * 
+     * @param converter
+     * @return true if the converter is equivalent to a checked primitive cast
+     */
+    public static boolean isCheckedPrimitiveConverter(Object converter) {
+        if (converter instanceof IntegerToShortConverter) {
+            return !((IntegerToShortConverter) converter).truncate;
+        } else if (converter instanceof LongToShortConverter) {
+            return !((LongToShortConverter) converter).truncate;
+        } else if (converter instanceof LongToIntegerConverter) {
+            return !((LongToIntegerConverter) converter).truncate;
+        } else if (converter instanceof DoubleToLongConverter) {
+            return !((DoubleToLongConverter) converter).truncate;
+        } else if (converter instanceof DoubleToIntegerConverter) {
+            return !((DoubleToIntegerConverter) converter).truncate;
+        } else if (converter instanceof DoubleToShortConverter) {
+            return !((DoubleToShortConverter) converter).truncate;
+        } else if (converter instanceof FloatToLongConverter) {
+            return !((FloatToLongConverter) converter).truncate;
+        } else if (converter instanceof FloatToIntegerConverter) {
+            return !((FloatToIntegerConverter) converter).truncate;
+        } else if (converter instanceof FloatToShortConverter) {
+            return !((FloatToShortConverter) converter).truncate;
+        }
+        return false;
+    }
+
 	/**
 	 * Provides conversion between BigDecimal and Double.<br><br>
 	 * <strong>Note:</strong> please consider the typical warnings regarding 
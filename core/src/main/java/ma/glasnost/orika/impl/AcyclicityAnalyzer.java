@@ -0,0 +1,446 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ma.glasnost.orika.Mapper;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.converter.ConverterFactory;
+import ma.glasnost.orika.impl.MapperRegistry.TypePair;
+import ma.glasnost.orika.impl.util.ClassUtil;
+import ma.glasnost.orika.metadata.ClassMap;
+import ma.glasnost.orika.metadata.FieldMap;
+import ma.glasnost.orika.metadata.Type;
+
+/**
+ * AcyclicityAnalyzer determines, from the registered class maps alone, whether
+ * mapping a given pair of types can ever revisit an object which is already
+ * being mapped; if it cannot, there is no need to record mapped objects in the
+ * MappingContext for that pair.<br>
+ * <br>
+ * The analysis is performed over the graph of type pairs: the fields mapped by
+ * a class map lead to the pairs of their property types, collections and
+ * arrays lead to the pair of their element types, and maps lead to the pairs
+ * of their key and value types. Since an object may be mapped by any class map
+ * registered for a sub-type or super-type of its declared type, all such class
+ * maps are followed as well. Pairs for which no class map is registered are
+ * followed through the class map that would be generated for them by default.<br>
+ * <br>
+ * A pair is only reported as acyclic when no cycle is reachable from it; pairs
+ * which cannot be analyzed (such as those handled by custom mappers, or those
+ * declared as Object) are treated as cyclic. Note however that the analysis only
+ * knows of the registered types: an object of an unregistered sub-type may
+ * still close a cycle at runtime, which is why it is only performed when
+ * enabled through
+ * {@link DefaultMapperFactory.MapperFactoryBuilder#skipIdentityTrackingForAcyclicGraphs(boolean)}.<br>
+ * <br>
+ * Class maps and mappers are added to the analysis as they are registered, and
+ * the results are cached; a cached acyclic result is forgotten when a related
+ * class map or mapper is added, and the generated mappers which were flagged
+ * as acyclic on the strength of that result have their flag cleared.
+ */
+final class AcyclicityAnalyzer {
+
+    /**
+     * The maximum depth of type pairs explored before giving up; guards against
+     * (unlikely) recursive generic declarations which produce an unbounded
+     * number of distinct types
+     */
+    private static final int MAX_DEPTH = 64;
+
+    private final MapperFactory mapperFactory;
+    private final ConverterFactory converterFactory;
+    private final HierarchyIndex<Node> nodes = new HierarchyIndex<Node>();
+    private final Map<TypePair, Node> classMapNodes = new HashMap<TypePair, Node>();
+    private final Map<TypePair, Boolean> results = new HashMap<TypePair, Boolean>();
+    private final HierarchyIndex<TypePair> acyclicPairs = new HierarchyIndex<TypePair>();
+    private final Map<TypePair, Set<TypePair>> dependents = new HashMap<TypePair, Set<TypePair>>();
+    private final Map<TypePair, List<GeneratedMapperBase>> acyclicMappers = new HashMap<TypePair, List<GeneratedMapperBase>>();
+    private final Set<TypePair> visiting = new HashSet<TypePair>();
+    private final List<TypePair> path = new ArrayList<TypePair>();
+
+    /**
+     * @param mapperFactory
+     *            the mapper factory used to predict the class maps of pairs
+     *            which have none registered
+     * @param converterFactory
+     *            the converter factory, whose convertible pairs are leaves
+     */
+    AcyclicityAnalyzer(MapperFactory mapperFactory, ConverterFactory converterFactory) {
+        this.mapperFactory = mapperFactory;
+        this.converterFactory = converterFactory;
+    }
+
+    /**
+     * Adds a registered class map to the analysis, replacing any class map
+     * previously added for the same pair of types.
+     *
+     * @param classMap
+     */
+    synchronized void addClassMap(ClassMap<Object, Object> classMap) {
+        TypePair key = new TypePair(classMap.getAType(), classMap.getBType());
+        Node previous = classMapNodes.get(key);
+        if (previous != null) {
+            if (previous.classMap == classMap) {
+                return;
+            }
+            nodes.remove(previous.aType, previous.bType, previous);
+        }
+        Node node = new Node(classMap.getAType(), classMap.getBType(), classMap.getCustomizedMapper() == null ? classMap : null);
+        classMapNodes.put(key, node);
+        add(node);
+    }
+
+    /**
+     * Adds a registered mapper to the analysis; mappers which were not
+     * generated from a class map cannot be analyzed.
+     *
+     * @param mapper
+     */
+    synchronized void addMapper(Mapper<Object, Object> mapper) {
+        if (!(mapper instanceof GeneratedMapperBase) && !(mapper instanceof LazyMapper)) {
+            add(new Node(mapper.getAType(), mapper.getBType(), null));
+        }
+    }
+
+    /**
+     * Indexes the specified node, and forgets the pairs previously found to be
+     * acyclic which are related to it (along with those which depended upon
+     * them), since the node may introduce a cycle; pairs found to contain a
+     * cycle remain so.
+     */
+    private void add(Node node) {
+        nodes.add(node.aType, node.bType, node);
+        for (TypePair pair : acyclicPairs.find(node.aType, node.bType)) {
+            if (node.relatesTo(pair.getAType(), pair.getBType()) != null) {
+                invalidate(pair);
+            }
+        }
+    }
+
+    private void invalidate(TypePair pair) {
+        if (Boolean.TRUE.equals(results.get(pair))) {
+            results.remove(pair);
+            acyclicPairs.remove(pair.getAType(), pair.getBType(), pair);
+            List<GeneratedMapperBase> mappers = acyclicMappers.remove(pair);
+            if (mappers != null) {
+                /*
+                 * The strategies which use these mappers read the flag on
+                 * each use, so they resume recording mapped objects even if
+                 * they are cached
+                 */
+                for (GeneratedMapperBase mapper : mappers) {
+                    mapper.setAcyclic(false);
+                }
+            }
+            Set<TypePair> dependentPairs = dependents.remove(pair);
+            if (dependentPairs != null) {
+                for (TypePair dependent : dependentPairs) {
+                    invalidate(dependent);
+                }
+            }
+        }
+    }
+
+    /**
+     * Determines whether mapping between the specified types (in either
+     * direction) is free of cycles.
+     *
+     * @param aType
+     * @param bType
+     * @return true if no cycle is reachable from the pair of types
+     */
+    synchronized boolean isAcyclic(Type<?> aType, Type<?> bType) {
+        return visit(aType, bType);
+    }
+
+    /**
+     * Flags the specified mapper according to whether mapping between its
+     * types is free of cycles; the flag is cleared again if a class map or
+     * mapper later registered invalidates that result.
+     *
+     * @param mapper
+     */
+    synchronized void analyze(GeneratedMapperBase mapper) {
+        boolean acyclic = visit(mapper.getAType(), mapper.getBType());
+        mapper.setAcyclic(acyclic);
+        TypePair key = new TypePair(mapper.getAType(), mapper.getBType());
+        if (acyclic && Boolean.TRUE.equals(results.get(key))) {
+            List<GeneratedMapperBase> mappers = acyclicMappers.get(key);
+            if (mappers == null) {
+                mappers = new ArrayList<GeneratedMapperBase>(1);
+                acyclicMappers.put(key, mappers);
+            }
+            mappers.add(mapper);
+        }
+    }
+
+    private boolean visit(Type<?> aType, Type<?> bType) {
+        if (aType == null || bType == null) {
+            return false;
+        }
+        if (ClassUtil.isImmutable(aType) || ClassUtil.isImmutable(bType) || converterFactory.canConvert(aType, bType)) {
+            return true;
+        }
+        if (Object.class.equals(aType.getRawType()) || Object.class.equals(bType.getRawType())) {
+            return false;
+        }
+        if (aType.isMultiOccurrence() || bType.isMultiOccurrence()) {
+            return visitElements(aType, bType);
+        }
+
+        TypePair key = new TypePair(aType, bType);
+        if (!path.isEmpty()) {
+            addDependent(key, path.get(path.size() - 1));
+        }
+        Boolean known = results.get(key);
+        if (known != null) {
+            return known.booleanValue();
+        }
+        if (visiting.size() >= MAX_DEPTH || !visiting.add(key)) {
+            /*
+             * Either a back-edge (a cycle), or too deep to tell
+             */
+            return false;
+        }
+        path.add(key);
+        boolean acyclic = expand(aType, bType);
+        path.remove(path.size() - 1);
+        visiting.remove(key);
+        /*
+         * A pair found to be acyclic cannot have depended upon any pair still
+         * being visited (which would have been reported as a cycle), so the
+         * result holds regardless of the path by which it was reached
+         */
+        results.put(key, Boolean.valueOf(acyclic));
+        if (acyclic) {
+            acyclicPairs.add(aType, bType, key);
+        }
+        return acyclic;
+    }
+
+    private void addDependent(TypePair pair, TypePair dependent) {
+        Set<TypePair> dependentPairs = dependents.get(pair);
+        if (dependentPairs == null) {
+            dependentPairs = new HashSet<TypePair>(4);
+            dependents.put(pair, dependentPairs);
+        }
+        dependentPairs.add(dependent);
+    }
+
+    private boolean visitElements(Type<?> aType, Type<?> bType) {
+        if (aType.isMap() && bType.isMap()) {
+            Type<?> aMap = aType.findAncestor(Map.class);
+            Type<?> bMap = bType.findAncestor(Map.class);
+            if (aMap == null || bMap == null || !aMap.isParameterized() || !bMap.isParameterized()) {
+                return false;
+            }
+            return visit(aMap.getNestedType(0), bMap.getNestedType(0)) && visit(aMap.getNestedType(1), bMap.getNestedType(1));
+        } else if (!aType.isMap() && !bType.isMap() && aType.isMultiOccurrence() && bType.isMultiOccurrence()) {
+            return visit(elementType(aType), elementType(bType));
+        } else {
+            return false;
+        }
+    }
+
+    private static Type<?> elementType(Type<?> type) {
+        if (type.isArray()) {
+            return type.getComponentType();
+        }
+        Type<?> collection = type.findAncestor(Collection.class);
+        return collection != null && collection.isParameterized() ? collection.getNestedType(0) : null;
+    }
+
+    private boolean expand(Type<?> aType, Type<?> bType) {
+        boolean exact = false;
+        Map<Node, Boolean> related = new IdentityHashMap<Node, Boolean>();
+        collectRelated(aType, bType, related);
+        for (Node node : related.keySet()) {
+            if ((node.aType.equals(aType) && node.bType.equals(bType)) || (node.aType.equals(bType) && node.bType.equals(aType))) {
+                exact = true;
+            }
+        }
+        if (!exact) {
+            Node predicted = predict(aType, bType);
+            if (predicted == null) {
+                return false;
+            }
+            related.put(predicted, Boolean.FALSE);
+        }
+
+        for (Map.Entry<Node, Boolean> entry : related.entrySet()) {
+            ClassMap<Object, Object> classMap = entry.getKey().classMap;
+            if (classMap == null) {
+                return false;
+            }
+            boolean reversed = entry.getValue().booleanValue();
+            for (FieldMap fieldMap : classMap.getFieldsMapping()) {
+                if (fieldMap.isExcluded() || fieldMap.isIgnored() || fieldMap.getConverterId() != null) {
+                    continue;
+                }
+                boolean acyclic = reversed ? visit(fieldMap.getBType(), fieldMap.getAType()) : visit(fieldMap.getAType(),
+                        fieldMap.getBType());
+                if (!acyclic) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects the nodes whose types are related (by assignment, in either
+     * direction) to the specified pair, mapped to whether they relate to it in
+     * reverse.
+     */
+    private void collectRelated(Type<?> aType, Type<?> bType, Map<Node, Boolean> related) {
+        for (Node node : nodes.find(aType, bType)) {
+            Boolean reversed = node.relatesTo(aType, bType);
+            if (reversed != null) {
+                related.put(node, reversed);
+            }
+        }
+    }
+
+    private static boolean isRelated(Type<?> type, Type<?> other) {
+        return type.isAssignableFrom(other) || other.isAssignableFrom(type);
+    }
+
+    private Node predict(Type<?> aType, Type<?> bType) {
+        try {
+            ClassMap<Object, Object> classMap = toObjectClassMap(mapperFactory.classMap(aType, bType).byDefault().toClassMap());
+            return new Node(classMap.getAType(), classMap.getBType(), classMap);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ClassMap<Object, Object> toObjectClassMap(ClassMap<?, ?> classMap) {
+        return (ClassMap<Object, Object>) classMap;
+    }
+
+    /**
+     * A registered pair of types; the class map is null if the mapping between
+     * the types cannot be analyzed
+     */
+    private static final class Node {
+        private final Type<Object> aType;
+        private final Type<Object> bType;
+        private final ClassMap<Object, Object> classMap;
+
+        private Node(Type<Object> aType, Type<Object> bType, ClassMap<Object, Object> classMap) {
+            this.aType = aType;
+            this.bType = bType;
+            this.classMap = classMap;
+        }
+
+        /**
+         * @return whether this node relates to the specified pair of types in
+         *         reverse, or null if it does not relate to them at all
+         */
+        private Boolean relatesTo(Type<?> aType, Type<?> bType) {
+            if (isRelated(this.aType, aType) && isRelated(this.bType, bType)) {
+                return Boolean.FALSE;
+            } else if (isRelated(this.aType, bType) && isRelated(this.bType, aType)) {
+                return Boolean.TRUE;
+            } else {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Indexes values by the raw types of a pair of types, such that the values
+     * whose types are related (by assignment, in either direction) to those of
+     * a given pair can be found without examining every value
+     */
+    private static final class HierarchyIndex<T> {
+        private final Map<Class<?>, Set<T>> byRawType = new HashMap<Class<?>, Set<T>>();
+        private final Map<Class<?>, Set<T>> byAncestor = new HashMap<Class<?>, Set<T>>();
+
+        private void add(Type<?> aType, Type<?> bType, T value) {
+            addTo(byRawType, aType.getRawType(), value);
+            addTo(byRawType, bType.getRawType(), value);
+            for (Class<?> ancestor : hierarchy(aType, bType)) {
+                addTo(byAncestor, ancestor, value);
+            }
+        }
+
+        private void remove(Type<?> aType, Type<?> bType, T value) {
+            removeFrom(byRawType, aType.getRawType(), value);
+            removeFrom(byRawType, bType.getRawType(), value);
+            for (Class<?> ancestor : hierarchy(aType, bType)) {
+                removeFrom(byAncestor, ancestor, value);
+            }
+        }
+
+        /**
+         * @return the values indexed for a super-type or a sub-type of either
+         *         of the specified types, which are candidates for relation to
+         *         them
+         */
+        private Set<T> find(Type<?> aType, Type<?> bType) {
+            Set<T> candidates = new LinkedHashSet<T>();
+            for (Class<?> type : hierarchy(aType, bType)) {
+                addAll(byRawType.get(type), candidates);
+            }
+            addAll(byAncestor.get(aType.getRawType()), candidates);
+            addAll(byAncestor.get(bType.getRawType()), candidates);
+            return candidates;
+        }
+
+        private static Set<Class<?>> hierarchy(Type<?> aType, Type<?> bType) {
+            Set<Class<?>> hierarchy = new LinkedHashSet<Class<?>>();
+            MapperRegistry.collectHierarchy(aType.getRawType(), hierarchy);
+            MapperRegistry.collectHierarchy(bType.getRawType(), hierarchy);
+            return hierarchy;
+        }
+
+        private static <T> void addTo(Map<Class<?>, Set<T>> index, Class<?> key, T value) {
+            Set<T> bucket = index.get(key);
+            if (bucket == null) {
+                bucket = new LinkedHashSet<T>(4);
+                index.put(key, bucket);
+            }
+            bucket.add(value);
+        }
+
+        private static <T> void removeFrom(Map<Class<?>, Set<T>> index, Class<?> key, T value) {
+            Set<T> bucket = index.get(key);
+            if (bucket != null && bucket.remove(value) && bucket.isEmpty()) {
+                index.remove(key);
+            }
+        }
+
+        private static <T> void addAll(Set<T> values, Set<T> candidates) {
+            if (values != null) {
+                candidates.addAll(values);
+            }
+        }
+    }
+}
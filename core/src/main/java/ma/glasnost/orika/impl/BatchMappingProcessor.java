@@ -0,0 +1,327 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import ma.glasnost.orika.BoundMapperFacade;
+import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.MappingContextFactory;
+
+/**
+ * BatchMappingProcessor maps a stream of elements pushed to it by a producer,
+ * and pushes the mapped elements, in the same order, to a {@link Subscriber}.<br>
+ * <br>
+ * Elements are collected into batches, each of which is mapped by the
+ * BoundMapperFacade within a single context, obtained from (and released to)
+ * the MappingContextFactory once per batch rather than once per element.
+ * Batches are mapped on the producer's thread, or on an executor, in which
+ * case several batches may be mapped at once; either way, the mapped elements
+ * are delivered to the subscriber one batch at a time, in the order in which
+ * the batches were submitted.<br>
+ * <br>
+ * The number of batches which have been dispatched but not yet delivered is
+ * bounded; once the bound is reached, the producer is blocked (in
+ * {@link #submit(Object)} or {@link #flush()}) until a batch has been
+ * delivered, so that a slow subscriber holds back the producer rather than
+ * letting mapped elements accumulate without limit.<br>
+ * <br>
+ * The submit(), flush() and close() methods are to be called by one producer
+ * at a time; the subscriber is never called concurrently.
+ *
+ * @param <A>
+ *            the type of the submitted elements
+ * @param <B>
+ *            the type of the mapped elements
+ */
+public class BatchMappingProcessor<A, B> {
+
+    /**
+     * Receives the mapped elements from a BatchMappingProcessor
+     *
+     * @param <B>
+     *            the type of the mapped elements
+     */
+    public interface Subscriber<B> {
+
+        /**
+         * Receives the next mapped element
+         *
+         * @param element
+         */
+        void onNext(B element);
+
+        /**
+         * Signals that a batch could not be mapped; no further elements are
+         * delivered
+         *
+         * @param throwable
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Signals that every submitted element has been delivered
+         */
+        void onComplete();
+    }
+
+    private final BoundMapperFacade<A, B> mapper;
+    private final MappingContextFactory contextFactory;
+    private final Subscriber<? super B> subscriber;
+    private final int batchSize;
+    private final Executor executor;
+    private final Semaphore pendingBatches;
+    private final LinkedList<Batch> pending = new LinkedList<Batch>();
+    private final Object deliveryLock = new Object();
+    private List<A> buffer;
+    private volatile boolean failed;
+    private boolean closed;
+
+    /**
+     * Constructs a new BatchMappingProcessor which maps each batch on the
+     * producer's thread.
+     *
+     * @param mapper
+     *            the mapper used to map the elements
+     * @param contextFactory
+     *            the factory from which the context of each batch is obtained
+     * @param subscriber
+     *            the subscriber to which the mapped elements are delivered
+     * @param batchSize
+     *            the number of elements in each batch
+     */
+    public BatchMappingProcessor(BoundMapperFacade<A, B> mapper, MappingContextFactory contextFactory,
+            Subscriber<? super B> subscriber, int batchSize) {
+        this(mapper, contextFactory, subscriber, batchSize, null, 1);
+    }
+
+    /**
+     * Constructs a new BatchMappingProcessor which maps batches on the
+     * specified executor.
+     *
+     * @param mapper
+     *            the mapper used to map the elements
+     * @param contextFactory
+     *            the factory from which the context of each batch is obtained
+     * @param subscriber
+     *            the subscriber to which the mapped elements are delivered
+     * @param batchSize
+     *            the number of elements in each batch
+     * @param executor
+     *            the executor on which batches are mapped, or null to map them
+     *            on the producer's thread
+     * @param maxPendingBatches
+     *            the number of batches which may be dispatched, but not yet
+     *            delivered, before the producer is blocked
+     */
+    public BatchMappingProcessor(BoundMapperFacade<A, B> mapper, MappingContextFactory contextFactory,
+            Subscriber<? super B> subscriber, int batchSize, Executor executor, int maxPendingBatches) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        if (maxPendingBatches < 1) {
+            throw new IllegalArgumentException("maxPendingBatches must be positive");
+        }
+        this.mapper = mapper;
+        this.contextFactory = contextFactory;
+        this.subscriber = subscriber;
+        this.batchSize = batchSize;
+        this.executor = executor;
+        this.pendingBatches = new Semaphore(maxPendingBatches);
+        this.buffer = new ArrayList<A>(batchSize);
+    }
+
+    /**
+     * Submits an element to be mapped; the current batch is dispatched once
+     * it is full. Elements submitted after a batch has failed are discarded.
+     *
+     * @param element
+     *            the element to map
+     * @throws InterruptedException
+     *             if the producer was interrupted while blocked
+     */
+    public void submit(A element) throws InterruptedException {
+        if (element == null) {
+            throw new IllegalArgumentException("element must not be null");
+        }
+        if (closed) {
+            throw new IllegalStateException("The processor has been closed");
+        }
+        if (failed) {
+            return;
+        }
+        buffer.add(element);
+        if (buffer.size() == batchSize) {
+            dispatch();
+        }
+    }
+
+    /**
+     * Dispatches the current batch, even though it is not yet full.
+     *
+     * @throws InterruptedException
+     *             if the producer was interrupted while blocked
+     */
+    public void flush() throws InterruptedException {
+        if (!buffer.isEmpty()) {
+            dispatch();
+        }
+    }
+
+    /**
+     * Dispatches the current batch, and waits until every batch has been
+     * delivered before signalling completion to the subscriber (unless a batch
+     * failed).
+     *
+     * @throws InterruptedException
+     *             if the producer was interrupted while waiting
+     */
+    public void close() throws InterruptedException {
+        if (closed) {
+            return;
+        }
+        if (!failed) {
+            flush();
+        }
+        synchronized (pending) {
+            while (!pending.isEmpty()) {
+                pending.wait();
+            }
+        }
+        closed = true;
+        if (!failed) {
+            subscriber.onComplete();
+        }
+    }
+
+    private void dispatch() throws InterruptedException {
+        Batch batch = new Batch(buffer);
+        pendingBatches.acquire();
+        buffer = new ArrayList<A>(batchSize);
+        synchronized (pending) {
+            pending.add(batch);
+        }
+        if (executor == null) {
+            batch.run();
+        } else {
+            try {
+                executor.execute(batch);
+            } catch (RejectedExecutionException e) {
+                batch.run();
+            }
+        }
+    }
+
+    /**
+     * Delivers the completed batches at the head of the pending batches, so
+     * that batches are delivered in the order in which they were submitted
+     * regardless of the order in which they complete.<br>
+     * <br>
+     * The subscriber is called without holding the lock on the pending
+     * batches, so that a slow subscriber doesn't keep batches from being
+     * dispatched or completed; the delivery lock keeps the batches collected
+     * by one thread from being overtaken by those collected by another.
+     * Delivered batches are only removed from the pending batches afterwards,
+     * so that close() waits for their delivery.
+     */
+    private void deliver() {
+        synchronized (deliveryLock) {
+            List<Batch> ready = new ArrayList<Batch>();
+            synchronized (pending) {
+                for (Batch batch : pending) {
+                    if (!batch.done) {
+                        break;
+                    }
+                    ready.add(batch);
+                }
+            }
+            if (ready.isEmpty()) {
+                return;
+            }
+            for (Batch batch : ready) {
+                if (failed) {
+                    continue;
+                }
+                if (batch.error != null) {
+                    failed = true;
+                    subscriber.onError(batch.error);
+                    continue;
+                }
+                try {
+                    for (B element : batch.results) {
+                        subscriber.onNext(element);
+                    }
+                } catch (RuntimeException e) {
+                    failed = true;
+                    subscriber.onError(e);
+                }
+            }
+            synchronized (pending) {
+                for (int i = 0; i < ready.size(); ++i) {
+                    pending.removeFirst();
+                }
+                pending.notifyAll();
+            }
+            pendingBatches.release(ready.size());
+        }
+    }
+
+    /**
+     * A batch of elements, mapped within a single context
+     */
+    private class Batch implements Runnable {
+
+        private final List<A> elements;
+        private List<B> results;
+        private Throwable error;
+        private boolean done;
+
+        private Batch(List<A> elements) {
+            this.elements = elements;
+        }
+
+        public void run() {
+            List<B> mapped = null;
+            Throwable mappingError = null;
+            if (!failed) {
+                MappingContext context = contextFactory.getContext();
+                try {
+                    mapped = new ArrayList<B>(elements.size());
+                    for (A element : elements) {
+                        mapped.add(mapper.map(element, context));
+                    }
+                } catch (Throwable t) {
+                    mappingError = t;
+                } finally {
+                    contextFactory.release(context);
+                }
+            }
+            synchronized (pending) {
+                results = mapped;
+                error = mappingError;
+                done = true;
+            }
+            deliver();
+        }
+    }
+}
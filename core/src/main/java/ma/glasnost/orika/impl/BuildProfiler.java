@@ -0,0 +1,148 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import ma.glasnost.orika.MappingContextFactory;
+import ma.glasnost.orika.constructor.ConstructorResolverStrategy;
+import ma.glasnost.orika.impl.mapping.strategy.MappingStrategy;
+import ma.glasnost.orika.metadata.ClassMap;
+import ma.glasnost.orika.metadata.ClassMapBuilder;
+import ma.glasnost.orika.metadata.Type;
+import ma.glasnost.orika.metrics.BuildProfile;
+import ma.glasnost.orika.metrics.BuildProfile.Phase;
+import ma.glasnost.orika.metrics.MappingMetrics;
+
+/**
+ * BuildProfiler collects the {@link BuildProfile} of a DefaultMapperFactory:
+ * it is passed to the mapper and object factory generators in place of the
+ * factory's MappingMetrics (to which it forwards everything it receives, if
+ * there are any), so that the time spent generating and compiling each class
+ * is recorded against the class map which required it.
+ */
+class BuildProfiler implements MappingMetrics {
+
+    private final BuildProfile profile;
+    private final MappingMetrics delegate;
+    private final ConcurrentHashMap<Type<?>, ClassMap<?, ?>> objectFactoryOwners = new ConcurrentHashMap<Type<?>, ClassMap<?, ?>>();
+
+    /**
+     * @param profile
+     *            the profile to which the build is recorded
+     * @param delegate
+     *            the metrics to which everything received is forwarded, or
+     *            null
+     */
+    BuildProfiler(BuildProfile profile, MappingMetrics delegate) {
+        this.profile = profile;
+        this.delegate = delegate;
+    }
+
+    /**
+     * Records the time spent by a builder in defining its class map.
+     *
+     * @param builder
+     */
+    void classMapDefined(ClassMapBuilder<?, ?> builder) {
+        profile.record(builder.getAType(), builder.getBType(), Phase.PROPERTY_RESOLUTION, builder.getPropertyResolutionNanos());
+        profile.record(builder.getAType(), builder.getBType(), Phase.MATCHING, builder.getMatchingNanos());
+    }
+
+    /**
+     * Records that an object factory for the specified type is required by
+     * the specified class map, so that the time spent generating it is
+     * recorded against that class map (or the first class map to require
+     * it).
+     *
+     * @param type
+     * @param classMap
+     */
+    void objectFactoryRequired(Type<?> type, ClassMap<?, ?> classMap) {
+        objectFactoryOwners.putIfAbsent(type, classMap);
+    }
+
+    /**
+     * @param constructorResolverStrategy
+     * @return a ConstructorResolverStrategy which records the time spent by
+     *         the specified strategy resolving constructors
+     */
+    ConstructorResolverStrategy profile(final ConstructorResolverStrategy constructorResolverStrategy) {
+        return new ConstructorResolverStrategy() {
+            public <T, A, B> ConstructorMapping<T> resolve(ClassMap<A, B> classMap, Type<T> sourceType) {
+                long start = System.nanoTime();
+                try {
+                    return constructorResolverStrategy.resolve(classMap, sourceType);
+                } finally {
+                    if (classMap != null) {
+                        profile.record(classMap.getAType(), classMap.getBType(), Phase.CONSTRUCTOR_RESOLUTION, System.nanoTime()
+                                - start);
+                    }
+                }
+            }
+        };
+    }
+
+    public void attach(MappingContextFactory contextFactory) {
+        if (delegate != null) {
+            delegate.attach(contextFactory);
+        }
+    }
+
+    public void mapped(Type<?> sourceType, Type<?> destinationType, long durationNanos) {
+        if (delegate != null) {
+            delegate.mapped(sourceType, destinationType, durationNanos);
+        }
+    }
+
+    public void strategyResolved(boolean cacheHit) {
+        if (delegate != null) {
+            delegate.strategyResolved(cacheHit);
+        }
+    }
+
+    public void strategyCreated(MappingStrategy strategy, String description, long durationNanos) {
+        if (delegate != null) {
+            delegate.strategyCreated(strategy, description, durationNanos);
+        }
+    }
+
+    public void mapperGenerated(ClassMap<?, ?> classMap, boolean autoGenerated, long durationNanos) {
+        if (delegate != null) {
+            delegate.mapperGenerated(classMap, autoGenerated, durationNanos);
+        }
+    }
+
+    public void mapperCompiled(ClassMap<?, ?> classMap, int fieldCount, int sourceLength, long generationNanos, long compileNanos) {
+        profile.record(classMap.getAType(), classMap.getBType(), Phase.SOURCE_GENERATION, generationNanos);
+        profile.record(classMap.getAType(), classMap.getBType(), Phase.COMPILATION, compileNanos);
+        if (delegate != null) {
+            delegate.mapperCompiled(classMap, fieldCount, sourceLength, generationNanos, compileNanos);
+        }
+    }
+
+    public void objectFactoryCompiled(Type<?> type, int sourceLength, long generationNanos, long compileNanos) {
+        ClassMap<?, ?> owner = objectFactoryOwners.get(type);
+        if (owner != null) {
+            profile.record(owner.getAType(), owner.getBType(), Phase.OBJECT_FACTORIES, generationNanos + compileNanos);
+        }
+        if (delegate != null) {
+            delegate.objectFactoryCompiled(type, sourceLength, generationNanos, compileNanos);
+        }
+    }
+}
@@ -19,9 +19,11 @@
 package ma.glasnost.orika.impl;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import ma.glasnost.orika.BoundMapperFacade;
 import ma.glasnost.orika.MapperFacade;
@@ -224,6 +226,14 @@ public class ConfigurableMapper implements MapperFacade {
         return facade.mapAsSet(source, sourceType, destinationType, context);
     }
 
+    public <S, D> Set<D> mapAsSet(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, int sizeHint) {
+        return facade.mapAsSet(source, sourceType, destinationType, sizeHint);
+    }
+
+    public <S, D> Set<D> mapAsSet(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, int sizeHint, MappingContext context) {
+        return facade.mapAsSet(source, sourceType, destinationType, sizeHint, context);
+    }
+
     public <S, D> Set<D> mapAsSet(S[] source, Type<S> sourceType, Type<D> destinationType) {
         return facade.mapAsSet(source, sourceType, destinationType);
     }
@@ -240,6 +250,31 @@ public class ConfigurableMapper implements MapperFacade {
         return facade.mapAsList(source, sourceType, destinationType, context);
     }
 
+    public <S, D> List<D> mapAsList(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, int sizeHint) {
+        return facade.mapAsList(source, sourceType, destinationType, sizeHint);
+    }
+
+    public <S, D> List<D> mapAsList(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, int sizeHint, MappingContext context) {
+        return facade.mapAsList(source, sourceType, destinationType, sizeHint, context);
+    }
+
+    public <S, D> List<D> mapAsListParallel(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, Executor executor) {
+        return facade.mapAsListParallel(source, sourceType, destinationType, executor);
+    }
+
+    public <S, D> List<D> mapAsListParallel(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, Executor executor,
+            int parallelism, boolean shareMappedObjects) {
+        return facade.mapAsListParallel(source, sourceType, destinationType, executor, parallelism, shareMappedObjects);
+    }
+
+    public <S, D> Iterator<D> mapAsIterator(Iterator<S> source, Type<S> sourceType, Type<D> destinationType) {
+        return facade.mapAsIterator(source, sourceType, destinationType);
+    }
+
+    public <S, D> Iterator<D> mapAsIterator(Iterator<S> source, Type<S> sourceType, Type<D> destinationType, int identityWindow) {
+        return facade.mapAsIterator(source, sourceType, destinationType, identityWindow);
+    }
+
     public <S, D> List<D> mapAsList(S[] source, Type<S> sourceType, Type<D> destinationType) {
         return facade.mapAsList(source, sourceType, destinationType);
     }
@@ -331,6 +366,16 @@ public class ConfigurableMapper implements MapperFacade {
         return facade.mapAsMap(source, sourceType, destinationType, context);
     }
 
+    public <S, Dk, Dv> Map<Dk, Dv> mapAsMap(Iterable<S> source, Type<S> sourceType, Type<? extends Map<Dk, Dv>> destinationType,
+            int sizeHint) {
+        return facade.mapAsMap(source, sourceType, destinationType, sizeHint);
+    }
+
+    public <S, Dk, Dv> Map<Dk, Dv> mapAsMap(Iterable<S> source, Type<S> sourceType, Type<? extends Map<Dk, Dv>> destinationType,
+            int sizeHint, MappingContext context) {
+        return facade.mapAsMap(source, sourceType, destinationType, sizeHint, context);
+    }
+
     public <S, Dk, Dv> Map<Dk, Dv> mapAsMap(S[] source, Type<S> sourceType, Type<? extends Map<Dk, Dv>> destinationType) {
         return facade.mapAsMap(source, sourceType, destinationType);
     }
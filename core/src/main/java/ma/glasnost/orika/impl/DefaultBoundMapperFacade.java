@@ -17,7 +17,10 @@
  */
 package ma.glasnost.orika.impl;
 
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 import ma.glasnost.orika.BoundMapperFacade;
 import ma.glasnost.orika.MapperFacade;
@@ -28,6 +31,7 @@ import ma.glasnost.orika.ObjectFactory;
 import ma.glasnost.orika.impl.mapping.strategy.MappingStrategy;
 import ma.glasnost.orika.metadata.Type;
 import ma.glasnost.orika.metadata.TypeFactory;
+import ma.glasnost.orika.metrics.MappingMetrics;
 
 /**
  * DefaultBoundMapperFacade is the base implementation of BoundMapperFacade
@@ -57,6 +61,7 @@ class DefaultBoundMapperFacade<A, B> implements BoundMapperFacade<A, B> {
     protected final Type<B> bType;
     protected final MapperFactory mapperFactory;
     protected final MappingContextFactory contextFactory;
+    protected final MappingMetrics metrics;
     
     /**
      * Constructs a new instance of DefaultBoundMapperFacade
@@ -77,6 +82,7 @@ class DefaultBoundMapperFacade<A, B> implements BoundMapperFacade<A, B> {
         this.bToA = new BoundStrategyCache(bType, aType, mapperFactory.getMapperFacade(), false);
         this.aToBInPlace = new BoundStrategyCache(aType, bType, mapperFactory.getMapperFacade(), true);
         this.bToAInPlace = new BoundStrategyCache(bType, aType, mapperFactory.getMapperFacade(), true);
+        this.metrics = MapperFacadeImpl.metricsOf(mapperFactory.getMapperFacade());
     }
     
     public Type<A> getAType() {
@@ -131,9 +137,13 @@ class DefaultBoundMapperFacade<A, B> implements BoundMapperFacade<A, B> {
      */
     @SuppressWarnings("unchecked")
     public B map(A instanceA, MappingContext context) {
-        B result = (B) context.getMappedObject(instanceA, bType);
-        if (result == null && instanceA != null) {
-            result = (B) aToB.getStrategy(instanceA, context).map(instanceA, null, context);
+        if (instanceA == null) {
+            return null;
+        }
+        MappingStrategy strategy = aToB.getStrategy(instanceA, context);
+        B result = MapperFacadeImpl.isAcyclic(strategy) ? null : (B) context.getMappedObject(instanceA, bType);
+        if (result == null) {
+            result = (B) MapperFacadeImpl.applyStrategy(strategy, instanceA, null, context, metrics);
         }
         return result;
     }
@@ -146,9 +156,13 @@ class DefaultBoundMapperFacade<A, B> implements BoundMapperFacade<A, B> {
      */
     @SuppressWarnings("unchecked")
     public A mapReverse(B instanceB, MappingContext context) {
-        A result = (A) context.getMappedObject(instanceB, aType);
-        if (result == null && instanceB != null) {
-            result = (A) bToA.getStrategy(instanceB, context).map(instanceB, null, context);
+        if (instanceB == null) {
+            return null;
+        }
+        MappingStrategy strategy = bToA.getStrategy(instanceB, context);
+        A result = MapperFacadeImpl.isAcyclic(strategy) ? null : (A) context.getMappedObject(instanceB, aType);
+        if (result == null) {
+            result = (A) MapperFacadeImpl.applyStrategy(strategy, instanceB, null, context, metrics);
         }
         return result;
     }
@@ -161,9 +175,13 @@ class DefaultBoundMapperFacade<A, B> implements BoundMapperFacade<A, B> {
      */
     @SuppressWarnings("unchecked")
     public B map(A instanceA, B instanceB, MappingContext context) {
-        B result = (B) context.getMappedObject(instanceA, bType);
-		if (result == null && instanceA != null) {
-            result = (B) aToBInPlace.getStrategy(instanceA, context).map(instanceA, instanceB, context);
+        if (instanceA == null) {
+            return null;
+        }
+        MappingStrategy strategy = aToBInPlace.getStrategy(instanceA, context);
+        B result = MapperFacadeImpl.isAcyclic(strategy) ? null : (B) context.getMappedObject(instanceA, bType);
+        if (result == null) {
+            result = (B) MapperFacadeImpl.applyStrategy(strategy, instanceA, instanceB, context, metrics);
         }
         return result;
     }
@@ -176,13 +194,46 @@ class DefaultBoundMapperFacade<A, B> implements BoundMapperFacade<A, B> {
      */
     @SuppressWarnings("unchecked")
     public A mapReverse(B instanceB, A instanceA, MappingContext context) {
-    	A result = (A) context.getMappedObject(instanceB, aType);
-		if (result == null && instanceB != null) {
-            result = (A) bToAInPlace.getStrategy(instanceB, context).map(instanceB, instanceA, context);
+        if (instanceB == null) {
+            return null;
+        }
+        MappingStrategy strategy = bToAInPlace.getStrategy(instanceB, context);
+        A result = MapperFacadeImpl.isAcyclic(strategy) ? null : (A) context.getMappedObject(instanceB, aType);
+        if (result == null) {
+            result = (A) MapperFacadeImpl.applyStrategy(strategy, instanceB, instanceA, context, metrics);
         }
         return result;
     }
     
+    public List<B> mapAll(Iterable<A> source, Executor executor) {
+        return mapAll(source, executor, Runtime.getRuntime().availableProcessors(), true);
+    }
+    
+    public List<B> mapAll(Iterable<A> source, Executor executor, int parallelism, boolean shareMappedObjects) {
+        return new ParallelMapping<A, B>(contextFactory, shareMappedObjects) {
+            void mapPartition(List<A> elements, int from, int to, Object[] results, MappingContext context) {
+                for (int i = from; i < to; ++i) {
+                    results[i] = DefaultBoundMapperFacade.this.map(elements.get(i), context);
+                }
+            }
+        }.map(source, executor, parallelism);
+    }
+    
+    public Iterator<B> mapAsIterator(Iterator<A> source) {
+        return mapAsIterator(source, MappingIterator.DEFAULT_IDENTITY_WINDOW);
+    }
+    
+    public Iterator<B> mapAsIterator(Iterator<A> source, int identityWindow) {
+        if (source == null) {
+            return null;
+        }
+        return new MappingIterator<A, B>(source, contextFactory, identityWindow) {
+            B mapElement(A element, MappingContext context) {
+                return DefaultBoundMapperFacade.this.map(element, context);
+            }
+        };
+    }
+    
     public String toString() {
         return getClass().getSimpleName() + "(" + aType +", " + bType + ")";
     }
@@ -31,8 +31,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ma.glasnost.orika.BoundMapperFacade;
 import ma.glasnost.orika.DefaultFieldMapper;
@@ -44,6 +53,7 @@ import ma.glasnost.orika.MappingContext;
 import ma.glasnost.orika.MappingContextFactory;
 import ma.glasnost.orika.MappingException;
 import ma.glasnost.orika.ObjectFactory;
+import ma.glasnost.orika.OrikaSystemProperties;
 import ma.glasnost.orika.Properties;
 import ma.glasnost.orika.constructor.ConstructorResolverStrategy;
 import ma.glasnost.orika.converter.ConverterFactory;
@@ -53,6 +63,8 @@ import ma.glasnost.orika.impl.generator.CompilerStrategy;
 import ma.glasnost.orika.impl.generator.CompilerStrategy.SourceCodeGenerationException;
 import ma.glasnost.orika.impl.generator.MapperGenerator;
 import ma.glasnost.orika.impl.generator.ObjectFactoryGenerator;
+import ma.glasnost.orika.impl.generator.PregeneratedClasses;
+import ma.glasnost.orika.impl.generator.PregeneratedCompilerStrategy;
 import ma.glasnost.orika.impl.util.ClassUtil;
 import ma.glasnost.orika.inheritance.DefaultSuperTypeResolverStrategy;
 import ma.glasnost.orika.inheritance.SuperTypeResolverStrategy;
@@ -65,6 +77,8 @@ import ma.glasnost.orika.metadata.ClassMapBuilderForMaps;
 import ma.glasnost.orika.metadata.MapperKey;
 import ma.glasnost.orika.metadata.Type;
 import ma.glasnost.orika.metadata.TypeFactory;
+import ma.glasnost.orika.metrics.BuildProfile;
+import ma.glasnost.orika.metrics.MappingMetrics;
 import ma.glasnost.orika.property.PropertyResolverStrategy;
 import ma.glasnost.orika.unenhance.BaseUnenhancer;
 import ma.glasnost.orika.unenhance.UnenhanceStrategy;
@@ -90,7 +104,7 @@ public class DefaultMapperFactory implements MapperFactory {
     private final ObjectFactoryGenerator objectFactoryGenerator;
     
     private final Map<MapperKey, ClassMap<Object, Object>> classMapRegistry;
-    private final SortedCollection<Mapper<Object, Object>> mappersRegistry;
+    private final MapperRegistry mappersRegistry;
     private final MappingContextFactory contextFactory;
     private final ConcurrentHashMap<Type<? extends Object>, ObjectFactory<? extends Object>> objectFactoryRegistry;
     private final Map<Type<?>, Set<Type<?>>> aToBRegistry;
@@ -108,6 +122,16 @@ public class DefaultMapperFactory implements MapperFactory {
     
     private final boolean useAutoMapping;
     private final boolean useBuiltinConverters;
+    private final int strategyCacheSize;
+    private final int buildThreads;
+    private final boolean compileClassMapsLazily;
+    private final boolean prewarmLazyClassMaps;
+    private final ConcurrentHashMap<MapperKey, LazyMapper> lazyMappers;
+    private final MappingMetrics metrics;
+    private final BuildProfile buildProfile;
+    private final BuildProfiler buildProfiler;
+    private final AcyclicityAnalyzer acyclicityAnalyzer;
+    private volatile Map<String, Long> buildTimings = Collections.emptyMap();
     private volatile boolean isBuilt = false;
     private volatile boolean isBuilding = false;
     
@@ -120,15 +144,27 @@ public class DefaultMapperFactory implements MapperFactory {
     protected DefaultMapperFactory(MapperFactoryBuilder<?, ?> builder) {
         
         this.converterFactory = builder.converterFactory;
-        this.compilerStrategy = builder.compilerStrategy;
+        this.compilerStrategy = resolveCompilerStrategy(builder.compilerStrategy, builder.usePregeneratedClasses);
         this.classMapRegistry = new ConcurrentHashMap<MapperKey, ClassMap<Object, Object>>();
-        this.mappersRegistry = new SortedCollection<Mapper<Object, Object>>(Comparators.MAPPER);
+        this.mappersRegistry = new MapperRegistry();
         this.aToBRegistry = new ConcurrentHashMap<Type<?>, Set<Type<?>>>();
         this.usedMapperMetadataRegistry = new ConcurrentHashMap<MapperKey, Set<ClassMap<Object, Object>>>();
         this.objectFactoryRegistry = new ConcurrentHashMap<Type<? extends Object>, ObjectFactory<? extends Object>>();
         this.defaultFieldMappers = new CopyOnWriteArrayList<DefaultFieldMapper>();
         this.unenhanceStrategy = buildUnenhanceStrategy(builder.unenhanceStrategy, builder.superTypeStrategy);
-        this.contextFactory = new MappingContext.Factory();
+        this.contextFactory = builder.mappingContextFactory != null ? builder.mappingContextFactory : new MappingContext.Factory();
+        this.strategyCacheSize = builder.strategyCacheSize;
+        this.buildThreads = builder.buildThreads;
+        this.compileClassMapsLazily = builder.compileClassMapsLazily;
+        this.prewarmLazyClassMaps = builder.prewarmLazyClassMaps;
+        this.lazyMappers = new ConcurrentHashMap<MapperKey, LazyMapper>();
+        this.metrics = builder.mappingMetrics;
+        if (metrics != null) {
+            metrics.attach(contextFactory);
+        }
+        this.buildProfile = builder.profileBuild ? new BuildProfile() : null;
+        this.buildProfiler = buildProfile != null ? new BuildProfiler(buildProfile, metrics) : null;
+        this.acyclicityAnalyzer = builder.skipIdentityTrackingForAcyclicGraphs ? new AcyclicityAnalyzer(this, converterFactory) : null;
         this.mapperFacade = buildMapperFacade(contextFactory, unenhanceStrategy);
         this.concreteTypeRegistry = new ConcurrentHashMap<java.lang.reflect.Type, Type<?>>();
         
@@ -152,8 +188,15 @@ public class DefaultMapperFactory implements MapperFactory {
         this.classMapBuilderForArraysFactory.setPropertyResolver(this.propertyResolverStrategy);
         this.classMapBuilderForArraysFactory.setMapperFactory(this);
         
-        this.mapperGenerator = new MapperGenerator(this, builder.compilerStrategy);
-        this.objectFactoryGenerator = new ObjectFactoryGenerator(this, builder.constructorResolverStrategy, builder.compilerStrategy);
+        if (buildProfiler != null) {
+            this.mapperGenerator = new MapperGenerator(this, this.compilerStrategy, buildProfiler);
+            this.objectFactoryGenerator = new ObjectFactoryGenerator(this, buildProfiler.profile(builder.constructorResolverStrategy),
+                    this.compilerStrategy, buildProfiler);
+        } else {
+            this.mapperGenerator = new MapperGenerator(this, this.compilerStrategy, metrics);
+            this.objectFactoryGenerator = new ObjectFactoryGenerator(this, builder.constructorResolverStrategy, this.compilerStrategy,
+                    metrics);
+        }
         this.useAutoMapping = builder.useAutoMapping;
         this.useBuiltinConverters = builder.useBuiltinConverters;
         
@@ -162,7 +205,7 @@ public class DefaultMapperFactory implements MapperFactory {
         Map<Object, Object> props = this.contextFactory.getGlobalProperties();
         props.put(Properties.SHOULD_MAP_NULLS, builder.mapNulls);
         props.put(Properties.CODE_GENERATION_STRATEGY, builder.codeGenerationStrategy);
-        props.put(Properties.COMPILER_STRATEGY, builder.compilerStrategy);
+        props.put(Properties.COMPILER_STRATEGY, this.compilerStrategy);
         props.put(Properties.PROPERTY_RESOLVER_STRATEGY, builder.propertyResolverStrategy);
         props.put(Properties.MAPPER_FACTORY, this);
         
@@ -177,6 +220,26 @@ public class DefaultMapperFactory implements MapperFactory {
         this.registerConcreteType(Map.Entry.class, MapEntry.class);
     }
 
+    /**
+     * Wraps the configured compiler strategy so that it uses the pre-generated
+     * classes visible to the context class-loader, if any.
+     * 
+     * @param compilerStrategy
+     *            the configured compiler strategy
+     * @param usePregeneratedClasses
+     *            whether pre-generated classes should be used
+     * @return the compiler strategy to be used by this factory
+     */
+    private static CompilerStrategy resolveCompilerStrategy(CompilerStrategy compilerStrategy, boolean usePregeneratedClasses) {
+        if (usePregeneratedClasses && !(compilerStrategy instanceof PregeneratedCompilerStrategy)) {
+            PregeneratedClasses pregeneratedClasses = PregeneratedClasses.load(Thread.currentThread().getContextClassLoader());
+            if (pregeneratedClasses != null) {
+                return new PregeneratedCompilerStrategy(compilerStrategy, pregeneratedClasses);
+            }
+        }
+        return compilerStrategy;
+    }
+    
     /**
      * MapperFactoryBuilder provides an extensible Builder definition usable for
      * providing your own Builder class for subclasses of DefaultMapperFactory.<br>
@@ -242,6 +305,51 @@ public class DefaultMapperFactory implements MapperFactory {
          * they will be ignored, and any existing value is unchanged in case of null.
          */
         protected boolean mapNulls = true;
+        /**
+         * The configured value of whether or not to use the mapper and object
+         * factory classes generated at build time, when found
+         */
+        protected boolean usePregeneratedClasses = Boolean.valueOf(System.getProperty(
+                OrikaSystemProperties.USE_PREGENERATED_CLASSES, "true"));
+        /**
+         * The configured maximum number of resolved mapping strategies cached
+         * by the MapperFacade
+         */
+        protected int strategyCacheSize = MapperFacadeImpl.DEFAULT_STRATEGY_CACHE_SIZE;
+        /**
+         * The configured maximum number of threads used to compile the
+         * generated mappers and object factories when the MapperFactory is
+         * built
+         */
+        protected int buildThreads = Runtime.getRuntime().availableProcessors();
+        
+        /**
+         * Whether registered class maps are compiled on first use
+         */
+        protected boolean compileClassMapsLazily;
+        
+        /**
+         * Whether lazily compiled class maps are compiled in the background
+         * once the factory is built
+         */
+        protected boolean prewarmLazyClassMaps;
+        /**
+         * Whether the time spent building each class map is profiled
+         */
+        protected boolean profileBuild;
+        /**
+         * Whether objects mapped by mappers of acyclic type graphs are not
+         * tracked in the MappingContext
+         */
+        protected boolean skipIdentityTrackingForAcyclicGraphs;
+        /**
+         * The MappingContextFactory configured for the MapperFactory
+         */
+        protected MappingContextFactory mappingContextFactory;
+        /**
+         * The MappingMetrics configured for the MapperFactory, if any
+         */
+        protected MappingMetrics mappingMetrics;
         
         /**
          * Instantiates a new MapperFactoryBuilder
@@ -403,6 +511,142 @@ public class DefaultMapperFactory implements MapperFactory {
             return self();
         }
         
+        /**
+         * Configure whether to use the mapper and object factory classes
+         * generated at build time (by
+         * {@link ma.glasnost.orika.impl.generator.MapperPregenerator}) when
+         * they are found on the context class-loader; classes for which no
+         * pre-generated class is found are compiled as usual.
+         * 
+         * @param usePregeneratedClasses
+         * @return a reference to <code>this</code> MapperFactoryBuilder
+         */
+        public B usePregeneratedClasses(boolean usePregeneratedClasses) {
+            this.usePregeneratedClasses = usePregeneratedClasses;
+            return self();
+        }
+        
+        /**
+         * Configure the maximum number of resolved mapping strategies which
+         * are cached by the generated MapperFactory's MapperFacade; when the
+         * cache is full, the least frequently used strategies are evicted.
+         * 
+         * @param strategyCacheSize
+         * @return a reference to <code>this</code> MapperFactoryBuilder
+         */
+        public B strategyCacheSize(int strategyCacheSize) {
+            this.strategyCacheSize = strategyCacheSize;
+            return self();
+        }
+        
+        /**
+         * Configure the maximum number of threads used to compile the
+         * generated mappers and object factories when the generated
+         * MapperFactory is built; compilation is only performed in parallel
+         * if the configured CompilerStrategy is thread-safe. A value of 1
+         * compiles everything on the thread building the factory.
+         * 
+         * @param buildThreads
+         * @return a reference to <code>this</code> MapperFactoryBuilder
+         */
+        public B buildThreads(int buildThreads) {
+            this.buildThreads = buildThreads;
+            return self();
+        }
+        
+        /**
+         * Configure whether the mappers of the registered class maps are
+         * compiled when the generated MapperFactory is built, or only when
+         * they are first needed; when compiled lazily, building the factory
+         * only validates the class maps, so it is ready for use sooner, but
+         * the first mapping of each pair of types pays for its compilation.
+         * 
+         * @param compileClassMapsLazily
+         * @return a reference to <code>this</code> MapperFactoryBuilder
+         * @see #prewarmLazyClassMaps(boolean)
+         */
+        public B compileClassMapsLazily(boolean compileClassMapsLazily) {
+            this.compileClassMapsLazily = compileClassMapsLazily;
+            return self();
+        }
+        
+        /**
+         * Configure whether the mappers of class maps which are compiled
+         * lazily should be compiled by a background thread once the generated
+         * MapperFactory is built, rather than waiting until they are first
+         * needed; has no effect unless {@link #compileClassMapsLazily(boolean)}
+         * is set.
+         * 
+         * @param prewarmLazyClassMaps
+         * @return a reference to <code>this</code> MapperFactoryBuilder
+         */
+        public B prewarmLazyClassMaps(boolean prewarmLazyClassMaps) {
+            this.prewarmLazyClassMaps = prewarmLazyClassMaps;
+            return self();
+        }
+        
+        /**
+         * Configure whether the generated MapperFactory should collect a
+         * {@link BuildProfile} of the time spent building the mapper of each
+         * class map (from the definition of the class map through to the
+         * compilation of its mapper and object factories), available from
+         * {@link DefaultMapperFactory#getBuildProfile()}.
+         * 
+         * @param profileBuild
+         * @return a reference to <code>this</code> MapperFactoryBuilder
+         */
+        public B profileBuild(boolean profileBuild) {
+            this.profileBuild = profileBuild;
+            return self();
+        }
+        
+        /**
+         * Configure whether the generated MapperFactory should determine which
+         * of its mappers map type graphs that cannot contain a cycle (judging
+         * from the registered class maps), and skip tracking the objects they
+         * map in the MappingContext; disabled by default.<br>
+         * <br>
+         * Only enable this when the mapped object graphs are known to be trees:
+         * when enabled, an object referenced more than once within a graph is
+         * mapped to a separate destination object for each reference, and a
+         * cycle closed at runtime through a sub-type for which no class map is
+         * registered is not detected.
+         * 
+         * @param skipIdentityTrackingForAcyclicGraphs
+         * @return a reference to <code>this</code> MapperFactoryBuilder
+         */
+        public B skipIdentityTrackingForAcyclicGraphs(boolean skipIdentityTrackingForAcyclicGraphs) {
+            this.skipIdentityTrackingForAcyclicGraphs = skipIdentityTrackingForAcyclicGraphs;
+            return self();
+        }
+        
+        /**
+         * Configure the MappingContextFactory which provides (and recycles)
+         * the MappingContext instances used by the generated MapperFactory;
+         * if not specified, a new {@link MappingContext.Factory} is used.
+         * 
+         * @param mappingContextFactory
+         * @return a reference to <code>this</code> MapperFactoryBuilder
+         */
+        public B mappingContextFactory(MappingContextFactory mappingContextFactory) {
+            this.mappingContextFactory = mappingContextFactory;
+            return self();
+        }
+        
+        /**
+         * Configure the MappingMetrics to which the generated MapperFactory,
+         * and the facades it provides, report what they do at runtime (such
+         * as {@link ma.glasnost.orika.metrics.DefaultMappingMetrics}); no
+         * metrics are collected by default.
+         * 
+         * @param mappingMetrics
+         * @return a reference to <code>this</code> MapperFactoryBuilder
+         */
+        public B mappingMetrics(MappingMetrics mappingMetrics) {
+            this.mappingMetrics = mappingMetrics;
+            return self();
+        }
+        
         /**
          * Get a reference to the CodeGenerationStrategy associated with this MapperFactory,
          * which may be used to configure/customize the individual mapping Specifications
@@ -564,7 +808,7 @@ public class DefaultMapperFactory implements MapperFactory {
 	 * @return the MapperFacade to use
 	 */
 	protected MapperFacade buildMapperFacade(MappingContextFactory contextFactory, UnenhanceStrategy unenhanceStrategy) {
-		return new MapperFacadeImpl(this, contextFactory, unenhanceStrategy);
+		return new MapperFacadeImpl(this, contextFactory, unenhanceStrategy, strategyCacheSize, metrics);
 	}
     
     /*
@@ -588,6 +832,9 @@ public class DefaultMapperFactory implements MapperFactory {
     public Mapper<Object, Object> lookupMapper(MapperKey mapperKey, MappingContext context) {
         
         Mapper<?, ?> mapper = getRegisteredMapper(mapperKey.getAType(), mapperKey.getBType(), false);
+        if (mapper instanceof LazyMapper) {
+            mapper = resolveLazyMapper((LazyMapper) mapper, context);
+        }
         if (mapper == null && useAutoMapping) {
             synchronized (this) {
                 try {
@@ -609,10 +856,16 @@ public class DefaultMapperFactory implements MapperFactory {
                     if (LOGGER.isDebugEnabled()) {
                         LOGGER.debug("No mapper registered for " + mapperKey + ": attempting to generate");
                     }
-                    final ClassMap<?, ?> classMap = classMap(mapperKey.getAType(), mapperKey.getBType()).byDefault().toClassMap();
+                    ClassMapBuilder<?, ?> classMapBuilder = classMap(mapperKey.getAType(), mapperKey.getBType()).byDefault();
+                    if (buildProfiler != null) {
+                        buildProfiler.classMapDefined(classMapBuilder);
+                    }
+                    final ClassMap<?, ?> classMap = classMapBuilder.toClassMap();
                     buildObjectFactories(classMap, context);
-                    mapper = buildMapper(classMap, true, context);
+                    GeneratedMapperBase generatedMapper = buildMapper(classMap, true, context);
                     initializeUsedMappers(classMap);
+                    analyzeCycles(Collections.<Mapper<Object, Object>> singleton(generatedMapper));
+                    mapper = generatedMapper;
                 } catch (MappingException e) {
                     e.setSourceType(mapperKey.getAType());
                     e.setDestinationType(mapperKey.getBType());
@@ -648,25 +901,7 @@ public class DefaultMapperFactory implements MapperFactory {
      */
     @SuppressWarnings("unchecked")
     protected <A, B> Mapper<A, B> getRegisteredMapper(Type<A> typeA, Type<B> typeB, boolean includeAutoGeneratedMappers) {
-        
-        for (Mapper<?, ?> mapper : mappersRegistry) {
-            
-            if ((mapper.getAType().equals(typeA) && mapper.getBType().equals(typeB))
-                    || (mapper.getAType().equals(typeB) && mapper.getBType().equals(typeA))) {
-                
-                return (Mapper<A, B>) mapper;
-                
-            } else if ((mapper.getAType().isAssignableFrom(typeA) && mapper.getBType().isAssignableFrom(typeB))
-                    || (mapper.getAType().isAssignableFrom(typeB) && mapper.getBType().isAssignableFrom(typeA))) {
-                
-                if (includeAutoGeneratedMappers || !(mapper instanceof GeneratedMapperBase)) {
-                    return (Mapper<A, B>) mapper;
-                } else if (!((GeneratedMapperBase) mapper).isFromAutoMapping()) {
-                    return (Mapper<A, B>) mapper;
-                }
-            }
-        }
-        return null;
+        return (Mapper<A, B>) mappersRegistry.lookup(typeA, typeB, includeAutoGeneratedMappers);
     }
     
     /*
@@ -872,15 +1107,24 @@ public class DefaultMapperFactory implements MapperFactory {
     
     @SuppressWarnings("unchecked")
     public <A, B> void registerClassMap(ClassMap<A, B> classMap) {
-        classMapRegistry.put(new MapperKey(classMap.getAType(), classMap.getBType()), (ClassMap<Object, Object>) classMap);
+        putClassMap(new MapperKey(classMap.getAType(), classMap.getBType()), (ClassMap<Object, Object>) classMap);
         if (isBuilding || isBuilt) {
             
             MappingContext context = contextFactory.getContext();
             try {
-                buildMapper(classMap, /** isAutoGenerated == **/isBuilding, context);
+                GeneratedMapperBase mapper = buildMapper(classMap, /** isAutoGenerated == **/isBuilding, context);
                 
-                buildObjectFactories(classMap, context);
-                initializeUsedMappers(classMap);
+                if (isBuilt) {
+                    buildObjectFactories(classMap, context);
+                    initializeUsedMappers(classMap);
+                    analyzeCycles(Collections.<Mapper<Object, Object>> singleton(mapper));
+                }
+                /*
+                 * Otherwise, the class map was registered while generating the
+                 * mappers of the build in progress; its object factories and
+                 * used mappers are resolved along with those of the other class
+                 * maps, once all of their mappers have been compiled
+                 */
             } finally {
                 contextFactory.release(context);
             }
@@ -888,15 +1132,38 @@ public class DefaultMapperFactory implements MapperFactory {
     }
     
     public <A, B> void registerClassMap(ClassMapBuilder<A, B> builder) {
+        if (buildProfiler != null) {
+            buildProfiler.classMapDefined(builder);
+        }
         registerClassMap(builder.toClassMap());
     }
     
+    /**
+     * Builds this mapper factory: generates and compiles a mapper for each of
+     * the registered class maps, along with the object factories they
+     * require.<br>
+     * <br>
+     * The source of each mapper is generated on the calling thread, since
+     * generation may register further class maps; the generated classes are
+     * then compiled concurrently (when the CompilerStrategy is thread-safe,
+     * using up to the configured number of build threads). The compiled
+     * mappers are registered in the same order as the class maps, and only
+     * once all of them are registered are the used mappers of each class map
+     * resolved, so that a mapper is never wired to a used mapper which is
+     * still being compiled.<br>
+     * <br>
+     * If the class maps are to be compiled lazily, they are only validated
+     * here; each mapper is then compiled when it is first looked up (or by a
+     * background thread, if prewarming is enabled).
+     */
     public synchronized void build() {
         
         if (!isBuilding) {
             isBuilding = true;
             
+            BuildTimer timer = new BuildTimer();
             MappingContext context = contextFactory.getContext();
+            ExecutorService executor = null;
             try {
                 converterFactory.setMapperFacade(mapperFacade);
                 
@@ -906,22 +1173,434 @@ public class DefaultMapperFactory implements MapperFactory {
                 
                 buildClassMapRegistry();
                 
-                for (final ClassMap<?, ?> classMap : classMapRegistry.values()) {
-                    buildMapper(classMap, false, context);
-                }
-                
-                for (final ClassMap<?, ?> classMap : classMapRegistry.values()) {
-                    buildObjectFactories(classMap, context);
-                    initializeUsedMappers(classMap);
+                List<ClassMap<Object, Object>> classMaps = new ArrayList<ClassMap<Object, Object>>(classMapRegistry.values());
+                if (compileClassMapsLazily) {
+                    for (ClassMap<Object, Object> classMap : classMaps) {
+                        registerLazyMapper(classMap);
+                    }
+                    timer.endPhase("validate");
+                } else {
+                    executor = createBuildExecutor(classMaps.size());
+                    timer.endPhase("prepare");
+                    buildMappers(classMaps, context, executor, timer);
                 }
             } finally {
+                if (executor != null) {
+                    executor.shutdown();
+                }
                 contextFactory.release(context);
             }
-
+            
+            buildTimings = timer.getTimings();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Built " + mappersRegistry.size() + " mappers in " + timer.getTotal() + " ms (phase timings in ms: "
+                        + buildTimings + ")");
+            }
+            
             isBuilt = true;
             isBuilding = false;
+            
+            if (prewarmLazyClassMaps && !lazyMappers.isEmpty()) {
+                startPrewarming();
+            }
+        }
+        
+    }
+    
+    /**
+     * Generates and compiles the mappers of the specified class maps, along
+     * with the object factories they require, and resolves their used
+     * mappers.<br>
+     * <br>
+     * The generated classes are compiled in batches, each with a single call
+     * to {@link CompilerStrategy#compileClasses(List)}: one batch per build
+     * thread, or a single batch if they are compiled on the calling thread.
+     * Each mapper is registered (as a placeholder, until it is compiled) as
+     * soon as its source is generated, so that the source generated for the
+     * class maps which follow can apply it as a registered mapper, regardless
+     * of how the mappers are batched.
+     * 
+     * @param classMaps
+     * @param context
+     * @param executor
+     *            the executor on which to compile, or null to compile on the
+     *            calling thread
+     * @param timer
+     */
+    private void buildMappers(List<ClassMap<Object, Object>> classMaps, MappingContext context, ExecutorService executor, BuildTimer timer) {
+        
+        int batchCount = getBatchCount(executor, classMaps.size());
+        List<Future<List<GeneratedMapperBase>>> batches = new ArrayList<Future<List<GeneratedMapperBase>>>(batchCount);
+        List<LazyMapper> placeholders = new ArrayList<LazyMapper>(classMaps.size());
+        for (int i = 0, start = 0; i < batchCount; ++i) {
+            int end = (classMaps.size() * (i + 1)) / batchCount;
+            MapperGenerator.Batch batch = mapperGenerator.newBatch();
+            for (final ClassMap<Object, Object> classMap : classMaps.subList(start, end)) {
+                registerMappedTypes(classMap);
+                batch.add(classMap, context);
+                placeholders.add(registerPlaceholder(classMap));
+            }
+            batches.add(compile(executor, batch));
+            start = end;
+        }
+        timer.endPhase("generate");
+        
+        int index = 0;
+        for (Future<List<GeneratedMapperBase>> batch : batches) {
+            for (GeneratedMapperBase mapper : await(batch)) {
+                /*
+                 * Unless the placeholder was already compiled on its own (by
+                 * a lookup made while the build was in progress)
+                 */
+                if (placeholders.get(index).getDelegate() == null) {
+                    registerGeneratedMapper(classMaps.get(index), mapper, false);
+                }
+                ++index;
+            }
+        }
+        timer.endPhase("compile");
+        
+        classMaps = new ArrayList<ClassMap<Object, Object>>(classMapRegistry.values());
+        prepareObjectFactories(classMaps, context, executor);
+        for (final ClassMap<?, ?> classMap : classMaps) {
+            buildObjectFactories(classMap, context);
+        }
+        timer.endPhase("objectFactories");
+        
+        for (final ClassMap<?, ?> classMap : classMaps) {
+            initializeUsedMappers(classMap);
+        }
+        timer.endPhase("usedMappers");
+        
+        analyzeCycles(mappersRegistry);
+        timer.endPhase("cycles");
+    }
+    
+    /**
+     * Validates a class map whose mapper is to be compiled lazily, and
+     * registers a placeholder for its mapper.
+     * 
+     * @param classMap
+     */
+    private void registerLazyMapper(ClassMap<Object, Object> classMap) {
+        try {
+            compilerStrategy.assureTypeIsAccessible(classMap.getAType().getRawType());
+            compilerStrategy.assureTypeIsAccessible(classMap.getBType().getRawType());
+        } catch (SourceCodeGenerationException e) {
+            throw new MappingException("Cannot generate mapper for " + classMap, e);
+        }
+        registerMappedTypes(classMap);
+        registerPlaceholder(classMap);
+    }
+    
+    /**
+     * Registers a placeholder for the mapper of the specified class map, which
+     * is replaced by the mapper once compiled.
+     * 
+     * @param classMap
+     * @return the registered placeholder
+     */
+    private LazyMapper registerPlaceholder(ClassMap<Object, Object> classMap) {
+        LazyMapper lazyMapper = new LazyMapper(this, classMap);
+        lazyMappers.put(new MapperKey(classMap.getAType(), classMap.getBType()), lazyMapper);
+        mappersRegistry.add(lazyMapper);
+        return lazyMapper;
+    }
+    
+    /**
+     * Compiles the mapper for which the specified placeholder stands, unless
+     * it has already been compiled.
+     * 
+     * @param lazyMapper
+     * @param context
+     * @return the compiled mapper
+     */
+    Mapper<Object, Object> resolveLazyMapper(LazyMapper lazyMapper, MappingContext context) {
+        Mapper<Object, Object> mapper = lazyMapper.getDelegate();
+        if (mapper == null) {
+            synchronized (this) {
+                mapper = lazyMapper.getDelegate();
+                if (mapper == null) {
+                    ClassMap<Object, Object> classMap = lazyMapper.getClassMap();
+                    long start = System.nanoTime();
+                    GeneratedMapperBase generatedMapper = buildMapper(classMap, false, context);
+                    buildObjectFactories(classMap, context);
+                    initializeUsedMappers(classMap);
+                    analyzeCycles(Collections.<Mapper<Object, Object>> singleton(generatedMapper));
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("Compiled lazy mapper for " + classMap + " in "
+                                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+                    }
+                    mapper = generatedMapper;
+                }
+            }
+        }
+        return mapper;
+    }
+    
+    /**
+     * Starts a background thread which compiles the mappers of the class maps
+     * which are still to be compiled lazily.
+     */
+    private void startPrewarming() {
+        final List<LazyMapper> pending = new ArrayList<LazyMapper>(lazyMappers.values());
+        Thread thread = new BuildThreadFactory(Thread.currentThread().getContextClassLoader()).newThread(new Runnable() {
+            public void run() {
+                prewarm(pending);
+            }
+        });
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+    
+    private void prewarm(List<LazyMapper> pending) {
+        long start = System.nanoTime();
+        int compiled = 0;
+        MappingContext context = contextFactory.getContext();
+        try {
+            for (LazyMapper lazyMapper : pending) {
+                if (lazyMapper.getDelegate() != null) {
+                    continue;
+                }
+                try {
+                    resolveLazyMapper(lazyMapper, context);
+                    ++compiled;
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Could not compile the mapper for " + lazyMapper.getClassMap()
+                            + " in the background; it will be compiled again when first used", e);
+                }
+            }
+        } finally {
+            contextFactory.release(context);
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Compiled " + compiled + " lazy mappers in the background in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        }
+    }
+    
+    /**
+     * Returns the wall-clock time spent in each of the phases of the most
+     * recent {@link #build()} of this factory, in milliseconds; the phases are
+     * listed in the order in which they occur:
+     * <ul>
+     * <li><b>prepare</b>: registering builtin converters, and indexing the
+     * class maps and their used mappers
+     * <li><b>generate</b>: generating the source of the mappers (while the
+     * first of them are being compiled)
+     * <li><b>compile</b>: waiting for the remaining mappers to be compiled
+     * <li><b>objectFactories</b>: generating and compiling the object factories
+     * <li><b>usedMappers</b>: resolving the used mappers of each mapper
+     * <li><b>cycles</b>: determining which mappers can skip identity tracking
+     * <li><b>validate</b>: validating the class maps, in place of the
+     * preceding phases (from generate onwards) when they are compiled lazily
+     * </ul>
+     * 
+     * @return the wall-clock time of each build phase, or an empty map if this
+     *         factory has not been built
+     */
+    public Map<String, Long> getBuildTimings() {
+        return buildTimings;
+    }
+    
+    /**
+     * Returns the profile of the time spent building the mapper of each class
+     * map, broken down into the phases of its definition, generation and
+     * compilation; the profile is collected only if
+     * {@link MapperFactoryBuilder#profileBuild(boolean)} was enabled, and
+     * includes any mappers generated since this factory was built.
+     * 
+     * @return the build profile of this factory, or null if it is not being
+     *         collected
+     */
+    public BuildProfile getBuildProfile() {
+        return buildProfile;
+    }
+    
+    /**
+     * Creates the executor used to compile the generated classes of a build.
+     * 
+     * @param classCount
+     *            the number of classes to be generated
+     * @return the executor, or null if the classes should be compiled on the
+     *         calling thread
+     */
+    private ExecutorService createBuildExecutor(int classCount) {
+        int threads = Math.min(buildThreads, classCount);
+        if (threads < 2 || !compilerStrategy.isThreadSafe()) {
+            return null;
+        }
+        return Executors.newFixedThreadPool(threads, new BuildThreadFactory(Thread.currentThread().getContextClassLoader()));
+    }
+    
+    /**
+     * @param executor
+     *            the executor on which to compile, or null if the classes are
+     *            compiled on the calling thread
+     * @param classCount
+     *            the number of classes to be compiled
+     * @return the number of batches in which to compile the classes
+     */
+    private int getBatchCount(ExecutorService executor, int classCount) {
+        return executor == null ? 1 : Math.max(1, Math.min(buildThreads, classCount));
+    }
+    
+    /**
+     * Schedules the compilation of a generated class.
+     * 
+     * @param executor
+     *            the executor on which to compile; if null, the class is
+     *            compiled immediately on the calling thread
+     * @param compilation
+     *            the task which compiles (and instantiates) the class
+     * @return the result of the compilation
+     */
+    private static <T> Future<T> compile(ExecutorService executor, Callable<T> compilation) {
+        FutureTask<T> task = new FutureTask<T>(compilation);
+        if (executor == null) {
+            task.run();
+        } else {
+            executor.execute(task);
+        }
+        return task;
+    }
+    
+    /**
+     * Waits for the result of a compilation, propagating any exception it
+     * raised.
+     * 
+     * @param compilation
+     * @return the result of the compilation
+     */
+    private static <T> T await(Future<T> compilation) {
+        try {
+            return compilation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MappingException("Interrupted while compiling generated classes", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new MappingException(cause);
+            }
+        }
+    }
+    
+    /**
+     * Generates and compiles, ahead of the (sequential) resolution of object
+     * factories, those object factories which would be generated for the
+     * specified class maps, in batches as for the mappers; any which cannot be
+     * generated here are left for
+     * {@link #lookupObjectFactory(Type, MappingContext)} to resolve as usual.
+     * 
+     * @param classMaps
+     * @param context
+     * @param executor
+     */
+    @SuppressWarnings("unchecked")
+    private void prepareObjectFactories(List<ClassMap<Object, Object>> classMaps, MappingContext context, ExecutorService executor) {
+        Set<Type<?>> types = new LinkedHashSet<Type<?>>();
+        for (ClassMap<Object, Object> classMap : classMaps) {
+            if (classMap.getConstructorA() != null && requiresGeneratedObjectFactory(classMap.getAType())) {
+                types.add(classMap.getAType());
+                if (buildProfiler != null) {
+                    buildProfiler.objectFactoryRequired(classMap.getAType(), classMap);
+                }
+            }
+            if (classMap.getConstructorB() != null && requiresGeneratedObjectFactory(classMap.getBType())) {
+                types.add(classMap.getBType());
+                if (buildProfiler != null) {
+                    buildProfiler.objectFactoryRequired(classMap.getBType(), classMap);
+                }
+            }
+        }
+        if (types.isEmpty()) {
+            return;
+        }
+        
+        List<Type<?>> pendingTypes = new ArrayList<Type<?>>(types);
+        int batchCount = getBatchCount(executor, pendingTypes.size());
+        List<List<Type<?>>> batchTypes = new ArrayList<List<Type<?>>>(batchCount);
+        List<Future<List<GeneratedObjectFactory>>> batches = new ArrayList<Future<List<GeneratedObjectFactory>>>(batchCount);
+        for (int i = 0, start = 0; i < batchCount; ++i) {
+            int end = (pendingTypes.size() * (i + 1)) / batchCount;
+            ObjectFactoryGenerator.Batch batch = objectFactoryGenerator.newBatch();
+            List<Type<?>> generatedTypes = new ArrayList<Type<?>>(end - start);
+            for (Type<?> type : pendingTypes.subList(start, end)) {
+                try {
+                    batch.add(type, context);
+                    generatedTypes.add(type);
+                } catch (MappingException e) {
+                    /*
+                     * Left to lookupObjectFactory, which falls back to the default
+                     * constructor if there is one
+                     */
+                }
+            }
+            if (batch.size() > 0) {
+                batchTypes.add(generatedTypes);
+                batches.add(compile(executor, batch));
+            }
+            start = end;
         }
         
+        for (int i = 0, len = batches.size(); i < len; ++i) {
+            List<GeneratedObjectFactory> objectFactories;
+            try {
+                objectFactories = await(batches.get(i));
+            } catch (MappingException e) {
+                continue;
+            }
+            for (int j = 0, count = objectFactories.size(); j < count; ++j) {
+                GeneratedObjectFactory objectFactory = objectFactories.get(j);
+                objectFactory.setMapperFacade(mapperFacade);
+                objectFactoryRegistry.putIfAbsent((Type<Object>) batchTypes.get(i).get(j), objectFactory);
+            }
+        }
+    }
+    
+    /**
+     * @param type
+     * @return true if an object factory would be generated for the specified
+     *         type, and none is yet registered
+     */
+    private boolean requiresGeneratedObjectFactory(Type<?> type) {
+        if (objectFactoryRegistry.containsKey(type) || !ClassUtil.isConcrete(type)) {
+            return false;
+        }
+        Constructor<?>[] constructors = type.getRawType().getConstructors();
+        return constructors.length != 1 || constructors[0].getParameterTypes().length != 0;
+    }
+    
+    /**
+     * Marks those of the specified mappers whose object graphs have been
+     * determined (from the currently registered class maps and mappers) to be
+     * free of cycles; such mappers are used without recording the objects they
+     * map in the MappingContext. Does nothing unless enabled through
+     * {@link MapperFactoryBuilder#skipIdentityTrackingForAcyclicGraphs(boolean)}.<br>
+     * <br>
+     * A mapper is analyzed when it is created, so that within any cycle of
+     * mappers, at least the last one created is aware of the cycle, and
+     * continues to record the objects it maps. The mark is cleared again if a
+     * class map or mapper registered afterwards may close a cycle through the
+     * types of a marked mapper.
+     * 
+     * @param mappers
+     *            the mappers to analyze
+     */
+    private void analyzeCycles(Iterable<Mapper<Object, Object>> mappers) {
+        if (acyclicityAnalyzer == null) {
+            return;
+        }
+        for (Mapper<Object, Object> mapper : mappers) {
+            if (mapper instanceof GeneratedMapperBase) {
+                acyclicityAnalyzer.analyze((GeneratedMapperBase) mapper);
+            }
+        }
     }
     
     public Set<ClassMap<Object, Object>> lookupUsedClassMap(MapperKey mapperKey) {
@@ -965,11 +1644,17 @@ public class DefaultMapperFactory implements MapperFactory {
         Type<?> bType = classMap.getBType();
         
         if (classMap.getConstructorA() != null && lookupObjectFactory(aType) == null) {
+            if (buildProfiler != null) {
+                buildProfiler.objectFactoryRequired(aType, classMap);
+            }
             GeneratedObjectFactory objectFactory = objectFactoryGenerator.build(aType, context);
             registerObjectFactory(objectFactory, (Type<Object>) aType);
         }
         
         if (classMap.getConstructorB() != null && lookupObjectFactory(bType) == null) {
+            if (buildProfiler != null) {
+                buildProfiler.objectFactoryRequired(bType, classMap);
+            }
             GeneratedObjectFactory objectFactory = objectFactoryGenerator.build(bType, context);
             registerObjectFactory(objectFactory, (Type<Object>) bType);
         }
@@ -1036,26 +1721,84 @@ public class DefaultMapperFactory implements MapperFactory {
         }
     }
     
-    @SuppressWarnings("unchecked")
     private GeneratedMapperBase buildMapper(ClassMap<?, ?> classMap, boolean isAutoGenerated, MappingContext context) {
+        long start = metrics != null ? System.nanoTime() : 0;
+        GeneratedMapperBase mapper = registerGeneratedMapper(classMap, await(compile(null, generateMapper(classMap, context))),
+                isAutoGenerated);
+        if (metrics != null) {
+            metrics.mapperGenerated(classMap, isAutoGenerated, System.nanoTime() - start);
+        }
+        return mapper;
+    }
+    
+    /**
+     * Generates the source of the mapper for the specified class map.
+     * 
+     * @param classMap
+     * @param context
+     * @return a task which compiles the generated mapper
+     */
+    private Callable<GeneratedMapperBase> generateMapper(ClassMap<?, ?> classMap, MappingContext context) {
+        
+        registerMappedTypes(classMap);
         
+        return this.mapperGenerator.generate(classMap, context);
+    }
+    
+    /**
+     * Registers the types of the specified class map as mapped to each other.
+     * 
+     * @param classMap
+     */
+    private void registerMappedTypes(ClassMap<?, ?> classMap) {
         register(classMap.getAType(), classMap.getBType());
         register(classMap.getBType(), classMap.getAType());
+    }
+    
+    /**
+     * Registers a compiled mapper for the specified class map.
+     * 
+     * @param classMap
+     * @param mapper
+     * @param isAutoGenerated
+     * @return the registered mapper
+     */
+    @SuppressWarnings("unchecked")
+    private GeneratedMapperBase registerGeneratedMapper(ClassMap<?, ?> classMap, GeneratedMapperBase mapper, boolean isAutoGenerated) {
         
         final MapperKey mapperKey = new MapperKey(classMap.getAType(), classMap.getBType());
-        final GeneratedMapperBase mapper = this.mapperGenerator.build(classMap, context);
         mapper.setMapperFacade(mapperFacade);
         mapper.setFromAutoMapping(isAutoGenerated);
         if (classMap.getCustomizedMapper() != null) {
             final Mapper<Object, Object> customizedMapper = (Mapper<Object, Object>) classMap.getCustomizedMapper();
             mapper.setCustomMapper(customizedMapper);
         }
-        mappersRegistry.add(mapper);
-        classMapRegistry.put(mapperKey, (ClassMap<Object, Object>) classMap);
+        LazyMapper lazyMapper = lazyMappers.remove(mapperKey);
+        if (lazyMapper != null) {
+            mappersRegistry.replace(lazyMapper, (Mapper<Object, Object>) mapper);
+            lazyMapper.setDelegate((Mapper<Object, Object>) mapper);
+        } else {
+            mappersRegistry.add(mapper);
+        }
+        putClassMap(mapperKey, (ClassMap<Object, Object>) classMap);
         
         return mapper;
     }
     
+    /**
+     * Adds the specified class map to the registry (and to the analysis of
+     * cycles, if enabled).
+     * 
+     * @param mapperKey
+     * @param classMap
+     */
+    private void putClassMap(MapperKey mapperKey, ClassMap<Object, Object> classMap) {
+        classMapRegistry.put(mapperKey, classMap);
+        if (acyclicityAnalyzer != null) {
+            acyclicityAnalyzer.addClassMap(classMap);
+        }
+    }
+    
     /**
      * Registers that a mapping exists from the specified source type to the
      * specified destination type
@@ -1134,6 +1877,9 @@ public class DefaultMapperFactory implements MapperFactory {
     public <A, B> void registerMapper(Mapper<A, B> mapper) {
         synchronized (this) {
             this.mappersRegistry.add((Mapper<Object, Object>) mapper);
+            if (acyclicityAnalyzer != null) {
+                acyclicityAnalyzer.addMapper((Mapper<Object, Object>) mapper);
+            }
             mapper.setMapperFacade(this.mapperFacade);
             register(mapper.getAType(), mapper.getBType());
             register(mapper.getBType(), mapper.getAType());
@@ -1189,4 +1935,49 @@ public class DefaultMapperFactory implements MapperFactory {
      */
     
     
+    /**
+     * Measures the wall-clock time of the successive phases of a build
+     */
+    private static final class BuildTimer {
+        private final Map<String, Long> timings = new LinkedHashMap<String, Long>();
+        private final long start = System.nanoTime();
+        private long phaseStart = start;
+        
+        private void endPhase(String phase) {
+            long now = System.nanoTime();
+            timings.put(phase, Long.valueOf(TimeUnit.NANOSECONDS.toMillis(now - phaseStart)));
+            phaseStart = now;
+        }
+        
+        private long getTotal() {
+            return TimeUnit.NANOSECONDS.toMillis(phaseStart - start);
+        }
+        
+        private Map<String, Long> getTimings() {
+            return Collections.unmodifiableMap(timings);
+        }
+    }
+    
+    /**
+     * Creates the (daemon) threads which compile generated classes during a
+     * build; they use the context class-loader of the thread performing the
+     * build, since the generated classes are defined in it
+     */
+    private static final class BuildThreadFactory implements ThreadFactory {
+        private static final AtomicInteger factoryNumber = new AtomicInteger();
+        private final AtomicInteger threadNumber = new AtomicInteger();
+        private final String namePrefix = "orika-build-" + factoryNumber.incrementAndGet() + "-";
+        private final ClassLoader contextClassLoader;
+        
+        private BuildThreadFactory(ClassLoader contextClassLoader) {
+            this.contextClassLoader = contextClassLoader;
+        }
+        
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(contextClassLoader);
+            return thread;
+        }
+    }
 }
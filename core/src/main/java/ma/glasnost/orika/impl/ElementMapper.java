@@ -0,0 +1,109 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.impl;
+
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.MappingException;
+import ma.glasnost.orika.impl.mapping.strategy.MappingStrategy;
+import ma.glasnost.orika.metrics.MappingMetrics;
+
+/**
+ * ElementMapper maps the elements of a bulk mapping operation (such as
+ * mapAsList, mapAsArray or mapAsMap) to a single destination type, within a
+ * single mapping context.<br>
+ * <br>
+ * It acts as a monomorphic inline cache: the strategy resolved for an element
+ * is kept, along with the element's class, and reused for the elements which
+ * follow it for as long as they are of the same class; the full strategy
+ * lookup (which allocates a key and consults the facade's strategy cache) is
+ * only repeated when the class changes. A homogeneous collection of n elements
+ * therefore costs a single lookup rather than n.
+ */
+final class ElementMapper {
+    
+    private final MapperFacade mapperFacade;
+    private final java.lang.reflect.Type sourceType;
+    private final java.lang.reflect.Type destinationType;
+    private final MappingContext context;
+    private final MappingMetrics metrics;
+    private MappingStrategy strategy;
+    private Class<?> elementClass;
+    
+    /**
+     * @param mapperFacade
+     *            the facade used to resolve the strategy for each class of
+     *            element
+     * @param sourceType
+     *            the declared type of the elements, or null if it should be
+     *            determined from each element
+     * @param destinationType
+     *            the type to which the elements are mapped
+     * @param context
+     *            the context in which the elements are mapped
+     */
+    ElementMapper(MapperFacade mapperFacade, java.lang.reflect.Type sourceType, java.lang.reflect.Type destinationType,
+            MappingContext context) {
+        this.mapperFacade = mapperFacade;
+        this.sourceType = sourceType;
+        this.destinationType = destinationType;
+        this.context = context;
+        this.metrics = MapperFacadeImpl.metricsOf(mapperFacade);
+    }
+    
+    /**
+     * Maps a single element.
+     * 
+     * @param element
+     *            the element to map
+     * @return the mapped element, or null if the element is null
+     */
+    Object map(Object element) {
+        if (element == null) {
+            return null;
+        }
+        try {
+            if (strategy == null || element.getClass() != elementClass) {
+                strategy = mapperFacade.resolveMappingStrategy(element, sourceType, destinationType, false, context);
+                elementClass = element.getClass();
+            } else {
+                /*
+                 * Restore the resolved types which the full lookup would have
+                 * set, since mapping the previous element may have changed them
+                 */
+                context.setResolvedSourceType(strategy.getSoureType());
+                context.setResolvedDestinationType(strategy.getDestinationType());
+            }
+            Object mappedElement = MapperFacadeImpl.isAcyclic(strategy) ? null : context.getMappedObject(element, destinationType);
+            if (mappedElement == null) {
+                mappedElement = MapperFacadeImpl.applyStrategy(strategy, element, null, context, metrics);
+            }
+            return mappedElement;
+            
+        } catch (MappingException e) {
+            /* don't wrap our own exceptions */
+            throw e;
+        } catch (RuntimeException e) {
+            if (!ExceptionUtility.originatedByOrika(e)) {
+                throw e;
+            }
+            throw new MappingException("Error encountered while mapping for the following inputs: " + "\nrawSource=" + element
+                    + "\nsourceClass=" + element.getClass() + "\nsourceType=" + sourceType + "\ndestinationType=" + destinationType, e);
+        }
+    }
+}
@@ -30,6 +30,7 @@ public abstract class GeneratedMapperBase extends GeneratedObjectBase implements
     private Mapper<Object, Object>[] usedMappers;
     private Type<Object> aType;
     private Type<Object> bType;
+    private volatile boolean acyclic;
     
     public Type<Object> getAType() {
         return aType;
@@ -49,6 +50,19 @@ public abstract class GeneratedMapperBase extends GeneratedObjectBase implements
         this.bType = (Type<Object>) bType;
     }
     
+    /**
+     * @return true if the object graphs mapped by this mapper (in either
+     *         direction) have been determined to contain no cycles, such that
+     *         mapped objects need not be tracked in the mapping context
+     */
+    public boolean isAcyclic() {
+        return acyclic;
+    }
+    
+    public void setAcyclic(boolean acyclic) {
+        this.acyclic = acyclic;
+    }
+    
     public void setCustomMapper(Mapper<Object, Object> customMapper) {
         this.customMapper = customMapper;
         this.customMapper.setMapperFacade(mapperFacade);
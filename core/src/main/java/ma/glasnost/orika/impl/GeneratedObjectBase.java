@@ -20,6 +20,7 @@ package ma.glasnost.orika.impl;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -297,6 +298,54 @@ public abstract class GeneratedObjectBase {
         }
     }
     
+    /**
+     * Maps the elements of the source directly into the destination
+     * collection; the mapping strategy resolved for an element is reused for
+     * the elements which follow it, for as long as they are of the same class.
+     * Null elements are skipped.
+     * 
+     * @param source
+     *            the elements to map
+     * @param destination
+     *            the collection to which the mapped elements are added
+     * @param sourceType
+     *            the declared type of the source elements
+     * @param destinationType
+     *            the type to which the elements are mapped
+     * @param mappingContext
+     *            the current mapping context
+     */
+    protected void mapElements(Iterable<?> source, Collection<Object> destination, Type<?> sourceType, Type<?> destinationType,
+            MappingContext mappingContext) {
+        ElementMapper elementMapper = new ElementMapper(mapperFacade, sourceType, destinationType, mappingContext);
+        for (final Object s : source) {
+            if (s != null) {
+                destination.add(elementMapper.map(s));
+            }
+        }
+    }
+    
+    /**
+     * Maps the elements of the source array directly into the destination
+     * collection, as {@link #mapElements(Iterable, Collection, Type, Type, MappingContext)}
+     * does for an Iterable.
+     * 
+     * @param source
+     *            the elements to map
+     * @param destination
+     *            the collection to which the mapped elements are added
+     * @param sourceType
+     *            the declared type of the source elements
+     * @param destinationType
+     *            the type to which the elements are mapped
+     * @param mappingContext
+     *            the current mapping context
+     */
+    protected void mapElements(Object[] source, Collection<Object> destination, Type<?> sourceType, Type<?> destinationType,
+            MappingContext mappingContext) {
+        mapElements(Arrays.asList(source), destination, sourceType, destinationType, mappingContext);
+    }
+    
     public static boolean[] booleanArray(Collection<Boolean> collection) {
         boolean[] primitives = new boolean[collection.size()];
         int index = -1;
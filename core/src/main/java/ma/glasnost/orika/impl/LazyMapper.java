@@ -0,0 +1,128 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.impl;
+
+import ma.glasnost.orika.Mapper;
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.metadata.ClassMap;
+import ma.glasnost.orika.metadata.Type;
+
+/**
+ * LazyMapper stands in, within the mapper registry, for the mapper of a
+ * registered class map which has not yet been compiled; it is replaced by the
+ * compiled mapper the first time it is looked up.<br>
+ * <br>
+ * Lookups never hand out a LazyMapper, so it is only used directly if it was
+ * obtained from the registry itself; in that case, it compiles (and then
+ * delegates to) the mapper it stands in for.
+ */
+final class LazyMapper implements Mapper<Object, Object> {
+    
+    private final DefaultMapperFactory mapperFactory;
+    private final ClassMap<Object, Object> classMap;
+    private volatile Mapper<Object, Object> delegate;
+    
+    /**
+     * @param mapperFactory
+     *            the factory which compiles the mapper
+     * @param classMap
+     *            the class map from which the mapper is compiled
+     */
+    LazyMapper(DefaultMapperFactory mapperFactory, ClassMap<Object, Object> classMap) {
+        this.mapperFactory = mapperFactory;
+        this.classMap = classMap;
+    }
+    
+    /**
+     * @return the class map from which the mapper is compiled
+     */
+    ClassMap<Object, Object> getClassMap() {
+        return classMap;
+    }
+    
+    /**
+     * @return the compiled mapper, or null if it has not yet been compiled
+     */
+    Mapper<Object, Object> getDelegate() {
+        return delegate;
+    }
+    
+    /**
+     * @param delegate
+     *            the compiled mapper
+     */
+    void setDelegate(Mapper<Object, Object> delegate) {
+        this.delegate = delegate;
+    }
+    
+    private Mapper<Object, Object> resolve(MappingContext context) {
+        Mapper<Object, Object> mapper = delegate;
+        return mapper != null ? mapper : mapperFactory.resolveLazyMapper(this, context);
+    }
+    
+    /* (non-Javadoc)
+     * @see ma.glasnost.orika.Mapper#mapAtoB(java.lang.Object, java.lang.Object, ma.glasnost.orika.MappingContext)
+     */
+    public void mapAtoB(Object a, Object b, MappingContext context) {
+        resolve(context).mapAtoB(a, b, context);
+    }
+    
+    /* (non-Javadoc)
+     * @see ma.glasnost.orika.Mapper#mapBtoA(java.lang.Object, java.lang.Object, ma.glasnost.orika.MappingContext)
+     */
+    public void mapBtoA(Object b, Object a, MappingContext context) {
+        resolve(context).mapBtoA(b, a, context);
+    }
+    
+    /* (non-Javadoc)
+     * @see ma.glasnost.orika.Mapper#setMapperFacade(ma.glasnost.orika.MapperFacade)
+     */
+    public void setMapperFacade(MapperFacade mapper) {
+        /*
+         * Set on the compiled mapper when it is registered
+         */
+    }
+    
+    /* (non-Javadoc)
+     * @see ma.glasnost.orika.Mapper#setUsedMappers(ma.glasnost.orika.Mapper<java.lang.Object,java.lang.Object>[])
+     */
+    public void setUsedMappers(Mapper<Object, Object>[] mappers) {
+        /*
+         * Resolved for the compiled mapper when it is compiled
+         */
+    }
+    
+    /* (non-Javadoc)
+     * @see ma.glasnost.orika.Mapper#getAType()
+     */
+    public Type<Object> getAType() {
+        return classMap.getAType();
+    }
+    
+    /* (non-Javadoc)
+     * @see ma.glasnost.orika.Mapper#getBType()
+     */
+    public Type<Object> getBType() {
+        return classMap.getBType();
+    }
+    
+    public String toString() {
+        return getClass().getSimpleName() + "(" + classMap.getAType() + ", " + classMap.getBType() + ")";
+    }
+}
@@ -22,10 +22,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import ma.glasnost.orika.Converter;
 import ma.glasnost.orika.MapEntry;
@@ -40,29 +42,110 @@ import ma.glasnost.orika.converter.ConverterFactory;
 import ma.glasnost.orika.impl.mapping.strategy.MappingStrategy;
 import ma.glasnost.orika.impl.mapping.strategy.MappingStrategyKey;
 import ma.glasnost.orika.impl.mapping.strategy.MappingStrategyRecorder;
+import ma.glasnost.orika.impl.mapping.strategy.UseCustomMapperStrategy;
 import ma.glasnost.orika.impl.util.ClassUtil;
 import ma.glasnost.orika.metadata.MapperKey;
 import ma.glasnost.orika.metadata.Type;
 import ma.glasnost.orika.metadata.TypeFactory;
+import ma.glasnost.orika.metrics.MappingMetrics;
 import ma.glasnost.orika.unenhance.UnenhanceStrategy;
-import ma.glasnost.orika.util.CacheLRULinkedHashMap;
+import ma.glasnost.orika.util.ConcurrentLFUCache;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class MapperFacadeImpl implements MapperFacade {
     
+    /**
+     * The default maximum number of resolved mapping strategies to be cached
+     */
+    public static final int DEFAULT_STRATEGY_CACHE_SIZE = 500;
+    
     private final MapperFactory mapperFactory;
     private final MappingContextFactory contextFactory;
     private final UnenhanceStrategy unenhanceStrategy;
-    private final Map<MappingStrategyKey, MappingStrategy> strategyCache = new CacheLRULinkedHashMap<MappingStrategyKey, MappingStrategy>(
-            500);
+    private final ConcurrentLFUCache<MappingStrategyKey, MappingStrategy> strategyCache;
+    private final MappingMetrics metrics;
     private final Logger log = LoggerFactory.getLogger(getClass());
     
     public MapperFacadeImpl(MapperFactory mapperFactory, MappingContextFactory contextFactory, UnenhanceStrategy unenhanceStrategy) {
+        this(mapperFactory, contextFactory, unenhanceStrategy, DEFAULT_STRATEGY_CACHE_SIZE);
+    }
+    
+    /**
+     * Constructs a new MapperFacadeImpl
+     * 
+     * @param mapperFactory
+     * @param contextFactory
+     * @param unenhanceStrategy
+     * @param strategyCacheSize
+     *            the maximum number of resolved mapping strategies to cache
+     */
+    public MapperFacadeImpl(MapperFactory mapperFactory, MappingContextFactory contextFactory, UnenhanceStrategy unenhanceStrategy,
+            int strategyCacheSize) {
+        this(mapperFactory, contextFactory, unenhanceStrategy, strategyCacheSize, null);
+    }
+    
+    /**
+     * Constructs a new MapperFacadeImpl
+     * 
+     * @param mapperFactory
+     * @param contextFactory
+     * @param unenhanceStrategy
+     * @param strategyCacheSize
+     *            the maximum number of resolved mapping strategies to cache
+     * @param metrics
+     *            the metrics to which mappings and strategy resolutions are
+     *            reported, or null if no metrics are collected
+     */
+    public MapperFacadeImpl(MapperFactory mapperFactory, MappingContextFactory contextFactory, UnenhanceStrategy unenhanceStrategy,
+            int strategyCacheSize, MappingMetrics metrics) {
         this.mapperFactory = mapperFactory;
         this.unenhanceStrategy = unenhanceStrategy;
         this.contextFactory = contextFactory;
+        this.strategyCache = new ConcurrentLFUCache<MappingStrategyKey, MappingStrategy>(strategyCacheSize);
+        this.metrics = metrics;
+    }
+    
+    /**
+     * @param mapperFacade
+     * @return the metrics to which the specified facade reports, or null if
+     *         it collects none
+     */
+    static MappingMetrics metricsOf(MapperFacade mapperFacade) {
+        return mapperFacade instanceof MapperFacadeImpl ? ((MapperFacadeImpl) mapperFacade).metrics : null;
+    }
+    
+    /**
+     * Maps an object using a resolved strategy, reporting the time taken to
+     * the specified metrics (unless they are null).
+     * 
+     * @param strategy
+     * @param sourceObject
+     * @param destinationObject
+     * @param context
+     * @param metrics
+     * @return the mapped object
+     */
+    static Object applyStrategy(MappingStrategy strategy, Object sourceObject, Object destinationObject, MappingContext context,
+            MappingMetrics metrics) {
+        if (metrics == null) {
+            return strategy.map(sourceObject, destinationObject, context);
+        }
+        long start = System.nanoTime();
+        try {
+            return strategy.map(sourceObject, destinationObject, context);
+        } finally {
+            metrics.mapped(strategy.getSoureType(), strategy.getDestinationType(), System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * @return the cache of resolved mapping strategies used by this facade;
+     *         useful for monitoring its hit, miss and eviction counts
+     */
+    public ConcurrentLFUCache<MappingStrategyKey, MappingStrategy> getStrategyCache() {
+        return strategyCache;
     }
 
     /**
@@ -144,9 +227,13 @@ public class MapperFacadeImpl implements MapperFacade {
         
         MappingStrategyKey key = new MappingStrategyKey(sourceObject.getClass(), initialSourceType, initialDestinationType, mapInPlace);
         MappingStrategy strategy = strategyCache.get(key);
+        if (metrics != null) {
+            metrics.strategyResolved(strategy != null);
+        }
         
         if (strategy == null) {
             
+            long start = metrics != null ? System.nanoTime() : 0;
             @SuppressWarnings("unchecked")
             Type<S> sourceType = (Type<S>) (initialSourceType != null ? TypeFactory.valueOf(initialSourceType) : TypeFactory.typeOf(sourceObject));
             Type<D> destinationType = TypeFactory.valueOf(initialDestinationType);
@@ -209,7 +296,10 @@ public class MapperFacadeImpl implements MapperFacade {
             if (log.isDebugEnabled()) {
                 log.debug(strategyRecorder.describeDetails());
             }
-            strategyCache.put(key, strategy);
+            strategyCache.cache(key, strategy);
+            if (metrics != null) {
+                metrics.strategyCreated(strategy, strategyRecorder.describeDetails(), System.nanoTime() - start);
+            }
         }
         
         /*
@@ -222,6 +312,20 @@ public class MapperFacadeImpl implements MapperFacade {
         return strategy;
     }
     
+    /**
+     * Determines whether the specified strategy maps a type pair whose object
+     * graphs have been found to be free of cycles; objects mapped by such a
+     * strategy are never recorded in the mapping context, so there is no need
+     * to look them up.
+     * 
+     * @param strategy
+     *            the strategy to test
+     * @return true if the strategy is known to map only acyclic graphs
+     */
+    static boolean isAcyclic(MappingStrategy strategy) {
+        return strategy instanceof UseCustomMapperStrategy && ((UseCustomMapperStrategy) strategy).isAcyclic();
+    }
+    
     
     
     @SuppressWarnings("unchecked")
@@ -235,10 +339,10 @@ public class MapperFacadeImpl implements MapperFacade {
                 return null;
             }
             
-            D existingResult = (D) context.getMappedObject(sourceObject, destinationType);
+            MappingStrategy strategy = resolveMappingStrategy(sourceObject, sourceType, destinationType, false, context);
+            D existingResult = isAcyclic(strategy) ? null : (D) context.getMappedObject(sourceObject, destinationType);
             if (existingResult == null) {
-                MappingStrategy strategy = resolveMappingStrategy(sourceObject, sourceType, destinationType, false, context);
-                existingResult = (D) strategy.map(sourceObject, null, context);
+                existingResult = (D) applyStrategy(strategy, sourceObject, null, context, metrics);
             }
             return existingResult;
             
@@ -301,7 +405,7 @@ public class MapperFacadeImpl implements MapperFacade {
             
             if (context.getMappedObject(sourceObject, destinationType) == null) {
                 MappingStrategy strategy = resolveMappingStrategy(sourceObject, sourceType, destinationType, true, context);
-                strategy.map(sourceObject, destinationObject, context);
+                applyStrategy(strategy, sourceObject, destinationObject, context, metrics);
             }
 
         } catch (MappingException e) {
@@ -341,7 +445,7 @@ public class MapperFacadeImpl implements MapperFacade {
             
             if (context.getMappedObject(sourceObject, destinationObject.getClass()) == null) {
                 MappingStrategy strategy = resolveMappingStrategy(sourceObject, null, destinationObject.getClass(), true, context);
-                strategy.map(sourceObject, destinationObject, context);
+                applyStrategy(strategy, sourceObject, destinationObject, context, metrics);
             }
 
         } catch (MappingException e) {
@@ -377,20 +481,108 @@ public class MapperFacadeImpl implements MapperFacade {
     }
     
     public final <S, D> Set<D> mapAsSet(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, MappingContext context) {
-        return (Set<D>) mapAsCollection(source, sourceType, destinationType, new HashSet<D>(), context);
+        return mapAsSet(source, sourceType, destinationType, sizeOf(source), context);
+    }
+    
+    public <S, D> Set<D> mapAsSet(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, int sizeHint) {
+        MappingContext context = contextFactory.getContext();
+        try {
+            return mapAsSet(source, sourceType, destinationType, sizeHint, context);
+        } finally {
+            contextFactory.release(context);
+        }
+    }
+    
+    public <S, D> Set<D> mapAsSet(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, int sizeHint, MappingContext context) {
+        return (Set<D>) mapAsCollection(source, sourceType, destinationType, new HashSet<D>(hashCapacity(sizeHint)), context);
     }
     
     public final <S, D> List<D> mapAsList(Iterable<S> source, Type<S> sourceType, Type<D> destinationType) {
         MappingContext context = contextFactory.getContext();
         try {
-            return (List<D>) mapAsCollection(source, sourceType, destinationType, new ArrayList<D>(), context);
+            return mapAsList(source, sourceType, destinationType, context);
         } finally {
             contextFactory.release(context);
         }
     }
     
     public final <S, D> List<D> mapAsList(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, MappingContext context) {
-        return (List<D>) mapAsCollection(source, sourceType, destinationType, new ArrayList<D>(), context);
+        return mapAsList(source, sourceType, destinationType, sizeOf(source), context);
+    }
+    
+    public <S, D> List<D> mapAsList(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, int sizeHint) {
+        MappingContext context = contextFactory.getContext();
+        try {
+            return mapAsList(source, sourceType, destinationType, sizeHint, context);
+        } finally {
+            contextFactory.release(context);
+        }
+    }
+    
+    public <S, D> List<D> mapAsList(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, int sizeHint, MappingContext context) {
+        return (List<D>) mapAsCollection(source, sourceType, destinationType, new ArrayList<D>(Math.max(sizeHint, 0)), context);
+    }
+    
+    public <S, D> List<D> mapAsListParallel(Iterable<S> source, Type<S> sourceType, Type<D> destinationType, Executor executor) {
+        return mapAsListParallel(source, sourceType, destinationType, executor, Runtime.getRuntime().availableProcessors(), true);
+    }
+    
+    public <S, D> List<D> mapAsListParallel(Iterable<S> source, final Type<S> sourceType, final Type<D> destinationType,
+            Executor executor, int parallelism, boolean shareMappedObjects) {
+        return new ParallelMapping<S, D>(contextFactory, shareMappedObjects) {
+            void mapPartition(List<S> elements, int from, int to, Object[] results, MappingContext context) {
+                ElementMapper elementMapper = new ElementMapper(MapperFacadeImpl.this, sourceType, destinationType, context);
+                for (int i = from; i < to; ++i) {
+                    results[i] = elementMapper.map(elements.get(i));
+                }
+            }
+        }.map(source, executor, parallelism);
+    }
+    
+    public <S, D> Iterator<D> mapAsIterator(Iterator<S> source, Type<S> sourceType, Type<D> destinationType) {
+        return mapAsIterator(source, sourceType, destinationType, MappingIterator.DEFAULT_IDENTITY_WINDOW);
+    }
+    
+    public <S, D> Iterator<D> mapAsIterator(Iterator<S> source, final Type<S> sourceType, final Type<D> destinationType,
+            int identityWindow) {
+        if (source == null) {
+            return null;
+        }
+        return new MappingIterator<S, D>(source, contextFactory, identityWindow) {
+            private ElementMapper elementMapper;
+            private MappingContext elementContext;
+            
+            @SuppressWarnings("unchecked")
+            D mapElement(S element, MappingContext context) {
+                if (elementContext != context) {
+                    /*
+                     * A new context is acquired after the previous one was
+                     * released, and the ElementMapper is bound to its context
+                     */
+                    elementMapper = new ElementMapper(MapperFacadeImpl.this, sourceType, destinationType, context);
+                    elementContext = context;
+                }
+                return (D) elementMapper.map(element);
+            }
+        };
+    }
+    
+    /**
+     * @param source
+     * @return the number of elements in the source, if it is a Collection;
+     *         otherwise, the default capacity of a new ArrayList
+     */
+    private static int sizeOf(Iterable<?> source) {
+        return source instanceof Collection ? ((Collection<?>) source).size() : 10;
+    }
+    
+    /**
+     * @param size
+     * @return the capacity of a hash-based collection able to hold the
+     *         specified number of elements without being rehashed
+     */
+    private static int hashCapacity(int size) {
+        return Math.max(size * 4 / 3 + 1, 16);
     }
     
     public <S, D> D[] mapAsArray(D[] destination, Iterable<S> source, Type<S> sourceType, Type<D> destinationType) {
@@ -411,28 +603,32 @@ public class MapperFacadeImpl implements MapperFacade {
         } 
     }
     
+    @SuppressWarnings("unchecked")
     public <S, D> D[] mapAsArray(D[] destination, Iterable<S> source, Type<S> sourceType, Type<D> destinationType, MappingContext context) {
         
         if (source == null) {
             return null;
         }
         
+        ElementMapper elementMapper = new ElementMapper(this, sourceType, destinationType, context);
         int i = 0;
         for (final S s : source) {
-            destination[i++] = map(s, sourceType, destinationType);
+            destination[i++] = (D) elementMapper.map(s);
         }
         return destination;
     }
     
+    @SuppressWarnings("unchecked")
     public <S, D> D[] mapAsArray(D[] destination, S[] source, Type<S> sourceType, Type<D> destinationType, MappingContext context) {
         
         if (source == null) {
             return null;
         }
         
+        ElementMapper elementMapper = new ElementMapper(this, sourceType, destinationType, context);
         int i = 0;
         for (final S s : source) {
-            destination[i++] = map(s, sourceType, destinationType, context);
+            destination[i++] = (D) elementMapper.map(s);
         }
         return destination;
     }
@@ -446,10 +642,12 @@ public class MapperFacadeImpl implements MapperFacade {
         } 
     }
     
+    @SuppressWarnings("unchecked")
     public <S, D> List<D> mapAsList(S[] source, Type<S> sourceType, Type<D> destinationType, MappingContext context) {
         final List<D> destination = new ArrayList<D>(source.length);
+        ElementMapper elementMapper = new ElementMapper(this, sourceType, destinationType, context);
         for (final S s : source) {
-            destination.add(map(s, sourceType, destinationType, context));
+            destination.add((D) elementMapper.map(s));
         }
         return destination;
     }
@@ -463,10 +661,12 @@ public class MapperFacadeImpl implements MapperFacade {
         } 
     }
     
+    @SuppressWarnings("unchecked")
     public <S, D> Set<D> mapAsSet(S[] source, Type<S> sourceType, Type<D> destinationType, MappingContext context) {
-        final Set<D> destination = new HashSet<D>(source.length);
+        final Set<D> destination = new HashSet<D>(hashCapacity(source.length));
+        ElementMapper elementMapper = new ElementMapper(this, sourceType, destinationType, context);
         for (final S s : source) {
-            destination.add(map(s, sourceType, destinationType, context));
+            destination.add((D) elementMapper.map(s));
         }
         return destination;
     }
@@ -483,6 +683,7 @@ public class MapperFacadeImpl implements MapperFacade {
      * @param destinationType
      * @param context
      */
+    @SuppressWarnings("unchecked")
     public <S, D> void mapAsCollection(Iterable<S> source, Collection<D> destination, Type<S> sourceType, Type<D> destinationType,
             MappingContext context) {
         if (source == null) {
@@ -490,8 +691,9 @@ public class MapperFacadeImpl implements MapperFacade {
         }
         if (destination != null) {
             destination.clear();
+            ElementMapper elementMapper = new ElementMapper(this, sourceType, destinationType, context);
             for (S item : source) {
-                destination.add(map(item, sourceType, destinationType, context));
+                destination.add((D) elementMapper.map(item));
             }
         }
     }
@@ -505,6 +707,7 @@ public class MapperFacadeImpl implements MapperFacade {
      * @param destinationType
      * @param context
      */
+    @SuppressWarnings("unchecked")
     public <S, D> void mapAsCollection(S[] source, Collection<D> destination, Type<S> sourceType, Type<D> destinationType,
             MappingContext context) {
         if (source == null) {
@@ -512,8 +715,9 @@ public class MapperFacadeImpl implements MapperFacade {
         }
         if (destination != null) {
             destination.clear();
+            ElementMapper elementMapper = new ElementMapper(this, sourceType, destinationType, context);
             for (S item : source) {
-                destination.add(map(item, sourceType, destinationType, context));
+                destination.add((D) elementMapper.map(item));
             }
         }
     }
@@ -615,24 +819,11 @@ public class MapperFacadeImpl implements MapperFacade {
             return null;
         }
         
-        MappingStrategy strategy = null;
-        Class<?> sourceClass = null;
+        ElementMapper elementMapper = new ElementMapper(this, sourceType, destinationType, context);
         for (final S item : source) {
-            if (item == null) {
-                continue;
-            } else if (strategy == null || (!item.getClass().equals(sourceClass))) {
-                /*
-                 * Resolve the strategy and reuse; assuming this is a homogeneous collection,
-                 * this will save us (n-1) lookups; if not, we would have done those lookups anyway
-                 */
-                strategy = resolveMappingStrategy(item, sourceType, destinationType, false, context);
-                sourceClass = item.getClass();
-            }
-            D mappedItem = (D) context.getMappedObject(item, destinationType);
-            if (mappedItem == null) {
-                mappedItem = (D) strategy.map(item, null, context);
+            if (item != null) {
+                destination.add((D) elementMapper.map(item));
             }
-            destination.add(mappedItem);
         }
         return destination;
     }
@@ -676,10 +867,10 @@ public class MapperFacadeImpl implements MapperFacade {
                 return null;
             }
             
-            D result = (D) context.getMappedObject(sourceObject, destinationClass);
+            MappingStrategy strategy = resolveMappingStrategy(sourceObject, null, destinationClass, false, context);
+            D result = isAcyclic(strategy) ? null : (D) context.getMappedObject(sourceObject, destinationClass);
             if (result == null) {
-                MappingStrategy strategy = resolveMappingStrategy(sourceObject, null, destinationClass, false, context);
-                result = (D) strategy.map(sourceObject, null, context); 
+                result = (D) applyStrategy(strategy, sourceObject, null, context, metrics);
             }
             return result;
             
@@ -764,53 +955,18 @@ public class MapperFacadeImpl implements MapperFacade {
     @SuppressWarnings("unchecked")
     public <Sk, Sv, Dk, Dv> Map<Dk, Dv> mapAsMap(Map<Sk, Sv> source, Type<? extends Map<Sk, Sv>> sourceType,
             Type<? extends Map<Dk, Dv>> destinationType, MappingContext context) {
-        Map<Dk, Dv> destination = new HashMap<Dk, Dv>(source.size());
+        Map<Dk, Dv> destination = new HashMap<Dk, Dv>(hashCapacity(source.size()));
         
         /*
          * Resolve the strategy used for the key and value; only re-resolve
          * a strategy if we encounter a different source class. This should allow
          * us to process a homogeneous key/value typed map as quickly as possible
          */
-        MappingStrategy keyStrategy = null;
-        MappingStrategy valueStrategy = null;
-        Class<?> keyClass = null;
-        Class<?> valueClass = null;
-
+        ElementMapper keyMapper = new ElementMapper(this, sourceType.getNestedType(0), destinationType.getNestedType(0), context);
+        ElementMapper valueMapper = new ElementMapper(this, sourceType.getNestedType(1), destinationType.getNestedType(1), context);
+        
         for (Entry<Sk, Sv> entry : source.entrySet()) {
-            Dk key;
-            if (entry.getKey() == null) {
-                key = null;
-            } else {
-                if (keyStrategy == null || !entry.getKey().getClass().equals(keyClass)) {
-                    keyStrategy = resolveMappingStrategy(entry.getKey(), sourceType.<Sk> getNestedType(0), destinationType.<Dk> getNestedType(0), false, context);
-                    keyClass = entry.getKey().getClass();
-                }
-                Dk mappedKey = (Dk) context.getMappedObject(entry.getKey(), destinationType.<Dk> getNestedType(0));
-                if (mappedKey == null) {
-                    mappedKey = (Dk) (Dk) keyStrategy.map(entry.getKey(), null, context);
-                }
-                
-                key = mappedKey;
-            } 
-            
-            Dv value;
-            if (entry.getValue() == null) {
-                value = null;
-            } else {
-                if (valueStrategy == null || !entry.getValue().getClass().equals(valueClass)) {
-                    valueStrategy = resolveMappingStrategy(entry.getValue(), sourceType.<Sv> getNestedType(1), destinationType.<Dv> getNestedType(1), false, context);
-                    valueClass = entry.getValue().getClass();
-                }
-                
-                Dv mappedValue = (Dv) context.getMappedObject(entry.getValue(), destinationType.<Dv> getNestedType(1));
-                if (mappedValue == null) {
-                    mappedValue = (Dv) (Dv) valueStrategy.map(entry.getValue(), null, context);
-                }
-                
-                value = mappedValue;
-            } 
-            
-            destination.put(key, value);
+            destination.put((Dk) keyMapper.map(entry.getKey()), (Dv) valueMapper.map(entry.getValue()));
         }
         return destination;
     }
@@ -824,26 +980,32 @@ public class MapperFacadeImpl implements MapperFacade {
         } 
     }
     
-    @SuppressWarnings("unchecked")
     public <S, Dk, Dv> Map<Dk, Dv> mapAsMap(Iterable<S> source, Type<S> sourceType, Type<? extends Map<Dk, Dv>> destinationType,
             MappingContext context) {
+        return mapAsMap(source, sourceType, destinationType, sizeOf(source), context);
+    }
+    
+    public <S, Dk, Dv> Map<Dk, Dv> mapAsMap(Iterable<S> source, Type<S> sourceType, Type<? extends Map<Dk, Dv>> destinationType,
+            int sizeHint) {
+        MappingContext context = contextFactory.getContext();
+        try {
+            return mapAsMap(source, sourceType, destinationType, sizeHint, context);
+        } finally {
+            contextFactory.release(context);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    public <S, Dk, Dv> Map<Dk, Dv> mapAsMap(Iterable<S> source, Type<S> sourceType, Type<? extends Map<Dk, Dv>> destinationType,
+            int sizeHint, MappingContext context) {
         
-        Map<Dk, Dv> destination = new HashMap<Dk, Dv>();
-        MappingStrategy strategy = null;
-        Class<?> entryClass = null;
+        Map<Dk, Dv> destination = new HashMap<Dk, Dv>(hashCapacity(sizeHint));
         
         Type<?> entryType = TypeFactory.valueOf(Map.Entry.class, destinationType.getNestedType(0), destinationType.getNestedType(1));
+        ElementMapper entryMapper = new ElementMapper(this, sourceType, entryType, context);
         
         for (S element : source) {
-            if (strategy == null || !element.getClass().equals(entryClass)) {
-                strategy = resolveMappingStrategy(element, sourceType, entryType, false, context);
-                entryClass = element.getClass();
-            }
-            
-            Map.Entry<Dk, Dv> entry = context.getMappedObject(element, entryType);
-            if (entry == null) {
-                entry = (Map.Entry<Dk, Dv>) strategy.map(element, null, context);
-            }
+            Map.Entry<Dk, Dv> entry = (Map.Entry<Dk, Dv>) entryMapper.map(element);
             destination.put(entry.getKey(), entry.getValue());
         }
         
@@ -863,21 +1025,12 @@ public class MapperFacadeImpl implements MapperFacade {
     public <S, Dk, Dv> Map<Dk, Dv> mapAsMap(S[] source, Type<S> sourceType, Type<? extends Map<Dk, Dv>> destinationType,
             MappingContext context) {
         
-        Map<Dk, Dv> destination = new HashMap<Dk, Dv>();
+        Map<Dk, Dv> destination = new HashMap<Dk, Dv>(hashCapacity(source.length));
         Type<MapEntry<Dk, Dv>> entryType = MapEntry.concreteEntryType(destinationType);
-        MappingStrategy strategy = null;
-        Class<?> entryClass = null;
+        ElementMapper entryMapper = new ElementMapper(this, sourceType, entryType, context);
         
         for (S element : source) {
-            if (strategy == null || !element.getClass().equals(entryClass)) {
-                strategy = resolveMappingStrategy(element, sourceType, entryType, false, context);
-                entryClass = element.getClass();
-            }
-            
-            MapEntry<Dk, Dv> entry = context.getMappedObject(element, entryType);
-            if (entry == null) {
-                entry = (MapEntry<Dk, Dv>) strategy.map(element, null, context);
-            }
+            MapEntry<Dk, Dv> entry = (MapEntry<Dk, Dv>) entryMapper.map(element);
             destination.put(entry.getKey(), entry.getValue());
         }
         
@@ -924,7 +1077,7 @@ public class MapperFacadeImpl implements MapperFacade {
          * Use map as collection to map the entry set to a list; requires an
          * existing mapping for Map.Entry to to type D.
          */
-        Set<D> destination = new HashSet<D>(source.size());
+        Set<D> destination = new HashSet<D>(hashCapacity(source.size()));
         Type<Entry<Sk, Sv>> entryType = TypeFactory.resolveTypeOf(source.entrySet(), sourceType).getNestedType(0);
         return (Set<D>) mapAsCollection(source.entrySet(), entryType, destinationType, destination, context);
     }
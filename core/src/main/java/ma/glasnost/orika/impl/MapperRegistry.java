@@ -0,0 +1,402 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ma.glasnost.orika.Mapper;
+import ma.glasnost.orika.metadata.Type;
+
+/**
+ * MapperRegistry holds the mappers known to a MapperFactory, and resolves the
+ * mapper to be used for a given pair of types: of the matching mappers, the
+ * most specific one (according to {@link Comparators#MAPPER}) is chosen, with
+ * ties going to the mapper registered first.<br>
+ * <br>
+ * Resolved lookups (including those for which no mapper exists) are cached
+ * per pair of types, and indexed by the classes in the hierarchy of either
+ * type; when a new mapper is registered, only the cached results for pairs
+ * within the hierarchy of its A type are examined and updated. Cache misses
+ * don't scan the whole registry either: mappers are indexed by the raw class
+ * of their A type, so that only the mappers registered for a supertype of one
+ * of the requested types need to be examined.
+ */
+final class MapperRegistry implements Iterable<Mapper<Object, Object>> {
+
+    /**
+     * Marker stored for type pairs which have no matching mapper
+     */
+    private static final Object NO_MAPPER = new Object();
+
+    /**
+     * Orders registrations by the sequence in which they were registered
+     */
+    private static final Comparator<Registration> REGISTRATION_ORDER = new Comparator<Registration>() {
+        public int compare(Registration r1, Registration r2) {
+            return r1.sequence < r2.sequence ? -1 : (r1.sequence == r2.sequence ? 0 : 1);
+        }
+    };
+
+    /*
+     * The following are guarded by 'this'
+     */
+    private final Set<Registration> registrations;
+    private final Map<Class<?>, List<Registration>> mappersByRawType;
+    private final Map<Class<?>, Set<TypePair>> resolvedByRawType;
+    private long nextSequence;
+    private boolean hasArrayMappers;
+
+    /*
+     * Resolved lookups, with and without auto-generated mappers; the values
+     * are either a Registration or NO_MAPPER
+     */
+    private final ConcurrentHashMap<TypePair, Object> resolvedMappers;
+    private final ConcurrentHashMap<TypePair, Object> resolvedExplicitMappers;
+
+    MapperRegistry() {
+        this.registrations = new LinkedHashSet<Registration>();
+        this.mappersByRawType = new HashMap<Class<?>, List<Registration>>();
+        this.resolvedByRawType = new HashMap<Class<?>, Set<TypePair>>();
+        this.resolvedMappers = new ConcurrentHashMap<TypePair, Object>();
+        this.resolvedExplicitMappers = new ConcurrentHashMap<TypePair, Object>();
+    }
+
+    /**
+     * Registers a mapper, updating any cached lookups for which it is now the
+     * most specific match.
+     *
+     * @param mapper
+     *            the mapper to register
+     */
+    synchronized void add(Mapper<Object, Object> mapper) {
+        add(new Registration(mapper, nextSequence++));
+    }
+
+    private void add(Registration registration) {
+
+        registrations.add(registration);
+
+        Class<?> rawType = registration.mapper.getAType().getRawType();
+        List<Registration> bucket = mappersByRawType.get(rawType);
+        if (bucket == null) {
+            bucket = new ArrayList<Registration>(2);
+            mappersByRawType.put(rawType, bucket);
+        }
+        bucket.add(registration);
+        hasArrayMappers |= rawType.isArray() || registration.mapper.getBType().isArray();
+
+        for (TypePair key : affectedPairs(registration.mapper)) {
+            update(resolvedMappers, key, registration, true);
+            update(resolvedExplicitMappers, key, registration, false);
+        }
+    }
+
+    /**
+     * Replaces a registered mapper with another which maps the same types;
+     * the replacement takes over the registration order of the replaced
+     * mapper, and cached lookups which resolved to the replaced mapper are
+     * resolved again.
+     *
+     * @param mapper
+     *            the registered mapper to replace
+     * @param replacement
+     *            the mapper which replaces it
+     */
+    synchronized void replace(Mapper<Object, Object> mapper, Mapper<Object, Object> replacement) {
+
+        Registration registration = null;
+        List<Registration> bucket = mappersByRawType.get(mapper.getAType().getRawType());
+        if (bucket != null) {
+            for (Iterator<Registration> iter = bucket.iterator(); iter.hasNext();) {
+                Registration candidate = iter.next();
+                if (candidate.mapper == mapper) {
+                    iter.remove();
+                    registration = candidate;
+                    break;
+                }
+            }
+        }
+        if (registration == null) {
+            add(replacement);
+            return;
+        }
+        registrations.remove(registration);
+        for (TypePair key : affectedPairs(mapper)) {
+            resolvedMappers.remove(key, registration);
+            resolvedExplicitMappers.remove(key, registration);
+        }
+
+        add(new Registration(replacement, registration.sequence));
+    }
+
+    /**
+     * Returns the cached type pairs which the specified mapper could match:
+     * one of the types of such a pair must have the raw A type of the mapper
+     * in its hierarchy.
+     */
+    private Collection<TypePair> affectedPairs(Mapper<?, ?> mapper) {
+        if (mapper.getAType().isArray() || mapper.getBType().isArray()) {
+            Set<TypePair> pairs = new LinkedHashSet<TypePair>(resolvedMappers.keySet());
+            pairs.addAll(resolvedExplicitMappers.keySet());
+            return pairs;
+        }
+        Set<TypePair> pairs = resolvedByRawType.get(mapper.getAType().getRawType());
+        return pairs == null ? Collections.<TypePair> emptySet() : new ArrayList<TypePair>(pairs);
+    }
+
+    private static void update(ConcurrentHashMap<TypePair, Object> resolved, TypePair key, Registration registration,
+            boolean includeAutoGeneratedMappers) {
+        Object current = resolved.get(key);
+        if (current != null && matches(registration.mapper, key.aType, key.bType, includeAutoGeneratedMappers)
+                && (current == NO_MAPPER || isPreferred(registration, (Registration) current))) {
+            resolved.put(key, registration);
+        }
+    }
+
+    /**
+     * Resolves the most specific registered mapper which can map between the
+     * specified types (in either direction).
+     *
+     * @param typeA
+     * @param typeB
+     * @param includeAutoGeneratedMappers
+     *            whether auto-generated mappers should be included in the
+     *            lookup; an auto-generated mapper is still returned if it
+     *            maps exactly the requested types
+     * @return the matching mapper, or <code>null</code> if none exists
+     */
+    Mapper<Object, Object> lookup(Type<?> typeA, Type<?> typeB, boolean includeAutoGeneratedMappers) {
+
+        ConcurrentHashMap<TypePair, Object> resolved = includeAutoGeneratedMappers ? resolvedMappers : resolvedExplicitMappers;
+        TypePair key = new TypePair(typeA, typeB);
+        Object registration = resolved.get(key);
+        if (registration == null) {
+            synchronized (this) {
+                registration = resolved.get(key);
+                if (registration == null) {
+                    registration = resolve(typeA, typeB, includeAutoGeneratedMappers);
+                    if (registration == null) {
+                        registration = NO_MAPPER;
+                    }
+                    resolved.put(key, registration);
+                    index(key);
+                }
+            }
+        }
+        return registration == NO_MAPPER ? null : ((Registration) registration).mapper;
+    }
+
+    /**
+     * Indexes a cached type pair by each class in the hierarchy of either of
+     * its types
+     */
+    private void index(TypePair key) {
+        Set<Class<?>> rawTypes = new LinkedHashSet<Class<?>>();
+        collectHierarchy(key.aType.getRawType(), rawTypes);
+        collectHierarchy(key.bType.getRawType(), rawTypes);
+        for (Class<?> rawType : rawTypes) {
+            Set<TypePair> pairs = resolvedByRawType.get(rawType);
+            if (pairs == null) {
+                pairs = new LinkedHashSet<TypePair>();
+                resolvedByRawType.put(rawType, pairs);
+            }
+            pairs.add(key);
+        }
+    }
+
+    /**
+     * @return the number of registered mappers
+     */
+    synchronized int size() {
+        return registrations.size();
+    }
+
+    /**
+     * @return an iterator over the registered mappers; the registry must not
+     *         be modified during iteration
+     */
+    public Iterator<Mapper<Object, Object>> iterator() {
+        final Iterator<Registration> iter = registrations.iterator();
+        return new Iterator<Mapper<Object, Object>>() {
+            public boolean hasNext() {
+                return iter.hasNext();
+            }
+
+            public Mapper<Object, Object> next() {
+                return iter.next().mapper;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private Registration resolve(Type<?> typeA, Type<?> typeB, boolean includeAutoGeneratedMappers) {
+
+        List<Registration> candidates;
+        if (hasArrayMappers && (typeA.isArray() || typeB.isArray())) {
+            /*
+             * Array types are assignable to arrays of their component's
+             * supertypes, which are not part of their class hierarchy
+             */
+            candidates = new ArrayList<Registration>(registrations);
+        } else {
+            Set<Class<?>> rawTypes = new LinkedHashSet<Class<?>>();
+            collectHierarchy(typeA.getRawType(), rawTypes);
+            collectHierarchy(typeB.getRawType(), rawTypes);
+            candidates = new ArrayList<Registration>();
+            for (Class<?> rawType : rawTypes) {
+                List<Registration> bucket = mappersByRawType.get(rawType);
+                if (bucket != null) {
+                    candidates.addAll(bucket);
+                }
+            }
+        }
+        /*
+         * Visiting the candidates in registration order yields the same
+         * result as updating the cached lookup as each one is registered
+         */
+        Collections.sort(candidates, REGISTRATION_ORDER);
+
+        Registration best = null;
+        for (Registration candidate : candidates) {
+            if (matches(candidate.mapper, typeA, typeB, includeAutoGeneratedMappers)
+                    && (best == null || isPreferred(candidate, best))) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Tests whether the candidate should be chosen over the current choice:
+     * that is, whether it is more specific, or equally specific but
+     * registered earlier.
+     */
+    private static boolean isPreferred(Registration candidate, Registration current) {
+        int comparison = Comparators.MAPPER.compare(candidate.mapper, current.mapper);
+        return comparison < 0 || (comparison == 0 && candidate.sequence < current.sequence);
+    }
+
+    /**
+     * Tests whether the mapper is eligible for the requested types: either
+     * it maps exactly those types, or it maps supertypes of them (in which
+     * case auto-generated mappers are only eligible when requested).
+     */
+    private static boolean matches(Mapper<?, ?> mapper, Type<?> typeA, Type<?> typeB, boolean includeAutoGeneratedMappers) {
+
+        if ((mapper.getAType().equals(typeA) && mapper.getBType().equals(typeB))
+                || (mapper.getAType().equals(typeB) && mapper.getBType().equals(typeA))) {
+            return true;
+        } else if ((mapper.getAType().isAssignableFrom(typeA) && mapper.getBType().isAssignableFrom(typeB))
+                || (mapper.getAType().isAssignableFrom(typeB) && mapper.getBType().isAssignableFrom(typeA))) {
+
+            return includeAutoGeneratedMappers || !(mapper instanceof GeneratedMapperBase)
+                    || !((GeneratedMapperBase) mapper).isFromAutoMapping();
+        }
+        return false;
+    }
+
+    /**
+     * Collects the specified type, along with all of its superclasses and
+     * interfaces (and Object)
+     */
+    static void collectHierarchy(Class<?> rawType, Set<Class<?>> hierarchy) {
+        if (rawType.isPrimitive()) {
+            hierarchy.add(rawType);
+            return;
+        }
+        for (Class<?> type = rawType; type != null; type = type.getSuperclass()) {
+            collectInterfaces(type, hierarchy);
+        }
+        /*
+         * Interfaces have no superclass, but are still assignable to Object
+         */
+        hierarchy.add(Object.class);
+    }
+
+    private static void collectInterfaces(Class<?> type, Set<Class<?>> hierarchy) {
+        if (hierarchy.add(type)) {
+            for (Class<?> iface : type.getInterfaces()) {
+                collectInterfaces(iface, hierarchy);
+            }
+        }
+    }
+
+    /**
+     * A registered mapper, along with the order in which it was registered
+     */
+    private static final class Registration {
+        private final Mapper<Object, Object> mapper;
+        private final long sequence;
+
+        Registration(Mapper<Object, Object> mapper, long sequence) {
+            this.mapper = mapper;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * An ordered pair of types, used as the key for resolved lookups
+     */
+    static final class TypePair {
+        private final Type<?> aType;
+        private final Type<?> bType;
+        private final int hashCode;
+
+        TypePair(Type<?> aType, Type<?> bType) {
+            this.aType = aType;
+            this.bType = bType;
+            this.hashCode = 31 * aType.hashCode() + bType.hashCode();
+        }
+
+        Type<?> getAType() {
+            return aType;
+        }
+
+        Type<?> getBType() {
+            return bType;
+        }
+
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TypePair)) {
+                return false;
+            }
+            TypePair other = (TypePair) o;
+            return aType.equals(other.aType) && bType.equals(other.bType);
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.impl;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.MappingContextFactory;
+
+/**
+ * MappingIterator maps the elements of a source Iterator lazily, one at a
+ * time as they are consumed, so that a source of any size (such as a database
+ * cursor) can be mapped without holding more than the current element.<br>
+ * <br>
+ * All elements are mapped within a single context, obtained from the
+ * MappingContextFactory when the first element is mapped, and released once
+ * the source is exhausted, once an exception is thrown, or once the iterator
+ * is closed (whichever comes first); the context is reset after every
+ * <code>identityWindow</code> elements, so that the objects it tracks (to
+ * preserve identity, and resolve cycles) are bounded by the window rather
+ * than growing with the source. An object reached from elements in different
+ * windows is therefore mapped once for each window.
+ *
+ * @param <S>
+ *            the type of the source elements
+ * @param <D>
+ *            the type of the mapped elements
+ */
+abstract class MappingIterator<S, D> implements Iterator<D>, Closeable {
+
+    /**
+     * The default number of consecutive elements within which the identity of
+     * mapped objects is preserved
+     */
+    static final int DEFAULT_IDENTITY_WINDOW = 1024;
+
+    private final Iterator<S> source;
+    private final MappingContextFactory contextFactory;
+    private final int identityWindow;
+    private MappingContext context;
+    private int mappedInWindow;
+
+    /**
+     * @param source
+     *            the elements to map
+     * @param contextFactory
+     *            the factory from which the context is obtained
+     * @param identityWindow
+     *            the number of consecutive elements within which the identity
+     *            of mapped objects is preserved
+     */
+    MappingIterator(Iterator<S> source, MappingContextFactory contextFactory, int identityWindow) {
+        if (identityWindow < 1) {
+            throw new IllegalArgumentException("identityWindow must be positive");
+        }
+        this.source = source;
+        this.contextFactory = contextFactory;
+        this.identityWindow = identityWindow;
+    }
+
+    /**
+     * Maps a single element.
+     *
+     * @param element
+     *            the (non-null) element to map
+     * @param context
+     *            the current context
+     * @return the mapped element
+     */
+    abstract D mapElement(S element, MappingContext context);
+
+    public boolean hasNext() {
+        boolean hasNext = false;
+        try {
+            hasNext = source.hasNext();
+        } finally {
+            if (!hasNext) {
+                close();
+            }
+        }
+        return hasNext;
+    }
+
+    public D next() {
+        boolean completed = false;
+        try {
+            S element = source.next();
+            D result = null;
+            if (element != null) {
+                if (context == null) {
+                    context = contextFactory.getContext();
+                } else if (mappedInWindow == identityWindow) {
+                    context.reset();
+                    mappedInWindow = 0;
+                }
+                ++mappedInWindow;
+                result = mapElement(element, context);
+            }
+            completed = true;
+            return result;
+        } finally {
+            if (!completed) {
+                close();
+            }
+        }
+    }
+
+    /**
+     * Releases the context held by this iterator; this is only needed when
+     * the iterator is abandoned before the source is exhausted. Iterating
+     * further after closing obtains a new context.
+     */
+    public void close() {
+        if (context != null) {
+            contextFactory.release(context);
+            context = null;
+            mappedInWindow = 0;
+        }
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("remove() is not supported by a mapping iterator");
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.MappingContextFactory;
+import ma.glasnost.orika.MappingException;
+
+/**
+ * ParallelMapping maps the elements of a bulk mapping operation on several
+ * threads at once.<br>
+ * <br>
+ * The source elements are split into contiguous partitions, of which all but
+ * the first are submitted to the executor; the first is mapped by the calling
+ * thread, which then maps any partition that the executor has not yet started
+ * (so that a busy, or even a rejecting, executor cannot stall the operation)
+ * before waiting for the others. Each partition is mapped within its own
+ * context, obtained from (and released to) the MappingContextFactory, and
+ * writes its results into its own range of a shared array, so that the
+ * elements are returned in the order of the source.<br>
+ * <br>
+ * When mapped objects are shared, the contexts of all partitions share a
+ * single table of mapped objects (see
+ * {@link MappingContext#shareMappedObjects(MappingContext)}), so that an
+ * object reached from several partitions usually maps to the same destination
+ * object. This is only best-effort: looking up an object and caching its
+ * destination are separate steps, so two partitions which reach an object at
+ * the same time may each map it. Otherwise, each partition tracks only the
+ * objects it mapped itself, which avoids contending for the shared table.
+ *
+ * @param <S>
+ *            the type of the source elements
+ * @param <D>
+ *            the type of the mapped elements
+ */
+abstract class ParallelMapping<S, D> {
+
+    /**
+     * The smallest number of elements worth mapping on a thread of its own
+     */
+    static final int MIN_PARTITION_SIZE = 64;
+
+    private final MappingContextFactory contextFactory;
+    private final boolean shareMappedObjects;
+
+    /**
+     * @param contextFactory
+     *            the factory from which the context of each partition is
+     *            obtained
+     * @param shareMappedObjects
+     *            whether the partitions share the objects they have mapped
+     */
+    ParallelMapping(MappingContextFactory contextFactory, boolean shareMappedObjects) {
+        this.contextFactory = contextFactory;
+        this.shareMappedObjects = shareMappedObjects;
+    }
+
+    /**
+     * Maps a partition of the source elements.
+     *
+     * @param elements
+     *            the source elements
+     * @param from
+     *            the index of the first element of the partition
+     * @param to
+     *            the index after the last element of the partition
+     * @param results
+     *            the array in which to store each mapped element, at the
+     *            index of its source element
+     * @param context
+     *            the context of the partition
+     */
+    abstract void mapPartition(List<S> elements, int from, int to, Object[] results, MappingContext context);
+
+    /**
+     * Maps the source elements into a new List, skipping null elements.
+     *
+     * @param source
+     *            the elements to map
+     * @param executor
+     *            the executor on which the partitions are mapped
+     * @param parallelism
+     *            the maximum number of partitions
+     * @return a new List containing the mapped elements, in the order of the
+     *         source
+     */
+    @SuppressWarnings("unchecked")
+    List<D> map(Iterable<S> source, Executor executor, int parallelism) {
+        if (source == null) {
+            return null;
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        List<S> elements;
+        if (source instanceof List && source instanceof RandomAccess) {
+            elements = (List<S>) source;
+        } else {
+            elements = new ArrayList<S>();
+            for (S element : source) {
+                elements.add(element);
+            }
+        }
+
+        int size = elements.size();
+        int partitions = Math.max(1, Math.min(parallelism, size / MIN_PARTITION_SIZE));
+        Object[] results = new Object[size];
+        MappingContext owner = shareMappedObjects && partitions > 1 ? contextFactory.getContext() : null;
+        try {
+            List<FutureTask<Object>> tasks = new ArrayList<FutureTask<Object>>(partitions - 1);
+            for (int p = 1; p < partitions; ++p) {
+                FutureTask<Object> task = new FutureTask<Object>(new Partition(elements, size * p / partitions, size * (p + 1)
+                        / partitions, results, owner), null);
+                tasks.add(task);
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    /* the task is run by the calling thread, below */
+                }
+            }
+
+            Throwable failure = null;
+            try {
+                new Partition(elements, 0, size / partitions, results, owner).run();
+            } catch (Throwable t) {
+                failure = t;
+            }
+            boolean interrupted = false;
+            for (FutureTask<Object> task : tasks) {
+                /*
+                 * Runs the partition here if no worker has started it yet; a
+                 * no-op otherwise
+                 */
+                task.run();
+                while (true) {
+                    try {
+                        task.get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        if (failure == null) {
+                            failure = e.getCause();
+                        }
+                        break;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new MappingException(failure);
+            }
+        } finally {
+            if (owner != null) {
+                contextFactory.release(owner);
+            }
+        }
+
+        List<D> destination = new ArrayList<D>(size);
+        for (int i = 0; i < size; ++i) {
+            if (elements.get(i) != null) {
+                destination.add((D) results[i]);
+            }
+        }
+        return destination;
+    }
+
+    /**
+     * Maps a single partition within a context of its own
+     */
+    private class Partition implements Runnable {
+
+        private final List<S> elements;
+        private final int from;
+        private final int to;
+        private final Object[] results;
+        private final MappingContext owner;
+
+        private Partition(List<S> elements, int from, int to, Object[] results, MappingContext owner) {
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+            this.results = results;
+            this.owner = owner;
+        }
+
+        public void run() {
+            MappingContext context = contextFactory.getContext();
+            try {
+                if (owner != null) {
+                    context.shareMappedObjects(owner);
+                }
+                mapPartition(elements, from, to, results, context);
+            } finally {
+                contextFactory.release(context);
+            }
+        }
+    }
+}
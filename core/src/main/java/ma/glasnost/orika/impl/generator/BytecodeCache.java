@@ -0,0 +1,276 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.impl.generator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import ma.glasnost.orika.util.StripedCounter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * BytecodeCache stores the bytecode of generated classes in a directory, so
+ * that it can be reused by later JVMs instead of compiling the same generated
+ * source again.<br>
+ * <br>
+ * Entries are keyed by the {@link SourceCodeFingerprint} of the generated
+ * source; any change to the source, or to one of the classes it refers to,
+ * produces a new fingerprint, so that stale entries are simply never used again. Entries which
+ * cannot be read or defined are deleted, and the class is compiled as usual.<br>
+ * <br>
+ * Note that Orika makes no effort to delete unused entries; use {@link #clear()}
+ * to empty the cache.
+ */
+public class BytecodeCache {
+
+    private static final String FILE_SUFFIX = ".class";
+
+    private static final Logger LOG = LoggerFactory.getLogger(BytecodeCache.class);
+
+    private final File directory;
+    private final SourceCodeFingerprint fingerprint = new SourceCodeFingerprint();
+    /*
+     * Both the class-loaders and the classes are held weakly, since each of
+     * the classes would otherwise keep its own class-loader reachable
+     */
+    private final Map<ClassLoader, Map<String, WeakReference<Class<?>>>> definedClasses = new WeakHashMap<ClassLoader, Map<String, WeakReference<Class<?>>>>();
+    private final StripedCounter hits = new StripedCounter();
+    private final StripedCounter misses = new StripedCounter();
+
+    /**
+     * @param directory
+     *            the directory in which to store the cached bytecode; it is
+     *            created if it does not yet exist
+     */
+    public BytecodeCache(File directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory must not be null");
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * @return the directory in which the cached bytecode is stored
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Computes the key under which the class compiled from the specified
+     * source is cached.
+     *
+     * @param sourceCode
+     *            the generated source
+     * @param classLoader
+     *            the class-loader used to resolve the classes named in the
+     *            source
+     * @return the fingerprint of the source, and of the classes it refers to
+     * @see SourceCodeFingerprint
+     */
+    public String fingerprint(SourceCodeContext sourceCode, ClassLoader classLoader) {
+        return fingerprint.of(sourceCode, classLoader);
+    }
+
+    /**
+     * Returns the class already defined (within this JVM) for the specified
+     * key and class-loader, if any; generated classes can only be defined once
+     * per class-loader.
+     *
+     * @param classLoader
+     * @param key
+     * @return the class previously defined for the key, or null
+     */
+    public Class<?> getDefinedClass(ClassLoader classLoader, String key) {
+        synchronized (definedClasses) {
+            Map<String, WeakReference<Class<?>>> classes = definedClasses.get(classLoader);
+            WeakReference<Class<?>> reference = classes != null ? classes.get(key) : null;
+            if (reference == null) {
+                return null;
+            }
+            Class<?> type = reference.get();
+            if (type == null) {
+                classes.remove(key);
+            }
+            return type;
+        }
+    }
+
+    /**
+     * Records the class defined for the specified key and class-loader; the
+     * class is held weakly, so that neither it nor its class-loader are kept
+     * from being unloaded.
+     *
+     * @param classLoader
+     * @param key
+     * @param type
+     */
+    public void addDefinedClass(ClassLoader classLoader, String key, Class<?> type) {
+        synchronized (definedClasses) {
+            Map<String, WeakReference<Class<?>>> classes = definedClasses.get(classLoader);
+            if (classes == null) {
+                classes = new HashMap<String, WeakReference<Class<?>>>();
+                definedClasses.put(classLoader, classes);
+            }
+            classes.put(key, new WeakReference<Class<?>>(type));
+        }
+    }
+
+    /**
+     * @param key
+     * @return the cached bytecode for the specified key, or null if there is
+     *         none
+     */
+    public byte[] load(String key) {
+        File file = fileFor(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            ByteArrayOutputStream bytecode = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                bytecode.write(buffer, 0, read);
+            }
+            return bytecode.toByteArray();
+        } catch (IOException e) {
+            LOG.warn("Could not read cached bytecode from " + file, e);
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Stores the bytecode for the specified key; the entry is written to a
+     * temporary file first, so that concurrent readers (possibly in other
+     * JVMs) never observe a partially written entry.
+     *
+     * @param key
+     * @param bytecode
+     */
+    public void store(String key, byte[] bytecode) {
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            LOG.warn("Could not create bytecode cache directory " + directory);
+            return;
+        }
+        File file = fileFor(key);
+        OutputStream out = null;
+        File temporary = null;
+        try {
+            temporary = File.createTempFile(key, ".tmp", directory);
+            out = new FileOutputStream(temporary);
+            out.write(bytecode);
+            out.close();
+            out = null;
+            if (!temporary.renameTo(file)) {
+                /*
+                 * Some platforms won't rename over an existing file; that file
+                 * is an equivalent entry written concurrently
+                 */
+                temporary.delete();
+            }
+        } catch (IOException e) {
+            LOG.warn("Could not write cached bytecode to " + file, e);
+            if (temporary != null) {
+                temporary.delete();
+            }
+        } finally {
+            close(out);
+        }
+    }
+
+    /**
+     * Removes the entry for the specified key, such as when it is found to be
+     * invalid.
+     *
+     * @param key
+     */
+    public void remove(String key) {
+        fileFor(key).delete();
+    }
+
+    /**
+     * Deletes all of the entries in this cache.
+     */
+    public void clear() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(FILE_SUFFIX)) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private File fileFor(String key) {
+        return new File(directory, key + FILE_SUFFIX);
+    }
+
+    private static void close(java.io.Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                /* ignore */
+            }
+        }
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * @return the number of classes which were obtained from this cache
+     *         rather than compiled
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of classes which had to be compiled
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + "(" + directory + ", hits=" + hits.get() + ", misses=" + misses.get() + ")";
+    }
+}
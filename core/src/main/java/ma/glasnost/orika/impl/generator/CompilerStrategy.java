@@ -20,6 +20,8 @@ package ma.glasnost.orika.impl.generator;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import ma.glasnost.orika.OrikaSystemProperties;
 
@@ -40,6 +42,30 @@ public abstract class CompilerStrategy {
      * @throws SourceCodeGenerationException
      */
     public abstract Class<?> compileClass(SourceCodeContext sourceCode) throws SourceCodeGenerationException;
+    
+    /**
+     * Compile and return the (generated) classes for several sources at once,
+     * such as all of the mappers generated while building a mapper factory;
+     * strategies may override this to share the setup of the compiler between
+     * the classes, rather than repeating it for each one.<br>
+     * <br>
+     * By default, each of the sources is compiled in turn using
+     * {@link #compileClass(SourceCodeContext)}.
+     * 
+     * @param sourceCodes
+     *            the sources to compile
+     * @return the (generated) compiled classes, in the same order as their
+     *         sources
+     * @throws SourceCodeGenerationException
+     *             if any of the classes could not be compiled
+     */
+    public List<Class<?>> compileClasses(List<SourceCodeContext> sourceCodes) throws SourceCodeGenerationException {
+        List<Class<?>> compiledClasses = new ArrayList<Class<?>>(sourceCodes.size());
+        for (SourceCodeContext sourceCode : sourceCodes) {
+            compiledClasses.add(compileClass(sourceCode));
+        }
+        return compiledClasses;
+    }
 
     /**
      * Verify that the Class provided is accessible to the compiler/generator.
@@ -49,6 +75,18 @@ public abstract class CompilerStrategy {
      *             if the type is not accessible
      */
     public abstract void assureTypeIsAccessible(Class<?> type) throws SourceCodeGenerationException;
+    
+    /**
+     * Whether {@link #compileClass(SourceCodeContext)} may be called
+     * concurrently from multiple threads; if so, the mapper factory may
+     * compile the generated classes in parallel when it is built.
+     * 
+     * @return true if this strategy may be used by multiple threads at once;
+     *         false by default
+     */
+    public boolean isThreadSafe() {
+        return false;
+    }
 
     protected final boolean writeSourceFiles;
     protected final boolean writeClassFiles;
@@ -0,0 +1,293 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.impl.generator;
+
+import java.lang.reflect.Method;
+
+import javassist.CannotCompileException;
+import javassist.CtClass;
+import javassist.CtMethod;
+import javassist.bytecode.AccessFlag;
+import javassist.bytecode.BadBytecode;
+import javassist.bytecode.Bytecode;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.CodeAttribute;
+import javassist.bytecode.MethodInfo;
+import javassist.bytecode.Opcode;
+import ma.glasnost.orika.Mapper;
+import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.impl.GeneratedMapperBase;
+import ma.glasnost.orika.impl.generator.DirectMapMethod.PropertyCopy;
+import ma.glasnost.orika.util.StripedCounter;
+
+/**
+ * DirectBytecodeCompilerStrategy emits the bytecode of generated map methods
+ * directly from their {@link DirectMapMethod} definitions, skipping the
+ * parsing of their source; this is the bulk of the cost of compiling mappers
+ * for wide, flat types, whose map methods simply copy each property.<br>
+ * <br>
+ * Methods which have no direct definition (those which map any field other
+ * than by copying it between plain accessors, as well as all methods of
+ * object factories) are compiled from their source, exactly as by
+ * {@link JavassistCompilerStrategy}; the two strategies produce classes which
+ * behave identically, and share the same bytecode cache entries.
+ */
+public class DirectBytecodeCompilerStrategy extends JavassistCompilerStrategy {
+    
+    private static final String MAP_METHOD_DESCRIPTOR = "(Ljava/lang/Object;Ljava/lang/Object;" + descriptorOf(MappingContext.class) + ")V";
+    
+    /*
+     * Local variable slots of the emitted map methods
+     */
+    private static final int THIS = 0;
+    private static final int SOURCE_ARG = 1;
+    private static final int DESTINATION_ARG = 2;
+    private static final int CONTEXT = 3;
+    private static final int SOURCE = 4;
+    private static final int DESTINATION = 5;
+    
+    private final StripedCounter directMethods = new StripedCounter();
+    private final StripedCounter sourceMethods = new StripedCounter();
+    
+    /**
+     */
+    public DirectBytecodeCompilerStrategy() {
+        super();
+    }
+    
+    /**
+     * @param bytecodeCache
+     *            the cache in which to store (and from which to reuse) the
+     *            compiled classes; may be null
+     */
+    public DirectBytecodeCompilerStrategy(BytecodeCache bytecodeCache) {
+        super(bytecodeCache);
+    }
+    
+    /**
+     * @param bytecodeCache
+     *            the cache in which to store (and from which to reuse) the
+     *            compiled classes; may be null
+     * @param unloadableClasses
+     *            whether each generated class should be defined in a
+     *            class-loader of its own, so that it can be unloaded once it
+     *            is no longer used
+     */
+    public DirectBytecodeCompilerStrategy(BytecodeCache bytecodeCache, boolean unloadableClasses) {
+        super(bytecodeCache, unloadableClasses);
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * ma.glasnost.orika.impl.generator.JavassistCompilerStrategy#compileMethod
+     * (java.lang.String, ma.glasnost.orika.impl.generator.DirectMapMethod,
+     * javassist.CtClass)
+     */
+    @Override
+    protected CtMethod compileMethod(String methodDef, DirectMapMethod directMethod, CtClass byteCodeClass) throws CannotCompileException {
+        if (directMethod == null) {
+            sourceMethods.increment();
+            return super.compileMethod(methodDef, directMethod, byteCodeClass);
+        }
+        CtMethod method = emitMapMethod(directMethod, byteCodeClass);
+        directMethods.increment();
+        return method;
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see ma.glasnost.orika.impl.generator.JavassistCompilerStrategy#isThreadSafe()
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return getClass() == DirectBytecodeCompilerStrategy.class;
+    }
+    
+    /**
+     * @return the number of methods whose bytecode was emitted directly
+     */
+    public long getDirectMethodCount() {
+        return directMethods.get();
+    }
+    
+    /**
+     * @return the number of methods which were compiled from their source
+     */
+    public long getSourceMethodCount() {
+        return sourceMethods.get();
+    }
+    
+    /**
+     * Emits the equivalent of the map method generated by MapperGenerator:
+     * the used mappers are applied (by the super-class), each property is
+     * copied, and finally the custom mapper (if any) is applied.
+     */
+    private CtMethod emitMapMethod(DirectMapMethod directMethod, CtClass byteCodeClass) throws CannotCompileException {
+        
+        ClassFile classFile = byteCodeClass.getClassFile();
+        Bytecode code = new Bytecode(classFile.getConstPool(), 0, DESTINATION + 1);
+        String name = directMethod.getName();
+        
+        code.addAload(THIS);
+        code.addAload(SOURCE_ARG);
+        code.addAload(DESTINATION_ARG);
+        code.addAload(CONTEXT);
+        code.addInvokespecial(GeneratedMapperBase.class.getName(), name, MAP_METHOD_DESCRIPTOR);
+        
+        code.addAload(SOURCE_ARG);
+        code.addCheckcast(directMethod.getSourceClass().getName());
+        code.addAstore(SOURCE);
+        code.addAload(DESTINATION_ARG);
+        code.addCheckcast(directMethod.getDestinationClass().getName());
+        code.addAstore(DESTINATION);
+        
+        for (PropertyCopy copy : directMethod.getPropertyCopies()) {
+            emitPropertyCopy(code, copy, directMethod);
+        }
+        
+        code.addAload(THIS);
+        code.addGetfield(GeneratedMapperBase.class.getName(), "customMapper", descriptorOf(Mapper.class));
+        int noCustomMapper = emitBranch(code, Opcode.IFNULL);
+        code.addAload(THIS);
+        code.addGetfield(GeneratedMapperBase.class.getName(), "customMapper", descriptorOf(Mapper.class));
+        code.addAload(SOURCE);
+        code.addAload(DESTINATION);
+        code.addAload(CONTEXT);
+        code.addInvokeinterface(Mapper.class.getName(), name, MAP_METHOD_DESCRIPTOR, 4);
+        setBranchTarget(code, noCustomMapper);
+        code.addOpcode(Opcode.RETURN);
+        
+        CodeAttribute codeAttribute = code.toCodeAttribute();
+        try {
+            codeAttribute.computeMaxStack();
+            MethodInfo methodInfo = new MethodInfo(classFile.getConstPool(), name, MAP_METHOD_DESCRIPTOR);
+            methodInfo.setAccessFlags(AccessFlag.PUBLIC);
+            methodInfo.setCodeAttribute(codeAttribute);
+            methodInfo.rebuildStackMapIf6(byteCodeClass.getClassPool(), classFile);
+            return CtMethod.make(methodInfo, byteCodeClass);
+        } catch (BadBytecode e) {
+            throw new CannotCompileException(e);
+        }
+    }
+    
+    /**
+     * Emits the equivalent of the code generated by CopyByReference
+     */
+    private void emitPropertyCopy(Bytecode code, PropertyCopy copy, DirectMapMethod directMethod) {
+        Method getter = copy.getGetter();
+        Method setter = copy.getSetter();
+        if (getter.getReturnType().isPrimitive()) {
+            code.addAload(DESTINATION);
+            code.addAload(SOURCE);
+            emitInvoke(code, directMethod.getSourceClass(), getter);
+            emitInvoke(code, directMethod.getDestinationClass(), setter);
+            emitDiscardResult(code, setter);
+            return;
+        }
+        
+        code.addAload(SOURCE);
+        emitInvoke(code, directMethod.getSourceClass(), getter);
+        int isNull = emitBranch(code, Opcode.IFNULL);
+        code.addAload(DESTINATION);
+        code.addAload(SOURCE);
+        emitInvoke(code, directMethod.getSourceClass(), getter);
+        emitInvoke(code, directMethod.getDestinationClass(), setter);
+        emitDiscardResult(code, setter);
+        if (copy.isMapNulls()) {
+            int end = emitBranch(code, Opcode.GOTO);
+            setBranchTarget(code, isNull);
+            code.addAload(DESTINATION);
+            code.addOpcode(Opcode.ACONST_NULL);
+            emitInvoke(code, directMethod.getDestinationClass(), setter);
+            emitDiscardResult(code, setter);
+            setBranchTarget(code, end);
+        } else {
+            setBranchTarget(code, isNull);
+        }
+    }
+    
+    private static void emitInvoke(Bytecode code, Class<?> owner, Method method) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            descriptor.append(descriptorOf(parameterType));
+        }
+        descriptor.append(")").append(descriptorOf(method.getReturnType()));
+        if (owner.isInterface()) {
+            code.addInvokeinterface(owner.getName(), method.getName(), descriptor.toString(), 1 + method.getParameterTypes().length);
+        } else {
+            code.addInvokevirtual(owner.getName(), method.getName(), descriptor.toString());
+        }
+    }
+    
+    private static void emitDiscardResult(Bytecode code, Method method) {
+        Class<?> returnType = method.getReturnType();
+        if (returnType == Long.TYPE || returnType == Double.TYPE) {
+            code.addOpcode(Opcode.POP2);
+        } else if (returnType != Void.TYPE) {
+            code.addOpcode(Opcode.POP);
+        }
+    }
+    
+    /**
+     * Emits a branch instruction whose target is set later
+     * 
+     * @return the position of the branch offset
+     */
+    private static int emitBranch(Bytecode code, int opcode) {
+        code.addOpcode(opcode);
+        int position = code.currentPc();
+        code.addIndex(0);
+        return position;
+    }
+    
+    /**
+     * Sets the target of a branch to the current position
+     */
+    private static void setBranchTarget(Bytecode code, int position) {
+        code.write16bit(position, code.currentPc() - (position - 1));
+    }
+    
+    private static String descriptorOf(Class<?> type) {
+        if (type == Void.TYPE) {
+            return "V";
+        } else if (type == Boolean.TYPE) {
+            return "Z";
+        } else if (type == Byte.TYPE) {
+            return "B";
+        } else if (type == Character.TYPE) {
+            return "C";
+        } else if (type == Short.TYPE) {
+            return "S";
+        } else if (type == Integer.TYPE) {
+            return "I";
+        } else if (type == Long.TYPE) {
+            return "J";
+        } else if (type == Float.TYPE) {
+            return "F";
+        } else if (type == Double.TYPE) {
+            return "D";
+        } else if (type.isArray()) {
+            return type.getName().replace('.', '/');
+        } else {
+            return "L" + type.getName().replace('.', '/') + ";";
+        }
+    }
+}
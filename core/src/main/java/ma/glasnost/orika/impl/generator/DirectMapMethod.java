@@ -0,0 +1,240 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.impl.generator;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import ma.glasnost.orika.converter.builtin.CopyByReferenceConverter;
+import ma.glasnost.orika.impl.generator.specification.Convert;
+import ma.glasnost.orika.impl.generator.specification.CopyByReference;
+import ma.glasnost.orika.metadata.FieldMap;
+
+/**
+ * DirectMapMethod describes a generated map method (mapAtoB or mapBtoA) in
+ * terms of the mapping model rather than source code, for those methods
+ * simple enough to be described this way: every mapped field is copied by
+ * reference from a getter of the source to a setter of the destination.<br>
+ * <br>
+ * It is recorded alongside the generated source of the method, so that a
+ * compiler strategy such as {@link DirectBytecodeCompilerStrategy} may emit
+ * the method's bytecode directly; a method which maps any field in some other
+ * way is marked as invalid, and is compiled from its source.
+ */
+public class DirectMapMethod {
+    
+    private static final Pattern GETTER = Pattern.compile("([\\w$]+)\\(\\)");
+    private static final Pattern SETTER = Pattern.compile("([\\w$]+)\\(%s\\)");
+    
+    private final String name;
+    private final Class<?> sourceClass;
+    private final Class<?> destinationClass;
+    private final List<PropertyCopy> propertyCopies = new ArrayList<PropertyCopy>();
+    private boolean valid = true;
+    
+    /**
+     * @param name
+     *            the name of the map method
+     * @param sourceClass
+     *            the class from which the method maps
+     * @param destinationClass
+     *            the class to which the method maps
+     */
+    public DirectMapMethod(String name, Class<?> sourceClass, Class<?> destinationClass) {
+        this.name = name;
+        this.sourceClass = sourceClass;
+        this.destinationClass = destinationClass;
+    }
+    
+    /**
+     * Records the mapping of a field, once its code has been generated; if
+     * the field is mapped other than by a copy (by reference) between plain
+     * accessors of the source and destination, the method is marked as
+     * invalid.
+     * 
+     * @param fieldMap
+     *            the field map
+     * @param source
+     *            the source property
+     * @param destination
+     *            the destination property
+     * @param spec
+     *            the specification which generates the code for the field map
+     * @param mapNulls
+     *            whether a null source value is assigned to the destination
+     */
+    public void addFieldMap(FieldMap fieldMap, VariableRef source, VariableRef destination, Specification spec, boolean mapNulls) {
+        if (!valid) {
+            return;
+        }
+        if (!isCopyByReference(spec, source) || source.property() == null || destination.property() == null
+                || source.isNestedProperty() || destination.isNestedProperty()) {
+            invalidate();
+            return;
+        }
+        Method getter = findGetter(sourceClass, source.property().getGetter());
+        Method setter = getter == null ? null : findSetter(destinationClass, destination.property().getSetter(), getter.getReturnType());
+        if (setter == null) {
+            invalidate();
+            return;
+        }
+        propertyCopies.add(new PropertyCopy(getter, setter, mapNulls && !getter.getReturnType().isPrimitive()));
+    }
+    
+    /**
+     * Marks this method as having no direct definition.
+     */
+    public void invalidate() {
+        valid = false;
+        propertyCopies.clear();
+    }
+    
+    /**
+     * @return true if the method is completely described by its property
+     *         copies
+     */
+    public boolean isValid() {
+        return valid;
+    }
+    
+    /**
+     * @return the name of the map method
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * @return the class from which the method maps
+     */
+    public Class<?> getSourceClass() {
+        return sourceClass;
+    }
+    
+    /**
+     * @return the class to which the method maps
+     */
+    public Class<?> getDestinationClass() {
+        return destinationClass;
+    }
+    
+    /**
+     * @return the property copies performed by the method, in order
+     */
+    public List<PropertyCopy> getPropertyCopies() {
+        return Collections.unmodifiableList(propertyCopies);
+    }
+    
+    /**
+     * Tests whether the specification copies the source by reference, either
+     * itself or by way of the builtin converter which does so
+     */
+    private static boolean isCopyByReference(Specification spec, VariableRef source) {
+        if (spec == null) {
+            return false;
+        }
+        return spec.getClass() == CopyByReference.class
+                || (spec.getClass() == Convert.class && source.getConverter() instanceof CopyByReferenceConverter);
+    }
+    
+    private static Method findGetter(Class<?> type, String getter) {
+        Matcher matcher = GETTER.matcher(getter);
+        if (!matcher.matches()) {
+            return null;
+        }
+        try {
+            Method method = type.getMethod(matcher.group(1));
+            return Modifier.isStatic(method.getModifiers()) || method.getReturnType() == Void.TYPE ? null : method;
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (SecurityException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Finds the setter which the generated source would invoke; if the choice
+     * of overload is not obvious, none is returned, and the method is left to
+     * be compiled from its source.
+     */
+    private static Method findSetter(Class<?> type, String setter, Class<?> valueType) {
+        Matcher matcher = SETTER.matcher(setter != null ? setter : "");
+        if (!matcher.matches()) {
+            return null;
+        }
+        Method candidate = null;
+        int candidates = 0;
+        for (Method method : type.getMethods()) {
+            if (!method.getName().equals(matcher.group(1)) || method.getParameterTypes().length != 1
+                    || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            Class<?> parameterType = method.getParameterTypes()[0];
+            if (parameterType == valueType) {
+                return method;
+            } else if (!parameterType.isPrimitive() && !valueType.isPrimitive() && parameterType.isAssignableFrom(valueType)) {
+                candidate = method;
+                ++candidates;
+            }
+        }
+        return candidates == 1 ? candidate : null;
+    }
+    
+    /**
+     * The copy of a property value from a getter of the source to a setter of
+     * the destination
+     */
+    public static final class PropertyCopy {
+        private final Method getter;
+        private final Method setter;
+        private final boolean mapNulls;
+        
+        private PropertyCopy(Method getter, Method setter, boolean mapNulls) {
+            this.getter = getter;
+            this.setter = setter;
+            this.mapNulls = mapNulls;
+        }
+        
+        /**
+         * @return the getter of the source
+         */
+        public Method getGetter() {
+            return getter;
+        }
+        
+        /**
+         * @return the setter of the destination
+         */
+        public Method getSetter() {
+            return setter;
+        }
+        
+        /**
+         * @return whether a null value is assigned to the destination (rather
+         *         than being skipped)
+         */
+        public boolean isMapNulls() {
+            return mapNulls;
+        }
+    }
+}
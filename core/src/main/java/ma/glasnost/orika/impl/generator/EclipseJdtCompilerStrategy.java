@@ -26,6 +26,9 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Uses Eclipse JDT to format and compile the source for the specified
@@ -45,6 +48,7 @@ public class EclipseJdtCompilerStrategy extends CompilerStrategy {
     private final Object compiler;
     private final Method formatSource;
     private final Method compile;
+    private final Method compileAll;
     private final Method assertTypeAccessible; 
     private final Method load;
     
@@ -56,6 +60,7 @@ public class EclipseJdtCompilerStrategy extends CompilerStrategy {
             this.compiler = compilerClass.newInstance();
             this.formatSource = compilerClass.getMethod("formatSource", String.class);
             this.compile = compilerClass.getMethod("compile", String.class, String.class, String.class);
+            this.compileAll = compilerClass.getMethod("compile", String[].class, String[].class, String[].class);
             this.assertTypeAccessible = compilerClass.getMethod("assertTypeAccessible", Class.class);
             this.load = compilerClass.getMethod("load", String.class, byte[].class);
             
@@ -165,6 +170,23 @@ public class EclipseJdtCompilerStrategy extends CompilerStrategy {
         }
     }
     
+    @SuppressWarnings("unchecked")
+    private Map<String, byte[]> compile(String[] sources, String[] packageNames, String[] classSimpleNames) {
+        try {
+            return (Map<String, byte[]>) compileAll.invoke(compiler, sources, packageNames, classSimpleNames);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e);
+        } catch (InvocationTargetException e) {
+            if (e.getTargetException() instanceof RuntimeException) {
+                throw (RuntimeException) e.getTargetException();
+            } else {
+                throw new RuntimeException(e.getTargetException());
+            }
+        }
+    }
+    
     private Class<?> load(String className, byte[] data) throws ClassNotFoundException {
         try {
             return (Class<?>)load.invoke(compiler, className, data);
@@ -205,16 +227,7 @@ public class EclipseJdtCompilerStrategy extends CompilerStrategy {
         throws SourceCodeGenerationException {
 
         Class<?> compiledClass = null;
-        String sourceText = sourceCode.toSourceFile();
-        try {
-            sourceText = formatSource(sourceCode.toSourceFile());
-        } catch (Exception e) {
-            /*
-             * If source code couldn't be formatted, we should still proceed
-             * with compile, allowing the compilation to fail and tell us
-             * what the real error was
-             */
-        }
+        String sourceText = prepareSource(sourceCode);
         String packageName = sourceCode.getPackageName();
         String classSimpleName = sourceCode.getClassSimpleName();
         String className = sourceCode.getClassName();
@@ -244,5 +257,77 @@ public class EclipseJdtCompilerStrategy extends CompilerStrategy {
 
         return compiledClass;
     }
+    
+    /**
+     * Compiles the (generated) classes for several sources in a single
+     * invocation of the Eclipse compiler, which then resolves the types they
+     * reference only once for all of them.
+     * 
+     * @return the (generated) compiled classes
+     */
+    public List<Class<?>> compileClasses(List<SourceCodeContext> sourceCodes) throws SourceCodeGenerationException {
+        
+        if (sourceCodes.size() < 2) {
+            return super.compileClasses(sourceCodes);
+        }
+        
+        int count = sourceCodes.size();
+        String[] sourceTexts = new String[count];
+        String[] packageNames = new String[count];
+        String[] classSimpleNames = new String[count];
+        for (int i = 0; i < count; ++i) {
+            SourceCodeContext sourceCode = sourceCodes.get(i);
+            sourceTexts[i] = prepareSource(sourceCode);
+            packageNames[i] = sourceCode.getPackageName();
+            classSimpleNames[i] = sourceCode.getClassSimpleName();
+        }
+        
+        Map<String, byte[]> compiledData;
+        try {
+            // Write source files before compilation in case of failure
+            if (writeSourceFiles) {
+                for (int i = 0; i < count; ++i) {
+                    writeSourceFile(sourceTexts[i], packageNames[i], classSimpleNames[i]);
+                }
+            }
+            
+            compiledData = compile(sourceTexts, packageNames, classSimpleNames);
+            
+            if (writeClassFiles) {
+                for (int i = 0; i < count; ++i) {
+                    writeClassFile(packageNames[i], classSimpleNames[i], compiledData.get(sourceCodes.get(i).getClassName()));
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write files for " + count + " classes", e);
+        }
+        
+        List<Class<?>> compiledClasses = new ArrayList<Class<?>>(count);
+        for (SourceCodeContext sourceCode : sourceCodes) {
+            try {
+                compiledClasses.add(load(sourceCode.getClassName(), compiledData.get(sourceCode.getClassName())));
+            } catch (ClassNotFoundException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return compiledClasses;
+    }
+    
+    /**
+     * @return the (formatted, if possible) source of the class
+     */
+    private String prepareSource(SourceCodeContext sourceCode) {
+        String sourceText = sourceCode.toSourceFile();
+        try {
+            sourceText = formatSource(sourceText);
+        } catch (Exception e) {
+            /*
+             * If source code couldn't be formatted, we should still proceed
+             * with compile, allowing the compilation to fail and tell us
+             * what the real error was
+             */
+        }
+        return sourceText;
+    }
 
 }
\ No newline at end of file
@@ -18,23 +18,29 @@
 
 package ma.glasnost.orika.impl.generator;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.Modifier;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javassist.CannotCompileException;
 import javassist.ClassClassPath;
 import javassist.ClassPool;
 import javassist.CtClass;
 import javassist.CtField;
+import javassist.CtMethod;
 import javassist.CtNewMethod;
 import javassist.LoaderClassPath;
 import javassist.NotFoundException;
+import ma.glasnost.orika.OrikaSystemProperties;
+import ma.glasnost.orika.util.StripedCounter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,7 +50,34 @@ import org.slf4j.LoggerFactory;
  * object.<br>
  * <br>
  * 
- * By default this compiler strategy writes no source or class files.
+ * By default this compiler strategy writes no source or class files.<br>
+ * <br>
+ * If a {@link BytecodeCache} is provided (or the system property
+ * {@link OrikaSystemProperties#BYTECODE_CACHE_PATH} is set), compiled classes
+ * are stored in it, and classes whose generated source matches a cached entry
+ * are defined from the cached bytecode rather than compiled.<br>
+ * <br>
+ * This compiler strategy is thread-safe (though its subclasses are not assumed
+ * to be; see {@link #isThreadSafe()}): since a Javassist ClassPool cannot be
+ * used by multiple threads at once, each compilation borrows a ClassPool of
+ * its own from a small pool of them, so that classes may be compiled in
+ * parallel. The classes compiled together by
+ * {@link #compileClasses(List)} share a single ClassPool, prepared once for
+ * all of them.<br>
+ * <br>
+ * By default, generated classes are defined in the context class-loader of
+ * the compiling thread, and so remain loaded for as long as that class-loader
+ * does. If unloadable classes are enabled (or the system property
+ * {@link OrikaSystemProperties#UNLOADABLE_CLASSES} is set to "true"), each
+ * class is instead defined in a class-loader of its own (a child of the
+ * context class-loader), so that it can be unloaded as soon as the mapper
+ * factory which uses it is no longer referenced.<br>
+ * <br>
+ * In either case, the Javassist representation of each generated class is
+ * detached from its class-pool once the class is defined, so that the
+ * class-pools do not grow with the number of classes compiled; the size of
+ * the bytecode of the generated classes which are still loaded is available
+ * from {@link #getRetainedBytecodeSize()}.
  * 
  * @author matt.deboer@gmail.com
  */
@@ -54,23 +87,141 @@ public class JavassistCompilerStrategy extends CompilerStrategy {
     private static final String WRITE_CLASS_FILES_BY_DEFAULT = "false";
     
     private final static Logger LOG = LoggerFactory.getLogger(JavassistCompilerStrategy.class);
-    private final static Map<Class<?>, Boolean> superClasses = new ConcurrentHashMap<Class<?>,Boolean>(3);
     
-    private ClassPool classPool;
+    /**
+     * The class-pools which are not currently in use by any thread
+     */
+    private final ConcurrentLinkedQueue<CompilerClassPool> idleClassPools = new ConcurrentLinkedQueue<CompilerClassPool>();
+    
+    /**
+     * The class-pool used by the batch of classes (if any) being compiled by
+     * the current thread
+     */
+    private final ThreadLocal<CompilerClassPool> batchClassPool = new ThreadLocal<CompilerClassPool>();
+    
+    /**
+     * Keep a set of class-loaders that have been referenced by the types compiled so far,
+     * so that they can be added to every javassist class-pool;
+     * use a WeakHashMap to avoid retaining references to child class-loaders
+     */
+    private final WeakHashMap<ClassLoader,Boolean> referencedLoaders = new WeakHashMap<ClassLoader,Boolean>(8);
+    
+    /**
+     * The names of the classes compiled so far into a shared class-loader; since the
+     * class-pools are independent, name collisions between them must be detected here.
+     * Not used for unloadable classes, which are each defined in a class-loader of
+     * their own, and so cannot collide
+     */
+    private final Map<String, Boolean> compiledClassNames = new ConcurrentHashMap<String, Boolean>();
     
     /**
-     * Keep a set of class-loaders that have already been added to the javassist class-pool
-     * Use a WeakHashMap to avoid retaining references to child class-loaders
+     * The size of the bytecode of each generated class which is still loaded;
+     * the classes are weakly referenced, so that they may still be unloaded
      */
-    private WeakHashMap<ClassLoader,Boolean> referencedLoaders = new WeakHashMap<ClassLoader,Boolean>(8);
+    private final Map<Class<?>, Integer> retainedBytecodeSizes = new WeakHashMap<Class<?>, Integer>();
+    
+    private final StripedCounter definedBytecodeSize = new StripedCounter();
+    
+    private final BytecodeCache bytecodeCache;
+    
+    private final boolean unloadableClasses;
     
     /**
      */
     public JavassistCompilerStrategy() {
+        this(defaultBytecodeCache());
+    }
+    
+    /**
+     * @param bytecodeCache
+     *            the cache in which to store (and from which to reuse) the
+     *            compiled classes; may be null
+     */
+    public JavassistCompilerStrategy(BytecodeCache bytecodeCache) {
+        this(bytecodeCache, Boolean.valueOf(System.getProperty(OrikaSystemProperties.UNLOADABLE_CLASSES, "false")));
+    }
+    
+    /**
+     * @param bytecodeCache
+     *            the cache in which to store (and from which to reuse) the
+     *            compiled classes; may be null
+     * @param unloadableClasses
+     *            whether each generated class should be defined in a
+     *            class-loader of its own, so that it can be unloaded once it
+     *            is no longer used
+     */
+    public JavassistCompilerStrategy(BytecodeCache bytecodeCache, boolean unloadableClasses) {
         super(WRITE_SOURCE_FILES_BY_DEFAULT, WRITE_CLASS_FILES_BY_DEFAULT);
         
-        this.classPool = new ClassPool();
-        this.classPool.appendSystemPath();
+        this.bytecodeCache = bytecodeCache;
+        this.unloadableClasses = unloadableClasses;
+    }
+    
+    private static BytecodeCache defaultBytecodeCache() {
+        String path = System.getProperty(OrikaSystemProperties.BYTECODE_CACHE_PATH);
+        return path != null ? new BytecodeCache(new File(path)) : null;
+    }
+    
+    /**
+     * @return true if each generated class is defined in a class-loader of its
+     *         own, so that it can be unloaded once it is no longer used
+     */
+    public boolean isUnloadableClasses() {
+        return unloadableClasses;
+    }
+    
+    /**
+     * @return the number of generated classes defined by this strategy which
+     *         are still loaded
+     */
+    public int getRetainedClassCount() {
+        synchronized (retainedBytecodeSizes) {
+            return retainedBytecodeSizes.size();
+        }
+    }
+    
+    /**
+     * @return the total size, in bytes, of the bytecode of the generated
+     *         classes defined by this strategy which are still loaded
+     */
+    public long getRetainedBytecodeSize() {
+        long size = 0;
+        synchronized (retainedBytecodeSizes) {
+            for (Integer classSize : retainedBytecodeSizes.values()) {
+                size += classSize.intValue();
+            }
+        }
+        return size;
+    }
+    
+    /**
+     * @param type
+     *            a generated class
+     * @return the size, in bytes, of the bytecode of the specified class, or
+     *         -1 if it was not defined by this strategy (or has been unloaded)
+     */
+    public int getRetainedBytecodeSize(Class<?> type) {
+        synchronized (retainedBytecodeSizes) {
+            Integer size = retainedBytecodeSizes.get(type);
+            return size != null ? size.intValue() : -1;
+        }
+    }
+    
+    /**
+     * @return the total size, in bytes, of the bytecode of all of the
+     *         generated classes defined by this strategy, including those
+     *         which have since been unloaded
+     */
+    public long getDefinedBytecodeSize() {
+        return definedBytecodeSize.get();
+    }
+    
+    /**
+     * @return the bytecode cache used by this compiler strategy, or null if
+     *         none is used
+     */
+    public BytecodeCache getBytecodeCache() {
+        return bytecodeCache;
     }
     
     /**
@@ -118,26 +269,48 @@ public class JavassistCompilerStrategy extends CompilerStrategy {
     
     /**
      * Attempts to register a class-loader in the maintained list of referenced
-     * class-loaders. Returns true if the class-loader was registered as a 
-     * result of the call; false is returned if the class-loader was already
-     * registered.
+     * class-loaders, and in the specified class-pool. Returns true if the
+     * class-loader was added to the class-pool as a result of the call; false
+     * is returned if the class-loader was already registered.
      * 
      * @param cl
+     * @param classPool
      * @return true if the class-loader was registered as a result of this call; false
      * if the class-loader was already registered
      */
-    private boolean registerClassLoader(ClassLoader cl) {
-    	Boolean found = referencedLoaders.get(cl);
-    	if (found==null) {
-    		synchronized(cl) {
-    			found = referencedLoaders.get(cl);
-    			if (found==null) {
-    				referencedLoaders.put(cl,Boolean.TRUE);
-    				classPool.insertClassPath(new LoaderClassPath(cl));
-    			}
-    		}
-    	}
-    	return found==null || !found;
+    private boolean registerClassLoader(ClassLoader cl, CompilerClassPool classPool) {
+        synchronized (referencedLoaders) {
+            referencedLoaders.put(cl, Boolean.TRUE);
+        }
+        return classPool.insertClassLoader(cl);
+    }
+    
+    /**
+     * Borrows a class-pool for the exclusive use of the current thread; it
+     * must be returned using {@link #releaseClassPool(CompilerClassPool)}.
+     * 
+     * @return a class-pool to which all of the referenced class-loaders have
+     *         been added
+     */
+    private CompilerClassPool acquireClassPool() {
+        CompilerClassPool classPool = idleClassPools.poll();
+        if (classPool == null) {
+            classPool = new CompilerClassPool();
+        }
+        ClassLoader[] loaders;
+        synchronized (referencedLoaders) {
+            loaders = referencedLoaders.keySet().toArray(new ClassLoader[referencedLoaders.size()]);
+        }
+        for (ClassLoader loader : loaders) {
+            if (loader != null) {
+                classPool.insertClassLoader(loader);
+            }
+        }
+        return classPool;
+    }
+    
+    private void releaseClassPool(CompilerClassPool classPool) {
+        idleClassPools.offer(classPool);
     }
     
     /*
@@ -148,6 +321,23 @@ public class JavassistCompilerStrategy extends CompilerStrategy {
      */
     public void assureTypeIsAccessible(Class<?> type) throws SourceCodeGenerationException {
         
+        if (!type.isPrimitive() && type.getClassLoader() != null) {
+            CompilerClassPool classPool = batchClassPool.get();
+            if (classPool != null) {
+                assureTypeIsAccessible(type, classPool);
+                return;
+            }
+            classPool = acquireClassPool();
+            try {
+                assureTypeIsAccessible(type, classPool);
+            } finally {
+                releaseClassPool(classPool);
+            }
+        }
+    }
+    
+    private void assureTypeIsAccessible(Class<?> type, CompilerClassPool classPool) throws SourceCodeGenerationException {
+        
         if (!type.isPrimitive() && type.getClassLoader() != null) {
             
             if (!Modifier.isPublic(type.getModifiers())) {
@@ -176,7 +366,7 @@ public class JavassistCompilerStrategy extends CompilerStrategy {
                 classPool.get(className);
             } catch (NotFoundException e) {
                 
-                if (registerClassLoader(type.getClassLoader())) {
+                if (registerClassLoader(type.getClassLoader(), classPool)) {
                     try {
                         classPool.get(className);
                     } catch (NotFoundException e2) {
@@ -198,15 +388,81 @@ public class JavassistCompilerStrategy extends CompilerStrategy {
      */
     public Class<?> compileClass(SourceCodeContext sourceCode) throws SourceCodeGenerationException {
         
+        CompilerClassPool classPool = batchClassPool.get();
+        if (classPool != null) {
+            return compileClass(sourceCode, classPool);
+        }
+        classPool = acquireClassPool();
+        try {
+            prepareClassPool(classPool);
+            return compileClass(sourceCode, classPool);
+        } finally {
+            releaseClassPool(classPool);
+        }
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * ma.glasnost.orika.impl.generator.CompilerStrategy#compileClasses(java
+     * .util.List)
+     */
+    public List<Class<?>> compileClasses(List<SourceCodeContext> sourceCodes) throws SourceCodeGenerationException {
+        
+        if (sourceCodes.size() < 2 || batchClassPool.get() != null) {
+            return super.compileClasses(sourceCodes);
+        }
+        CompilerClassPool classPool = acquireClassPool();
+        batchClassPool.set(classPool);
+        try {
+            prepareClassPool(classPool);
+            return super.compileClasses(sourceCodes);
+        } finally {
+            batchClassPool.remove();
+            releaseClassPool(classPool);
+        }
+    }
+    
+    /**
+     * Prepares a class-pool for the compilation of one or more classes by the
+     * current thread.
+     * 
+     * @param classPool
+     * @throws SourceCodeGenerationException
+     */
+    private void prepareClassPool(CompilerClassPool classPool) throws SourceCodeGenerationException {
+        // TODO: do we really need this check here?
+        assureTypeIsAccessible(this.getClass(), classPool);
+        
+        registerClassLoader(Thread.currentThread().getContextClassLoader(), classPool);
+    }
+    
+    private Class<?> compileClass(SourceCodeContext sourceCode, CompilerClassPool classPool) throws SourceCodeGenerationException {
+        
+        String cacheKey = null;
+        if (bytecodeCache != null) {
+            cacheKey = bytecodeCache.fingerprint(sourceCode, Thread.currentThread().getContextClassLoader());
+            Class<?> cachedClass = defineCachedClass(cacheKey, classPool);
+            if (cachedClass != null) {
+                bytecodeCache.recordHit();
+                return cachedClass;
+            }
+            bytecodeCache.recordMiss();
+        }
+        
         StringBuilder className = new StringBuilder(sourceCode.getClassName());
         CtClass byteCodeClass = null;
         int attempts = 0;
         Random rand = new Random();
         while (byteCodeClass==null) {
 	        try {
+	            if (!unloadableClasses && compiledClassNames.put(className.toString(), Boolean.TRUE) != null) {
+	                throw new IllegalStateException(className + " has already been compiled");
+	            }
 	        	byteCodeClass = classPool.makeClass(className.toString());
 			} catch (RuntimeException e) {
-				if (attempts < 5) {
+				if (attempts++ < 5) {
 					className.append(Integer.toHexString(rand.nextInt()));
 				} else {
 					// No longer likely to be accidental name collision; propagate the error
@@ -221,17 +477,7 @@ public class JavassistCompilerStrategy extends CompilerStrategy {
         try {
         	writeSourceFile(sourceCode);
         	
-        	// TODO: do we really need this check here?
-            assureTypeIsAccessible(this.getClass());
-            
-            Boolean existing = superClasses.put(sourceCode.getSuperClass(), true);
-            if (existing==null || !existing) {
-                classPool.insertClassPath(new ClassClassPath(sourceCode.getSuperClass()));
-            }
-            
-            if (registerClassLoader(Thread.currentThread().getContextClassLoader())) {
-            	classPool.insertClassPath(new LoaderClassPath(Thread.currentThread().getContextClassLoader()));
-            }
+            classPool.insertClass(sourceCode.getSuperClass());
             
             abstractMapperClass = classPool.get(sourceCode.getSuperClass().getCanonicalName());
             byteCodeClass.setSuperclass(abstractMapperClass);
@@ -245,9 +491,11 @@ public class JavassistCompilerStrategy extends CompilerStrategy {
                 }
             }
             
-            for (String methodDef : sourceCode.getMethods()) {
+            List<DirectMapMethod> directMethods = sourceCode.getDirectMethods();
+            for (int i = 0, len = sourceCode.getMethods().size(); i < len; ++i) {
+                String methodDef = sourceCode.getMethods().get(i);
                 try {
-                    byteCodeClass.addMethod(CtNewMethod.make(methodDef, byteCodeClass));
+                    byteCodeClass.addMethod(compileMethod(methodDef, directMethods.get(i), byteCodeClass));
                 } catch (CannotCompileException e) {
                     throw new SourceCodeGenerationException(
                     		"An exception occured while compiling the following method:\n\n " + methodDef + 
@@ -256,19 +504,176 @@ public class JavassistCompilerStrategy extends CompilerStrategy {
                 }
                 
             }
-            compiledClass = byteCodeClass.toClass();
-            
             writeClassFile(sourceCode, byteCodeClass);
             
+            byte[] bytecode = byteCodeClass.toBytecode();
+            compiledClass = defineClass(byteCodeClass, bytecode);
+            
+            if (bytecodeCache != null) {
+                if (!unloadableClasses) {
+                    bytecodeCache.addDefinedClass(Thread.currentThread().getContextClassLoader(), cacheKey, compiledClass);
+                }
+                bytecodeCache.store(cacheKey, bytecode);
+            }
+            
         } catch (NotFoundException e) {
             throw new SourceCodeGenerationException(e);
         } catch (CannotCompileException e) {
             throw new SourceCodeGenerationException(e);
         } catch (IOException e) {
             throw new SourceCodeGenerationException("Could not write files for " + sourceCode.getClassName(), e);
+        } finally {
+            byteCodeClass.detach();
         }
         
         return compiledClass;
     }
     
-}
\ No newline at end of file
+    /**
+     * Defines a generated class, either in the context class-loader of the
+     * current thread, or (if unloadable classes are enabled) in a class-loader
+     * of its own.
+     * 
+     * @param byteCodeClass
+     *            the class to define
+     * @param bytecode
+     *            the bytecode of the class
+     * @return the defined class
+     * @throws CannotCompileException
+     */
+    private Class<?> defineClass(CtClass byteCodeClass, byte[] bytecode) throws CannotCompileException {
+        Class<?> definedClass;
+        if (unloadableClasses) {
+            try {
+                definedClass = new GeneratedClassLoader(Thread.currentThread().getContextClassLoader()).define(
+                        byteCodeClass.getName(), bytecode);
+            } catch (LinkageError e) {
+                throw new CannotCompileException(e);
+            }
+        } else {
+            definedClass = byteCodeClass.toClass();
+        }
+        definedBytecodeSize.add(bytecode.length);
+        synchronized (retainedBytecodeSizes) {
+            retainedBytecodeSizes.put(definedClass, Integer.valueOf(bytecode.length));
+        }
+        return definedClass;
+    }
+    
+    /**
+     * Compiles one of the methods of a generated class.
+     * 
+     * @param methodDef
+     *            the source of the method
+     * @param directMethod
+     *            the direct definition of the method, or null if it has none;
+     *            ignored by this strategy, which always compiles the source
+     * @param byteCodeClass
+     *            the class to which the method belongs
+     * @return the compiled method
+     * @throws CannotCompileException
+     */
+    protected CtMethod compileMethod(String methodDef, DirectMapMethod directMethod, CtClass byteCodeClass) throws CannotCompileException {
+        return CtNewMethod.make(methodDef, byteCodeClass);
+    }
+    
+    /**
+     * Obtains the class for the specified cache key, either as already defined
+     * in the current context class-loader, or by defining it from the cached
+     * bytecode.
+     * 
+     * @param cacheKey
+     * @param classPool
+     * @return the cached class, or null if no (valid) cached entry exists
+     */
+    private Class<?> defineCachedClass(String cacheKey, ClassPool classPool) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        Class<?> cachedClass = unloadableClasses ? null : bytecodeCache.getDefinedClass(classLoader, cacheKey);
+        if (cachedClass != null) {
+            return cachedClass;
+        }
+        byte[] bytecode = bytecodeCache.load(cacheKey);
+        if (bytecode == null) {
+            return null;
+        }
+        try {
+            CtClass byteCodeClass = classPool.makeClass(new ByteArrayInputStream(bytecode));
+            try {
+                cachedClass = defineClass(byteCodeClass, bytecode);
+            } finally {
+                byteCodeClass.detach();
+            }
+            if (!unloadableClasses) {
+                bytecodeCache.addDefinedClass(classLoader, cacheKey, cachedClass);
+            }
+            return cachedClass;
+        } catch (IOException e) {
+            LOG.warn("Discarding invalid cached bytecode " + cacheKey, e);
+        } catch (CannotCompileException e) {
+            LOG.warn("Discarding invalid cached bytecode " + cacheKey, e);
+        } catch (RuntimeException e) {
+            LOG.warn("Discarding invalid cached bytecode " + cacheKey, e);
+        } catch (LinkageError e) {
+            LOG.warn("Discarding invalid cached bytecode " + cacheKey, e);
+        }
+        bytecodeCache.remove(cacheKey);
+        return null;
+    }
+    
+    /**
+     * A class-pool used by one thread at a time, which keeps track of the
+     * class-paths inserted into it
+     */
+    private static class CompilerClassPool extends ClassPool {
+        
+        private final Map<Object, Boolean> insertedPaths = new WeakHashMap<Object, Boolean>();
+        
+        private CompilerClassPool() {
+            appendSystemPath();
+        }
+        
+        /**
+         * @param classLoader
+         * @return true if the class-loader was added by this call
+         */
+        private boolean insertClassLoader(ClassLoader classLoader) {
+            if (insertedPaths.put(classLoader, Boolean.TRUE) == null) {
+                insertClassPath(new LoaderClassPath(classLoader));
+                return true;
+            }
+            return false;
+        }
+        
+        private void insertClass(Class<?> type) {
+            if (insertedPaths.put(type, Boolean.TRUE) == null) {
+                insertClassPath(new ClassClassPath(type));
+            }
+        }
+    }
+    
+    /**
+     * A class-loader which defines a single generated class, so that the class
+     * can be unloaded independently of any other
+     */
+    private static class GeneratedClassLoader extends ClassLoader {
+        
+        private GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+        
+        private Class<?> define(String className, byte[] bytecode) {
+            return defineClass(className, bytecode, 0, bytecode.length);
+        }
+    }
+    
+    /**
+     * JavassistCompilerStrategy itself is thread-safe, but since a subclass
+     * may not be, subclasses must override this method to declare that they
+     * are.
+     * 
+     * @return true if this is an instance of JavassistCompilerStrategy itself
+     */
+    public boolean isThreadSafe() {
+        return getClass() == JavassistCompilerStrategy.class;
+    }
+}
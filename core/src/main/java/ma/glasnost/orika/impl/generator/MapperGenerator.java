@@ -21,8 +21,11 @@ package ma.glasnost.orika.impl.generator;
 import static java.lang.String.format;
 import static ma.glasnost.orika.impl.generator.SourceCodeContext.append;
 
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import javassist.CannotCompileException;
 import ma.glasnost.orika.MapperFactory;
@@ -33,6 +36,7 @@ import ma.glasnost.orika.metadata.ClassMap;
 import ma.glasnost.orika.metadata.FieldMap;
 import ma.glasnost.orika.metadata.MapperKey;
 import ma.glasnost.orika.metadata.Type;
+import ma.glasnost.orika.metrics.MappingMetrics;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,14 +47,149 @@ public final class MapperGenerator {
     
     private final MapperFactory mapperFactory;
     private final CompilerStrategy compilerStrategy;
+    private final MappingMetrics metrics;
     
     public MapperGenerator(MapperFactory mapperFactory, CompilerStrategy compilerStrategy) {
+        this(mapperFactory, compilerStrategy, null);
+    }
+    
+    /**
+     * Constructs a new MapperGenerator which reports the compilation of each
+     * mapper to the specified metrics.
+     * 
+     * @param mapperFactory
+     * @param compilerStrategy
+     * @param metrics
+     *            the metrics to which compilations are reported, or null
+     */
+    public MapperGenerator(MapperFactory mapperFactory, CompilerStrategy compilerStrategy, MappingMetrics metrics) {
         this.mapperFactory = mapperFactory;
         this.compilerStrategy = compilerStrategy;
+        this.metrics = metrics;
     }
     
     public GeneratedMapperBase build(ClassMap<?, ?> classMap, MappingContext context) {
+        try {
+            return generate(classMap, context).call();
+        } catch (MappingException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new MappingException(e);
+        }
+    }
+    
+    /**
+     * Generates the source of the mapper for the specified class map, and
+     * returns a task which compiles and instantiates it; generation involves
+     * the mapper factory, and so must be performed by the thread building the
+     * mapper, but the returned task may be run by any thread if the compiler
+     * strategy is {@link CompilerStrategy#isThreadSafe() thread-safe}.
+     * 
+     * @param classMap
+     *            the class map for which to generate a mapper
+     * @param context
+     *            the current mapping context
+     * @return a task which returns the compiled mapper
+     */
+    public Callable<GeneratedMapperBase> generate(final ClassMap<?, ?> classMap, MappingContext context) {
         
+        final PendingMapper pendingMapper = generateSource(classMap, context);
+        return new Callable<GeneratedMapperBase>() {
+            public GeneratedMapperBase call() {
+                try {
+                    long start = metrics != null ? System.nanoTime() : 0;
+                    Class<?> compiledClass = pendingMapper.code.compileClass();
+                    if (metrics != null) {
+                        pendingMapper.compiled(metrics, System.nanoTime() - start);
+                    }
+                    return pendingMapper.getInstance(compiledClass);
+                } catch (final Exception e) {
+                    throw new MappingException(e);
+                }
+            }
+        };
+    }
+    
+    /**
+     * Creates a batch, to which the sources of several mappers may be added
+     * (by the thread building them) and which then compiles all of them with
+     * a single call to {@link CompilerStrategy#compileClasses(java.util.List)}.
+     * 
+     * @return a new, empty batch of mappers
+     */
+    public Batch newBatch() {
+        return new Batch();
+    }
+    
+    /**
+     * A batch of generated mappers which are compiled together; the batch may
+     * be run by any thread if the compiler strategy is
+     * {@link CompilerStrategy#isThreadSafe() thread-safe}, and returns the
+     * compiled mappers in the order in which their class maps were added.
+     */
+    public final class Batch implements Callable<List<GeneratedMapperBase>> {
+        
+        private final List<PendingMapper> pendingMappers = new ArrayList<PendingMapper>();
+        
+        private Batch() {
+        }
+        
+        /**
+         * Generates the source of the mapper for the specified class map, and
+         * adds it to this batch.
+         * 
+         * @param classMap
+         *            the class map for which to generate a mapper
+         * @param context
+         *            the current mapping context
+         */
+        public void add(ClassMap<?, ?> classMap, MappingContext context) {
+            pendingMappers.add(generateSource(classMap, context));
+        }
+        
+        /**
+         * @return the number of mappers in this batch
+         */
+        public int size() {
+            return pendingMappers.size();
+        }
+        
+        public List<GeneratedMapperBase> call() {
+            try {
+                List<SourceCodeContext> sourceCodes = new ArrayList<SourceCodeContext>(pendingMappers.size());
+                for (PendingMapper pendingMapper : pendingMappers) {
+                    sourceCodes.add(pendingMapper.code);
+                }
+                long start = metrics != null ? System.nanoTime() : 0;
+                List<Class<?>> compiledClasses = compilerStrategy.compileClasses(sourceCodes);
+                if (metrics != null) {
+                    long compileNanos = System.nanoTime() - start;
+                    long totalLength = 0;
+                    for (PendingMapper pendingMapper : pendingMappers) {
+                        totalLength += pendingMapper.getSourceLength();
+                    }
+                    for (PendingMapper pendingMapper : pendingMappers) {
+                        pendingMapper.compiled(metrics, totalLength > 0 ? compileNanos * pendingMapper.getSourceLength()
+                                / totalLength : compileNanos / pendingMappers.size());
+                    }
+                }
+                List<GeneratedMapperBase> mappers = new ArrayList<GeneratedMapperBase>(pendingMappers.size());
+                for (int i = 0, len = pendingMappers.size(); i < len; ++i) {
+                    mappers.add(pendingMappers.get(i).getInstance(compiledClasses.get(i)));
+                }
+                return mappers;
+            } catch (final Exception e) {
+                throw new MappingException(e);
+            }
+        }
+    }
+    
+    /**
+     * Generates the source of the mapper for the specified class map.
+     */
+    private PendingMapper generateSource(ClassMap<?, ?> classMap, MappingContext context) {
+        
+        long start = metrics != null ? System.nanoTime() : 0;
         try {
             compilerStrategy.assureTypeIsAccessible(classMap.getAType().getRawType());
             compilerStrategy.assureTypeIsAccessible(classMap.getBType().getRawType());
@@ -71,31 +210,59 @@ public final class MapperGenerator {
             mappedFields.addAll(addMapMethod(mapperCode, true, classMap, logDetails));
             mappedFields.addAll(addMapMethod(mapperCode, false, classMap, logDetails));
             
-            GeneratedMapperBase instance = mapperCode.getInstance();
-            instance.setAType(classMap.getAType());
-            instance.setBType(classMap.getBType());
-            
-            
-            if (logDetails != null) {
-            	LOGGER.debug(logDetails.toString());
-            }
-            
             /*
              * Add a copy of the ClassMap to the current mapping context, which only contains the field
              * maps that were processed by this mapper generation; this can later be used by ObjectFactory
              * generation when selecting a constructor -- since we only need a constructor which handles 
              * the fields not mapped by the generated mapper
              */
-            classMap = classMap.copy(mappedFields);
-            context.registerMapperGeneration(classMap);
+            context.registerMapperGeneration(classMap.copy(mappedFields));
             
-            return instance;
+            return new PendingMapper(classMap, mapperCode, logDetails, metrics != null ? System.nanoTime() - start : 0);
             
         } catch (final Exception e) {
             throw new MappingException(e);
         }
     }
     
+    /**
+     * The generated source of a mapper, not yet compiled
+     */
+    private static final class PendingMapper {
+        
+        private final ClassMap<?, ?> classMap;
+        private final SourceCodeContext code;
+        private final StringBuilder logDetails;
+        private final long generationNanos;
+        
+        private PendingMapper(ClassMap<?, ?> classMap, SourceCodeContext code, StringBuilder logDetails, long generationNanos) {
+            this.classMap = classMap;
+            this.code = code;
+            this.logDetails = logDetails;
+            this.generationNanos = generationNanos;
+        }
+        
+        private int getSourceLength() {
+            return code.getSourceBuilder().length();
+        }
+        
+        private void compiled(MappingMetrics metrics, long compileNanos) {
+            metrics.mapperCompiled(classMap, classMap.getFieldsMapping().size(), getSourceLength(), generationNanos, compileNanos);
+        }
+        
+        private GeneratedMapperBase getInstance(Class<?> compiledClass) throws InstantiationException, IllegalAccessException {
+            GeneratedMapperBase instance = code.getInstance(compiledClass);
+            instance.setAType(classMap.getAType());
+            instance.setBType(classMap.getBType());
+            
+            if (logDetails != null) {
+                LOGGER.debug(logDetails.toString());
+            }
+            
+            return instance;
+        }
+    }
+    
     private String getFieldTag(FieldMap fieldMap) {
     	return "\n\t Field(" + fieldMap.getSource() + ", " + fieldMap.getDestination() + ") : ";
     }
@@ -127,6 +294,7 @@ public final class MapperGenerator {
             source = new VariableRef(classMap.getBType(), "source");
             destination = new VariableRef(classMap.getAType(), "destination");
         }
+        DirectMapMethod directMethod = new DirectMapMethod(mapMethod, source.rawType(), destination.rawType());
          
         append(out,
                 format("super.%s(a, b, mappingContext);", mapMethod),
@@ -159,6 +327,7 @@ public final class MapperGenerator {
             }
             
             if (code.aggregateSpecsApply(fieldMap)) {
+                directMethod.invalidate();
                 continue;
             }
             
@@ -169,7 +338,7 @@ public final class MapperGenerator {
             if (!fieldMap.isIgnored()) {
                 try {
                     mappedFields.add(currentFieldMap);
-                    String sourceCode = generateFieldMapCode(code, fieldMap, classMap, destination, logDetails);
+                    String sourceCode = generateFieldMapCode(code, fieldMap, classMap, destination, directMethod, logDetails);
                     out.append(sourceCode);
                 } catch (final Exception e) {
                     MappingException me = new MappingException(e);
@@ -196,7 +365,7 @@ public final class MapperGenerator {
         	logDetails.append("\n\t}");
         }
         
-        code.addMethod(out.toString());
+        code.addMethod(out.toString(), directMethod.isValid() ? directMethod : null);
         
         return mappedFields;
     }
@@ -222,7 +391,8 @@ public final class MapperGenerator {
         return false;
     }
     
-    private String generateFieldMapCode(SourceCodeContext code, FieldMap fieldMap, ClassMap<?, ?> classMap, VariableRef destination, StringBuilder logDetails) throws Exception {
+    private String generateFieldMapCode(SourceCodeContext code, FieldMap fieldMap, ClassMap<?, ?> classMap, VariableRef destination,
+            DirectMapMethod directMethod, StringBuilder logDetails) throws Exception {
         
         final VariableRef sourceProperty = new VariableRef(fieldMap.getSource(), "source");
         final VariableRef destinationProperty = new VariableRef(fieldMap.getDestination(), "destination");
@@ -249,7 +419,15 @@ public final class MapperGenerator {
         compilerStrategy.assureTypeIsAccessible(sourceProperty.rawType());
         compilerStrategy.assureTypeIsAccessible(destinationProperty.rawType());
 
-        return code.mapFields(fieldMap, sourceProperty, destinationProperty, destination.type(), logDetails);
+        String mappingCode = code.mapFields(fieldMap, sourceProperty, destinationProperty, destination.type(), logDetails);
+        
+        if (directMethod.isValid()) {
+            Boolean mapNulls = fieldMap.isDestinationMappedOnNull();
+            directMethod.addFieldMap(fieldMap, sourceProperty, destinationProperty, code.getSpecification(fieldMap),
+                    mapNulls != null ? mapNulls.booleanValue() : code.shouldMapNulls());
+        }
+        
+        return mappingCode;
     }
     
 }
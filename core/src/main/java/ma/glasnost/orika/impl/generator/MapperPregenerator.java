@@ -0,0 +1,231 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.impl.generator;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import javassist.bytecode.ClassFile;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.OrikaSystemProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MapperPregenerator generates, at build time, the mapper and object factory
+ * classes for one or more mapper configurations, and writes them as ordinary
+ * class files (along with the {@link PregeneratedClasses} index) into an output
+ * directory, such as the build's classes directory; at runtime, DefaultMapperFactory
+ * uses these classes rather than compiling them again.<br>
+ * <br>
+ * A configuration class is any class with a no-argument constructor whose
+ * construction configures (and builds) a mapper factory, such as a subclass
+ * of {@link ma.glasnost.orika.impl.ConfigurableMapper}; if the configuration
+ * class is itself a MapperFactory, it is built once constructed.<br>
+ * <br>
+ * Only classes generated while building the configured mapper factories are
+ * pre-generated; mappers which are generated on demand (for types which are
+ * first encountered while mapping) are still compiled at runtime.
+ */
+public class MapperPregenerator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MapperPregenerator.class);
+
+    private final File outputDirectory;
+
+    /**
+     * @param outputDirectory
+     *            the directory in which to write the pre-generated classes and
+     *            their index
+     */
+    public MapperPregenerator(File outputDirectory) {
+        if (outputDirectory == null) {
+            throw new IllegalArgumentException("outputDirectory must not be null");
+        }
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * Generates the classes for the specified configurations, using the
+     * context class-loader to load them; the index of any classes previously
+     * pre-generated into the output directory is replaced.
+     *
+     * @param configurationClassNames
+     *            the names of the configuration classes
+     * @return the index of the pre-generated classes
+     * @throws IOException
+     *             if the classes could not be written
+     */
+    public Properties generate(String... configurationClassNames) throws IOException {
+        File cacheDirectory = File.createTempFile("orika-pregenerated", "");
+        if (!cacheDirectory.delete() || !cacheDirectory.mkdirs()) {
+            throw new IOException("Could not create temporary directory " + cacheDirectory);
+        }
+        try {
+            compile(cacheDirectory, configurationClassNames);
+            Properties index = write(cacheDirectory);
+            LOG.info("Pre-generated " + index.size() + " classes for " + Arrays.asList(configurationClassNames) + " in "
+                    + outputDirectory);
+            return index;
+        } finally {
+            new BytecodeCache(cacheDirectory).clear();
+            cacheDirectory.delete();
+        }
+    }
+
+    /**
+     * Constructs each of the configurations, with every compiled class
+     * recorded in a bytecode cache in the specified directory.
+     */
+    private void compile(File cacheDirectory, String... configurationClassNames) {
+        Map<String, String> originalProperties = new HashMap<String, String>();
+        setProperty(OrikaSystemProperties.BYTECODE_CACHE_PATH, cacheDirectory.getAbsolutePath(), originalProperties);
+        setProperty(OrikaSystemProperties.COMPILER_STRATEGY, JavassistCompilerStrategy.class.getName(), originalProperties);
+        setProperty(OrikaSystemProperties.USE_PREGENERATED_CLASSES, "false", originalProperties);
+        try {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            for (String configurationClassName : configurationClassNames) {
+                Object configuration;
+                try {
+                    Constructor<?> constructor = Class.forName(configurationClassName, true, classLoader).getDeclaredConstructor();
+                    constructor.setAccessible(true);
+                    configuration = constructor.newInstance();
+                } catch (Exception e) {
+                    throw new IllegalArgumentException("Could not instantiate configuration class " + configurationClassName, e);
+                }
+                if (configuration instanceof MapperFactory) {
+                    ((MapperFactory) configuration).build();
+                }
+            }
+        } finally {
+            for (Map.Entry<String, String> property : originalProperties.entrySet()) {
+                if (property.getValue() == null) {
+                    System.clearProperty(property.getKey());
+                } else {
+                    System.setProperty(property.getKey(), property.getValue());
+                }
+            }
+        }
+    }
+
+    private static void setProperty(String key, String value, Map<String, String> originalProperties) {
+        originalProperties.put(key, System.getProperty(key));
+        System.setProperty(key, value);
+    }
+
+    /**
+     * Writes the cached classes, and their index, to the output directory.
+     */
+    private Properties write(File cacheDirectory) throws IOException {
+        Properties index = new Properties();
+        File[] entries = cacheDirectory.listFiles();
+        if (entries != null) {
+            for (File entry : entries) {
+                String name = entry.getName();
+                if (!name.endsWith(".class")) {
+                    continue;
+                }
+                byte[] bytecode = read(entry);
+                String className = new ClassFile(new DataInputStream(new ByteArrayInputStream(bytecode))).getName();
+                write(new File(outputDirectory, className.replace('.', File.separatorChar) + ".class"), bytecode);
+                index.setProperty(name.substring(0, name.length() - ".class".length()), className);
+            }
+        }
+
+        File indexFile = new File(outputDirectory, PregeneratedClasses.INDEX_RESOURCE.replace('/', File.separatorChar));
+        if (indexFile.isFile()) {
+            Properties previousIndex = new Properties();
+            InputStream in = new FileInputStream(indexFile);
+            try {
+                previousIndex.load(in);
+            } finally {
+                in.close();
+            }
+            for (Object className : previousIndex.values()) {
+                if (!index.containsValue(className)) {
+                    new File(outputDirectory, ((String) className).replace('.', File.separatorChar) + ".class").delete();
+                }
+            }
+        }
+        File parent = indexFile.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create directory " + parent);
+        }
+        OutputStream out = new FileOutputStream(indexFile);
+        try {
+            index.store(out, "Generated by " + MapperPregenerator.class.getName());
+        } finally {
+            out.close();
+        }
+        return index;
+    }
+
+    private static byte[] read(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            in.readFully(bytes);
+        } finally {
+            in.close();
+        }
+        return bytes;
+    }
+
+    private static void write(File file, byte[] bytes) throws IOException {
+        File parent = file.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create directory " + parent);
+        }
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Pre-generates the classes for the specified configurations.
+     *
+     * @param args
+     *            the output directory, followed by the names of one or more
+     *            configuration classes
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: " + MapperPregenerator.class.getName() + " <outputDirectory> <configurationClass>...");
+            System.exit(1);
+        }
+        String[] configurationClassNames = new String[args.length - 1];
+        System.arraycopy(args, 1, configurationClassNames, 0, configurationClassNames.length);
+        new MapperPregenerator(new File(args[0])).generate(configurationClassNames);
+    }
+}
@@ -247,7 +247,11 @@ public class MultiOccurrenceVariableRef extends VariableRef {
                 }
                 
             } 
-            return "new java.util.LinkedHashSet(" + sizeExpr + ")";
+            /*
+             * Size the set so that it holds the expected number of elements
+             * without being rehashed
+             */
+            return "new java.util.LinkedHashSet(" + ("".equals(sizeExpr) ? "" : "(" + sizeExpr + ") * 4 / 3 + 1") + ")";
             
         } else {
             if (ClassUtil.isConcrete(type())) {
@@ -23,8 +23,10 @@ import static ma.glasnost.orika.impl.generator.SourceCodeContext.append;
 import static ma.glasnost.orika.impl.generator.SourceCodeContext.statement;
 
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import javassist.CannotCompileException;
 import ma.glasnost.orika.MapperFactory;
@@ -37,6 +39,7 @@ import ma.glasnost.orika.metadata.ClassMap;
 import ma.glasnost.orika.metadata.FieldMap;
 import ma.glasnost.orika.metadata.MapperKey;
 import ma.glasnost.orika.metadata.Type;
+import ma.glasnost.orika.metrics.MappingMetrics;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,19 +50,164 @@ public class ObjectFactoryGenerator {
     
     private final ConstructorResolverStrategy constructorResolverStrategy;
     private final MapperFactory mapperFactory;
+    private final CompilerStrategy compilerStrategy;
     private final String nameSuffix;
+    private final MappingMetrics metrics;
     
     public ObjectFactoryGenerator(MapperFactory mapperFactory, ConstructorResolverStrategy constructorResolverStrategy,
     		CompilerStrategy compilerStrategy) {
+        this(mapperFactory, constructorResolverStrategy, compilerStrategy, null);
+    }
+    
+    /**
+     * Constructs a new ObjectFactoryGenerator which reports the compilation of
+     * each object factory to the specified metrics.
+     * 
+     * @param mapperFactory
+     * @param constructorResolverStrategy
+     * @param compilerStrategy
+     * @param metrics
+     *            the metrics to which compilations are reported, or null
+     */
+    public ObjectFactoryGenerator(MapperFactory mapperFactory, ConstructorResolverStrategy constructorResolverStrategy,
+            CompilerStrategy compilerStrategy, MappingMetrics metrics) {
         this.mapperFactory = mapperFactory;
+        this.compilerStrategy = compilerStrategy;
         this.nameSuffix = Integer.toHexString(System.identityHashCode(compilerStrategy));
         this.constructorResolverStrategy = constructorResolverStrategy;
+        this.metrics = metrics;
     }
     
     public GeneratedObjectFactory build(Type<?> type, MappingContext context) {
+        try {
+            GeneratedObjectFactory objectFactory = generate(type, context).call();
+            objectFactory.setMapperFacade(mapperFactory.getMapperFacade());
+            return objectFactory;
+        } catch (MappingException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new MappingException("exception while creating object factory for " + type.getName(), e);
+        }
+    }
+    
+    /**
+     * Generates the source of the object factory for the specified type, and
+     * returns a task which compiles and instantiates it; the returned task may
+     * be run by any thread if the compiler strategy is
+     * {@link CompilerStrategy#isThreadSafe() thread-safe}. The mapper facade of
+     * the returned object factory is not yet set.
+     * 
+     * @param type
+     *            the type for which to generate an object factory
+     * @param context
+     *            the current mapping context
+     * @return a task which returns the compiled object factory
+     */
+    public Callable<GeneratedObjectFactory> generate(final Type<?> type, MappingContext context) {
+        
+        final PendingObjectFactory pendingObjectFactory = generateSource(type, context);
+        return new Callable<GeneratedObjectFactory>() {
+            public GeneratedObjectFactory call() {
+                try {
+                    long start = metrics != null ? System.nanoTime() : 0;
+                    Class<?> compiledClass = pendingObjectFactory.code.compileClass();
+                    if (metrics != null) {
+                        pendingObjectFactory.compiled(metrics, System.nanoTime() - start);
+                    }
+                    return pendingObjectFactory.getInstance(compiledClass);
+                } catch (final Exception e) {
+                    throw new MappingException("exception while creating object factory for " + type.getName(), e);
+                }
+            }
+        };
+    }
+    
+    /**
+     * Creates a batch, to which the sources of several object factories may
+     * be added and which then compiles all of them with a single call to
+     * {@link CompilerStrategy#compileClasses(List)}.
+     * 
+     * @return a new, empty batch of object factories
+     */
+    public Batch newBatch() {
+        return new Batch();
+    }
+    
+    /**
+     * A batch of generated object factories which are compiled together; the
+     * batch may be run by any thread if the compiler strategy is
+     * {@link CompilerStrategy#isThreadSafe() thread-safe}, and returns the
+     * compiled object factories (whose mapper facades are not yet set) in the
+     * order in which their types were added.
+     */
+    public final class Batch implements Callable<List<GeneratedObjectFactory>> {
+        
+        private final List<PendingObjectFactory> pendingObjectFactories = new ArrayList<PendingObjectFactory>();
+        
+        private Batch() {
+        }
+        
+        /**
+         * Generates the source of the object factory for the specified type,
+         * and adds it to this batch.
+         * 
+         * @param type
+         *            the type for which to generate an object factory
+         * @param context
+         *            the current mapping context
+         * @throws MappingException
+         *             if the source could not be generated, in which case
+         *             the batch is unchanged
+         */
+        public void add(Type<?> type, MappingContext context) {
+            pendingObjectFactories.add(generateSource(type, context));
+        }
+        
+        /**
+         * @return the number of object factories in this batch
+         */
+        public int size() {
+            return pendingObjectFactories.size();
+        }
+        
+        public List<GeneratedObjectFactory> call() {
+            try {
+                List<SourceCodeContext> sourceCodes = new ArrayList<SourceCodeContext>(pendingObjectFactories.size());
+                for (PendingObjectFactory pendingObjectFactory : pendingObjectFactories) {
+                    sourceCodes.add(pendingObjectFactory.code);
+                }
+                long start = metrics != null ? System.nanoTime() : 0;
+                List<Class<?>> compiledClasses = compilerStrategy.compileClasses(sourceCodes);
+                if (metrics != null) {
+                    long compileNanos = System.nanoTime() - start;
+                    long totalLength = 0;
+                    for (PendingObjectFactory pendingObjectFactory : pendingObjectFactories) {
+                        totalLength += pendingObjectFactory.getSourceLength();
+                    }
+                    for (PendingObjectFactory pendingObjectFactory : pendingObjectFactories) {
+                        pendingObjectFactory.compiled(metrics, totalLength > 0 ? compileNanos
+                                * pendingObjectFactory.getSourceLength() / totalLength : compileNanos / pendingObjectFactories.size());
+                    }
+                }
+                List<GeneratedObjectFactory> objectFactories = new ArrayList<GeneratedObjectFactory>(pendingObjectFactories.size());
+                for (int i = 0, len = pendingObjectFactories.size(); i < len; ++i) {
+                    objectFactories.add(pendingObjectFactories.get(i).getInstance(compiledClasses.get(i)));
+                }
+                return objectFactories;
+            } catch (final Exception e) {
+                throw new MappingException("exception while creating " + pendingObjectFactories.size() + " object factories", e);
+            }
+        }
+    }
+    
+    /**
+     * Generates the source of the object factory for the specified type.
+     */
+    private PendingObjectFactory generateSource(Type<?> type, MappingContext context) {
         
         final String className = type.getSimpleName() + "_ObjectFactory" + nameSuffix;
         
+        long start = metrics != null ? System.nanoTime() : 0;
         try {
             StringBuilder logDetails;
             if (LOGGER.isDebugEnabled()) {
@@ -78,18 +226,47 @@ public class ObjectFactoryGenerator {
             
             addCreateMethod(factoryCode, usedTypes, usedConverters, usedMapperFacades, type, context, logDetails);
             
-            GeneratedObjectFactory objectFactory = (GeneratedObjectFactory) factoryCode.getInstance();
-            objectFactory.setMapperFacade(mapperFactory.getMapperFacade());
+            return new PendingObjectFactory(type, factoryCode, logDetails, metrics != null ? System.nanoTime() - start : 0);
+            
+        } catch (final Exception e) {
+            throw new MappingException("exception while creating object factory for " + type.getName(), e);
+        } 
+    }
+    
+    /**
+     * The generated source of an object factory, not yet compiled
+     */
+    private static final class PendingObjectFactory {
+        
+        private final Type<?> type;
+        private final SourceCodeContext code;
+        private final StringBuilder logDetails;
+        private final long generationNanos;
+        
+        private PendingObjectFactory(Type<?> type, SourceCodeContext code, StringBuilder logDetails, long generationNanos) {
+            this.type = type;
+            this.code = code;
+            this.logDetails = logDetails;
+            this.generationNanos = generationNanos;
+        }
+        
+        private int getSourceLength() {
+            return code.getSourceBuilder().length();
+        }
+        
+        private void compiled(MappingMetrics metrics, long compileNanos) {
+            metrics.objectFactoryCompiled(type, getSourceLength(), generationNanos, compileNanos);
+        }
+        
+        private GeneratedObjectFactory getInstance(Class<?> compiledClass) throws InstantiationException, IllegalAccessException {
+            GeneratedObjectFactory objectFactory = (GeneratedObjectFactory) code.getInstance(compiledClass);
             
             if (logDetails != null) {
-            	LOGGER.debug(logDetails.toString());
+                LOGGER.debug(logDetails.toString());
             }
             
             return objectFactory;
-            
-        } catch (final Exception e) {
-            throw new MappingException("exception while creating object factory for " + type.getName(), e);
-        } 
+        }
     }
     
     private void addCreateMethod(SourceCodeContext code, UsedTypesContext usedTypes, 
@@ -0,0 +1,153 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.impl.generator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.Properties;
+
+import ma.glasnost.orika.util.StripedCounter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * PregeneratedClasses is the index of the mapper and object factory classes
+ * which were generated at build time (by {@link MapperPregenerator}) and
+ * packaged as ordinary class files alongside the application.<br>
+ * <br>
+ * The index is read from every {@value #INDEX_RESOURCE} resource visible to a
+ * class-loader; each entry maps the {@link SourceCodeFingerprint} of the
+ * generated source to the name of the class that was compiled from it.
+ */
+public class PregeneratedClasses {
+
+    /**
+     * The resource from which the index of pre-generated classes is read
+     */
+    public static final String INDEX_RESOURCE = "META-INF/orika/pregenerated-classes.properties";
+
+    private static final Logger LOG = LoggerFactory.getLogger(PregeneratedClasses.class);
+
+    private final ClassLoader classLoader;
+    private final Properties index;
+    private final StripedCounter hits = new StripedCounter();
+    private final StripedCounter misses = new StripedCounter();
+
+    /**
+     * @param classLoader
+     *            the class-loader from which the pre-generated classes are
+     *            loaded
+     * @param index
+     *            the fingerprints of the generated source, mapped to the names
+     *            of the pre-generated classes
+     */
+    public PregeneratedClasses(ClassLoader classLoader, Properties index) {
+        this.classLoader = classLoader;
+        this.index = index;
+    }
+
+    /**
+     * Reads the index of pre-generated classes visible to the specified
+     * class-loader.
+     *
+     * @param classLoader
+     * @return the pre-generated classes, or null if there are none
+     */
+    public static PregeneratedClasses load(ClassLoader classLoader) {
+        if (classLoader == null) {
+            return null;
+        }
+        Properties index = new Properties();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(INDEX_RESOURCE);
+            while (resources.hasMoreElements()) {
+                URL resource = resources.nextElement();
+                InputStream in = resource.openStream();
+                try {
+                    index.load(in);
+                } finally {
+                    in.close();
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("Could not read the index of pre-generated classes; they will be ignored", e);
+            return null;
+        }
+        return index.isEmpty() ? null : new PregeneratedClasses(classLoader, index);
+    }
+
+    /**
+     * @param fingerprint
+     *            the fingerprint of the generated source
+     * @return the pre-generated class compiled from the source with the
+     *         specified fingerprint, or null if there is none
+     */
+    public Class<?> lookup(String fingerprint) {
+        String className = index.getProperty(fingerprint);
+        if (className != null) {
+            try {
+                Class<?> type = Class.forName(className, true, classLoader);
+                hits.increment();
+                return type;
+            } catch (ClassNotFoundException e) {
+                LOG.warn("Pre-generated class " + className + " could not be loaded; it will be generated instead", e);
+            } catch (LinkageError e) {
+                LOG.warn("Pre-generated class " + className + " could not be loaded; it will be generated instead", e);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * @return the class-loader from which the pre-generated classes are loaded
+     */
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * @return the number of pre-generated classes in the index
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * @return the number of classes which were obtained from the pre-generated
+     *         classes
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of classes which had no (usable) pre-generated class,
+     *         and so had to be compiled
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + "(classes=" + index.size() + ", hits=" + hits.get() + ", misses=" + misses.get() + ")";
+    }
+}
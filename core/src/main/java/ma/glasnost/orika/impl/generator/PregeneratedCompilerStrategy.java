@@ -0,0 +1,185 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.impl.generator;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * PregeneratedCompilerStrategy obtains generated classes from the
+ * {@link PregeneratedClasses} packaged with the application, and only falls
+ * back to compiling them (using the delegate strategy) when no matching
+ * pre-generated class is found.<br>
+ * <br>
+ * Since the delegate is only used on a miss, checks of type accessibility are
+ * recorded, and only replayed to the delegate once it is first needed; in the
+ * common case where every class was pre-generated, the delegate (and the
+ * compiler behind it) is never touched.
+ */
+public class PregeneratedCompilerStrategy extends CompilerStrategy {
+
+    private final CompilerStrategy delegate;
+    private final PregeneratedClasses pregeneratedClasses;
+    private final SourceCodeFingerprint fingerprint = new SourceCodeFingerprint();
+    private final Set<Class<?>> pendingTypes = new LinkedHashSet<Class<?>>();
+    private volatile boolean delegateUsed;
+
+    /**
+     * @param delegate
+     *            the compiler strategy used for classes which were not
+     *            pre-generated
+     * @param pregeneratedClasses
+     *            the pre-generated classes
+     */
+    public PregeneratedCompilerStrategy(CompilerStrategy delegate, PregeneratedClasses pregeneratedClasses) {
+        super("false", "false");
+        this.delegate = delegate;
+        this.pregeneratedClasses = pregeneratedClasses;
+    }
+
+    /**
+     * @return the compiler strategy used for classes which were not
+     *         pre-generated
+     */
+    public CompilerStrategy getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * @return the pre-generated classes used by this strategy
+     */
+    public PregeneratedClasses getPregeneratedClasses() {
+        return pregeneratedClasses;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * ma.glasnost.orika.impl.generator.CompilerStrategy#compileClass(ma.glasnost
+     * .orika.impl.generator.SourceCodeContext)
+     */
+    public Class<?> compileClass(SourceCodeContext sourceCode) throws SourceCodeGenerationException {
+        Class<?> pregenerated = pregeneratedClasses.lookup(fingerprint.of(sourceCode, pregeneratedClasses.getClassLoader()));
+        if (pregenerated != null && sourceCode.getSuperClass().isAssignableFrom(pregenerated)) {
+            return pregenerated;
+        }
+        useDelegate();
+        return delegate.compileClass(sourceCode);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * ma.glasnost.orika.impl.generator.CompilerStrategy#compileClasses(java
+     * .util.List)
+     */
+    public List<Class<?>> compileClasses(List<SourceCodeContext> sourceCodes) throws SourceCodeGenerationException {
+        List<Class<?>> compiledClasses = new ArrayList<Class<?>>(sourceCodes.size());
+        List<SourceCodeContext> missingSourceCodes = new ArrayList<SourceCodeContext>();
+        for (SourceCodeContext sourceCode : sourceCodes) {
+            Class<?> pregenerated = pregeneratedClasses.lookup(fingerprint.of(sourceCode, pregeneratedClasses.getClassLoader()));
+            if (pregenerated != null && sourceCode.getSuperClass().isAssignableFrom(pregenerated)) {
+                compiledClasses.add(pregenerated);
+            } else {
+                compiledClasses.add(null);
+                missingSourceCodes.add(sourceCode);
+            }
+        }
+        if (!missingSourceCodes.isEmpty()) {
+            useDelegate();
+            Iterator<Class<?>> delegateClasses = delegate.compileClasses(missingSourceCodes).iterator();
+            for (int i = 0, len = compiledClasses.size(); i < len; ++i) {
+                if (compiledClasses.get(i) == null) {
+                    compiledClasses.set(i, delegateClasses.next());
+                }
+            }
+        }
+        return compiledClasses;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * ma.glasnost.orika.impl.generator.CompilerStrategy#assureTypeIsAccessible
+     * (java.lang.Class)
+     */
+    public void assureTypeIsAccessible(Class<?> type) throws SourceCodeGenerationException {
+        if (delegateUsed) {
+            delegate.assureTypeIsAccessible(type);
+            return;
+        }
+        if (!type.isPrimitive() && type.getClassLoader() != null) {
+            Class<?> currentType = type.isArray() ? type.getComponentType() : type;
+            while (currentType != null) {
+                if (!Modifier.isPublic(currentType.getModifiers())) {
+                    throw new SourceCodeGenerationException(type + " is not accessible");
+                }
+                currentType = currentType.getEnclosingClass();
+            }
+        }
+        synchronized (pendingTypes) {
+            if (!delegateUsed) {
+                pendingTypes.add(type);
+                return;
+            }
+        }
+        delegate.assureTypeIsAccessible(type);
+    }
+
+    /**
+     * Replays the recorded accessibility checks to the delegate, the first
+     * time that it is needed.
+     */
+    private void useDelegate() throws SourceCodeGenerationException {
+        if (delegateUsed) {
+            return;
+        }
+        List<Class<?>> types;
+        synchronized (pendingTypes) {
+            if (delegateUsed) {
+                return;
+            }
+            types = new ArrayList<Class<?>>(pendingTypes);
+            pendingTypes.clear();
+            delegateUsed = true;
+        }
+        for (Class<?> type : types) {
+            delegate.assureTypeIsAccessible(type);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see ma.glasnost.orika.impl.generator.CompilerStrategy#isThreadSafe()
+     */
+    public boolean isThreadSafe() {
+        return delegate.isThreadSafe();
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + "(" + pregeneratedClasses + ", delegate=" + delegate.getClass().getSimpleName() + ")";
+    }
+}
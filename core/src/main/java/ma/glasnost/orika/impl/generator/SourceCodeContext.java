@@ -71,6 +71,7 @@ public class SourceCodeContext {
     private String className;
     private CompilerStrategy compilerStrategy;
     private List<String> methods;
+    private List<DirectMapMethod> directMethods;
     private List<String> fields;
     private Class<?> superClass;
     
@@ -111,6 +112,7 @@ public class SourceCodeContext {
         }
         this.className = this.packageName + "." + this.classSimpleName;
         this.methods = new ArrayList<String>();
+        this.directMethods = new ArrayList<DirectMapMethod>();
         this.fields = new ArrayList<String>();
         
         
@@ -165,6 +167,15 @@ public class SourceCodeContext {
     List<String> getMethods() {
         return methods;
     }
+    
+    /**
+     * @return the direct definitions of the methods, in the same order as
+     *         {@link #getMethods()}; a method with no direct definition has a
+     *         null entry
+     */
+    List<DirectMapMethod> getDirectMethods() {
+        return directMethods;
+    }
 
     public boolean shouldMapNulls() {
         return (Boolean)mappingContext.getProperty(Properties.SHOULD_MAP_NULLS);
@@ -179,8 +190,22 @@ public class SourceCodeContext {
      * @param methodSource
      */
     public void addMethod(String methodSource) {
+        addMethod(methodSource, null);
+    }
+    
+    /**
+     * Adds a method definition to the class based on the provided source,
+     * along with an equivalent definition from which a compiler strategy may
+     * emit the method's bytecode directly (rather than compiling the source).
+     * 
+     * @param methodSource
+     * @param directMethod
+     *            the direct definition of the method, or null if it has none
+     */
+    public void addMethod(String methodSource, DirectMapMethod directMethod) {
         sourceBuilder.append("\n" + methodSource + "\n");
         this.methods.add(methodSource);
+        this.directMethods.add(directMethod);
     }
 
     /**
@@ -221,11 +246,28 @@ public class SourceCodeContext {
      * @throws InstantiationException
      * @throws IllegalAccessException
      */
-    @SuppressWarnings("unchecked")
     public <T extends GeneratedObjectBase> T getInstance() throws SourceCodeGenerationException,
             InstantiationException, IllegalAccessException {
 
-        T instance = (T) compileClass().newInstance();
+        return this.<T>getInstance(compileClass());
+    }
+    
+    /**
+     * Instantiates the (generated) class, once it has been compiled; this is
+     * used when several classes are compiled together, using
+     * {@link CompilerStrategy#compileClasses(List)}.
+     * 
+     * @param compiledClass
+     *            the class compiled from this source
+     * @return a new instance of the compiled class
+     * @throws InstantiationException
+     * @throws IllegalAccessException
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends GeneratedObjectBase> T getInstance(Class<?> compiledClass) throws InstantiationException,
+            IllegalAccessException {
+
+        T instance = (T) compiledClass.newInstance();
         
         
         Type<Object>[] usedTypesArray = usedTypes.toArray();
@@ -639,16 +681,14 @@ public class SourceCodeContext {
         Converter<Object, Object> converter = getConverter(fieldMap, fieldMap.getConverterId());
         sourceProperty.setConverter(converter);
         
-        for (Specification spec: codeGenerationStrategy.getSpecifications()) {
-            if (spec.appliesTo(fieldMap)) {
-                String code = spec.generateMappingCode(fieldMap, sourceProperty, destinationProperty, this);
-                if (code == null || "".equals(code)) {
-                    throw new IllegalStateException("empty code returned for spec " + spec + ", sourceProperty = " + sourceProperty + 
-                            ", destinationProperty = " + destinationProperty);
-                }
-                out.append(code);
-                break;
+        Specification spec = getSpecification(fieldMap);
+        if (spec != null) {
+            String code = spec.generateMappingCode(fieldMap, sourceProperty, destinationProperty, this);
+            if (code == null || "".equals(code)) {
+                throw new IllegalStateException("empty code returned for spec " + spec + ", sourceProperty = " + sourceProperty + 
+                        ", destinationProperty = " + destinationProperty);
             }
+            out.append(code);
         }
         
         out.append(closing.toString());
@@ -656,6 +696,20 @@ public class SourceCodeContext {
         return out.toString();
     }
     
+    /**
+     * @param fieldMap
+     * @return the specification which generates the code mapping the specified
+     *         field map, or null if none applies
+     */
+    public Specification getSpecification(FieldMap fieldMap) {
+        for (Specification spec: codeGenerationStrategy.getSpecifications()) {
+            if (spec.appliesTo(fieldMap)) {
+                return spec;
+            }
+        }
+        return null;
+    }
+    
     /**
      * Generates source code for an "equality" comparison of two variables, based on the FieldMap passed
      * 
@@ -0,0 +1,177 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.impl.generator;
+
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SourceCodeFingerprint identifies the class which would be compiled from a
+ * given SourceCodeContext, independently of the (generated) name of that class;
+ * a previously compiled class with the same fingerprint can be used in its
+ * place.<br>
+ * <br>
+ * The fingerprint is a digest of the generated fields and methods (which
+ * reflect the class map, the resolved properties and the mapper factory
+ * configuration that they were generated from), along with the public
+ * signatures of every class named in that source, so that any change to one of
+ * those classes also changes the fingerprint.
+ */
+public final class SourceCodeFingerprint {
+
+    /**
+     * Incremented whenever the format of the generated code changes in a way
+     * which is not visible in the generated source
+     */
+    private static final String FORMAT_VERSION = "1";
+
+    /**
+     * Matches (fully-qualified) class names within generated source
+     */
+    private static final Pattern CLASS_NAME = Pattern.compile("(?:[a-zA-Z_$][\\w$]*\\.)+[A-Z][\\w$]*");
+
+    private final Map<Class<?>, String> signatures = new WeakHashMap<Class<?>, String>();
+
+    /**
+     * Computes the fingerprint of the specified source.
+     *
+     * @param sourceCode
+     *            the generated source
+     * @param classLoader
+     *            the class-loader used to resolve the classes named in the
+     *            source
+     * @return the fingerprint of the source, and of the classes it refers to
+     */
+    public String of(SourceCodeContext sourceCode, ClassLoader classLoader) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder source = new StringBuilder();
+        source.append(FORMAT_VERSION).append('\n');
+        source.append(sourceCode.getSuperClass().getName()).append('\n');
+        for (String field : sourceCode.getFields()) {
+            source.append(field).append('\n');
+        }
+        for (String method : sourceCode.getMethods()) {
+            source.append(method).append('\n');
+        }
+        update(digest, source);
+
+        TreeSet<String> classNames = new TreeSet<String>();
+        classNames.add(sourceCode.getSuperClass().getName());
+        Matcher matcher = CLASS_NAME.matcher(source);
+        while (matcher.find()) {
+            classNames.add(matcher.group());
+        }
+        for (String className : classNames) {
+            Class<?> type = resolve(className, classLoader);
+            if (type != null) {
+                update(digest, signatureOf(type));
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Resolves a class name as it appears in source (where nested classes are
+     * separated by '.' rather than '$').
+     */
+    private static Class<?> resolve(String className, ClassLoader classLoader) {
+        String name = className;
+        while (true) {
+            try {
+                return Class.forName(name, false, classLoader);
+            } catch (ClassNotFoundException e) {
+                int lastDot = name.lastIndexOf('.');
+                if (lastDot < 0) {
+                    return null;
+                }
+                name = name.substring(0, lastDot) + "$" + name.substring(lastDot + 1);
+            } catch (LinkageError e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @return a description of the public members of the specified type
+     */
+    private String signatureOf(Class<?> type) {
+        synchronized (signatures) {
+            String signature = signatures.get(type);
+            if (signature != null) {
+                return signature;
+            }
+        }
+        List<String> members = new ArrayList<String>();
+        for (Field field : type.getFields()) {
+            members.add(field.toString());
+        }
+        for (Method method : type.getMethods()) {
+            members.add(method.toString());
+        }
+        for (Constructor<?> constructor : type.getConstructors()) {
+            members.add(constructor.toString());
+        }
+        Collections.sort(members);
+        StringBuilder signature = new StringBuilder(type.getName());
+        if (type.getSuperclass() != null) {
+            signature.append(" extends ").append(type.getSuperclass().getName());
+        }
+        for (String member : members) {
+            signature.append('\n').append(member);
+        }
+        String result = signature.toString();
+        synchronized (signatures) {
+            signatures.put(type, result);
+        }
+        return result;
+    }
+
+    private static void update(MessageDigest digest, CharSequence text) {
+        try {
+            digest.update(text.toString().getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -1,9 +1,16 @@
 package ma.glasnost.orika.impl.generator.specification;
 
 import static java.lang.String.format;
+
+import java.util.Arrays;
+import java.util.List;
+
+import ma.glasnost.orika.converter.builtin.CopyByReferenceConverter;
+import ma.glasnost.orika.converter.builtin.NumericConverters;
 import ma.glasnost.orika.impl.generator.SourceCodeContext;
 import ma.glasnost.orika.impl.generator.VariableRef;
 import ma.glasnost.orika.metadata.FieldMap;
+import ma.glasnost.orika.metadata.Type;
 
 public class ArrayOrCollectionToArray extends AbstractSpecification {
 
@@ -22,7 +29,10 @@ public class ArrayOrCollectionToArray extends AbstractSpecification {
         
         String mapArray;
         if (destination.elementType().isPrimitive()) {
-            mapArray = format("mapArray(%s, asList(%s), %s.class, mappingContext)", arrayVar, source, arrayVar.typeName());
+            mapArray = copyPrimitives(source, destination);
+            if (mapArray == null) {
+                mapArray = format("mapArray(%s, asList(%s), %s.class, mappingContext)", arrayVar, source, arrayVar.typeName());
+            }
         } else {
             mapArray = format("mapperFacade.mapAsArray(%s, asList(%s), %s, %s, mappingContext)", destination.name(), source, code.usedType(source.elementType()),
                     code.usedType(destination.elementType()));
@@ -31,4 +41,79 @@ public class ArrayOrCollectionToArray extends AbstractSpecification {
         return format(" %s { %s; %s; %s; } %s", source.ifNotNull(), newArray, mapArray, destination.assign(arrayVar), mapNull);
     }
     
+    /**
+     * The primitive types, in order of increasing width, between which values
+     * may be converted by casting
+     */
+    private static final List<Class<?>> NUMERIC_TYPES = Arrays.<Class<?>> asList(Byte.TYPE, Short.TYPE, Character.TYPE, Integer.TYPE,
+            Long.TYPE, Float.TYPE, Double.TYPE);
+    
+    /**
+     * Generates code which copies the elements of a primitive array (or a
+     * collection of primitive wrappers) into the new primitive array, without
+     * boxing them. Values are widened by casting, and narrowed by casting once
+     * they have been checked to fit in the destination type, just as the
+     * built-in numeric converters would convert them.
+     * 
+     * @return the code which copies the elements, or null if they must be
+     *         mapped by the mapper facade, such as when a custom converter is
+     *         registered for them
+     */
+    private String copyPrimitives(VariableRef source, VariableRef destination) {
+        Type<?> sourceElementType = source.elementType();
+        Type<?> destinationElementType = destination.elementType();
+        String destinationArray = destination.name();
+        
+        if (source.isCollection()) {
+            if (!sourceElementType.isWrapperFor(destinationElementType)
+                    || !isCopyByReference(getConverter(sourceElementType, destinationElementType))) {
+                return null;
+            }
+            return format("int orikaIndex = 0; for (java.util.Iterator orikaIterator = %s.iterator(); orikaIterator.hasNext();) { "
+                    + "%s[orikaIndex++] = ((%s) orikaIterator.next()).%sValue(); }", source, destinationArray,
+                    sourceElementType.getCanonicalName(), destinationElementType.getName());
+        } else if (!sourceElementType.isPrimitive()) {
+            return null;
+        }
+        
+        if (sourceElementType.equals(destinationElementType)) {
+            return format("System.arraycopy(%s, 0, %s, 0, %s.length)", source, destinationArray, destinationArray);
+        }
+        
+        Class<?> sourceClass = sourceElementType.getRawType();
+        Class<?> destinationClass = destinationElementType.getRawType();
+        int sourceWidth = NUMERIC_TYPES.indexOf(sourceClass);
+        int destinationWidth = NUMERIC_TYPES.indexOf(destinationClass);
+        Object converter = getConverter(sourceElementType.getWrapperType(), destinationElementType.getWrapperType());
+        if (sourceWidth < 0 || destinationWidth < 0 || (converter != null && !NumericConverters.isCheckedPrimitiveConverter(converter))) {
+            return null;
+        }
+        
+        StringBuilder out = new StringBuilder();
+        out.append(format("%s[] orikaSourceArray = %s; for (int orikaIndex = 0; orikaIndex < %s.length; ++orikaIndex) { ", sourceClass,
+                source, destinationArray));
+        if (sourceWidth < destinationWidth && (destinationClass != Character.TYPE || sourceClass == Character.TYPE)) {
+            out.append(format("%s[orikaIndex] = (%s) orikaSourceArray[orikaIndex]; }", destinationArray, destinationClass));
+        } else if (destinationClass == Float.TYPE) {
+            return null;
+        } else {
+            String wrapperName = destinationElementType.getWrapperType().getCanonicalName();
+            out.append(format("%s orikaValue = orikaSourceArray[orikaIndex]; ", sourceClass));
+            out.append(format("if (!(orikaValue >= (double) %s.MIN_VALUE && orikaValue <= (double) %s.MAX_VALUE)) { ", wrapperName,
+                    wrapperName));
+            out.append(format("throw new ArithmeticException(\"Overflow: \" + orikaValue + \" cannot be represented by %s\"); } ",
+                    wrapperName));
+            out.append(format("%s[orikaIndex] = (%s) orikaValue; }", destinationArray, destinationClass));
+        }
+        return out.toString();
+    }
+    
+    private Object getConverter(Type<?> sourceType, Type<?> destinationType) {
+        return mapperFactory.getConverterFactory().getConverter(sourceType, destinationType);
+    }
+    
+    private static boolean isCopyByReference(Object converter) {
+        return converter == null || converter instanceof CopyByReferenceConverter;
+    }
+    
 }
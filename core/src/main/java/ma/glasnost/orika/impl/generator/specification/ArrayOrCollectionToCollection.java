@@ -51,19 +51,22 @@ public class ArrayOrCollectionToCollection extends AbstractSpecification {
             out.append(statement("%s.clear()", newDest));
         }
         
-        if (s.isArray()) {
-            if (s.elementType().isPrimitive()) {
-                out.append("\n");
-                out.append(statement("%s.addAll(asList(%s));", newDest, s));
-            } else {
-                out.append("\n");
-                out.append(statement("%s.addAll(mapperFacade.mapAsList(asList(%s), %s.class, mappingContext));", newDest, s, d.elementTypeName()));
-            }
+        /*
+         * Elements are added directly to the new destination (sized from the
+         * source), rather than collected in an intermediate list first
+         */
+        if (s.isArray() && s.elementType().isPrimitive()) {
+            append(out,
+                    "\n",
+                    format("%s[] orikaSourceArray = %s;", s.elementType().getName(), s),
+                    "for (int orikaIndex = 0; orikaIndex < orikaSourceArray.length; ++orikaIndex) { ",
+                    format("    %s.add(%s.valueOf(orikaSourceArray[orikaIndex]));", newDest, s.elementType().getWrapperType().getCanonicalName()),
+                    "}");
         } else {
             append(out,
                     "\n",
-                    format("%s.addAll(mapperFacade.mapAs%s(%s, %s, %s, mappingContext))", newDest, d.collectionType(), s,
-                            code.usedType(s.elementType()), code.usedType(d.elementType())));
+                    format("mapElements(%s, %s, %s, %s, mappingContext)", s, newDest, code.usedType(s.elementType()),
+                            code.usedType(d.elementType())));
         }
         if (fieldMap.getInverse() != null) {
             final MultiOccurrenceVariableRef inverse = new MultiOccurrenceVariableRef(fieldMap.getInverse(), "orikaCollectionItem");
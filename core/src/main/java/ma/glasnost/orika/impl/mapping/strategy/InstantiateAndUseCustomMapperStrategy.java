@@ -20,6 +20,7 @@ package ma.glasnost.orika.impl.mapping.strategy;
 
 import ma.glasnost.orika.MappingContext;
 import ma.glasnost.orika.ObjectFactory;
+import ma.glasnost.orika.impl.GeneratedMapperBase;
 import ma.glasnost.orika.metadata.Type;
 import ma.glasnost.orika.unenhance.UnenhanceStrategy;
 
@@ -28,7 +29,11 @@ public class InstantiateAndUseCustomMapperStrategy extends UseCustomMapperStrate
 	protected final ObjectFactory<Object> objectFactory;
     
     public InstantiateAndUseCustomMapperStrategy(Type<Object> sourceType, Type<Object> destinationType, DirectionalCustomMapperReference customMapper, ObjectFactory<Object> objectFactory, UnenhanceStrategy unenhancer) {
-    	super(sourceType, destinationType, customMapper, unenhancer);
+    	this(sourceType, destinationType, customMapper, objectFactory, unenhancer, null);
+    }
+    
+    public InstantiateAndUseCustomMapperStrategy(Type<Object> sourceType, Type<Object> destinationType, DirectionalCustomMapperReference customMapper, ObjectFactory<Object> objectFactory, UnenhanceStrategy unenhancer, GeneratedMapperBase generatedMapper) {
+        super(sourceType, destinationType, customMapper, unenhancer, generatedMapper);
         this.objectFactory = objectFactory;
     }
 
@@ -19,6 +19,7 @@
 package ma.glasnost.orika.impl.mapping.strategy;
 
 import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.impl.GeneratedMapperBase;
 import ma.glasnost.orika.metadata.Type;
 import ma.glasnost.orika.unenhance.UnenhanceStrategy;
 
@@ -27,6 +28,10 @@ public class MapExistingAndUseCustomMapperStrategy extends UseCustomMapperStrate
     public MapExistingAndUseCustomMapperStrategy(Type<Object> sourceType, Type<Object> destinationType, DirectionalCustomMapperReference customMapper, UnenhanceStrategy unenhancer) {
     	super(sourceType, destinationType, customMapper, unenhancer);
     }
+    
+    public MapExistingAndUseCustomMapperStrategy(Type<Object> sourceType, Type<Object> destinationType, DirectionalCustomMapperReference customMapper, UnenhanceStrategy unenhancer, GeneratedMapperBase generatedMapper) {
+        super(sourceType, destinationType, customMapper, unenhancer, generatedMapper);
+    }
 
     protected Object getInstance(Object sourceObject, Object destinationObject, MappingContext context) {
     	return destinationObject;
@@ -20,6 +20,7 @@ package ma.glasnost.orika.impl.mapping.strategy;
 
 import ma.glasnost.orika.Mapper;
 import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.impl.GeneratedMapperBase;
 import ma.glasnost.orika.metadata.Type;
 import ma.glasnost.orika.unenhance.UnenhanceStrategy;
 
@@ -29,12 +30,30 @@ public abstract class UseCustomMapperStrategy implements MappingStrategy {
     protected final Type<Object> sourceType;
     protected final Type<Object> destinationType;
     protected final UnenhanceStrategy unenhancer;
+    protected final GeneratedMapperBase generatedMapper;
     
     public UseCustomMapperStrategy(Type<Object> sourceType, Type<Object> destinationType, DirectionalCustomMapperReference customMapper, UnenhanceStrategy unenhancer) {
+        this(sourceType, destinationType, customMapper, unenhancer, null);
+    }
+    
+    /**
+     * @param sourceType
+     * @param destinationType
+     * @param customMapper
+     * @param unenhancer
+     * @param generatedMapper
+     *            the generated mapper referenced by customMapper, if any;
+     *            while it is flagged as acyclic, mapped objects are not
+     *            recorded in the mapping context. The flag is read on each
+     *            use, so that it may be cleared after this strategy has been
+     *            cached
+     */
+    public UseCustomMapperStrategy(Type<Object> sourceType, Type<Object> destinationType, DirectionalCustomMapperReference customMapper, UnenhanceStrategy unenhancer, GeneratedMapperBase generatedMapper) {
         this.sourceType = sourceType;
         this.destinationType = destinationType;
         this.customMapper = customMapper;
         this.unenhancer = unenhancer;
+        this.generatedMapper = generatedMapper;
     }
 
     public Object map(final Object sourceObject, final Object destinationObject, final MappingContext context) {
@@ -45,7 +64,9 @@ public abstract class UseCustomMapperStrategy implements MappingStrategy {
         
         Object newInstance = getInstance(resolvedSourceObject, destinationObject, context);
         
-        context.cacheMappedObject(sourceObject, destinationType, newInstance);
+        if (!isAcyclic()) {
+            context.cacheMappedObject(sourceObject, destinationType, newInstance);
+        }
         
         customMapper.map(resolvedSourceObject, newInstance, context);
         
@@ -54,6 +75,15 @@ public abstract class UseCustomMapperStrategy implements MappingStrategy {
         return newInstance;
     }
     
+    /**
+     * @return true if this strategy maps a type pair whose object graph is
+     *         known to be free of cycles, so that no lookup of (or record of)
+     *         already mapped objects is needed
+     */
+    public boolean isAcyclic() {
+        return generatedMapper != null && generatedMapper.isAcyclic();
+    }
+    
     protected abstract Object getInstance(Object sourceObject, Object destinationObject, MappingContext context);
     
     public static interface DirectionalCustomMapperReference {
@@ -29,6 +29,7 @@ import ma.glasnost.orika.MappedTypePair;
 import ma.glasnost.orika.Mapper;
 import ma.glasnost.orika.MapperFactory;
 import ma.glasnost.orika.MappingException;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
 import ma.glasnost.orika.impl.UtilityResolver;
 import ma.glasnost.orika.property.PropertyResolver;
 import ma.glasnost.orika.property.PropertyResolverStrategy;
@@ -79,6 +80,9 @@ public class ClassMapBuilder<A, B> implements MappedTypePair<A, B> {
     private final DefaultFieldMapper[] defaults;
     private Boolean sourcesMappedOnNull;
     private Boolean destinationsMappedOnNull;
+    private final boolean profiled;
+    private long propertyResolutionNanos;
+    private long matchingNanos;
     
     private static final Logger LOGGER = LoggerFactory.getLogger(ClassMapBuilder.class);
     
@@ -108,9 +112,15 @@ public class ClassMapBuilder<A, B> implements MappedTypePair<A, B> {
 	    this.mapperFactory = mapperFactory;
 	    this.propertyResolver = propertyResolver;
 	    this.defaults = defaults;
+	    this.profiled = mapperFactory instanceof DefaultMapperFactory
+	            && ((DefaultMapperFactory) mapperFactory).getBuildProfile() != null;
 	    
+	    long start = profiled ? System.nanoTime() : 0L;
 	    aProperties = propertyResolver.getProperties(aType);
 	    bProperties = propertyResolver.getProperties(bType);
+	    if (profiled) {
+	        propertyResolutionNanos = System.nanoTime() - start;
+	    }
 	    propertiesCacheA = new LinkedHashSet<String>();
 	    propertiesCacheB = new LinkedHashSet<String>();
 	    
@@ -472,6 +482,7 @@ public class ClassMapBuilder<A, B> implements MappedTypePair<A, B> {
      */
     public ClassMapBuilder<A, B> byDefault(DefaultFieldMapper... withDefaults) {
         
+        long start = profiled ? System.nanoTime() : 0L;
     	DefaultFieldMapper[] defaults;
     	if (withDefaults.length == 0) {
     		defaults = getDefaultFieldMappers();
@@ -506,6 +517,9 @@ public class ClassMapBuilder<A, B> implements MappedTypePair<A, B> {
             }
         }
         
+        if (profiled) {
+            matchingNanos += System.nanoTime() - start;
+        }
         return this;
     }
     
@@ -609,6 +623,52 @@ public class ClassMapBuilder<A, B> implements MappedTypePair<A, B> {
         return this;
     }
     
+    /**
+     * @return whether the time spent by this builder is being profiled, as
+     *         it is when its MapperFactory collects a build profile; the
+     *         clock is not read otherwise
+     */
+    protected boolean isProfiled() {
+        return profiled;
+    }
+    
+    /**
+     * @return the time spent by this builder resolving the properties of its
+     *         types, in nanoseconds (or 0 if it is not being profiled)
+     */
+    public long getPropertyResolutionNanos() {
+        return propertyResolutionNanos;
+    }
+    
+    /**
+     * @return the time spent by this builder matching the properties of its
+     *         types by default, in nanoseconds (or 0 if it is not being
+     *         profiled)
+     */
+    public long getMatchingNanos() {
+        return matchingNanos;
+    }
+    
+    /**
+     * Adds to the time spent by this builder resolving the properties of its
+     * types.
+     * 
+     * @param nanos
+     */
+    protected void addPropertyResolutionNanos(long nanos) {
+        propertyResolutionNanos += nanos;
+    }
+    
+    /**
+     * Adds to the time spent by this builder matching the properties of its
+     * types by default.
+     * 
+     * @param nanos
+     */
+    protected void addMatchingNanos(long nanos) {
+        matchingNanos += nanos;
+    }
+    
     /**
      * Registers the ClassMap defined by this builder with it's initiating MapperFactory
      */
@@ -333,8 +333,14 @@ public class ScoringClassMapBuilder<A, B> extends ClassMapBuilder<A, B> {
          */
         PriorityQueue<FieldMatchScore> matchScores = new PriorityQueue<FieldMatchScore>();
         
+        long start = isProfiled() ? System.nanoTime() : 0L;
         Map<String, Property> propertiesForA = getPropertyExpressions(getAType());
         Map<String, Property> propertiesForB = getPropertyExpressions(getBType());
+        long resolved = 0L;
+        if (isProfiled()) {
+            resolved = System.nanoTime();
+            addPropertyResolutionNanos(resolved - start);
+        }
         
         for (final Entry<String, Property> propertyA : propertiesForA.entrySet()) {
             if (!propertyA.getValue().getName().equals("class")) {
@@ -379,6 +385,9 @@ public class ScoringClassMapBuilder<A, B> extends ClassMapBuilder<A, B> {
             }
         }
         
+        if (isProfiled()) {
+            addMatchingNanos(System.nanoTime() - resolved);
+        }
         return this;
     }
     
@@ -0,0 +1,305 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import ma.glasnost.orika.metadata.Type;
+
+/**
+ * BuildProfile breaks down the time spent building the mappers of a mapper
+ * factory by class map, and by the phase of the build in which it was spent,
+ * so that the class maps which are most expensive to build can be
+ * identified; a profile is collected by a DefaultMapperFactory when
+ * {@link ma.glasnost.orika.impl.DefaultMapperFactory.MapperFactoryBuilder#profileBuild(boolean)}
+ * is enabled.<br>
+ * <br>
+ * The profile of each class map can be read as a {@link ClassMapProfile},
+ * sorted by the time spent in any phase, or formatted as a text report using
+ * {@link #format(Phase, int)}.
+ */
+public final class BuildProfile {
+
+    /**
+     * The phases of building the mapper of a class map
+     */
+    public enum Phase {
+        /**
+         * Resolving the properties of the mapped types, while defining the
+         * class map
+         */
+        PROPERTY_RESOLUTION("properties"),
+        /**
+         * Matching the properties of the mapped types by default, while
+         * defining the class map
+         */
+        MATCHING("matching"),
+        /**
+         * Generating the source of the mapper
+         */
+        SOURCE_GENERATION("generation"),
+        /**
+         * Compiling the mapper
+         */
+        COMPILATION("compilation"),
+        /**
+         * Generating and compiling the object factories of the mapped types
+         * (including the resolution of their constructors)
+         */
+        OBJECT_FACTORIES("factories"),
+        /**
+         * Resolving the constructors used by the object factories; this time
+         * is also included in {@link #OBJECT_FACTORIES}
+         */
+        CONSTRUCTOR_RESOLUTION("constructors");
+
+        private final String label;
+
+        private Phase(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @return the short label of the phase, used in the text report
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final ConcurrentMap<Type<?>, ConcurrentMap<Type<?>, ClassMapProfile>> profiles = new ConcurrentHashMap<Type<?>, ConcurrentMap<Type<?>, ClassMapProfile>>();
+    private final List<ClassMapProfile> profileList = new CopyOnWriteArrayList<ClassMapProfile>();
+
+    /**
+     * Adds to the time spent in a phase of building the mapper of a class map.
+     *
+     * @param aType
+     *            the A type of the class map
+     * @param bType
+     *            the B type of the class map
+     * @param phase
+     *            the phase in which the time was spent
+     * @param nanos
+     *            the time spent, in nanoseconds
+     */
+    public void record(Type<?> aType, Type<?> bType, Phase phase, long nanos) {
+        getOrCreateProfile(aType, bType).add(phase, nanos);
+    }
+
+    private ClassMapProfile getOrCreateProfile(Type<?> aType, Type<?> bType) {
+        ConcurrentMap<Type<?>, ClassMapProfile> byAType = profiles.get(aType);
+        if (byAType == null) {
+            byAType = new ConcurrentHashMap<Type<?>, ClassMapProfile>(4);
+            ConcurrentMap<Type<?>, ClassMapProfile> existing = profiles.putIfAbsent(aType, byAType);
+            if (existing != null) {
+                byAType = existing;
+            }
+        }
+        ClassMapProfile profile = byAType.get(bType);
+        if (profile == null) {
+            profile = new ClassMapProfile(aType, bType);
+            ClassMapProfile existing = byAType.putIfAbsent(bType, profile);
+            if (existing != null) {
+                profile = existing;
+            } else {
+                profileList.add(profile);
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * @param aType
+     * @param bType
+     * @return the profile of the class map between the specified types, or
+     *         null if nothing has been recorded for it
+     */
+    public ClassMapProfile getClassMapProfile(Type<?> aType, Type<?> bType) {
+        ConcurrentMap<Type<?>, ClassMapProfile> byAType = profiles.get(aType);
+        return byAType != null ? byAType.get(bType) : null;
+    }
+
+    /**
+     * @return the profile of each class map, in the order in which they were
+     *         first recorded
+     */
+    public List<ClassMapProfile> getClassMapProfiles() {
+        return new ArrayList<ClassMapProfile>(profileList);
+    }
+
+    /**
+     * @param sortBy
+     *            the phase by whose time to sort the profiles, or null to sort
+     *            them by their total time
+     * @return the profile of each class map, most expensive first
+     */
+    public List<ClassMapProfile> getClassMapProfiles(final Phase sortBy) {
+        List<ClassMapProfile> result = getClassMapProfiles();
+        Collections.sort(result, new Comparator<ClassMapProfile>() {
+            public int compare(ClassMapProfile profile1, ClassMapProfile profile2) {
+                long nanos1 = sortBy != null ? profile1.getNanos(sortBy) : profile1.getTotalNanos();
+                long nanos2 = sortBy != null ? profile2.getNanos(sortBy) : profile2.getTotalNanos();
+                return nanos1 > nanos2 ? -1 : (nanos1 < nanos2 ? 1 : 0);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @param phase
+     * @return the time spent in the specified phase, across all class maps,
+     *         in nanoseconds
+     */
+    public long getNanos(Phase phase) {
+        long nanos = 0;
+        for (ClassMapProfile profile : profileList) {
+            nanos += profile.getNanos(phase);
+        }
+        return nanos;
+    }
+
+    /**
+     * @return the time spent building the mappers of all class maps, in
+     *         nanoseconds
+     */
+    public long getTotalNanos() {
+        long nanos = 0;
+        for (ClassMapProfile profile : profileList) {
+            nanos += profile.getTotalNanos();
+        }
+        return nanos;
+    }
+
+    /**
+     * Formats the profiles of the most expensive class maps as a text report,
+     * with one line per class map giving the time spent in each phase, in
+     * milliseconds.
+     *
+     * @param sortBy
+     *            the phase by whose time to rank the class maps, or null to
+     *            rank them by their total time
+     * @param limit
+     *            the maximum number of class maps to include
+     * @return the text report
+     */
+    public String format(Phase sortBy, int limit) {
+        List<ClassMapProfile> sorted = getClassMapProfiles(sortBy);
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%10s", "total"));
+        for (Phase phase : PHASES) {
+            report.append(String.format(" %12s", phase.getLabel()));
+        }
+        report.append("  class map (times in ms)\n");
+        for (int i = 0, len = Math.min(limit, sorted.size()); i < len; ++i) {
+            ClassMapProfile profile = sorted.get(i);
+            report.append(String.format("%10.3f", toMillis(profile.getTotalNanos())));
+            for (Phase phase : PHASES) {
+                report.append(String.format(" %12.3f", toMillis(profile.getNanos(phase))));
+            }
+            report.append("  ").append(profile.getAType()).append(" <-> ").append(profile.getBType()).append('\n');
+        }
+        report.append(String.format("%10.3f", toMillis(getTotalNanos())));
+        for (Phase phase : PHASES) {
+            report.append(String.format(" %12.3f", toMillis(getNanos(phase))));
+        }
+        report.append("  all ").append(sorted.size()).append(" class maps\n");
+        return report.toString();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1000000d;
+    }
+
+    public String toString() {
+        return format(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The time spent in each phase of building the mapper of a single class
+     * map
+     */
+    public static final class ClassMapProfile {
+
+        private final Type<?> aType;
+        private final Type<?> bType;
+        private final AtomicLongArray nanos = new AtomicLongArray(PHASES.length);
+
+        private ClassMapProfile(Type<?> aType, Type<?> bType) {
+            this.aType = aType;
+            this.bType = bType;
+        }
+
+        private void add(Phase phase, long phaseNanos) {
+            nanos.addAndGet(phase.ordinal(), phaseNanos);
+        }
+
+        /**
+         * @return the A type of the class map
+         */
+        public Type<?> getAType() {
+            return aType;
+        }
+
+        /**
+         * @return the B type of the class map
+         */
+        public Type<?> getBType() {
+            return bType;
+        }
+
+        /**
+         * @param phase
+         * @return the time spent in the specified phase, in nanoseconds
+         */
+        public long getNanos(Phase phase) {
+            return nanos.get(phase.ordinal());
+        }
+
+        /**
+         * @return the time spent in all phases, in nanoseconds; constructor
+         *         resolution is counted once, as part of the object factories
+         */
+        public long getTotalNanos() {
+            long total = 0;
+            for (Phase phase : PHASES) {
+                if (phase != Phase.CONSTRUCTOR_RESOLUTION) {
+                    total += nanos.get(phase.ordinal());
+                }
+            }
+            return total;
+        }
+
+        public String toString() {
+            StringBuilder description = new StringBuilder();
+            description.append(aType).append(" <-> ").append(bType).append(": total=").append(getTotalNanos()).append("ns");
+            for (Phase phase : PHASES) {
+                description.append(", ").append(phase.getLabel()).append('=').append(getNanos(phase)).append("ns");
+            }
+            return description.toString();
+        }
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.MappingContextFactory;
+import ma.glasnost.orika.impl.mapping.strategy.MappingStrategy;
+import ma.glasnost.orika.metadata.ClassMap;
+import ma.glasnost.orika.metadata.Type;
+import ma.glasnost.orika.util.StripedCounter;
+
+/**
+ * DefaultMappingMetrics collects the metrics reported to it in memory: a
+ * {@link LatencyHistogram} of mapping times for each pair of mapped types,
+ * the hits and misses of the strategy cache, and the number of mappers
+ * generated (and the time spent doing so); the occupancy of the context pool
+ * is read from the context factory, when it is a {@link MappingContext.Factory}.<br>
+ * <br>
+ * Event recording may also be enabled (it is disabled by default), in which
+ * case the most recent {@link MappingEvent}s are kept: each compilation of a
+ * mapper or object factory, each resolution of a strategy not found in the
+ * strategy cache, and each mapping which took longer than the slow mapping
+ * threshold; while it is disabled, recording costs only the check of whether
+ * it is enabled.<br>
+ * <br>
+ * The metrics can be read directly, or published over JMX, as a standard
+ * MBean, using {@link #registerMBean(String)}.<br>
+ * <br>
+ * Example:
+ *
+ * <pre>
+ * DefaultMappingMetrics metrics = new DefaultMappingMetrics();
+ * MapperFactory factory = new DefaultMapperFactory.Builder().mappingMetrics(metrics).build();
+ * metrics.registerMBean(&quot;myMapper&quot;);
+ * </pre>
+ */
+public class DefaultMappingMetrics implements MappingMetrics, DefaultMappingMetricsMBean {
+
+    /**
+     * The domain of the names under which the metrics are registered as MBeans
+     */
+    public static final String JMX_DOMAIN = "ma.glasnost.orika";
+
+    /**
+     * The number of most recent events which are kept while event recording
+     * is enabled
+     */
+    public static final int EVENT_CAPACITY = 1000;
+
+    /**
+     * The default slow mapping threshold, in milliseconds
+     */
+    public static final long DEFAULT_SLOW_MAPPING_THRESHOLD_MILLIS = 10;
+
+    private final ConcurrentMap<Type<?>, ConcurrentMap<Type<?>, LatencyHistogram>> histograms = new ConcurrentHashMap<Type<?>, ConcurrentMap<Type<?>, LatencyHistogram>>();
+    private final StripedCounter strategyCacheHits = new StripedCounter();
+    private final StripedCounter strategyCacheMisses = new StripedCounter();
+    private final StripedCounter generatedMappers = new StripedCounter();
+    private final StripedCounter autoGeneratedMappers = new StripedCounter();
+    private final StripedCounter mapperGenerationNanos = new StripedCounter();
+    private final LinkedList<MappingEvent> events = new LinkedList<MappingEvent>();
+    private volatile MappingContextFactory contextFactory;
+    private volatile boolean recordingEvents;
+    private volatile long slowMappingThresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_MAPPING_THRESHOLD_MILLIS);
+    private volatile long resetStrategyCacheHits;
+    private volatile long resetStrategyCacheMisses;
+    private volatile long resetGeneratedMappers;
+    private volatile long resetAutoGeneratedMappers;
+    private volatile long resetMapperGenerationNanos;
+    private ObjectName objectName;
+
+    public void attach(MappingContextFactory contextFactory) {
+        this.contextFactory = contextFactory;
+    }
+
+    public void mapped(Type<?> sourceType, Type<?> destinationType, long durationNanos) {
+        getOrCreateHistogram(sourceType, destinationType).record(durationNanos);
+        if (recordingEvents && durationNanos >= slowMappingThresholdNanos) {
+            record(new MappingEvent(MappingEvent.Kind.SLOW_MAPPING, durationNanos, sourceType + " -> " + destinationType));
+        }
+    }
+
+    public void strategyResolved(boolean cacheHit) {
+        if (cacheHit) {
+            strategyCacheHits.increment();
+        } else {
+            strategyCacheMisses.increment();
+        }
+    }
+
+    public void strategyCreated(MappingStrategy strategy, String description, long durationNanos) {
+        if (recordingEvents) {
+            record(new MappingEvent(MappingEvent.Kind.STRATEGY_CREATED, durationNanos, description));
+        }
+    }
+
+    public void mapperGenerated(ClassMap<?, ?> classMap, boolean autoGenerated, long durationNanos) {
+        generatedMappers.increment();
+        if (autoGenerated) {
+            autoGeneratedMappers.increment();
+        }
+        mapperGenerationNanos.add(durationNanos);
+    }
+
+    public void mapperCompiled(ClassMap<?, ?> classMap, int fieldCount, int sourceLength, long generationNanos, long compileNanos) {
+        if (recordingEvents) {
+            record(new MappingEvent(MappingEvent.Kind.MAPPER_COMPILED, compileNanos, classMap.getMapperClassName() + " for "
+                    + classMap.getAType() + " <-> " + classMap.getBType() + ": " + fieldCount + " fields, " + sourceLength
+                    + " characters of source generated in " + generationNanos + "ns"));
+        }
+    }
+
+    public void objectFactoryCompiled(Type<?> type, int sourceLength, long generationNanos, long compileNanos) {
+        if (recordingEvents) {
+            record(new MappingEvent(MappingEvent.Kind.OBJECT_FACTORY_COMPILED, compileNanos, "object factory for " + type
+                    + ": " + sourceLength + " characters of source generated in " + generationNanos + "ns"));
+        }
+    }
+
+    private void record(MappingEvent event) {
+        synchronized (events) {
+            if (events.size() == EVENT_CAPACITY) {
+                events.removeFirst();
+            }
+            events.add(event);
+        }
+    }
+
+    /**
+     * @return the recorded events which are still kept, oldest first
+     */
+    public List<MappingEvent> getEvents() {
+        synchronized (events) {
+            return new ArrayList<MappingEvent>(events);
+        }
+    }
+
+    public boolean isRecordingEvents() {
+        return recordingEvents;
+    }
+
+    public void setRecordingEvents(boolean recordingEvents) {
+        this.recordingEvents = recordingEvents;
+    }
+
+    public long getSlowMappingThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowMappingThresholdNanos);
+    }
+
+    public void setSlowMappingThresholdMillis(long slowMappingThresholdMillis) {
+        setSlowMappingThreshold(slowMappingThresholdMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the time beyond which a mapping is recorded as slow, while event
+     * recording is enabled.
+     *
+     * @param threshold
+     *            the threshold, in the specified units
+     * @param unit
+     *            the units of the threshold
+     */
+    public void setSlowMappingThreshold(long threshold, TimeUnit unit) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold must not be negative");
+        }
+        this.slowMappingThresholdNanos = unit.toNanos(threshold);
+    }
+
+    public String[] listRecentEvents(int limit) {
+        List<MappingEvent> recorded = getEvents();
+        String[] result = new String[Math.max(0, Math.min(limit, recorded.size()))];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = recorded.get(recorded.size() - 1 - i).toString();
+        }
+        return result;
+    }
+
+    private LatencyHistogram getOrCreateHistogram(Type<?> sourceType, Type<?> destinationType) {
+        ConcurrentMap<Type<?>, LatencyHistogram> bySource = histograms.get(sourceType);
+        if (bySource == null) {
+            bySource = new ConcurrentHashMap<Type<?>, LatencyHistogram>(4);
+            ConcurrentMap<Type<?>, LatencyHistogram> existing = histograms.putIfAbsent(sourceType, bySource);
+            if (existing != null) {
+                bySource = existing;
+            }
+        }
+        LatencyHistogram histogram = bySource.get(destinationType);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            LatencyHistogram existing = bySource.putIfAbsent(destinationType, histogram);
+            if (existing != null) {
+                histogram = existing;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * @param sourceType
+     * @param destinationType
+     * @return the histogram of the times taken to map the specified source
+     *         type to the specified destination type, or null if no such
+     *         mapping has been recorded
+     */
+    public LatencyHistogram getHistogram(Type<?> sourceType, Type<?> destinationType) {
+        Map<Type<?>, LatencyHistogram> bySource = histograms.get(sourceType);
+        return bySource != null ? bySource.get(destinationType) : null;
+    }
+
+    /**
+     * @return the histogram of mapping times of each type pair, keyed by a
+     *         description of the pair ("source -> destination")
+     */
+    public Map<String, LatencyHistogram> getHistograms() {
+        Map<String, LatencyHistogram> result = new LinkedHashMap<String, LatencyHistogram>();
+        for (Map.Entry<Type<?>, ConcurrentMap<Type<?>, LatencyHistogram>> bySource : histograms.entrySet()) {
+            for (Map.Entry<Type<?>, LatencyHistogram> entry : bySource.getValue().entrySet()) {
+                result.put(bySource.getKey() + " -> " + entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    public long getMappingCount() {
+        long count = 0;
+        for (LatencyHistogram histogram : getHistograms().values()) {
+            count += histogram.getCount();
+        }
+        return count;
+    }
+
+    public long getStrategyCacheHits() {
+        return strategyCacheHits.get() - resetStrategyCacheHits;
+    }
+
+    public long getStrategyCacheMisses() {
+        return strategyCacheMisses.get() - resetStrategyCacheMisses;
+    }
+
+    public long getGeneratedMapperCount() {
+        return generatedMappers.get() - resetGeneratedMappers;
+    }
+
+    public long getAutoGeneratedMapperCount() {
+        return autoGeneratedMappers.get() - resetAutoGeneratedMappers;
+    }
+
+    public long getMapperGenerationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(mapperGenerationNanos.get() - resetMapperGenerationNanos);
+    }
+
+    private MappingContext.Factory getPool() {
+        return contextFactory instanceof MappingContext.Factory ? (MappingContext.Factory) contextFactory : null;
+    }
+
+    public int getContextPoolSize() {
+        MappingContext.Factory pool = getPool();
+        return pool != null ? pool.getPoolSize() : -1;
+    }
+
+    public int getContextPoolCapacity() {
+        MappingContext.Factory pool = getPool();
+        return pool != null ? pool.getPoolCapacity() : -1;
+    }
+
+    public long getContextPoolReuseCount() {
+        MappingContext.Factory pool = getPool();
+        return pool != null ? pool.getReusedCount() : -1;
+    }
+
+    public long getContextPoolCreateCount() {
+        MappingContext.Factory pool = getPool();
+        return pool != null ? pool.getCreatedCount() : -1;
+    }
+
+    public String[] listHottestMappings(int limit) {
+        return list(limit, new Comparator<Map.Entry<String, LatencyHistogram>>() {
+            public int compare(Map.Entry<String, LatencyHistogram> e1, Map.Entry<String, LatencyHistogram> e2) {
+                return compareDescending(e1.getValue().getCount(), e2.getValue().getCount());
+            }
+        });
+    }
+
+    public String[] listSlowestMappings(int limit) {
+        return list(limit, new Comparator<Map.Entry<String, LatencyHistogram>>() {
+            public int compare(Map.Entry<String, LatencyHistogram> e1, Map.Entry<String, LatencyHistogram> e2) {
+                return compareDescending(e1.getValue().getMeanNanos(), e2.getValue().getMeanNanos());
+            }
+        });
+    }
+
+    private static int compareDescending(long value1, long value2) {
+        return value1 > value2 ? -1 : (value1 < value2 ? 1 : 0);
+    }
+
+    private String[] list(int limit, Comparator<Map.Entry<String, LatencyHistogram>> order) {
+        List<Map.Entry<String, LatencyHistogram>> entries = new ArrayList<Map.Entry<String, LatencyHistogram>>(getHistograms().entrySet());
+        Collections.sort(entries, order);
+        String[] result = new String[Math.max(0, Math.min(limit, entries.size()))];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = entries.get(i).getKey() + ": " + entries.get(i).getValue();
+        }
+        return result;
+    }
+
+    public void reset() {
+        histograms.clear();
+        synchronized (events) {
+            events.clear();
+        }
+        resetStrategyCacheHits = strategyCacheHits.get();
+        resetStrategyCacheMisses = strategyCacheMisses.get();
+        resetGeneratedMappers = generatedMappers.get();
+        resetAutoGeneratedMappers = autoGeneratedMappers.get();
+        resetMapperGenerationNanos = mapperGenerationNanos.get();
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server, under the name
+     * "ma.glasnost.orika:type=MappingMetrics,name=<i>name</i>".
+     *
+     * @param name
+     *            the name which distinguishes these metrics from those of
+     *            other mapper factories
+     * @return the name under which the metrics were registered
+     */
+    public synchronized ObjectName registerMBean(String name) {
+        if (objectName != null) {
+            throw new IllegalStateException("These metrics are already registered as " + objectName);
+        }
+        try {
+            ObjectName newObjectName = new ObjectName(JMX_DOMAIN + ":type=MappingMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, newObjectName);
+            objectName = newObjectName;
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the mapping metrics MBean", e);
+        }
+    }
+
+    /**
+     * Unregisters these metrics from the platform MBean server, if they were
+     * registered.
+     */
+    public synchronized void unregisterMBean() {
+        if (objectName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                if (server.isRegistered(objectName)) {
+                    server.unregisterMBean(objectName);
+                }
+            } catch (JMException e) {
+                throw new IllegalStateException("Could not unregister the mapping metrics MBean", e);
+            } finally {
+                objectName = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.metrics;
+
+/**
+ * The management interface of {@link DefaultMappingMetrics}, through which
+ * its metrics are published over JMX.
+ */
+public interface DefaultMappingMetricsMBean {
+    
+    /**
+     * @return the number of objects mapped, across all type pairs
+     */
+    long getMappingCount();
+    
+    /**
+     * @return the number of mapping strategies found in the strategy cache
+     */
+    long getStrategyCacheHits();
+    
+    /**
+     * @return the number of mapping strategies which had to be resolved
+     */
+    long getStrategyCacheMisses();
+    
+    /**
+     * @return the number of mappers generated on their own, after the
+     *         factory was built
+     */
+    long getGeneratedMapperCount();
+    
+    /**
+     * @return the number of those generated mappers whose class maps were
+     *         generated automatically
+     */
+    long getAutoGeneratedMapperCount();
+    
+    /**
+     * @return the total time spent generating and compiling those mappers,
+     *         in milliseconds
+     */
+    long getMapperGenerationMillis();
+    
+    /**
+     * @return the number of released contexts held by the context pool, or
+     *         -1 if the context factory does not pool its contexts
+     */
+    int getContextPoolSize();
+    
+    /**
+     * @return the capacity of the context pool, or -1 if the context factory
+     *         does not pool its contexts
+     */
+    int getContextPoolCapacity();
+    
+    /**
+     * @return the number of contexts served from the context pool, or -1 if
+     *         the context factory does not pool its contexts
+     */
+    long getContextPoolReuseCount();
+    
+    /**
+     * @return the number of contexts created because the context pool had
+     *         none available, or -1 if the context factory does not pool its
+     *         contexts
+     */
+    long getContextPoolCreateCount();
+    
+    /**
+     * @param limit
+     *            the maximum number of type pairs to list
+     * @return a description of the metrics of the most frequently mapped type
+     *         pairs, most frequent first
+     */
+    String[] listHottestMappings(int limit);
+    
+    /**
+     * @param limit
+     *            the maximum number of type pairs to list
+     * @return a description of the metrics of the type pairs with the longest
+     *         mean mapping time, longest first
+     */
+    String[] listSlowestMappings(int limit);
+    
+    /**
+     * @return true if events are being recorded
+     */
+    boolean isRecordingEvents();
+    
+    /**
+     * Enables or disables the recording of events; events already recorded
+     * are kept.
+     * 
+     * @param recordingEvents
+     */
+    void setRecordingEvents(boolean recordingEvents);
+    
+    /**
+     * @return the time beyond which a mapping is recorded as slow, in
+     *         milliseconds
+     */
+    long getSlowMappingThresholdMillis();
+    
+    /**
+     * @param slowMappingThresholdMillis
+     *            the time beyond which a mapping is recorded as slow, in
+     *            milliseconds
+     */
+    void setSlowMappingThresholdMillis(long slowMappingThresholdMillis);
+    
+    /**
+     * @param limit
+     *            the maximum number of events to list
+     * @return a description of the most recently recorded events, most
+     *         recent first
+     */
+    String[] listRecentEvents(int limit);
+    
+    /**
+     * Discards all metrics, and recorded events, collected so far.
+     */
+    void reset();
+}
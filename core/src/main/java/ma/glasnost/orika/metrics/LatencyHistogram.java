@@ -0,0 +1,126 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations, recorded in buckets whose bounds are successive
+ * powers of 2 nanoseconds; recording a duration is a couple of atomic
+ * increments, with no allocation or locking, so that it can be updated from
+ * many threads at once. Percentiles are therefore approximate, being the
+ * upper bound of the bucket in which they fall (at most twice the exact
+ * value).
+ */
+public final class LatencyHistogram {
+    
+    /*
+     * Bucket i holds durations in [2^(i-1), 2^i) nanoseconds; the last bucket
+     * also holds every longer duration (beyond about 4 minutes)
+     */
+    private static final int BUCKETS = 39;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+    
+    /**
+     * Records a duration.
+     * 
+     * @param durationNanos
+     *            the duration, in nanoseconds
+     */
+    public void record(long durationNanos) {
+        long duration = Math.max(durationNanos, 0);
+        counts.incrementAndGet(Math.min(64 - Long.numberOfLeadingZeros(duration), BUCKETS - 1));
+        total.addAndGet(duration);
+        long currentMax = max.get();
+        while (duration > currentMax && !max.compareAndSet(currentMax, duration)) {
+            currentMax = max.get();
+        }
+    }
+    
+    /**
+     * @return the number of recorded durations
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+    
+    /**
+     * @return the sum of the recorded durations, in nanoseconds
+     */
+    public long getTotalNanos() {
+        return total.get();
+    }
+    
+    /**
+     * @return the mean of the recorded durations, in nanoseconds
+     */
+    public long getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : total.get() / count;
+    }
+    
+    /**
+     * @return the longest recorded duration, in nanoseconds
+     */
+    public long getMaxNanos() {
+        return max.get();
+    }
+    
+    /**
+     * @param percentile
+     *            the percentile, between 0 and 100
+     * @return the (upper bound of the) duration below which the specified
+     *         percentage of the recorded durations fall, in nanoseconds
+     */
+    public long getPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS - 1; ++i) {
+            seen += snapshot[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(i == 0 ? 0 : (1L << i) - 1, max.get());
+            }
+        }
+        return max.get();
+    }
+    
+    public String toString() {
+        return "count=" + getCount() + ", mean=" + getMeanNanos() + "ns, p50=" + getPercentileNanos(50) + "ns, p99="
+                + getPercentileNanos(99) + "ns, max=" + getMaxNanos() + "ns";
+    }
+}
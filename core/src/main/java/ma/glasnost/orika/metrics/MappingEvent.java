@@ -0,0 +1,103 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.metrics;
+
+/**
+ * A MappingEvent records something noteworthy done by a mapper factory at
+ * runtime, such as the compilation of a mapper, or a mapping which took
+ * longer than expected; events are recorded by {@link DefaultMappingMetrics}
+ * while its event recording is enabled.
+ */
+public final class MappingEvent {
+
+    /**
+     * The kinds of recorded event
+     */
+    public enum Kind {
+        /**
+         * A mapper was compiled
+         */
+        MAPPER_COMPILED,
+        /**
+         * An object factory was compiled
+         */
+        OBJECT_FACTORY_COMPILED,
+        /**
+         * A mapping strategy was not found in the strategy cache, and had to
+         * be resolved
+         */
+        STRATEGY_CREATED,
+        /**
+         * An object took longer to map than the slow mapping threshold
+         */
+        SLOW_MAPPING
+    }
+
+    private final Kind kind;
+    private final long timestamp;
+    private final long durationNanos;
+    private final String description;
+
+    /**
+     * @param kind
+     *            the kind of event
+     * @param durationNanos
+     *            the duration of the event, in nanoseconds
+     * @param description
+     *            the details of the event
+     */
+    public MappingEvent(Kind kind, long durationNanos, String description) {
+        this.kind = kind;
+        this.timestamp = System.currentTimeMillis();
+        this.durationNanos = durationNanos;
+        this.description = description;
+    }
+
+    /**
+     * @return the kind of event
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the time at which the event was recorded, in milliseconds
+     *         since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the duration of the event, in nanoseconds
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return the details of the event
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    public String toString() {
+        return kind + " (" + durationNanos + "ns): " + description;
+    }
+}
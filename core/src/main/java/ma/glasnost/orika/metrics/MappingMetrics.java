@@ -0,0 +1,138 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.metrics;
+
+import ma.glasnost.orika.MappingContextFactory;
+import ma.glasnost.orika.impl.mapping.strategy.MappingStrategy;
+import ma.glasnost.orika.metadata.ClassMap;
+import ma.glasnost.orika.metadata.Type;
+
+/**
+ * MappingMetrics receives notification of what a mapper factory, and the
+ * facades it provides, do at runtime; an implementation can be configured
+ * using {@link ma.glasnost.orika.impl.DefaultMapperFactory.MapperFactoryBuilder#mappingMetrics(MappingMetrics)}.<br>
+ * <br>
+ * No metrics are collected by default, in which case none of these methods
+ * is called (nor are any timings taken). Since the methods are called from
+ * the mapping threads, in the course of mapping, implementations should be
+ * thread-safe and cheap.
+ * 
+ * @see DefaultMappingMetrics
+ */
+public interface MappingMetrics {
+    
+    /**
+     * Called once, when the mapper factory is constructed, with the factory
+     * from which its mapping contexts are obtained.
+     * 
+     * @param contextFactory
+     *            the context factory of the mapper factory
+     */
+    void attach(MappingContextFactory contextFactory);
+    
+    /**
+     * Called after an object has been mapped by a resolved mapping strategy;
+     * the objects it references, which are mapped in the course of mapping
+     * it, are each reported separately (as well as being included in its
+     * duration).
+     * 
+     * @param sourceType
+     *            the resolved type of the source object
+     * @param destinationType
+     *            the resolved type of the destination object
+     * @param durationNanos
+     *            the time taken to map the object, in nanoseconds
+     */
+    void mapped(Type<?> sourceType, Type<?> destinationType, long durationNanos);
+    
+    /**
+     * Called whenever a mapping strategy is resolved by a MapperFacade.
+     * 
+     * @param cacheHit
+     *            true if the strategy was found in the facade's strategy
+     *            cache, false if it had to be resolved
+     */
+    void strategyResolved(boolean cacheHit);
+    
+    /**
+     * Called after a mapping strategy which was not found in the strategy
+     * cache has been resolved (and cached).
+     * 
+     * @param strategy
+     *            the resolved strategy
+     * @param description
+     *            a description of the inputs from which the strategy was
+     *            resolved, and of the strategy itself
+     * @param durationNanos
+     *            the time taken to resolve the strategy, in nanoseconds
+     */
+    void strategyCreated(MappingStrategy strategy, String description, long durationNanos);
+    
+    /**
+     * Called after a mapper has been generated and compiled on its own
+     * (rather than as one of the mappers compiled together when the factory
+     * is built).
+     * 
+     * @param classMap
+     *            the class map of the generated mapper
+     * @param autoGenerated
+     *            true if the class map was generated automatically, because
+     *            no mapper was registered for its types
+     * @param durationNanos
+     *            the time taken to generate and compile the mapper, in
+     *            nanoseconds
+     */
+    void mapperGenerated(ClassMap<?, ?> classMap, boolean autoGenerated, long durationNanos);
+    
+    /**
+     * Called after the source of a mapper has been generated and compiled;
+     * when several mappers are compiled together, the time taken to compile
+     * them is apportioned between them according to the length of their
+     * sources.
+     * 
+     * @param classMap
+     *            the class map of the compiled mapper
+     * @param fieldCount
+     *            the number of field maps of the class map
+     * @param sourceLength
+     *            the length of the generated source, in characters
+     * @param generationNanos
+     *            the time taken to generate the source, in nanoseconds
+     * @param compileNanos
+     *            the time taken to compile the mapper, in nanoseconds
+     */
+    void mapperCompiled(ClassMap<?, ?> classMap, int fieldCount, int sourceLength, long generationNanos, long compileNanos);
+    
+    /**
+     * Called after the source of an object factory has been generated and
+     * compiled; when several object factories are compiled together, the time
+     * taken to compile them is apportioned between them according to the
+     * length of their sources.
+     * 
+     * @param type
+     *            the type instantiated by the object factory
+     * @param sourceLength
+     *            the length of the generated source, in characters
+     * @param generationNanos
+     *            the time taken to generate the source (including the
+     *            resolution of the constructors used), in nanoseconds
+     * @param compileNanos
+     *            the time taken to compile the object factory, in nanoseconds
+     */
+    void objectFactoryCompiled(Type<?> type, int sourceLength, long generationNanos, long compileNanos);
+}
@@ -0,0 +1,340 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded, thread-safe Cache with frequency-aware (TinyLFU style)
+ * eviction.<br>
+ * <br>
+ * Reads are lock-free: a lookup is a single ConcurrentHashMap get, plus a
+ * (deliberately racy) bump of the entry's own use counter. Writes which
+ * would grow the cache past its maximum size are serialized by a lock, and
+ * go through an admission policy: the candidate is compared against the
+ * least frequently used of a small random sample of resident entries, and
+ * only replaces it when the candidate has been requested more often. The
+ * request frequency of keys which are not (yet) resident is approximated by
+ * a small count-min sketch which is fed by cache misses.<br>
+ * <br>
+ * All frequencies are halved periodically, so that entries which were
+ * popular once but are no longer used eventually become eviction
+ * candidates.<br>
+ * <br>
+ * Hit, miss and eviction counts are maintained for monitoring purposes.
+ *
+ * @param <K>
+ *            the type of key
+ * @param <V>
+ *            the type of value
+ */
+public class ConcurrentLFUCache<K, V> implements Cache<K, V> {
+
+    /**
+     * The number of resident entries examined when choosing an eviction
+     * victim
+     */
+    private static final int SAMPLE_SIZE = 8;
+
+    /**
+     * The maximum value of any frequency counter
+     */
+    private static final int MAX_FREQUENCY = 15;
+
+    private final int maxSize;
+    private final ConcurrentHashMap<K, Node<K, V>> entries;
+    private final FrequencySketch sketch;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /*
+     * Resident entries in no particular order; used for random sampling of
+     * eviction victims. Guarded by evictionLock.
+     */
+    private Object[] nodes;
+    private int nodeCount;
+    private long seed = 0x2545F4914F6CDD1DL;
+
+    private final StripedCounter hits = new StripedCounter();
+    private final StripedCounter misses = new StripedCounter();
+    private final StripedCounter evictions = new StripedCounter();
+
+    /**
+     * Constructs a new ConcurrentLFUCache
+     *
+     * @param maxSize
+     *            the maximum number of entries held by this cache
+     */
+    public ConcurrentLFUCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<K, Node<K, V>>(Math.min(maxSize, 1024));
+        this.nodes = new Object[Math.min(maxSize, 1024)];
+        this.sketch = new FrequencySketch(maxSize);
+    }
+
+    public V get(Object key) {
+        Node<K, V> node = entries.get(key);
+        if (node == null) {
+            misses.increment();
+            sketch.increment(key);
+            return null;
+        }
+        hits.increment();
+        int frequency = node.frequency;
+        if (frequency < MAX_FREQUENCY) {
+            node.frequency = frequency + 1;
+        }
+        return node.value;
+    }
+
+    public boolean containsKey(Object key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Stores the value under the specified key; when the cache is full, the
+     * value is only retained if the key has been requested more frequently
+     * than the entry it would replace.
+     *
+     * @param key
+     * @param value
+     */
+    public void cache(K key, V value) {
+        Node<K, V> existing = entries.get(key);
+        if (existing != null) {
+            existing.value = value;
+            return;
+        }
+        evictionLock.lock();
+        try {
+            existing = entries.get(key);
+            if (existing != null) {
+                existing.value = value;
+                return;
+            }
+            if (sketch.isAgingDue()) {
+                age();
+            }
+            Node<K, V> candidate = new Node<K, V>(key, value, Math.max(1, sketch.frequency(key)));
+            if (nodeCount >= maxSize) {
+                Node<K, V> victim = sampleVictim();
+                if (victim.frequency >= candidate.frequency) {
+                    return;
+                }
+                removeNode(victim);
+                entries.remove(victim.key);
+                evictions.increment();
+            }
+            addNode(candidate);
+            entries.put(key, candidate);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Removes all entries from this cache; statistics are retained.
+     */
+    public void clear() {
+        evictionLock.lock();
+        try {
+            entries.clear();
+            for (int i = 0; i < nodeCount; ++i) {
+                nodes[i] = null;
+            }
+            nodeCount = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of entries currently held by this cache
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the maximum number of entries held by this cache
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the number of lookups which found a value
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups which did not find a value
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of entries removed to make room for more frequently
+     *         used ones
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + "[size=" + size() + ", maxSize=" + maxSize + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + "]";
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<K, V> nodeAt(int index) {
+        return (Node<K, V>) nodes[index];
+    }
+
+    private void addNode(Node<K, V> node) {
+        if (nodeCount == nodes.length) {
+            Object[] grown = new Object[Math.min(maxSize, nodes.length * 2)];
+            System.arraycopy(nodes, 0, grown, 0, nodeCount);
+            nodes = grown;
+        }
+        node.index = nodeCount;
+        nodes[nodeCount++] = node;
+    }
+
+    private void removeNode(Node<K, V> node) {
+        Node<K, V> last = nodeAt(--nodeCount);
+        nodes[node.index] = last;
+        last.index = node.index;
+        nodes[nodeCount] = null;
+    }
+
+    private Node<K, V> sampleVictim() {
+        Node<K, V> victim = null;
+        int samples = Math.min(SAMPLE_SIZE, nodeCount);
+        for (int i = 0; i < samples; ++i) {
+            Node<K, V> node = nodeAt(nextRandom(nodeCount));
+            if (victim == null || node.frequency < victim.frequency) {
+                victim = node;
+            }
+        }
+        return victim;
+    }
+
+    private int nextRandom(int bound) {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) ((seed >>> 1) % bound);
+    }
+
+    /**
+     * Halves the frequency of every resident entry, and of the sketch
+     */
+    private void age() {
+        sketch.halve();
+        for (int i = 0; i < nodeCount; ++i) {
+            Node<K, V> node = nodeAt(i);
+            node.frequency = node.frequency >>> 1;
+        }
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private volatile V value;
+        private volatile int frequency;
+        private int index;
+
+        private Node(K key, V value, int frequency) {
+            this.key = key;
+            this.value = value;
+            this.frequency = frequency;
+        }
+    }
+
+    /**
+     * A count-min sketch of 4-bit counters, used to estimate how often a
+     * key has been requested.
+     */
+    private static final class FrequencySketch {
+
+        private static final int DEPTH = 4;
+        private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+                0xcbf29ce484222325L };
+
+        private final AtomicIntegerArray counters;
+        private final AtomicInteger additions = new AtomicInteger();
+        private final int mask;
+        private final int width;
+        private final int agingThreshold;
+
+        private FrequencySketch(int maxSize) {
+            int w = 16;
+            while (w < maxSize * 4) {
+                w <<= 1;
+            }
+            this.width = w;
+            this.mask = w - 1;
+            this.counters = new AtomicIntegerArray(DEPTH * w);
+            this.agingThreshold = 10 * maxSize;
+        }
+
+        private int indexOf(Object key, int row) {
+            long hash = (key.hashCode() + SEEDS[row]) * SEEDS[row];
+            hash += hash >>> 32;
+            return row * width + ((int) hash & mask);
+        }
+
+        private void increment(Object key) {
+            for (int row = 0; row < DEPTH; ++row) {
+                int index = indexOf(key, row);
+                int count;
+                do {
+                    count = counters.get(index);
+                } while (count < MAX_FREQUENCY && !counters.compareAndSet(index, count, count + 1));
+            }
+            additions.incrementAndGet();
+        }
+
+        private int frequency(Object key) {
+            int frequency = MAX_FREQUENCY;
+            for (int row = 0; row < DEPTH; ++row) {
+                frequency = Math.min(frequency, counters.get(indexOf(key, row)));
+            }
+            return frequency;
+        }
+
+        private boolean isAgingDue() {
+            return additions.get() >= agingThreshold;
+        }
+
+        private void halve() {
+            for (int i = 0, len = counters.length(); i < len; ++i) {
+                counters.set(i, counters.get(i) >>> 1);
+            }
+            additions.set(0);
+        }
+    }
+}
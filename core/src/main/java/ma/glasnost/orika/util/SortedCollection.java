@@ -17,20 +17,33 @@
  */
 package ma.glasnost.orika.util;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * A simple sorted collection implementation that allows for duplicates;
  * new items are inserted based on their comparison to existing items;
  * if a new item is found to be less than any item in the list, it is inserted 
  * before that item, else it is inserted at the end. <br><br>
- * The collection is backed by a LinkedList, and all operations save for <code>add</code>
- * and <code>addAll</code> perform in the same time as the backing collection.<br><br>
- * The add method performs in linear time (O(n)), and the addAll method performs in
- * O(n*m) time, where n is the current size of the list, and m is the count being added.
+ * The collection is backed by an array which is replaced (never modified) on
+ * every change, so that iteration works on a consistent snapshot without any
+ * locking, and is never disturbed by concurrent modifications; changes are
+ * serialized on the collection itself.<br><br>
+ * Since the comparator is only required to define a partial ordering (unrelated
+ * items compare as 0), the insertion point cannot be found by binary search:
+ * the add method performs a single pass of comparisons (O(n)) followed by an
+ * array copy, and the addAll method performs O(n*m) comparisons, where n is the
+ * current size of the list, and m is the count being added, but copies the
+ * backing array only once.<br><br>
+ * Note that the backing collection is no longer exposed: the former protected
+ * <code>sortedList</code> field has been removed. Subclasses which used it to
+ * alter the insertion of items should override {@link #isDuplicate} instead,
+ * and those which only read it may use {@link #getSortedList()}.
  * 
  * 
  * @author matt.deboer@gmail.com
@@ -38,8 +51,10 @@ import java.util.LinkedList;
  */
 public class SortedCollection<V> implements Collection<V> {
     
+    private static final Object[] EMPTY = new Object[0];
+    
     protected final Comparator<V> comparator;
-    protected final LinkedList<V> sortedList = new LinkedList<V>();
+    private volatile Object[] elements = EMPTY;
     
     /**
      * 
@@ -74,115 +89,320 @@ public class SortedCollection<V> implements Collection<V> {
     
     
     public boolean add(V value) {
-        int i = -1;
-        for (V item: sortedList) {
-            ++i;
+        synchronized (this) {
+            Object[] current = elements;
+            int index = insertionPoint(current, current.length, value);
+            if (index < 0) {
+                return false;
+            }
+            Object[] updated = new Object[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            updated[index] = value;
+            System.arraycopy(current, index, updated, index + 1, current.length - index);
+            elements = updated;
+            return true;
+        }
+    }
+
+    /**
+     * Locates the position at which the value should be inserted: before the
+     * first item which compares greater than the value, or else at the end.
+     *
+     * @param items the items to search
+     * @param size the number of items in use
+     * @param value the value to be inserted
+     * @return the insertion index, or -1 if the value should not be inserted
+     */
+    private int insertionPoint(Object[] items, int size, V value) {
+        for (int i = 0; i < size; ++i) {
+            V item = elementAt(items, i);
             int comparison = comparator == null ? toComparable(item).compareTo(value) : comparator.compare(item, value);
-            if (comparison > 0) {
-                sortedList.add(i, value);
-                return true;
+            if (isDuplicate(item, value, comparison)) {
+                return -1;
+            } else if (comparison > 0) {
+                return i;
             }
         }
-        sortedList.addLast(value);
-        return true;
+        return size;
+    }
+
+    /**
+     * Determines whether the value should be rejected as a duplicate of
+     * an item already contained in this collection; the default implementation
+     * allows duplicates.
+     *
+     * @param item an item contained in this collection
+     * @param value the value being added
+     * @param comparison the result of comparing item to value
+     * @return true if the value should not be added
+     */
+    protected boolean isDuplicate(V item, V value, int comparison) {
+        return false;
     }
 
     public int size() {
-        return sortedList.size();
+        return elements.length;
     }
     
     public boolean isEmpty() {
-        return sortedList.isEmpty();
+        return elements.length == 0;
     }
     
     @SuppressWarnings({"unchecked" })
     protected static <V> Comparable<V> toComparable(V item) {
         return (Comparable<V>)item;
     }
+
     /* (non-Javadoc)
      * @see java.lang.Iterable#iterator()
+     *
+     * The returned iterator works on a snapshot of this collection taken when
+     * it was created.
      */
     public Iterator<V> iterator() {
-        return sortedList.iterator();
+        return new SnapshotIterator(elements);
     }
 
     /* (non-Javadoc)
      * @see java.util.Collection#contains(java.lang.Object)
      */
     public boolean contains(Object o) {
-        return sortedList.contains(o);
+        return indexOf(elements, o) >= 0;
+    }
+
+    private static int indexOf(Object[] items, Object o) {
+        for (int i = 0; i < items.length; ++i) {
+            if (o == null ? items[i] == null : o.equals(items[i])) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /* (non-Javadoc)
      * @see java.util.Collection#toArray()
      */
     public Object[] toArray() {
-        return sortedList.toArray();
+        Object[] current = elements;
+        Object[] copy = new Object[current.length];
+        System.arraycopy(current, 0, copy, 0, current.length);
+        return copy;
     }
 
     /* (non-Javadoc)
      * @see java.util.Collection#toArray(T[])
      */
+    @SuppressWarnings("unchecked")
     public <T> T[] toArray(T[] a) {
-        return sortedList.toArray(a);
+        Object[] current = elements;
+        if (a.length < current.length) {
+            a = (T[]) java.lang.reflect.Array.newInstance(a.getClass().getComponentType(), current.length);
+        }
+        System.arraycopy(current, 0, a, 0, current.length);
+        if (a.length > current.length) {
+            a[current.length] = null;
+        }
+        return a;
     }
 
     /* (non-Javadoc)
      * @see java.util.Collection#remove(java.lang.Object)
      */
     public boolean remove(Object o) {
-        return sortedList.remove(o);
+        synchronized (this) {
+            Object[] current = elements;
+            int index = indexOf(current, o);
+            if (index < 0) {
+                return false;
+            }
+            removeAt(current, index);
+            return true;
+        }
+    }
+
+    private void removeAt(Object[] current, int index) {
+        Object[] updated = new Object[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        elements = updated;
     }
 
     /* (non-Javadoc)
      * @see java.util.Collection#containsAll(java.util.Collection)
      */
     public boolean containsAll(Collection<?> c) {
-        return sortedList.containsAll(c);
+        Object[] current = elements;
+        for (Object o : c) {
+            if (indexOf(current, o) < 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /* (non-Javadoc)
      * @see java.util.Collection#addAll(java.util.Collection)
      */
     public boolean addAll(Collection<? extends V> c) {
-        for (V value: c) {
-            add(value);
+        synchronized (this) {
+            Object[] current = elements;
+            Object[] working = new Object[current.length + c.size()];
+            System.arraycopy(current, 0, working, 0, current.length);
+            int size = current.length;
+            for (V value: c) {
+                if (size == working.length) {
+                    Object[] grown = new Object[size * 2 + 1];
+                    System.arraycopy(working, 0, grown, 0, size);
+                    working = grown;
+                }
+                int index = insertionPoint(working, size, value);
+                if (index >= 0) {
+                    System.arraycopy(working, index, working, index + 1, size - index);
+                    working[index] = value;
+                    ++size;
+                }
+            }
+            if (size == current.length) {
+                return false;
+            }
+            if (size < working.length) {
+                Object[] trimmed = new Object[size];
+                System.arraycopy(working, 0, trimmed, 0, size);
+                working = trimmed;
+            }
+            elements = working;
+            return true;
         }
-        return true;
     }
 
     /* (non-Javadoc)
      * @see java.util.Collection#removeAll(java.util.Collection)
      */
     public boolean removeAll(Collection<?> c) {
-        return sortedList.removeAll(c);
+        return retain(c, false);
     }
 
     /* (non-Javadoc)
      * @see java.util.Collection#retainAll(java.util.Collection)
      */
     public boolean retainAll(Collection<?> c) {
-        return sortedList.retainAll(c);
+        return retain(c, true);
+    }
+
+    private boolean retain(Collection<?> c, boolean keepContained) {
+        synchronized (this) {
+            Object[] current = elements;
+            Object[] working = new Object[current.length];
+            int size = 0;
+            for (Object item : current) {
+                if (c.contains(item) == keepContained) {
+                    working[size++] = item;
+                }
+            }
+            if (size == current.length) {
+                return false;
+            }
+            Object[] trimmed = new Object[size];
+            System.arraycopy(working, 0, trimmed, 0, size);
+            elements = trimmed;
+            return true;
+        }
     }
 
     /* (non-Javadoc)
      * @see java.util.Collection#clear()
      */
     public void clear() {
-        sortedList.clear();
+        synchronized (this) {
+            elements = EMPTY;
+        }
     }
     
     /**
      * @return the first item in this collection
      */
     public V first() {
-        return sortedList.getFirst();
+        Object[] current = elements;
+        if (current.length == 0) {
+            throw new NoSuchElementException();
+        }
+        return elementAt(current, 0);
     }
     
     /**
      * @return the last item in this collection
      */
     public V last() {
-        return sortedList.getLast();
+        Object[] current = elements;
+        if (current.length == 0) {
+            throw new NoSuchElementException();
+        }
+        return elementAt(current, current.length - 1);
+    }
+    
+    /**
+     * Provides read access to the items of this collection, in their sorted
+     * order, for subclasses which formerly used the <code>sortedList</code>
+     * field.
+     * 
+     * @return an unmodifiable snapshot of the items in this collection
+     */
+    protected List<V> getSortedList() {
+        Object[] current = elements;
+        List<V> items = new ArrayList<V>(current.length);
+        for (int i = 0; i < current.length; ++i) {
+            V item = elementAt(current, i);
+            items.add(item);
+        }
+        return Collections.unmodifiableList(items);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <V> V elementAt(Object[] items, int index) {
+        return (V) items[index];
+    }
+
+    /**
+     * Iterates over a snapshot of the backing array; removal is supported, and
+     * removes the last returned item from the collection itself.
+     */
+    private class SnapshotIterator implements Iterator<V> {
+
+        private final Object[] snapshot;
+        private int next;
+        private int last = -1;
+
+        private SnapshotIterator(Object[] snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        public boolean hasNext() {
+            return next < snapshot.length;
+        }
+
+        public V next() {
+            if (next >= snapshot.length) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return elementAt(snapshot, last);
+        }
+
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            Object removed = snapshot[last];
+            last = -1;
+            synchronized (SortedCollection.this) {
+                Object[] current = elements;
+                for (int i = 0; i < current.length; ++i) {
+                    if (current[i] == removed) {
+                        removeAt(current, i);
+                        return;
+                    }
+                }
+            }
+        }
     }
 }
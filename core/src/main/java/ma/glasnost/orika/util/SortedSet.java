@@ -64,19 +64,10 @@ public class SortedSet<V> extends SortedCollection<V> implements Set<V> {
         super(c, comparator);
     }
     
-    public boolean add(V value) {
-        int i = -1;
-        for (V item: sortedList) {
-            ++i;
-            int comparison = comparator == null ? toComparable(item).compareTo(value) : comparator.compare(item, value);
-            if (comparison == 0 && item.equals(value)) {
-                return false;
-            } else if (comparison > 0) {
-                sortedList.add(i, value);
-                return true;
-            }
-        }
-        sortedList.addLast(value);
-        return true;
+    /* (non-Javadoc)
+     * @see ma.glasnost.orika.util.SortedCollection#isDuplicate(java.lang.Object, java.lang.Object, int)
+     */
+    protected boolean isDuplicate(V item, V value, int comparison) {
+        return comparison == 0 && item.equals(value);
     }
 }
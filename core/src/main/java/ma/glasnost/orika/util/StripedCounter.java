@@ -0,0 +1,97 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A statistics counter which spreads its increments over several padded
+ * cells (selected by the id of the calling thread), so that many threads
+ * can count the same event without contending on a single memory location.<br>
+ * <br>
+ * The value returned by {@link #get()} is the sum of all cells; it is exact
+ * when no increments are in progress, and a close approximation otherwise.
+ */
+public final class StripedCounter {
+
+    /*
+     * Number of longs between two cells; keeps each cell on its own cache line
+     */
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    /**
+     * Constructs a new StripedCounter, sized according to the number of
+     * available processors.
+     */
+    public StripedCounter() {
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors()) {
+            stripes <<= 1;
+        }
+        this.mask = stripes - 1;
+        this.cells = new AtomicLongArray(stripes * PADDING);
+    }
+
+    private int cell() {
+        return ((int) Thread.currentThread().getId() & mask) * PADDING;
+    }
+
+    /**
+     * Increments the counter by one.
+     */
+    public void increment() {
+        cells.incrementAndGet(cell());
+    }
+
+    /**
+     * Increments the counter by the specified amount.
+     *
+     * @param delta
+     *            the amount to add
+     */
+    public void add(long delta) {
+        cells.addAndGet(cell(), delta);
+    }
+
+    /**
+     * @return the current value of the counter
+     */
+    public long get() {
+        long sum = 0;
+        for (int i = 0, len = cells.length(); i < len; i += PADDING) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Resets the counter to zero.
+     */
+    public void reset() {
+        for (int i = 0, len = cells.length(); i < len; i += PADDING) {
+            cells.set(i, 0);
+        }
+    }
+
+    public String toString() {
+        return String.valueOf(get());
+    }
+}
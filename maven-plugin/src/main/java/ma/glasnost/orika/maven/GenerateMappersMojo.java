@@ -0,0 +1,128 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.Properties;
+
+import ma.glasnost.orika.impl.generator.MapperPregenerator;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Generates the mapper and object factory classes of one or more mapper
+ * configurations into the project's output directory, so that they are
+ * loaded as ordinary classes (rather than compiled) when the application
+ * starts.<br>
+ * <br>
+ * Example:
+ *
+ * <pre>
+ * &lt;plugin&gt;
+ *     &lt;groupId&gt;ma.glasnost.orika&lt;/groupId&gt;
+ *     &lt;artifactId&gt;orika-maven-plugin&lt;/artifactId&gt;
+ *     &lt;executions&gt;
+ *         &lt;execution&gt;
+ *             &lt;goals&gt;&lt;goal&gt;generate&lt;/goal&gt;&lt;/goals&gt;
+ *         &lt;/execution&gt;
+ *     &lt;/executions&gt;
+ *     &lt;configuration&gt;
+ *         &lt;configurationClasses&gt;
+ *             &lt;configurationClass&gt;com.example.MyMapper&lt;/configurationClass&gt;
+ *         &lt;/configurationClasses&gt;
+ *     &lt;/configuration&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ *
+ * @see MapperPregenerator
+ * @goal generate
+ * @phase process-classes
+ * @requiresDependencyResolution runtime
+ * @threadSafe
+ */
+public class GenerateMappersMojo extends AbstractMojo {
+
+    /**
+     * The names of the mapper configuration classes, such as subclasses of
+     * ConfigurableMapper, whose mappers should be generated
+     *
+     * @parameter
+     * @required
+     */
+    private String[] configurationClasses;
+
+    /**
+     * The directory into which the generated classes are written
+     *
+     * @parameter default-value="${project.build.outputDirectory}"
+     * @required
+     */
+    private File outputDirectory;
+
+    /**
+     * The class-path from which the configuration classes are loaded
+     *
+     * @parameter default-value="${project.runtimeClasspathElements}"
+     * @required
+     * @readonly
+     */
+    private List<String> classpathElements;
+
+    /**
+     * Whether to skip the generation of mappers
+     *
+     * @parameter expression="${orika.pregenerate.skip}" default-value="false"
+     */
+    private boolean skip;
+
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipping generation of mappers");
+            return;
+        }
+
+        URL[] urls = new URL[classpathElements.size()];
+        try {
+            for (int i = 0; i < urls.length; ++i) {
+                urls[i] = new File(classpathElements.get(i)).toURI().toURL();
+            }
+        } catch (MalformedURLException e) {
+            throw new MojoExecutionException("Invalid class-path element", e);
+        }
+
+        Thread thread = Thread.currentThread();
+        ClassLoader originalClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(new URLClassLoader(urls, getClass().getClassLoader()));
+        try {
+            Properties index = new MapperPregenerator(outputDirectory).generate(configurationClasses);
+            getLog().info("Generated " + index.size() + " mapper classes into " + outputDirectory);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not write generated mapper classes", e);
+        } catch (RuntimeException e) {
+            throw new MojoExecutionException("Could not generate mapper classes", e);
+        } finally {
+            thread.setContextClassLoader(originalClassLoader);
+        }
+    }
+}
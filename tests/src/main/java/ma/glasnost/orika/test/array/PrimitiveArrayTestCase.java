@@ -0,0 +1,170 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.array;
+
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.MappingException;
+import ma.glasnost.orika.test.MappingUtil;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that arrays of primitives are copied, widened and narrowed (with
+ * the same overflow checks as the built-in numeric converters) without being
+ * mapped element by element.
+ */
+public class PrimitiveArrayTestCase {
+    
+    private static MapperFacade mapper(String sourceField, Class<?> destinationType) {
+        MapperFactory factory = MappingUtil.getMapperFactory();
+        factory.classMap(Source.class, destinationType).field(sourceField, "values").register();
+        return factory.getMapperFacade();
+    }
+    
+    @Test
+    public void testCopy() {
+        Source source = new Source();
+        source.setInts(new int[] { 1, 2, 3 });
+        
+        IntHolder destination = mapper("ints", IntHolder.class).map(source, IntHolder.class);
+        
+        Assert.assertArrayEquals(source.getInts(), destination.getValues());
+        Assert.assertNotSame(source.getInts(), destination.getValues());
+    }
+    
+    @Test
+    public void testWidening() {
+        Source source = new Source();
+        source.setInts(new int[] { 1, -2, Integer.MAX_VALUE });
+        source.setBytes(new byte[] { 1, -2 });
+        source.setChars(new char[] { 'a', 'b' });
+        
+        LongHolder longs = mapper("ints", LongHolder.class).map(source, LongHolder.class);
+        Assert.assertArrayEquals(new long[] { 1L, -2L, Integer.MAX_VALUE }, longs.getValues());
+        
+        IntHolder ints = mapper("bytes", IntHolder.class).map(source, IntHolder.class);
+        Assert.assertArrayEquals(new int[] { 1, -2 }, ints.getValues());
+        
+        DoubleHolder doubles = mapper("chars", DoubleHolder.class).map(source, DoubleHolder.class);
+        Assert.assertArrayEquals(new double[] { 'a', 'b' }, doubles.getValues(), 0.0);
+    }
+    
+    @Test
+    public void testNarrowing() {
+        Source source = new Source();
+        source.setLongs(new long[] { 1L, -2L, Integer.MIN_VALUE });
+        
+        IntHolder destination = mapper("longs", IntHolder.class).map(source, IntHolder.class);
+        
+        Assert.assertArrayEquals(new int[] { 1, -2, Integer.MIN_VALUE }, destination.getValues());
+    }
+    
+    @Test
+    public void testNarrowingOverflow() {
+        Source source = new Source();
+        source.setLongs(new long[] { 1L, Integer.MAX_VALUE + 1L });
+        
+        try {
+            mapper("longs", IntHolder.class).map(source, IntHolder.class);
+            Assert.fail("Expected overflow of " + (Integer.MAX_VALUE + 1L));
+        } catch (MappingException e) {
+            Throwable cause = e;
+            while (cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            Assert.assertTrue(cause.toString(), cause instanceof ArithmeticException);
+        }
+    }
+    
+    public static class Source {
+        private int[] ints;
+        private long[] longs;
+        private byte[] bytes;
+        private char[] chars;
+        
+        public int[] getInts() {
+            return ints;
+        }
+        
+        public void setInts(int[] ints) {
+            this.ints = ints;
+        }
+        
+        public long[] getLongs() {
+            return longs;
+        }
+        
+        public void setLongs(long[] longs) {
+            this.longs = longs;
+        }
+        
+        public byte[] getBytes() {
+            return bytes;
+        }
+        
+        public void setBytes(byte[] bytes) {
+            this.bytes = bytes;
+        }
+        
+        public char[] getChars() {
+            return chars;
+        }
+        
+        public void setChars(char[] chars) {
+            this.chars = chars;
+        }
+    }
+    
+    public static class IntHolder {
+        private int[] values;
+        
+        public int[] getValues() {
+            return values;
+        }
+        
+        public void setValues(int[] values) {
+            this.values = values;
+        }
+    }
+    
+    public static class LongHolder {
+        private long[] values;
+        
+        public long[] getValues() {
+            return values;
+        }
+        
+        public void setValues(long[] values) {
+            this.values = values;
+        }
+    }
+    
+    public static class DoubleHolder {
+        private double[] values;
+        
+        public double[] getValues() {
+            return values;
+        }
+        
+        public void setValues(double[] values) {
+            this.values = values;
+        }
+    }
+}
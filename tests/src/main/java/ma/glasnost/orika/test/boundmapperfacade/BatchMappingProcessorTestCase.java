@@ -0,0 +1,230 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.boundmapperfacade;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.BoundMapperFacade;
+import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.MappingContextFactory;
+import ma.glasnost.orika.impl.BatchMappingProcessor;
+import ma.glasnost.orika.test.MappingUtil;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that a BatchMappingProcessor maps its elements within one context
+ * per batch, and delivers them in the order in which they were submitted.
+ */
+public class BatchMappingProcessorTestCase {
+
+    private BoundMapperFacade<Source, Destination> mapper;
+    private CountingContextFactory contextFactory;
+    private RecordingSubscriber subscriber;
+
+    @Before
+    public void setUp() {
+        mapper = MappingUtil.getMapperFactory()
+                .getMapperFacade(Source.class, Destination.class);
+        contextFactory = new CountingContextFactory();
+        subscriber = new RecordingSubscriber();
+    }
+
+    @Test
+    public void testOneContextPerBatch() throws InterruptedException {
+        BatchMappingProcessor<Source, Destination> processor = new BatchMappingProcessor<Source, Destination>(mapper,
+                contextFactory, subscriber, 10);
+        for (int i = 0; i < 25; ++i) {
+            processor.submit(new Source("element" + i));
+        }
+        Assert.assertEquals(20, subscriber.elements.size());
+        processor.close();
+
+        Assert.assertEquals(3, contextFactory.contexts);
+        Assert.assertTrue(subscriber.completed);
+        assertInOrder(25);
+    }
+
+    @Test
+    public void testExecutorPreservesOrder() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            BatchMappingProcessor<Source, Destination> processor = new BatchMappingProcessor<Source, Destination>(mapper,
+                    contextFactory, subscriber, 16, executor, 2);
+            for (int i = 0; i < 1000; ++i) {
+                processor.submit(new Source("element" + i));
+            }
+            processor.close();
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertTrue(subscriber.completed);
+        assertInOrder(1000);
+    }
+
+    @Test
+    public void testFailedBatch() throws InterruptedException {
+        BatchMappingProcessor<Source, Destination> processor = new BatchMappingProcessor<Source, Destination>(mapper,
+                contextFactory, subscriber, 2);
+        processor.submit(new Source("element0"));
+        processor.submit(new Source("element1"));
+        processor.submit(new Source(Source.FAIL));
+        processor.submit(new Source("element3"));
+        processor.submit(new Source("element4"));
+        processor.close();
+
+        assertInOrder(2);
+        Assert.assertNotNull(subscriber.error);
+        Assert.assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testSlowSubscriberDoesNotBlockDispatch() throws InterruptedException {
+        final CountDownLatch delivering = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+        subscriber = new RecordingSubscriber() {
+            public void onNext(Destination element) {
+                delivering.countDown();
+                try {
+                    proceed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.onNext(element);
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final BatchMappingProcessor<Source, Destination> processor = new BatchMappingProcessor<Source, Destination>(
+                    mapper, contextFactory, subscriber, 1, executor, 4);
+            processor.submit(new Source("element0"));
+            Assert.assertTrue(delivering.await(10, TimeUnit.SECONDS));
+
+            /*
+             * The subscriber is still busy with the first batch, which must
+             * not keep the next batches from being dispatched
+             */
+            Thread producer = new Thread() {
+                public void run() {
+                    try {
+                        processor.submit(new Source("element1"));
+                        processor.submit(new Source("element2"));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            producer.start();
+            producer.join(10000);
+            Assert.assertFalse("producer was blocked by the subscriber", producer.isAlive());
+            Assert.assertEquals(0, subscriber.elements.size());
+
+            proceed.countDown();
+            processor.close();
+        } finally {
+            proceed.countDown();
+            executor.shutdown();
+        }
+
+        Assert.assertTrue(subscriber.completed);
+        assertInOrder(3);
+    }
+
+    private void assertInOrder(int count) {
+        Assert.assertEquals(count, subscriber.elements.size());
+        for (int i = 0; i < count; ++i) {
+            Assert.assertEquals("element" + i, subscriber.elements.get(i).getName());
+        }
+    }
+
+    /**
+     * Counts the contexts obtained from a delegate factory
+     */
+    private static class CountingContextFactory implements MappingContextFactory {
+        private final MappingContext.Factory delegate = new MappingContext.Factory();
+        private volatile int contexts;
+
+        public synchronized MappingContext getContext() {
+            ++contexts;
+            return delegate.getContext();
+        }
+
+        public void release(MappingContext context) {
+            delegate.release(context);
+        }
+
+        public Map<Object, Object> getGlobalProperties() {
+            return delegate.getGlobalProperties();
+        }
+    }
+
+    private static class RecordingSubscriber implements BatchMappingProcessor.Subscriber<Destination> {
+        private final List<Destination> elements = new ArrayList<Destination>();
+        private Throwable error;
+        private boolean completed;
+
+        public void onNext(Destination element) {
+            elements.add(element);
+        }
+
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    public static class Source {
+        public static final String FAIL = "fail";
+        private final String name;
+
+        public Source(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            if (FAIL.equals(name)) {
+                throw new IllegalStateException("Cannot read the name");
+            }
+            return name;
+        }
+    }
+
+    public static class Destination {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.collection;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.impl.generator.JavassistCompilerStrategy;
+import ma.glasnost.orika.metadata.Type;
+import ma.glasnost.orika.metadata.TypeFactory;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that the bulk mapping methods map all of their elements within the
+ * same mapping context, and accept a hint of the size of their result.
+ */
+public class BulkMappingContextTestCase {
+    
+    private static final Type<Node> NODE = TypeFactory.valueOf(Node.class);
+    private static final Type<NodeDto> NODE_DTO = TypeFactory.valueOf(NodeDto.class);
+    
+    private static MapperFacade mapper() {
+        MapperFactory factory = new DefaultMapperFactory.Builder().compilerStrategy(new JavassistCompilerStrategy()).build();
+        factory.classMap(Node.class, NodeDto.class).byDefault().register();
+        return factory.getMapperFacade();
+    }
+    
+    @Test
+    public void testIterableToArrayUsesContext() {
+        Node node = new Node("node");
+        NodeDto mapped = new NodeDto();
+        MappingContext context = new MappingContext.Factory().getContext();
+        context.cacheMappedObject(node, NODE_DTO, mapped);
+        
+        NodeDto[] result = mapper().mapAsArray(new NodeDto[2], Arrays.asList(node, node), NODE, NODE_DTO, context);
+        
+        Assert.assertSame(mapped, result[0]);
+        Assert.assertSame(mapped, result[1]);
+    }
+    
+    @Test
+    public void testIterableToArraySharesContext() {
+        Node node = new Node("node");
+        node.setNext(node);
+        
+        NodeDto[] result = mapper().mapAsArray(new NodeDto[2], Arrays.asList(node, node), NODE, NODE_DTO);
+        
+        Assert.assertEquals("node", result[0].getName());
+        Assert.assertSame(result[0], result[1]);
+        Assert.assertSame(result[0], result[0].getNext());
+    }
+    
+    @Test
+    public void testSizeHint() {
+        MapperFacade mapper = mapper();
+        List<Node> nodes = Arrays.asList(new Node("a"), new Node("b"), new Node("c"));
+        
+        List<NodeDto> list = mapper.mapAsList(nodes, NODE, NODE_DTO, 3);
+        Assert.assertEquals(3, list.size());
+        Assert.assertEquals("c", list.get(2).getName());
+        
+        Set<NodeDto> set = mapper.mapAsSet(nodes, NODE, NODE_DTO, 3, new MappingContext.Factory().getContext());
+        Assert.assertEquals(3, set.size());
+    }
+    
+    public static class Node {
+        private String name;
+        private Node next;
+        
+        public Node() {
+        }
+        
+        public Node(String name) {
+            this.name = name;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+        
+        public Node getNext() {
+            return next;
+        }
+        
+        public void setNext(Node next) {
+            this.next = next;
+        }
+    }
+    
+    public static class NodeDto {
+        private String name;
+        private NodeDto next;
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+        
+        public NodeDto getNext() {
+            return next;
+        }
+        
+        public void setNext(NodeDto next) {
+            this.next = next;
+        }
+    }
+}
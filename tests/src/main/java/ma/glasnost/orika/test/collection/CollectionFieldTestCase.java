@@ -0,0 +1,159 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.test.MappingUtil;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that the elements of collection and array fields are mapped
+ * straight into the destination collection.
+ */
+public class CollectionFieldTestCase {
+    
+    private static MapperFacade mapper() {
+        MapperFactory factory = MappingUtil.getMapperFactory();
+        factory.classMap(Item.class, ItemDto.class).byDefault().register();
+        factory.classMap(Order.class, OrderDto.class).byDefault().register();
+        return factory.getMapperFacade();
+    }
+    
+    @Test
+    public void testCollectionToList() {
+        Order order = new Order();
+        order.setItems(new ArrayList<Item>(Arrays.asList(new Item("a"), null, new Item("b"))));
+        
+        OrderDto dto = mapper().map(order, OrderDto.class);
+        
+        Assert.assertEquals(2, dto.getItems().size());
+        Assert.assertEquals("a", dto.getItems().get(0).getName());
+        Assert.assertEquals("b", dto.getItems().get(1).getName());
+    }
+    
+    @Test
+    public void testArraysToCollections() {
+        Order order = new Order();
+        order.setTags(new Item[] { new Item("x"), new Item("y"), new Item("x") });
+        order.setQuantities(new int[] { 3, 1, 2 });
+        
+        OrderDto dto = mapper().map(order, OrderDto.class);
+        
+        Assert.assertEquals(3, dto.getTags().size());
+        Assert.assertEquals(Arrays.asList(Integer.valueOf(3), Integer.valueOf(1), Integer.valueOf(2)), dto.getQuantities());
+    }
+    
+    public static class Item {
+        private String name;
+        
+        public Item() {
+        }
+        
+        public Item(String name) {
+            this.name = name;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+    
+    public static class ItemDto {
+        private String name;
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+    
+    public static class Order {
+        private List<Item> items;
+        private Item[] tags;
+        private int[] quantities;
+        
+        public List<Item> getItems() {
+            return items;
+        }
+        
+        public void setItems(List<Item> items) {
+            this.items = items;
+        }
+        
+        public Item[] getTags() {
+            return tags;
+        }
+        
+        public void setTags(Item[] tags) {
+            this.tags = tags;
+        }
+        
+        public int[] getQuantities() {
+            return quantities;
+        }
+        
+        public void setQuantities(int[] quantities) {
+            this.quantities = quantities;
+        }
+    }
+    
+    public static class OrderDto {
+        private List<ItemDto> items;
+        private Set<ItemDto> tags;
+        private List<Integer> quantities;
+        
+        public List<ItemDto> getItems() {
+            return items;
+        }
+        
+        public void setItems(List<ItemDto> items) {
+            this.items = items;
+        }
+        
+        public Set<ItemDto> getTags() {
+            return tags;
+        }
+        
+        public void setTags(Set<ItemDto> tags) {
+            this.tags = tags;
+        }
+        
+        public List<Integer> getQuantities() {
+            return quantities;
+        }
+        
+        public void setQuantities(List<Integer> quantities) {
+            this.quantities = quantities;
+        }
+    }
+}
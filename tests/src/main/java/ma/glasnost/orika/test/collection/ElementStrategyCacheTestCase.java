@@ -0,0 +1,177 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.collection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.MappingContextFactory;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.impl.MapperFacadeImpl;
+import ma.glasnost.orika.impl.mapping.strategy.MappingStrategy;
+import ma.glasnost.orika.metadata.Type;
+import ma.glasnost.orika.metadata.TypeFactory;
+import ma.glasnost.orika.unenhance.UnenhanceStrategy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that the bulk mapping methods resolve the mapping strategy once for
+ * each run of elements of the same class, rather than once per element.
+ */
+public class ElementStrategyCacheTestCase {
+    
+    private static final int SIZE = 10;
+    
+    private static CountingMapperFactory factory() {
+        CountingMapperFactory factory = new CountingMapperFactory.Builder().build();
+        factory.classMap(Item.class, ItemDto.class).byDefault().register();
+        return factory;
+    }
+    
+    private static Item[] items() {
+        Item[] items = new Item[SIZE];
+        for (int i = 0; i < SIZE; ++i) {
+            items[i] = new Item("item" + i);
+        }
+        return items;
+    }
+    
+    @Test
+    public void testHomogeneousElements() {
+        CountingMapperFactory factory = factory();
+        MapperFacade mapper = factory.getMapperFacade();
+        Type<Item> itemType = TypeFactory.valueOf(Item.class);
+        Type<ItemDto> itemDtoType = TypeFactory.valueOf(ItemDto.class);
+        
+        factory.resolutions = 0;
+        List<ItemDto> list = mapper.mapAsList(items(), itemType, itemDtoType);
+        Assert.assertEquals(SIZE, list.size());
+        Assert.assertEquals("item9", list.get(SIZE - 1).getName());
+        Assert.assertEquals(1, factory.resolutions);
+        
+        factory.resolutions = 0;
+        Set<ItemDto> set = mapper.mapAsSet(items(), itemType, itemDtoType);
+        Assert.assertEquals(SIZE, set.size());
+        Assert.assertEquals(1, factory.resolutions);
+        
+        factory.resolutions = 0;
+        ItemDto[] array = mapper.mapAsArray(new ItemDto[SIZE], items(), itemType, itemDtoType);
+        Assert.assertEquals("item0", array[0].getName());
+        Assert.assertEquals(1, factory.resolutions);
+        
+        factory.resolutions = 0;
+        List<ItemDto> destination = new ArrayList<ItemDto>();
+        mapper.mapAsCollection(items(), destination, itemType, itemDtoType);
+        Assert.assertEquals(SIZE, destination.size());
+        Assert.assertEquals(1, factory.resolutions);
+    }
+    
+    @Test
+    public void testPolymorphicElements() {
+        CountingMapperFactory factory = factory();
+        MapperFacade mapper = factory.getMapperFacade();
+        
+        Item[] items = new Item[] { new Item("a"), new SpecialItem("b"), new SpecialItem("c"), new Item("d"), null };
+        factory.resolutions = 0;
+        ItemDto[] array = mapper.mapAsArray(new ItemDto[items.length], items, TypeFactory.valueOf(Item.class),
+                TypeFactory.valueOf(ItemDto.class));
+        
+        Assert.assertEquals(3, factory.resolutions);
+        Assert.assertEquals("b", array[1].getName());
+        Assert.assertEquals("d", array[3].getName());
+        Assert.assertNull(array[4]);
+    }
+    
+    /**
+     * Counts the mapping strategies resolved by its mapper facade
+     */
+    public static class CountingMapperFactory extends DefaultMapperFactory {
+        
+        private volatile int resolutions;
+        
+        public static class Builder extends MapperFactoryBuilder<CountingMapperFactory, Builder> {
+            
+            protected Builder self() {
+                return this;
+            }
+            
+            public CountingMapperFactory build() {
+                return new CountingMapperFactory(this);
+            }
+        }
+        
+        protected CountingMapperFactory(Builder builder) {
+            super(builder);
+        }
+        
+        @Override
+        protected MapperFacade buildMapperFacade(MappingContextFactory contextFactory, UnenhanceStrategy unenhanceStrategy) {
+            return new MapperFacadeImpl(this, contextFactory, unenhanceStrategy, MapperFacadeImpl.DEFAULT_STRATEGY_CACHE_SIZE) {
+                @Override
+                public <S, D> MappingStrategy resolveMappingStrategy(S sourceObject, java.lang.reflect.Type initialSourceType,
+                        java.lang.reflect.Type initialDestinationType, boolean mapInPlace, MappingContext context) {
+                    ++resolutions;
+                    return super.resolveMappingStrategy(sourceObject, initialSourceType, initialDestinationType, mapInPlace, context);
+                }
+            };
+        }
+    }
+    
+    public static class Item {
+        private String name;
+        
+        public Item() {
+        }
+        
+        public Item(String name) {
+            this.name = name;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+    
+    public static class SpecialItem extends Item {
+        
+        public SpecialItem(String name) {
+            super(name);
+        }
+    }
+    
+    public static class ItemDto {
+        private String name;
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.collection;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.metadata.Type;
+import ma.glasnost.orika.metadata.TypeFactory;
+import ma.glasnost.orika.test.collection.BulkMappingContextTestCase.Node;
+import ma.glasnost.orika.test.collection.BulkMappingContextTestCase.NodeDto;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that the elements of an Iterator are mapped lazily as they are
+ * consumed, with the identity of mapped objects preserved only within each
+ * identity window.
+ */
+public class MappingIteratorTestCase {
+
+    private static final Type<Node> NODE = TypeFactory.valueOf(Node.class);
+    private static final Type<NodeDto> NODE_DTO = TypeFactory.valueOf(NodeDto.class);
+
+    private MappingContext.Factory contextFactory;
+    private MapperFactory factory;
+
+    @Before
+    public void setUp() {
+        contextFactory = new MappingContext.Factory();
+        factory = new DefaultMapperFactory.Builder().mappingContextFactory(contextFactory).build();
+    }
+
+    @Test
+    public void testMapsLazily() {
+        CountingIterator<Node> source = new CountingIterator<Node>(Arrays.asList(new Node("a"), null, new Node("c")));
+
+        Iterator<NodeDto> result = factory.getMapperFacade().mapAsIterator(source, NODE, NODE_DTO);
+        Assert.assertEquals(0, source.consumed);
+
+        Assert.assertTrue(result.hasNext());
+        Assert.assertEquals("a", result.next().getName());
+        Assert.assertEquals(1, source.consumed);
+        Assert.assertNull(result.next());
+        Assert.assertEquals("c", result.next().getName());
+        Assert.assertFalse(result.hasNext());
+
+        Assert.assertEquals(contextFactory.getCreatedCount(), contextFactory.getPoolSize());
+    }
+
+    @Test
+    public void testIdentityWindow() {
+        Node shared = new Node("shared");
+        shared.setNext(shared);
+        List<Node> nodes = Arrays.asList(new Node("a"), new Node("b"), new Node("c"), new Node("d"));
+        for (Node node : nodes) {
+            node.setNext(shared);
+        }
+
+        Iterator<NodeDto> result = factory.getMapperFacade().mapAsIterator(nodes.iterator(), NODE, NODE_DTO, 2);
+        NodeDto a = result.next();
+        NodeDto b = result.next();
+        NodeDto c = result.next();
+        NodeDto d = result.next();
+
+        Assert.assertSame(a.getNext(), b.getNext());
+        Assert.assertSame(c.getNext(), d.getNext());
+        Assert.assertNotSame(b.getNext(), c.getNext());
+        Assert.assertSame(c.getNext(), c.getNext().getNext());
+    }
+
+    @Test
+    public void testBoundMapAsIterator() {
+        Iterator<NodeDto> result = factory.getMapperFacade(Node.class, NodeDto.class).mapAsIterator(
+                Arrays.asList(new Node("a"), new Node("b")).iterator());
+
+        Assert.assertEquals("a", result.next().getName());
+        Assert.assertEquals("b", result.next().getName());
+        Assert.assertFalse(result.hasNext());
+    }
+
+    @Test
+    public void testContextIsReleasedOnException() {
+        final Iterator<Node> nodes = Arrays.asList(new Node("a"), new Node("b")).iterator();
+        Iterator<Node> source = new Iterator<Node>() {
+            public boolean hasNext() {
+                return true;
+            }
+
+            public Node next() {
+                if (nodes.hasNext()) {
+                    return nodes.next();
+                }
+                throw new IllegalStateException("cursor closed");
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        Iterator<NodeDto> result = factory.getMapperFacade().mapAsIterator(source, NODE, NODE_DTO);
+        Assert.assertEquals("a", result.next().getName());
+        Assert.assertEquals("b", result.next().getName());
+        try {
+            result.next();
+            Assert.fail("expected the exception of the source");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("cursor closed", e.getMessage());
+        }
+
+        Assert.assertEquals(contextFactory.getCreatedCount(), contextFactory.getPoolSize());
+    }
+
+    @Test
+    public void testCloseReleasesContext() throws IOException {
+        List<Node> nodes = Arrays.asList(new Node("a"), new Node("b"), new Node("c"));
+        Iterator<NodeDto> result = factory.getMapperFacade().mapAsIterator(nodes.iterator(), NODE, NODE_DTO);
+        Assert.assertEquals("a", result.next().getName());
+        Assert.assertEquals(contextFactory.getCreatedCount() - 1, contextFactory.getPoolSize());
+
+        ((Closeable) result).close();
+        Assert.assertEquals(contextFactory.getCreatedCount(), contextFactory.getPoolSize());
+
+        /*
+         * Iterating further obtains a new context; the pooled contexts
+         * (including the released one) are held here, so that none is reused
+         */
+        List<MappingContext> pooled = new ArrayList<MappingContext>();
+        while (contextFactory.getPoolSize() > 0) {
+            pooled.add(contextFactory.getContext());
+        }
+        Assert.assertEquals("b", result.next().getName());
+        for (MappingContext context : pooled) {
+            Assert.assertNull(context.getMappedObject(nodes.get(1), NODE_DTO));
+        }
+        Assert.assertEquals("c", result.next().getName());
+        Assert.assertFalse(result.hasNext());
+        for (MappingContext context : pooled) {
+            contextFactory.release(context);
+        }
+
+        Assert.assertEquals(contextFactory.getCreatedCount(), contextFactory.getPoolSize());
+    }
+
+    /**
+     * Counts the elements consumed from the delegate
+     */
+    private static class CountingIterator<T> implements Iterator<T> {
+        private final Iterator<T> delegate;
+        private int consumed;
+
+        private CountingIterator(List<T> elements) {
+            this.delegate = elements.iterator();
+        }
+
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        public T next() {
+            ++consumed;
+            return delegate.next();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.collection;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.BoundMapperFacade;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.metadata.Type;
+import ma.glasnost.orika.metadata.TypeFactory;
+import ma.glasnost.orika.test.MappingUtil;
+import ma.glasnost.orika.test.collection.BulkMappingContextTestCase.Node;
+import ma.glasnost.orika.test.collection.BulkMappingContextTestCase.NodeDto;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that the parallel bulk mapping operations return the mapped
+ * elements in the order of the source, and track the identity of mapped
+ * objects across partitions only when it is shared.
+ */
+public class ParallelMappingTestCase {
+
+    private static final Type<Node> NODE = TypeFactory.valueOf(Node.class);
+    private static final Type<NodeDto> NODE_DTO = TypeFactory.valueOf(NodeDto.class);
+
+    /**
+     * Runs each partition on the calling thread, so that the partitions are
+     * mapped one after another (but still each within its own context)
+     */
+    private static final Executor CALLER_RUNS = new Executor() {
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private MapperFactory factory;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        factory = MappingUtil.getMapperFactory();
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private static List<Node> nodes(int count, Node next) {
+        List<Node> nodes = new ArrayList<Node>(count);
+        for (int i = 0; i < count; ++i) {
+            Node node = new Node("node" + i);
+            node.setNext(next);
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    @Test
+    public void testOrderIsPreserved() {
+        List<Node> nodes = new LinkedList<Node>(nodes(1000, null));
+        nodes.add(500, null);
+
+        List<NodeDto> result = factory.getMapperFacade().mapAsListParallel(nodes, NODE, NODE_DTO, executor);
+
+        Assert.assertEquals(1000, result.size());
+        for (int i = 0; i < 1000; ++i) {
+            Assert.assertEquals("node" + i, result.get(i).getName());
+        }
+    }
+
+    @Test
+    public void testSharedIdentity() {
+        Node shared = new Node("shared");
+        shared.setNext(shared);
+
+        List<NodeDto> result = factory.getMapperFacade().mapAsListParallel(nodes(512, shared), NODE, NODE_DTO, CALLER_RUNS, 4, true);
+
+        NodeDto mappedShared = result.get(0).getNext();
+        Assert.assertSame(mappedShared, mappedShared.getNext());
+        for (NodeDto dto : result) {
+            Assert.assertSame(mappedShared, dto.getNext());
+        }
+    }
+
+    @Test
+    public void testPartitionLocalIdentity() {
+        Node shared = new Node("shared");
+        shared.setNext(shared);
+
+        List<NodeDto> result = factory.getMapperFacade().mapAsListParallel(nodes(512, shared), NODE, NODE_DTO, CALLER_RUNS, 4, false);
+
+        Assert.assertSame(result.get(0).getNext(), result.get(127).getNext());
+        Assert.assertSame(result.get(128).getNext(), result.get(255).getNext());
+        Assert.assertNotSame(result.get(0).getNext(), result.get(128).getNext());
+        Assert.assertNotSame(result.get(128).getNext(), result.get(511).getNext());
+    }
+
+    @Test
+    public void testBoundMapAll() {
+        BoundMapperFacade<Node, NodeDto> boundMapper = factory.getMapperFacade(Node.class, NodeDto.class);
+
+        List<NodeDto> result = boundMapper.mapAll(nodes(1000, null), executor, 4, false);
+
+        Assert.assertEquals(1000, result.size());
+        for (int i = 0; i < 1000; ++i) {
+            Assert.assertEquals("node" + i, result.get(i).getName());
+        }
+    }
+}
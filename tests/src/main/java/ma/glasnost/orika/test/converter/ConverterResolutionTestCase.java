@@ -75,6 +75,33 @@ public class ConverterResolutionTestCase {
         Assert.assertEquals(ExtendedNameToStringConverter.class, converter.getClass());
     }
     
+    @Test
+    public void testNegativeResolutionIsInvalidatedOnRegistration() {
+        MapperFactory factory = MappingUtil.getMapperFactory();
+        
+        Assert.assertFalse(factory.getConverterFactory().canConvert(TypeFactory.valueOf(Name.class), TypeFactory.valueOf(String.class)));
+        Assert.assertNull(factory.getConverterFactory().getConverter(TypeFactory.valueOf(Name.class), TypeFactory.valueOf(String.class)));
+        
+        factory.getConverterFactory().registerConverter(new NameToStringConverter());
+        
+        Assert.assertTrue(factory.getConverterFactory().canConvert(TypeFactory.valueOf(Name.class), TypeFactory.valueOf(String.class)));
+    }
+    
+    @Test
+    public void testResolutionIsInvalidatedOnRegistrationOfMoreSpecificConverter() {
+        MapperFactory factory = MappingUtil.getMapperFactory();
+        
+        factory.getConverterFactory().registerConverter(new NameToStringConverter());
+        
+        Converter<?,?> converter = factory.getConverterFactory().getConverter(TypeFactory.valueOf(ExtendedName.class), TypeFactory.valueOf(String.class));
+        Assert.assertEquals(NameToStringConverter.class, converter.getClass());
+        
+        factory.getConverterFactory().registerConverter(new ExtendedNameToStringConverter());
+        
+        converter = factory.getConverterFactory().getConverter(TypeFactory.valueOf(ExtendedName.class), TypeFactory.valueOf(String.class));
+        Assert.assertEquals(ExtendedNameToStringConverter.class, converter.getClass());
+    }
+    
     public static class Name {
         public String first;
         public String last;
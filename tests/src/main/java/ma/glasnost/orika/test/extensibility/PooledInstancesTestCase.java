@@ -1,7 +1,10 @@
 package ma.glasnost.orika.test.extensibility;
 
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import ma.glasnost.orika.BoundMapperFacade;
 import ma.glasnost.orika.MappingContext;
@@ -88,6 +91,25 @@ public class PooledInstancesTestCase {
 			public A newObjectReverse(B source, MappingContext context) {
 				return wrapped.newObjectReverse(source, context);
 			}
+
+			public List<B> mapAll(Iterable<A> source, Executor executor) {
+				return wrapped.mapAll(source, executor);
+			}
+
+			public List<B> mapAll(Iterable<A> source, Executor executor,
+					int parallelism, boolean shareMappedObjects) {
+				return wrapped.mapAll(source, executor, parallelism,
+						shareMappedObjects);
+			}
+
+			public Iterator<B> mapAsIterator(Iterator<A> source) {
+				return wrapped.mapAsIterator(source);
+			}
+
+			public Iterator<B> mapAsIterator(Iterator<A> source,
+					int identityWindow) {
+				return wrapped.mapAsIterator(source, identityWindow);
+			}
 		}
 
 		/**
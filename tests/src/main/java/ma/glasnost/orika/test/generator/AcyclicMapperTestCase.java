@@ -0,0 +1,532 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.generator;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.CustomMapper;
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.impl.GeneratedMapperBase;
+import ma.glasnost.orika.metadata.MapperKey;
+import ma.glasnost.orika.metadata.TypeFactory;
+import ma.glasnost.orika.test.MappingUtil;
+
+import org.junit.Test;
+
+/**
+ * Verifies that mappers for type pairs whose object graphs cannot contain
+ * cycles are detected as such, and that cycles are still honored elsewhere.
+ */
+public class AcyclicMapperTestCase {
+
+    private static MapperFactory getMapperFactory() {
+        return new DefaultMapperFactory.Builder().skipIdentityTrackingForAcyclicGraphs(true).build();
+    }
+
+    private static boolean isAcyclic(MapperFactory factory, Class<?> aType, Class<?> bType) {
+        GeneratedMapperBase mapper = (GeneratedMapperBase) factory.lookupMapper(new MapperKey(TypeFactory.valueOf(aType),
+                TypeFactory.valueOf(bType)));
+        return mapper.isAcyclic();
+    }
+
+    @Test
+    public void testAcyclicGraphIsDetected() {
+        MapperFactory factory = getMapperFactory();
+        factory.registerClassMap(factory.classMap(Order.class, OrderDto.class).byDefault().toClassMap());
+        factory.registerClassMap(factory.classMap(Line.class, LineDto.class).byDefault().toClassMap());
+        MapperFacade mapper = factory.getMapperFacade();
+
+        Assert.assertTrue(isAcyclic(factory, Order.class, OrderDto.class));
+        Assert.assertTrue(isAcyclic(factory, Line.class, LineDto.class));
+
+        Order order = new Order();
+        order.setId("order");
+        Line line = new Line();
+        line.setProduct("product");
+        line.setQuantity(3);
+        order.setLine(line);
+
+        OrderDto result = mapper.map(order, OrderDto.class);
+        Assert.assertEquals("order", result.getId());
+        Assert.assertEquals("product", result.getLine().getProduct());
+        Assert.assertEquals(3, result.getLine().getQuantity());
+
+        Order mapBack = mapper.map(result, Order.class);
+        Assert.assertEquals("order", mapBack.getId());
+        Assert.assertEquals("product", mapBack.getLine().getProduct());
+    }
+
+    @Test
+    public void testCyclicGraphIsTracked() {
+        MapperFactory factory = getMapperFactory();
+        factory.registerClassMap(factory.classMap(Parent.class, ParentDto.class).byDefault().toClassMap());
+        factory.registerClassMap(factory.classMap(Child.class, ChildDto.class).byDefault().toClassMap());
+        MapperFacade mapper = factory.getMapperFacade();
+
+        Assert.assertFalse(isAcyclic(factory, Parent.class, ParentDto.class));
+        Assert.assertFalse(isAcyclic(factory, Child.class, ChildDto.class));
+
+        Parent parent = new Parent();
+        parent.setName("parent");
+        Child child = new Child();
+        child.setName("child");
+        child.setParent(parent);
+        parent.setChild(child);
+
+        ParentDto result = mapper.map(parent, ParentDto.class);
+        Assert.assertEquals("child", result.getChild().getName());
+        Assert.assertSame(result, result.getChild().getParent());
+    }
+
+    @Test
+    public void testCustomMapperIsNotAnalyzed() {
+        MapperFactory factory = getMapperFactory();
+        factory.registerClassMap(factory.classMap(Order.class, OrderDto.class).byDefault().toClassMap());
+        factory.registerMapper(new CustomMapper<Line, LineDto>() {
+            public void mapAtoB(Line a, LineDto b, MappingContext context) {
+                b.setProduct(a.getProduct());
+            }
+        });
+        factory.getMapperFacade();
+
+        Assert.assertFalse(isAcyclic(factory, Order.class, OrderDto.class));
+    }
+
+    @Test
+    public void testCycleIntroducedBySubclassAfterBuild() {
+        MapperFactory factory = getMapperFactory();
+        factory.registerClassMap(factory.classMap(Order.class, OrderDto.class).byDefault().toClassMap());
+        factory.registerClassMap(factory.classMap(Line.class, LineDto.class).byDefault().toClassMap());
+        MapperFacade mapper = factory.getMapperFacade();
+
+        Assert.assertTrue(isAcyclic(factory, Order.class, OrderDto.class));
+
+        factory.registerClassMap(factory.classMap(BackReferencingLine.class, BackReferencingLineDto.class).byDefault().toClassMap());
+        Assert.assertFalse(isAcyclic(factory, BackReferencingLine.class, BackReferencingLineDto.class));
+        /*
+         * The mapper built before the registration is no longer flagged
+         */
+        Assert.assertFalse(isAcyclic(factory, Order.class, OrderDto.class));
+
+        Order order = new Order();
+        order.setId("order");
+        BackReferencingLine line = new BackReferencingLine();
+        line.setProduct("product");
+        line.setOrder(order);
+        order.setLine(line);
+
+        OrderDto result = mapper.map(order, OrderDto.class);
+        Assert.assertEquals("product", result.getLine().getProduct());
+
+        BackReferencingLineDto lineDto = mapper.map(line, BackReferencingLineDto.class);
+        Assert.assertEquals("product", lineDto.getProduct());
+        Assert.assertEquals("order", lineDto.getOrder().getId());
+    }
+
+    @Test
+    public void testNotAnalyzedByDefault() {
+        MapperFactory factory = MappingUtil.getMapperFactory();
+        factory.registerClassMap(factory.classMap(Order.class, OrderDto.class).byDefault().toClassMap());
+        factory.registerClassMap(factory.classMap(Line.class, LineDto.class).byDefault().toClassMap());
+        factory.getMapperFacade();
+
+        Assert.assertFalse(isAcyclic(factory, Order.class, OrderDto.class));
+        Assert.assertFalse(isAcyclic(factory, Line.class, LineDto.class));
+    }
+
+    @Test
+    public void testSharedReferenceIsMappedOnceByDefault() {
+        MapperFactory factory = MappingUtil.getMapperFactory();
+        factory.registerClassMap(factory.classMap(Shipment.class, ShipmentDto.class).byDefault().toClassMap());
+        factory.registerClassMap(factory.classMap(Line.class, LineDto.class).byDefault().toClassMap());
+        MapperFacade mapper = factory.getMapperFacade();
+
+        Shipment shipment = new Shipment();
+        Line line = new Line();
+        line.setProduct("product");
+        shipment.setFirst(line);
+        shipment.setSecond(line);
+
+        ShipmentDto result = mapper.map(shipment, ShipmentDto.class);
+        Assert.assertEquals("product", result.getFirst().getProduct());
+        Assert.assertSame(result.getFirst(), result.getSecond());
+    }
+
+    @Test
+    public void testSharedReferenceIsMappedPerReferenceWhenSkipped() {
+        MapperFactory factory = getMapperFactory();
+        factory.registerClassMap(factory.classMap(Shipment.class, ShipmentDto.class).byDefault().toClassMap());
+        factory.registerClassMap(factory.classMap(Line.class, LineDto.class).byDefault().toClassMap());
+        MapperFacade mapper = factory.getMapperFacade();
+
+        Assert.assertTrue(isAcyclic(factory, Shipment.class, ShipmentDto.class));
+
+        Shipment shipment = new Shipment();
+        Line line = new Line();
+        line.setProduct("product");
+        shipment.setFirst(line);
+        shipment.setSecond(line);
+
+        ShipmentDto result = mapper.map(shipment, ShipmentDto.class);
+        Assert.assertEquals("product", result.getFirst().getProduct());
+        Assert.assertEquals("product", result.getSecond().getProduct());
+        Assert.assertNotSame(result.getFirst(), result.getSecond());
+    }
+
+    @Test
+    public void testCycleClosedByRuntimeSubtypeIsTrackedByDefault() {
+        MapperFactory factory = MappingUtil.getMapperFactory();
+        factory.registerClassMap(factory.classMap(Holder.class, HolderDto.class).byDefault().toClassMap());
+        MapperFacade mapper = factory.getMapperFacade();
+
+        Holder holder = new Holder();
+        holder.setName("holder");
+        BackReferencingItem item = new BackReferencingItem();
+        item.setName("item");
+        item.setHolder(holder);
+        holder.setItem(item);
+
+        HolderDto result = mapper.map(holder, HolderDto.class);
+        Assert.assertEquals("item", result.getItem().getName());
+        Assert.assertSame(result, result.getItem().getHolder());
+    }
+
+    public static class Order {
+        private String id;
+        private Line line;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public Line getLine() {
+            return line;
+        }
+
+        public void setLine(Line line) {
+            this.line = line;
+        }
+    }
+
+    public static class Line {
+        private String product;
+        private int quantity;
+
+        public String getProduct() {
+            return product;
+        }
+
+        public void setProduct(String product) {
+            this.product = product;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+
+    public static class BackReferencingLine extends Line {
+        private Order order;
+
+        public Order getOrder() {
+            return order;
+        }
+
+        public void setOrder(Order order) {
+            this.order = order;
+        }
+    }
+
+    public static class OrderDto {
+        private String id;
+        private LineDto line;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public LineDto getLine() {
+            return line;
+        }
+
+        public void setLine(LineDto line) {
+            this.line = line;
+        }
+    }
+
+    public static class LineDto {
+        private String product;
+        private int quantity;
+
+        public String getProduct() {
+            return product;
+        }
+
+        public void setProduct(String product) {
+            this.product = product;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+
+    public static class BackReferencingLineDto extends LineDto {
+        private OrderDto order;
+
+        public OrderDto getOrder() {
+            return order;
+        }
+
+        public void setOrder(OrderDto order) {
+            this.order = order;
+        }
+    }
+
+    public static class Shipment {
+        private Line first;
+        private Line second;
+
+        public Line getFirst() {
+            return first;
+        }
+
+        public void setFirst(Line first) {
+            this.first = first;
+        }
+
+        public Line getSecond() {
+            return second;
+        }
+
+        public void setSecond(Line second) {
+            this.second = second;
+        }
+    }
+
+    public static class ShipmentDto {
+        private LineDto first;
+        private LineDto second;
+
+        public LineDto getFirst() {
+            return first;
+        }
+
+        public void setFirst(LineDto first) {
+            this.first = first;
+        }
+
+        public LineDto getSecond() {
+            return second;
+        }
+
+        public void setSecond(LineDto second) {
+            this.second = second;
+        }
+    }
+
+    public interface Item {
+        String getName();
+    }
+
+    public static class BackReferencingItem implements Item {
+        private String name;
+        private Holder holder;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Holder getHolder() {
+            return holder;
+        }
+
+        public void setHolder(Holder holder) {
+            this.holder = holder;
+        }
+    }
+
+    public static class Holder {
+        private String name;
+        private Item item;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Item getItem() {
+            return item;
+        }
+
+        public void setItem(Item item) {
+            this.item = item;
+        }
+    }
+
+    public static class ItemDto {
+        private String name;
+        private HolderDto holder;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public HolderDto getHolder() {
+            return holder;
+        }
+
+        public void setHolder(HolderDto holder) {
+            this.holder = holder;
+        }
+    }
+
+    public static class HolderDto {
+        private String name;
+        private ItemDto item;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public ItemDto getItem() {
+            return item;
+        }
+
+        public void setItem(ItemDto item) {
+            this.item = item;
+        }
+    }
+
+    public static class Parent {
+        private String name;
+        private Child child;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Child getChild() {
+            return child;
+        }
+
+        public void setChild(Child child) {
+            this.child = child;
+        }
+    }
+
+    public static class Child {
+        private String name;
+        private Parent parent;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Parent getParent() {
+            return parent;
+        }
+
+        public void setParent(Parent parent) {
+            this.parent = parent;
+        }
+    }
+
+    public static class ParentDto {
+        private String name;
+        private ChildDto child;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public ChildDto getChild() {
+            return child;
+        }
+
+        public void setChild(ChildDto child) {
+            this.child = child;
+        }
+    }
+
+    public static class ChildDto {
+        private String name;
+        private ParentDto parent;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public ParentDto getParent() {
+            return parent;
+        }
+
+        public void setParent(ParentDto parent) {
+            this.parent = parent;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.generator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.impl.GeneratedMapperBase;
+import ma.glasnost.orika.impl.GeneratedObjectFactory;
+import ma.glasnost.orika.impl.generator.JavassistCompilerStrategy;
+import ma.glasnost.orika.impl.generator.SourceCodeContext;
+import ma.glasnost.orika.test.generator.BuildFixtures.Order;
+import ma.glasnost.orika.test.generator.BuildFixtures.OrderDto;
+import ma.glasnost.orika.test.generator.BuildFixtures.PersonDto;
+
+import org.junit.Test;
+
+/**
+ * Verifies that the classes generated during build() are compiled in batches,
+ * with a single call to the compiler strategy per batch.
+ */
+public class BatchCompilationTestCase {
+
+    private static DefaultMapperFactory build(int buildThreads, BatchRecordingCompilerStrategy compilerStrategy) {
+        DefaultMapperFactory factory = new DefaultMapperFactory.Builder().compilerStrategy(compilerStrategy)
+                .buildThreads(buildThreads)
+                .build();
+        BuildFixtures.registerClassMaps(factory);
+        factory.registerClassMap(factory.classMap(Order.class, OrderDto.class).constructorA("number", "quantity").byDefault().toClassMap());
+        factory.build();
+        return factory;
+    }
+
+    private static void verify(MapperFacade mapper) {
+        BuildFixtures.verify(mapper.map(BuildFixtures.newPerson(), PersonDto.class));
+        BuildFixtures.verifyOrder(mapper);
+    }
+
+    @Test
+    public void testSequentialBuildCompilesSingleBatch() {
+        BatchRecordingCompilerStrategy compilerStrategy = new BatchRecordingCompilerStrategy();
+        DefaultMapperFactory factory = build(1, compilerStrategy);
+
+        Assert.assertEquals(Collections.singletonList(4), compilerStrategy.getBatchSizes(GeneratedMapperBase.class));
+        Assert.assertEquals(Collections.singletonList(1), compilerStrategy.getBatchSizes(GeneratedObjectFactory.class));
+        verify(factory.getMapperFacade());
+    }
+
+    @Test
+    public void testParallelBuildCompilesBatchPerThread() {
+        BatchRecordingCompilerStrategy compilerStrategy = new BatchRecordingCompilerStrategy();
+        DefaultMapperFactory factory = build(2, compilerStrategy);
+
+        Assert.assertEquals(2, compilerStrategy.getBatchSizes(GeneratedMapperBase.class).size());
+        Assert.assertTrue(compilerStrategy.getBatchSizes(GeneratedMapperBase.class).containsAll(Collections.singleton(2)));
+        Assert.assertEquals(Collections.singletonList(1), compilerStrategy.getBatchSizes(GeneratedObjectFactory.class));
+        verify(factory.getMapperFacade());
+    }
+
+    /**
+     * Records the size of each batch of classes compiled
+     */
+    public static class BatchRecordingCompilerStrategy extends JavassistCompilerStrategy {
+        private final List<SourceCodeContext[]> batches = Collections.synchronizedList(new ArrayList<SourceCodeContext[]>());
+
+        public BatchRecordingCompilerStrategy() {
+            super(null);
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return true;
+        }
+
+        @Override
+        public List<Class<?>> compileClasses(List<SourceCodeContext> sourceCodes) throws SourceCodeGenerationException {
+            batches.add(sourceCodes.toArray(new SourceCodeContext[sourceCodes.size()]));
+            return super.compileClasses(sourceCodes);
+        }
+
+        private List<Integer> getBatchSizes(Class<?> superClass) {
+            List<Integer> sizes = new ArrayList<Integer>();
+            synchronized (batches) {
+                for (SourceCodeContext[] batch : batches) {
+                    if (batch.length > 0 && batch[0].getSuperClass() == superClass) {
+                        sizes.add(batch.length);
+                    }
+                }
+            }
+            return sizes;
+        }
+    }
+}
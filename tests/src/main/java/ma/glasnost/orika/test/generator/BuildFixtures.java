@@ -0,0 +1,217 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.generator;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.MapperFactory;
+
+/**
+ * The types, class maps and assertions shared by the test cases which verify
+ * how the mappers of a factory are generated and compiled.
+ */
+public final class BuildFixtures {
+
+    private BuildFixtures() {
+    }
+
+    /**
+     * Registers the class maps of Base, Person and Address (the latter two
+     * using the first).
+     *
+     * @param factory
+     */
+    public static void registerClassMaps(MapperFactory factory) {
+        factory.registerClassMap(factory.classMap(Base.class, BaseDto.class).byDefault().toClassMap());
+        factory.registerClassMap(factory.classMap(Person.class, PersonDto.class).use(Base.class, BaseDto.class).byDefault().toClassMap());
+        factory.registerClassMap(factory.classMap(Address.class, AddressDto.class).use(Base.class, BaseDto.class).byDefault().toClassMap());
+    }
+
+    /**
+     * @return a new Person, with an Address
+     */
+    public static Person newPerson() {
+        Person person = new Person();
+        person.setId(1L);
+        person.setName("person");
+        Address address = new Address();
+        address.setId(2L);
+        address.setCity("city");
+        person.setAddress(address);
+        return person;
+    }
+
+    /**
+     * Verifies a PersonDto mapped from {@link #newPerson()}.
+     *
+     * @param personDto
+     */
+    public static void verify(PersonDto personDto) {
+        Assert.assertEquals(Long.valueOf(1L), personDto.getId());
+        Assert.assertEquals("person", personDto.getName());
+        Assert.assertEquals(Long.valueOf(2L), personDto.getAddress().getId());
+        Assert.assertEquals("city", personDto.getAddress().getCity());
+    }
+
+    /**
+     * Verifies that an Order is mapped to an OrderDto, and back.
+     *
+     * @param mapper
+     */
+    public static void verifyOrder(MapperFacade mapper) {
+        OrderDto orderDto = mapper.map(new Order("order", 3), OrderDto.class);
+        Assert.assertEquals("order", orderDto.getNumber());
+        Assert.assertEquals(3, orderDto.getQuantity());
+
+        Order order = mapper.map(orderDto, Order.class);
+        Assert.assertEquals("order", order.getNumber());
+        Assert.assertEquals(3, order.getQuantity());
+    }
+
+    public static class Base {
+        private Long id;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+    }
+
+    public static class BaseDto {
+        private Long id;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+    }
+
+    public static class Person extends Base {
+        private String name;
+        private Address address;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public void setAddress(Address address) {
+            this.address = address;
+        }
+    }
+
+    public static class PersonDto extends BaseDto {
+        private String name;
+        private AddressDto address;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public AddressDto getAddress() {
+            return address;
+        }
+
+        public void setAddress(AddressDto address) {
+            this.address = address;
+        }
+    }
+
+    public static class Address extends Base {
+        private String city;
+
+        public String getCity() {
+            return city;
+        }
+
+        public void setCity(String city) {
+            this.city = city;
+        }
+    }
+
+    public static class AddressDto extends BaseDto {
+        private String city;
+
+        public String getCity() {
+            return city;
+        }
+
+        public void setCity(String city) {
+            this.city = city;
+        }
+    }
+
+    /**
+     * Has no default constructor, so requires a generated object factory
+     */
+    public static class Order {
+        private final String number;
+        private final int quantity;
+
+        public Order(String number, int quantity) {
+            this.number = number;
+            this.quantity = quantity;
+        }
+
+        public String getNumber() {
+            return number;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+
+    public static class OrderDto {
+        private String number;
+        private int quantity;
+
+        public String getNumber() {
+            return number;
+        }
+
+        public void setNumber(String number) {
+            this.number = number;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.generator;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.impl.generator.BytecodeCache;
+import ma.glasnost.orika.impl.generator.JavassistCompilerStrategy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that generated classes are stored in, and reused from, a
+ * BytecodeCache; each factory is built under a fresh context class-loader, as
+ * a new JVM would be, since a generated class can only be defined once per
+ * class-loader.
+ */
+public class BytecodeCacheTestCase {
+
+    private File directory;
+    private ClassLoader originalClassLoader;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("orika-bytecode-cache", "");
+        directory.delete();
+        originalClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void tearDown() {
+        Thread.currentThread().setContextClassLoader(originalClassLoader);
+        new BytecodeCache(directory).clear();
+        directory.delete();
+    }
+
+    private BytecodeCache map(boolean mapNulls) {
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[0], originalClassLoader));
+        BytecodeCache cache = new BytecodeCache(directory);
+        MapperFactory factory = new DefaultMapperFactory.Builder().compilerStrategy(new JavassistCompilerStrategy(cache))
+                .mapNulls(mapNulls)
+                .build();
+        factory.registerClassMap(factory.classMap(Source.class, Destination.class).byDefault().toClassMap());
+        MapperFacade mapper = factory.getMapperFacade();
+
+        Source source = new Source();
+        source.setName("name");
+        source.setCount(7);
+        Destination result = mapper.map(source, Destination.class);
+        Assert.assertEquals("name", result.getName());
+        Assert.assertEquals(7, result.getCount());
+        return cache;
+    }
+
+    @Test
+    public void testCompiledClassesAreReused() {
+        BytecodeCache first = map(true);
+        Assert.assertEquals(0, first.getHitCount());
+        Assert.assertTrue(first.getMissCount() > 0);
+        Assert.assertTrue(directory.listFiles().length > 0);
+
+        BytecodeCache second = map(true);
+        Assert.assertEquals(first.getMissCount(), second.getHitCount());
+        Assert.assertEquals(0, second.getMissCount());
+    }
+
+    @Test
+    public void testChangedConfigurationIsNotReused() {
+        BytecodeCache first = map(true);
+        int entries = directory.listFiles().length;
+
+        BytecodeCache second = map(false);
+        Assert.assertTrue(second.getMissCount() > 0);
+        Assert.assertTrue(directory.listFiles().length > entries);
+        Assert.assertTrue(first.getMissCount() > 0);
+    }
+
+    @Test
+    public void testInvalidEntriesAreDiscarded() throws IOException {
+        BytecodeCache first = map(true);
+        for (File file : directory.listFiles()) {
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                out.write(new byte[] { 1, 2, 3 });
+            } finally {
+                out.close();
+            }
+        }
+
+        BytecodeCache second = map(true);
+        Assert.assertEquals(0, second.getHitCount());
+        Assert.assertEquals(first.getMissCount(), second.getMissCount());
+
+        BytecodeCache third = map(true);
+        Assert.assertEquals(first.getMissCount(), third.getHitCount());
+    }
+
+    @Test
+    public void testDefinedClassesDoNotRetainTheirClassLoader() throws Exception {
+        BytecodeCache cache = new BytecodeCache(directory);
+        IsolatedClassLoader classLoader = new IsolatedClassLoader(originalClassLoader);
+        Class<?> definedClass = classLoader.define(Source.class);
+        cache.addDefinedClass(classLoader, "key", definedClass);
+        Assert.assertSame(definedClass, cache.getDefinedClass(classLoader, "key"));
+
+        WeakReference<ClassLoader> reference = new WeakReference<ClassLoader>(classLoader);
+        classLoader = null;
+        definedClass = null;
+
+        for (int i = 0; i < 20 && reference.get() != null; ++i) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        Assert.assertNull("class-loader was retained by the cache", reference.get());
+    }
+
+    /**
+     * Defines its own copy of a class, rather than delegating to its parent
+     */
+    private static class IsolatedClassLoader extends ClassLoader {
+
+        IsolatedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(Class<?> type) throws IOException {
+            InputStream in = type.getResourceAsStream(type.getName().substring(type.getName().lastIndexOf('.') + 1) + ".class");
+            try {
+                byte[] bytecode = new byte[in.available()];
+                int offset = 0;
+                int read;
+                while (offset < bytecode.length && (read = in.read(bytecode, offset, bytecode.length - offset)) >= 0) {
+                    offset += read;
+                }
+                return defineClass(type.getName(), bytecode, 0, offset);
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    public static class Source {
+        private String name;
+        private int count;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+    }
+
+    public static class Destination {
+        private String name;
+        private int count;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.generator;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.CustomMapper;
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.impl.generator.DirectBytecodeCompilerStrategy;
+
+import org.junit.Test;
+
+/**
+ * Verifies that map methods emitted directly as bytecode behave as those
+ * compiled from the generated source, and that methods which cannot be
+ * emitted directly are still compiled from source.
+ */
+public class DirectBytecodeCompilerStrategyTestCase {
+    
+    private static Flat newFlat() {
+        Flat flat = new Flat();
+        flat.setName("name");
+        flat.setCount(3);
+        flat.setActive(true);
+        flat.setId(Long.MAX_VALUE);
+        flat.setRatio(0.5d);
+        flat.setTotal(null);
+        return flat;
+    }
+    
+    @Test
+    public void testPropertyCopies() {
+        DirectBytecodeCompilerStrategy compilerStrategy = new DirectBytecodeCompilerStrategy(null);
+        MapperFactory factory = new DefaultMapperFactory.Builder().compilerStrategy(compilerStrategy).build();
+        factory.registerClassMap(factory.classMap(Flat.class, FlatDto.class).byDefault());
+        MapperFacade mapper = factory.getMapperFacade();
+        
+        FlatDto dto = new FlatDto();
+        dto.setTotal(5);
+        mapper.map(newFlat(), dto);
+        
+        Assert.assertEquals("name", dto.getName());
+        Assert.assertEquals(3, dto.getCount());
+        Assert.assertTrue(dto.isActive());
+        Assert.assertEquals(Long.MAX_VALUE, dto.getId());
+        Assert.assertEquals(0.5d, dto.getRatio());
+        Assert.assertNull(dto.getTotal());
+        
+        Flat flat = mapper.map(dto, Flat.class);
+        Assert.assertEquals("name", flat.getName());
+        Assert.assertEquals(Long.MAX_VALUE, flat.getId());
+        
+        Assert.assertEquals(2, compilerStrategy.getDirectMethodCount());
+        Assert.assertEquals(0, compilerStrategy.getSourceMethodCount());
+    }
+    
+    @Test
+    public void testNullsNotMapped() {
+        DirectBytecodeCompilerStrategy compilerStrategy = new DirectBytecodeCompilerStrategy(null);
+        MapperFactory factory = new DefaultMapperFactory.Builder().compilerStrategy(compilerStrategy).mapNulls(false).build();
+        factory.registerClassMap(factory.classMap(Flat.class, FlatDto.class).byDefault());
+        
+        FlatDto dto = new FlatDto();
+        dto.setTotal(5);
+        factory.getMapperFacade().map(newFlat(), dto);
+        
+        Assert.assertEquals("name", dto.getName());
+        Assert.assertEquals(Integer.valueOf(5), dto.getTotal());
+        Assert.assertEquals(2, compilerStrategy.getDirectMethodCount());
+    }
+    
+    @Test
+    public void testCustomMapper() {
+        DirectBytecodeCompilerStrategy compilerStrategy = new DirectBytecodeCompilerStrategy(null);
+        MapperFactory factory = new DefaultMapperFactory.Builder().compilerStrategy(compilerStrategy).build();
+        factory.registerClassMap(factory.classMap(Flat.class, FlatDto.class).byDefault().customize(new CustomMapper<Flat, FlatDto>() {
+            @Override
+            public void mapAtoB(Flat a, FlatDto b, MappingContext context) {
+                b.setName(b.getName() + " (customized)");
+            }
+        }));
+        
+        FlatDto dto = factory.getMapperFacade().map(newFlat(), FlatDto.class);
+        
+        Assert.assertEquals("name (customized)", dto.getName());
+        Assert.assertEquals(2, compilerStrategy.getDirectMethodCount());
+    }
+    
+    @Test
+    public void testFallbackToSource() {
+        DirectBytecodeCompilerStrategy compilerStrategy = new DirectBytecodeCompilerStrategy(null);
+        MapperFactory factory = new DefaultMapperFactory.Builder().compilerStrategy(compilerStrategy).build();
+        factory.registerClassMap(factory.classMap(Nested.class, NestedDto.class).field("flat.name", "name").byDefault());
+        
+        Nested nested = new Nested();
+        nested.setFlat(newFlat());
+        NestedDto dto = factory.getMapperFacade().map(nested, NestedDto.class);
+        
+        Assert.assertEquals("name", dto.getName());
+        Assert.assertEquals(0, compilerStrategy.getDirectMethodCount());
+        Assert.assertTrue(compilerStrategy.getSourceMethodCount() >= 2);
+    }
+    
+    public static class Flat {
+        private String name;
+        private int count;
+        private boolean active;
+        private long id;
+        private double ratio;
+        private Integer total;
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+        
+        public int getCount() {
+            return count;
+        }
+        
+        public void setCount(int count) {
+            this.count = count;
+        }
+        
+        public boolean isActive() {
+            return active;
+        }
+        
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+        
+        public long getId() {
+            return id;
+        }
+        
+        public void setId(long id) {
+            this.id = id;
+        }
+        
+        public double getRatio() {
+            return ratio;
+        }
+        
+        public void setRatio(double ratio) {
+            this.ratio = ratio;
+        }
+        
+        public Integer getTotal() {
+            return total;
+        }
+        
+        public void setTotal(Integer total) {
+            this.total = total;
+        }
+    }
+    
+    public static class FlatDto {
+        private String name;
+        private int count;
+        private boolean active;
+        private long id;
+        private double ratio;
+        private Integer total;
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+        
+        public int getCount() {
+            return count;
+        }
+        
+        public void setCount(int count) {
+            this.count = count;
+        }
+        
+        public boolean isActive() {
+            return active;
+        }
+        
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+        
+        public long getId() {
+            return id;
+        }
+        
+        public void setId(long id) {
+            this.id = id;
+        }
+        
+        public double getRatio() {
+            return ratio;
+        }
+        
+        public void setRatio(double ratio) {
+            this.ratio = ratio;
+        }
+        
+        public Integer getTotal() {
+            return total;
+        }
+        
+        public void setTotal(Integer total) {
+            this.total = total;
+        }
+    }
+    
+    public static class Nested {
+        private Flat flat;
+        
+        public Flat getFlat() {
+            return flat;
+        }
+        
+        public void setFlat(Flat flat) {
+            this.flat = flat;
+        }
+    }
+    
+    public static class NestedDto {
+        private String name;
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.generator;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.impl.generator.JavassistCompilerStrategy;
+import ma.glasnost.orika.impl.generator.SourceCodeContext;
+import ma.glasnost.orika.test.generator.BuildFixtures.AddressDto;
+import ma.glasnost.orika.test.generator.BuildFixtures.PersonDto;
+
+import org.junit.Test;
+
+/**
+ * Verifies that registered class maps which are compiled lazily are only
+ * compiled once needed (or by the prewarming thread), and map as they would
+ * if compiled during build().
+ */
+public class LazyCompilationTestCase {
+    
+    private static DefaultMapperFactory build(boolean prewarm, RecordingCompilerStrategy compilerStrategy) {
+        DefaultMapperFactory factory = new DefaultMapperFactory.Builder().compilerStrategy(compilerStrategy)
+                .compileClassMapsLazily(true)
+                .prewarmLazyClassMaps(prewarm)
+                .build();
+        BuildFixtures.registerClassMaps(factory);
+        factory.build();
+        return factory;
+    }
+    
+    @Test
+    public void testCompiledOnFirstUse() {
+        RecordingCompilerStrategy compilerStrategy = new RecordingCompilerStrategy();
+        DefaultMapperFactory factory = build(false, compilerStrategy);
+        MapperFacade mapper = factory.getMapperFacade();
+        Assert.assertTrue(compilerStrategy.getCompiledClasses().isEmpty());
+        
+        AddressDto addressDto = mapper.map(BuildFixtures.newPerson().getAddress(), AddressDto.class);
+        Assert.assertEquals("city", addressDto.getCity());
+        Set<String> compiledForAddress = compilerStrategy.getCompiledClasses();
+        Assert.assertFalse(compiledForAddress.isEmpty());
+        
+        BuildFixtures.verify(mapper.map(BuildFixtures.newPerson(), PersonDto.class));
+        Assert.assertTrue(compilerStrategy.getCompiledClasses().size() > compiledForAddress.size());
+        
+        /*
+         * The used mapper is compiled along with the mapper which uses it
+         */
+        Set<String> compiled = compilerStrategy.getCompiledClasses();
+        BuildFixtures.verify(mapper.map(BuildFixtures.newPerson(), PersonDto.class));
+        Assert.assertEquals(compiled, compilerStrategy.getCompiledClasses());
+    }
+    
+    @Test
+    public void testPrewarmedInBackground() throws InterruptedException {
+        RecordingCompilerStrategy compilerStrategy = new RecordingCompilerStrategy();
+        DefaultMapperFactory factory = build(true, compilerStrategy);
+        MapperFacade mapper = factory.getMapperFacade();
+        
+        long deadline = System.currentTimeMillis() + 30000;
+        while (compilerStrategy.getCompiledClasses().size() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(3, compilerStrategy.getCompiledClasses().size());
+        
+        BuildFixtures.verify(mapper.map(BuildFixtures.newPerson(), PersonDto.class));
+        Assert.assertEquals(3, compilerStrategy.getCompiledClasses().size());
+    }
+    
+    /**
+     * Records the names of the compiled classes
+     */
+    public static class RecordingCompilerStrategy extends JavassistCompilerStrategy {
+        private final Set<String> compiledClasses = Collections.synchronizedSet(new LinkedHashSet<String>());
+        
+        public RecordingCompilerStrategy() {
+            super(null);
+        }
+        
+        @Override
+        public Class<?> compileClass(SourceCodeContext sourceCode) throws SourceCodeGenerationException {
+            compiledClasses.add(sourceCode.getClassName());
+            return super.compileClass(sourceCode);
+        }
+        
+        public Set<String> getCompiledClasses() {
+            synchronized (compiledClasses) {
+                return new LinkedHashSet<String>(compiledClasses);
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.generator;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.impl.generator.CodeGenerationStrategy.Position;
+import ma.glasnost.orika.impl.generator.JavassistCompilerStrategy;
+import ma.glasnost.orika.impl.generator.SourceCodeContext;
+import ma.glasnost.orika.impl.generator.Specification;
+import ma.glasnost.orika.impl.generator.specification.ApplyRegisteredMapper;
+import ma.glasnost.orika.metadata.FieldMap;
+import ma.glasnost.orika.test.generator.BuildFixtures.Order;
+import ma.glasnost.orika.test.generator.BuildFixtures.OrderDto;
+import ma.glasnost.orika.test.generator.BuildFixtures.PersonDto;
+
+import org.junit.Test;
+
+/**
+ * Verifies that mappers and object factories compiled in parallel during
+ * build() are wired together as they would be when compiled sequentially.
+ */
+public class ParallelBuildTestCase {
+
+    private static DefaultMapperFactory build(int buildThreads, JavassistCompilerStrategy compilerStrategy) {
+        DefaultMapperFactory factory = new DefaultMapperFactory.Builder().compilerStrategy(compilerStrategy)
+                .buildThreads(buildThreads)
+                .build();
+        BuildFixtures.registerClassMaps(factory);
+        factory.registerClassMap(factory.classMap(Order.class, OrderDto.class).byDefault().toClassMap());
+        factory.build();
+        return factory;
+    }
+
+    private static void verify(MapperFacade mapper) {
+        BuildFixtures.verify(mapper.map(BuildFixtures.newPerson(), PersonDto.class));
+        BuildFixtures.verifyOrder(mapper);
+    }
+
+    @Test
+    public void testParallelBuild() {
+        ThreadRecordingCompilerStrategy compilerStrategy = new ThreadRecordingCompilerStrategy();
+        DefaultMapperFactory factory = build(4, compilerStrategy);
+
+        Assert.assertTrue(compilerStrategy.threads.size() > 0);
+        for (String thread : compilerStrategy.threads) {
+            Assert.assertTrue(thread, thread.startsWith("orika-build-"));
+        }
+        verify(factory.getMapperFacade());
+        Assert.assertTrue(factory.getBuildTimings().keySet().containsAll(Arrays.asList("generate", "compile",
+                "objectFactories", "usedMappers")));
+    }
+
+    @Test
+    public void testSequentialBuild() {
+        ThreadRecordingCompilerStrategy compilerStrategy = new ThreadRecordingCompilerStrategy();
+        DefaultMapperFactory factory = build(1, compilerStrategy);
+        verify(factory.getMapperFacade());
+
+        Assert.assertEquals(Collections.singleton(Thread.currentThread().getName()), compilerStrategy.threads);
+    }
+
+    @Test
+    public void testSubclassIsNotAssumedThreadSafe() {
+        Assert.assertTrue(new JavassistCompilerStrategy(null).isThreadSafe());
+        Assert.assertFalse(new JavassistCompilerStrategy(null) {
+        }.isThreadSafe());
+
+        ThreadRecordingCompilerStrategy compilerStrategy = new ThreadRecordingCompilerStrategy(false);
+        verify(build(4, compilerStrategy).getMapperFacade());
+        Assert.assertEquals(Collections.singleton(Thread.currentThread().getName()), compilerStrategy.threads);
+    }
+
+    /**
+     * Each mapper is registered as soon as its source is generated, so the
+     * class map generated second applies the mapper of the first as a
+     * registered mapper, however the build is batched
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRegisteredMapperAppliedWithinBuild() {
+        for (int buildThreads = 1; buildThreads <= 2; ++buildThreads) {
+            RecordingApplyRegisteredMapper specification = new RecordingApplyRegisteredMapper();
+            DefaultMapperFactory.Builder builder = new DefaultMapperFactory.Builder().buildThreads(buildThreads);
+            builder.getCodeGenerationStrategy().addSpecification(specification, Position.IN_PLACE_OF,
+                    (Class<Specification>) (Class<?>) ApplyRegisteredMapper.class);
+            DefaultMapperFactory factory = builder.build();
+            factory.registerClassMap(factory.classMap(Team.class, TeamDto.class).byDefault().toClassMap());
+            factory.registerClassMap(factory.classMap(Coach.class, CoachDto.class).byDefault().toClassMap());
+            factory.build();
+
+            Assert.assertEquals(1, specification.applied.size());
+            Assert.assertEquals(1, specification.notApplied.size());
+            Assert.assertFalse(specification.applied.equals(specification.notApplied));
+
+            Team team = new Team();
+            team.setName("team");
+            Coach coach = new Coach();
+            coach.setName("coach");
+            coach.setTeam(team);
+            team.setCoach(coach);
+
+            TeamDto teamDto = factory.getMapperFacade().map(team, TeamDto.class);
+            Assert.assertEquals("coach", teamDto.getCoach().getName());
+            Assert.assertSame(teamDto, teamDto.getCoach().getTeam());
+        }
+    }
+
+    /**
+     * Records the names of the properties to which ApplyRegisteredMapper was,
+     * and was not, applied
+     */
+    public static class RecordingApplyRegisteredMapper extends ApplyRegisteredMapper {
+        private final Set<String> applied = new HashSet<String>();
+        private final Set<String> notApplied = new HashSet<String>();
+
+        @Override
+        public boolean appliesTo(FieldMap fieldMap) {
+            boolean applies = super.appliesTo(fieldMap);
+            (applies ? applied : notApplied).add(fieldMap.getDestination().getName());
+            return applies;
+        }
+    }
+
+    /**
+     * Records the names of the threads which compiled classes
+     */
+    public static class ThreadRecordingCompilerStrategy extends JavassistCompilerStrategy {
+        private final Set<String> threads = Collections.synchronizedSet(new HashSet<String>());
+
+        private final boolean threadSafe;
+
+        public ThreadRecordingCompilerStrategy() {
+            this(true);
+        }
+
+        public ThreadRecordingCompilerStrategy(boolean threadSafe) {
+            super(null);
+            this.threadSafe = threadSafe;
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return threadSafe;
+        }
+
+        @Override
+        public Class<?> compileClass(SourceCodeContext sourceCode) throws SourceCodeGenerationException {
+            threads.add(Thread.currentThread().getName());
+            return super.compileClass(sourceCode);
+        }
+    }
+
+    public static class Team {
+        private String name;
+        private Coach coach;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Coach getCoach() {
+            return coach;
+        }
+
+        public void setCoach(Coach coach) {
+            this.coach = coach;
+        }
+    }
+
+    public static class Coach {
+        private String name;
+        private Team team;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Team getTeam() {
+            return team;
+        }
+
+        public void setTeam(Team team) {
+            this.team = team;
+        }
+    }
+
+    public static class TeamDto {
+        private String name;
+        private CoachDto coach;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public CoachDto getCoach() {
+            return coach;
+        }
+
+        public void setCoach(CoachDto coach) {
+            this.coach = coach;
+        }
+    }
+
+    public static class CoachDto {
+        private String name;
+        private TeamDto team;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public TeamDto getTeam() {
+            return team;
+        }
+
+        public void setTeam(TeamDto team) {
+            this.team = team;
+        }
+    }
+}
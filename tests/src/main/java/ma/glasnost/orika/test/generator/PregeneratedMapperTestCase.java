@@ -0,0 +1,204 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Properties;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.impl.ConfigurableMapper;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.impl.generator.JavassistCompilerStrategy;
+import ma.glasnost.orika.impl.generator.MapperPregenerator;
+import ma.glasnost.orika.impl.generator.PregeneratedClasses;
+import ma.glasnost.orika.impl.generator.SourceCodeContext;
+import ma.glasnost.orika.metadata.MapperKey;
+import ma.glasnost.orika.metadata.TypeFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that mappers generated at build time by the MapperPregenerator are
+ * used in place of compiling them again; each step runs under a fresh context
+ * class-loader, as a separate build and JVM would.
+ */
+public class PregeneratedMapperTestCase {
+
+    private File directory;
+    private ClassLoader originalClassLoader;
+    private Class<?> mapperClass;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("orika-pregenerated-test", "");
+        directory.delete();
+        directory.mkdirs();
+        originalClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void tearDown() {
+        Thread.currentThread().setContextClassLoader(originalClassLoader);
+        delete(directory);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private Properties pregenerate() throws IOException {
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[0], originalClassLoader));
+        return new MapperPregenerator(directory).generate(Configuration.class.getName());
+    }
+
+    private CountingCompilerStrategy map(boolean usePregeneratedClasses, boolean mapNulls) throws IOException {
+        ClassLoader classLoader = new URLClassLoader(new URL[] { directory.toURI().toURL() }, originalClassLoader);
+        Thread.currentThread().setContextClassLoader(classLoader);
+        CountingCompilerStrategy compilerStrategy = new CountingCompilerStrategy();
+        MapperFactory factory = new DefaultMapperFactory.Builder().compilerStrategy(compilerStrategy)
+                .usePregeneratedClasses(usePregeneratedClasses)
+                .mapNulls(mapNulls)
+                .build();
+        Configuration.configureFactory(factory);
+        MapperFacade mapper = factory.getMapperFacade();
+
+        Source source = new Source();
+        source.setName("name");
+        source.setCount(7);
+        Destination result = mapper.map(source, Destination.class);
+        Assert.assertEquals("name", result.getName());
+        Assert.assertEquals(7, result.getCount());
+
+        mapperClass = factory.lookupMapper(new MapperKey(TypeFactory.valueOf(Source.class), TypeFactory.valueOf(Destination.class)))
+                .getClass();
+        return compilerStrategy;
+    }
+
+    @Test
+    public void testPregeneratedClassesAreUsed() throws IOException {
+        Properties index = pregenerate();
+        Assert.assertFalse(index.isEmpty());
+        Assert.assertTrue(new File(directory, PregeneratedClasses.INDEX_RESOURCE).isFile());
+
+        CountingCompilerStrategy compilerStrategy = map(true, true);
+        Assert.assertEquals(0, compilerStrategy.compiled);
+        Assert.assertTrue(index.containsValue(mapperClass.getName()));
+    }
+
+    @Test
+    public void testPregeneratedClassesCanBeDisabled() throws IOException {
+        Properties index = pregenerate();
+
+        CountingCompilerStrategy compilerStrategy = map(false, true);
+        Assert.assertTrue(compilerStrategy.compiled > 0);
+        Assert.assertFalse(index.containsValue(mapperClass.getName()));
+    }
+
+    @Test
+    public void testChangedConfigurationIsCompiled() throws IOException {
+        Properties index = pregenerate();
+
+        CountingCompilerStrategy compilerStrategy = map(true, false);
+        Assert.assertTrue(compilerStrategy.compiled > 0);
+        Assert.assertFalse(index.containsValue(mapperClass.getName()));
+    }
+
+    /**
+     * Counts the classes which are actually compiled
+     */
+    public static class CountingCompilerStrategy extends JavassistCompilerStrategy {
+        private int compiled;
+
+        public CountingCompilerStrategy() {
+            super(null);
+        }
+
+        @Override
+        public Class<?> compileClass(SourceCodeContext sourceCode) throws SourceCodeGenerationException {
+            ++compiled;
+            return super.compileClass(sourceCode);
+        }
+    }
+
+    public static class Configuration extends ConfigurableMapper {
+
+        static void configureFactory(MapperFactory factory) {
+            factory.registerClassMap(factory.classMap(Source.class, Destination.class).byDefault().toClassMap());
+        }
+
+        @Override
+        protected void configure(MapperFactory factory) {
+            configureFactory(factory);
+        }
+    }
+
+    public static class Source {
+        private String name;
+        private int count;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+    }
+
+    public static class Destination {
+        private String name;
+        private int count;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+    }
+}
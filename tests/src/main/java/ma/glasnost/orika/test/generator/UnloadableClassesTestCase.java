@@ -0,0 +1,113 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.generator;
+
+import java.lang.ref.WeakReference;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.BoundMapperFacade;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.impl.generator.JavassistCompilerStrategy;
+import ma.glasnost.orika.impl.generator.SourceCodeContext;
+import ma.glasnost.orika.test.generator.BuildFixtures.Person;
+import ma.glasnost.orika.test.generator.BuildFixtures.PersonDto;
+
+import org.junit.Test;
+
+/**
+ * Verifies that generated classes defined in class-loaders of their own can be
+ * unloaded, and that the size of their bytecode is accounted for while they
+ * remain loaded.
+ */
+public class UnloadableClassesTestCase {
+
+    private static DefaultMapperFactory build(JavassistCompilerStrategy compilerStrategy) {
+        DefaultMapperFactory factory = new DefaultMapperFactory.Builder().compilerStrategy(compilerStrategy).build();
+        BuildFixtures.registerClassMaps(factory);
+        return factory;
+    }
+
+    @Test
+    public void testClassesDefinedInOwnClassLoader() {
+        RecordingCompilerStrategy compilerStrategy = new RecordingCompilerStrategy(true);
+        DefaultMapperFactory factory = build(compilerStrategy);
+        BuildFixtures.verify(factory.getMapperFacade().map(BuildFixtures.newPerson(), PersonDto.class));
+
+        Class<?> mapperClass = compilerStrategy.lastCompiledClass;
+        Assert.assertNotNull(mapperClass);
+        Assert.assertNotSame(Thread.currentThread().getContextClassLoader(), mapperClass.getClassLoader());
+        Assert.assertSame(Thread.currentThread().getContextClassLoader(), mapperClass.getClassLoader().getParent());
+
+        Assert.assertTrue(compilerStrategy.getRetainedBytecodeSize(mapperClass) > 0);
+        Assert.assertTrue(compilerStrategy.getRetainedBytecodeSize() >= compilerStrategy.getRetainedBytecodeSize(mapperClass));
+        Assert.assertTrue(compilerStrategy.getDefinedBytecodeSize() >= compilerStrategy.getRetainedBytecodeSize());
+        Assert.assertEquals(-1, compilerStrategy.getRetainedBytecodeSize(Person.class));
+    }
+
+    @Test
+    public void testClassesDefinedInContextClassLoader() {
+        RecordingCompilerStrategy compilerStrategy = new RecordingCompilerStrategy(false);
+        DefaultMapperFactory factory = build(compilerStrategy);
+        BuildFixtures.verify(factory.getMapperFacade().map(BuildFixtures.newPerson(), PersonDto.class));
+
+        Class<?> mapperClass = compilerStrategy.lastCompiledClass;
+        Assert.assertSame(Thread.currentThread().getContextClassLoader(), mapperClass.getClassLoader());
+        Assert.assertTrue(compilerStrategy.getRetainedBytecodeSize(mapperClass) > 0);
+    }
+
+    @Test
+    public void testClassesUnloaded() throws InterruptedException {
+        RecordingCompilerStrategy compilerStrategy = new RecordingCompilerStrategy(true);
+        DefaultMapperFactory factory = build(compilerStrategy);
+        BoundMapperFacade<Person, PersonDto> boundMapper = factory.getMapperFacade(Person.class, PersonDto.class);
+        Assert.assertEquals("person", boundMapper.map(BuildFixtures.newPerson()).getName());
+        Assert.assertTrue(compilerStrategy.getRetainedClassCount() > 0);
+
+        WeakReference<ClassLoader> classLoader = new WeakReference<ClassLoader>(compilerStrategy.lastCompiledClass.getClassLoader());
+        compilerStrategy.lastCompiledClass = null;
+        factory = null;
+        boundMapper = null;
+
+        for (int i = 0; i < 20 && classLoader.get() != null; ++i) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        Assert.assertNull("generated class was not unloaded", classLoader.get());
+        Assert.assertEquals(0, compilerStrategy.getRetainedClassCount());
+        Assert.assertEquals(0L, compilerStrategy.getRetainedBytecodeSize());
+        Assert.assertTrue(compilerStrategy.getDefinedBytecodeSize() > 0);
+    }
+
+    /**
+     * Records the last class compiled
+     */
+    public static class RecordingCompilerStrategy extends JavassistCompilerStrategy {
+        private volatile Class<?> lastCompiledClass;
+
+        public RecordingCompilerStrategy(boolean unloadableClasses) {
+            super(null, unloadableClasses);
+        }
+
+        @Override
+        public Class<?> compileClass(SourceCodeContext sourceCode) throws SourceCodeGenerationException {
+            Class<?> compiledClass = super.compileClass(sourceCode);
+            lastCompiledClass = compiledClass;
+            return compiledClass;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.inheritance;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.CustomMapper;
+import ma.glasnost.orika.Mapper;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.metadata.MapperKey;
+import ma.glasnost.orika.metadata.Type;
+import ma.glasnost.orika.metadata.TypeFactory;
+
+import org.junit.Test;
+
+/**
+ * Verifies the resolution of registered mappers by type, in particular that
+ * cached lookups are kept up to date as new mappers are registered.
+ */
+public class RegisteredMapperLookupTestCase {
+
+    private static final Type<Base> BASE = TypeFactory.valueOf(Base.class);
+    private static final Type<BaseDto> BASE_DTO = TypeFactory.valueOf(BaseDto.class);
+    private static final Type<Child> CHILD = TypeFactory.valueOf(Child.class);
+    private static final Type<ChildDto> CHILD_DTO = TypeFactory.valueOf(ChildDto.class);
+    private static final Type<GrandChild> GRAND_CHILD = TypeFactory.valueOf(GrandChild.class);
+
+    private MapperFactory newFactory() {
+        return new DefaultMapperFactory.Builder().useAutoMapping(false).build();
+    }
+
+    @Test
+    public void testSupertypeMapperIsResolved() {
+        MapperFactory factory = newFactory();
+        Mapper<Base, BaseDto> baseMapper = new CustomMapper<Base, BaseDto>() {};
+        factory.registerMapper(baseMapper);
+
+        Assert.assertSame(baseMapper, factory.lookupMapper(new MapperKey(CHILD, CHILD_DTO)));
+        Assert.assertSame(baseMapper, factory.lookupMapper(new MapperKey(CHILD_DTO, GRAND_CHILD)));
+        Assert.assertFalse(factory.existsRegisteredMapper(BASE, TypeFactory.valueOf(String.class), true));
+    }
+
+    @Test
+    public void testInterfaceMapperIsResolved() {
+        MapperFactory factory = newFactory();
+        Mapper<Named, BaseDto> namedMapper = new CustomMapper<Named, BaseDto>() {};
+        factory.registerMapper(namedMapper);
+
+        Assert.assertSame(namedMapper, factory.lookupMapper(new MapperKey(GRAND_CHILD, CHILD_DTO)));
+        Assert.assertFalse(factory.existsRegisteredMapper(BASE, CHILD_DTO, true));
+    }
+
+    @Test
+    public void testNegativeLookupIsUpdatedOnRegistration() {
+        MapperFactory factory = newFactory();
+        Assert.assertFalse(factory.existsRegisteredMapper(CHILD, CHILD_DTO, true));
+        Assert.assertFalse(factory.existsRegisteredMapper(CHILD, CHILD_DTO, false));
+
+        Mapper<Base, BaseDto> baseMapper = new CustomMapper<Base, BaseDto>() {};
+        factory.registerMapper(baseMapper);
+
+        Assert.assertTrue(factory.existsRegisteredMapper(CHILD, CHILD_DTO, true));
+        Assert.assertTrue(factory.existsRegisteredMapper(CHILD, CHILD_DTO, false));
+    }
+
+    @Test
+    public void testMoreSpecificMapperReplacesCachedLookup() {
+        MapperFactory factory = newFactory();
+        Mapper<Base, BaseDto> baseMapper = new CustomMapper<Base, BaseDto>() {};
+        factory.registerMapper(baseMapper);
+
+        Assert.assertSame(baseMapper, factory.lookupMapper(new MapperKey(GRAND_CHILD, CHILD_DTO)));
+        Assert.assertSame(baseMapper, factory.lookupMapper(new MapperKey(BASE, BASE_DTO)));
+
+        Mapper<Child, ChildDto> childMapper = new CustomMapper<Child, ChildDto>() {};
+        factory.registerMapper(childMapper);
+
+        Assert.assertSame(childMapper, factory.lookupMapper(new MapperKey(GRAND_CHILD, CHILD_DTO)));
+        Assert.assertSame(childMapper, factory.lookupMapper(new MapperKey(CHILD_DTO, CHILD)));
+        Assert.assertSame(baseMapper, factory.lookupMapper(new MapperKey(BASE, BASE_DTO)));
+
+        /*
+         * Registering a less specific mapper afterwards must not displace
+         * the more specific one
+         */
+        Mapper<Object, BaseDto> objectMapper = new CustomMapper<Object, BaseDto>() {};
+        factory.registerMapper(objectMapper);
+
+        Assert.assertSame(childMapper, factory.lookupMapper(new MapperKey(GRAND_CHILD, CHILD_DTO)));
+        Assert.assertSame(objectMapper, factory.lookupMapper(new MapperKey(TypeFactory.valueOf(String.class), BASE_DTO)));
+    }
+
+    @Test
+    public void testEquallySpecificMapperRegisteredFirstIsResolved() {
+        Mapper<Named, BaseDto> namedMapper = new CustomMapper<Named, BaseDto>() {};
+        Mapper<Base, BaseDto> baseMapper = new CustomMapper<Base, BaseDto>() {};
+
+        MapperFactory factory = newFactory();
+        factory.registerMapper(namedMapper);
+        factory.registerMapper(baseMapper);
+
+        Assert.assertSame(namedMapper, factory.lookupMapper(new MapperKey(GRAND_CHILD, CHILD_DTO)));
+        Assert.assertSame(baseMapper, factory.lookupMapper(new MapperKey(CHILD, CHILD_DTO)));
+
+        /*
+         * The same result is expected when the lookups were cached before
+         * either mapper was registered
+         */
+        factory = newFactory();
+        Assert.assertFalse(factory.existsRegisteredMapper(GRAND_CHILD, CHILD_DTO, true));
+        Assert.assertFalse(factory.existsRegisteredMapper(CHILD, CHILD_DTO, true));
+        factory.registerMapper(namedMapper);
+        factory.registerMapper(baseMapper);
+
+        Assert.assertSame(namedMapper, factory.lookupMapper(new MapperKey(GRAND_CHILD, CHILD_DTO)));
+        Assert.assertSame(baseMapper, factory.lookupMapper(new MapperKey(CHILD, CHILD_DTO)));
+    }
+
+    public interface Named {
+        String getName();
+    }
+
+    public static class Base {
+        private String id;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+    }
+
+    public static class Child extends Base {
+    }
+
+    public static class GrandChild extends Child implements Named {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class BaseDto {
+        private String id;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+    }
+
+    public static class ChildDto extends BaseDto {
+    }
+}
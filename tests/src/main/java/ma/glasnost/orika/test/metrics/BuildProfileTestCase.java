@@ -0,0 +1,89 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.metrics;
+
+import java.util.List;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.impl.generator.JavassistCompilerStrategy;
+import ma.glasnost.orika.metadata.ClassMapBuilder;
+import ma.glasnost.orika.metadata.TypeFactory;
+import ma.glasnost.orika.metrics.BuildProfile;
+import ma.glasnost.orika.metrics.BuildProfile.ClassMapProfile;
+import ma.glasnost.orika.metrics.BuildProfile.Phase;
+import ma.glasnost.orika.test.collection.BulkMappingContextTestCase.Node;
+import ma.glasnost.orika.test.collection.BulkMappingContextTestCase.NodeDto;
+import ma.glasnost.orika.test.generator.BuildFixtures.Order;
+import ma.glasnost.orika.test.generator.BuildFixtures.OrderDto;
+
+import org.junit.Test;
+
+/**
+ * Verifies that a DefaultMapperFactory profiles the time spent building each
+ * class map only when build profiling is enabled, and that the profile ranks
+ * the class maps by the time spent in each phase.
+ */
+public class BuildProfileTestCase {
+
+    @Test
+    public void testProfileCollected() {
+        DefaultMapperFactory factory = new DefaultMapperFactory.Builder().compilerStrategy(new JavassistCompilerStrategy())
+                .profileBuild(true)
+                .build();
+        factory.classMap(Order.class, OrderDto.class).constructorA("number", "quantity").byDefault().register();
+        factory.classMap(Node.class, NodeDto.class).byDefault().register();
+        factory.getMapperFacade();
+
+        BuildProfile profile = factory.getBuildProfile();
+        ClassMapProfile order = profile.getClassMapProfile(TypeFactory.valueOf(Order.class), TypeFactory.valueOf(OrderDto.class));
+        Assert.assertNotNull(order);
+        Assert.assertTrue(order.getNanos(Phase.PROPERTY_RESOLUTION) > 0);
+        Assert.assertTrue(order.getNanos(Phase.MATCHING) > 0);
+        Assert.assertTrue(order.getNanos(Phase.SOURCE_GENERATION) > 0);
+        Assert.assertTrue(order.getNanos(Phase.COMPILATION) > 0);
+        Assert.assertTrue(order.getNanos(Phase.OBJECT_FACTORIES) > 0);
+        Assert.assertTrue(order.getNanos(Phase.CONSTRUCTOR_RESOLUTION) > 0);
+        Assert.assertTrue(order.getNanos(Phase.OBJECT_FACTORIES) >= order.getNanos(Phase.CONSTRUCTOR_RESOLUTION));
+        Assert.assertEquals(0, profile.getClassMapProfile(TypeFactory.valueOf(Node.class), TypeFactory.valueOf(NodeDto.class))
+                .getNanos(Phase.OBJECT_FACTORIES));
+
+        List<ClassMapProfile> ranked = profile.getClassMapProfiles(Phase.OBJECT_FACTORIES);
+        Assert.assertSame(order, ranked.get(0));
+        List<ClassMapProfile> byTotal = profile.getClassMapProfiles(null);
+        for (int i = 1; i < byTotal.size(); ++i) {
+            Assert.assertTrue(byTotal.get(i - 1).getTotalNanos() >= byTotal.get(i).getTotalNanos());
+        }
+
+        String report = profile.format(Phase.COMPILATION, 1);
+        Assert.assertEquals(3, report.split("\n").length);
+        Assert.assertTrue(report.contains("all " + byTotal.size() + " class maps"));
+    }
+
+    @Test
+    public void testProfileDisabledByDefault() {
+        DefaultMapperFactory factory = new DefaultMapperFactory.Builder().compilerStrategy(new JavassistCompilerStrategy()).build();
+        ClassMapBuilder<Node, NodeDto> builder = factory.classMap(Node.class, NodeDto.class).byDefault();
+        builder.register();
+        factory.getMapperFacade();
+
+        Assert.assertNull(factory.getBuildProfile());
+        Assert.assertEquals(0, builder.getPropertyResolutionNanos());
+        Assert.assertEquals(0, builder.getMatchingNanos());
+    }
+}
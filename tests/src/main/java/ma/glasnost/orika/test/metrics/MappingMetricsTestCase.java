@@ -0,0 +1,146 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.BoundMapperFacade;
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.metadata.TypeFactory;
+import ma.glasnost.orika.metrics.DefaultMappingMetrics;
+import ma.glasnost.orika.metrics.LatencyHistogram;
+import ma.glasnost.orika.metrics.MappingEvent;
+import ma.glasnost.orika.test.collection.BulkMappingContextTestCase.Node;
+import ma.glasnost.orika.test.collection.BulkMappingContextTestCase.NodeDto;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that the metrics configured for a MapperFactory record the
+ * mappings performed, the strategy cache lookups and the mappers generated,
+ * that events are recorded only while recording is enabled, and that the
+ * metrics can be read over JMX.
+ */
+public class MappingMetricsTestCase {
+
+    private DefaultMappingMetrics metrics;
+    private MapperFactory factory;
+
+    @Before
+    public void setUp() {
+        metrics = new DefaultMappingMetrics();
+        factory = new DefaultMapperFactory.Builder().mappingContextFactory(new MappingContext.Factory())
+                .mappingMetrics(metrics)
+                .build();
+    }
+
+    @Test
+    public void testMappingsRecorded() {
+        MapperFacade mapper = factory.getMapperFacade();
+        for (int i = 0; i < 10; ++i) {
+            mapper.map(new Node("node" + i), NodeDto.class);
+        }
+        mapper.mapAsList(Arrays.asList(new Node("a"), new Node("b")), NodeDto.class);
+
+        LatencyHistogram histogram = metrics.getHistogram(TypeFactory.valueOf(Node.class), TypeFactory.valueOf(NodeDto.class));
+        Assert.assertNotNull(histogram);
+        Assert.assertEquals(12, histogram.getCount());
+        Assert.assertEquals(12, metrics.getMappingCount());
+        Assert.assertTrue(histogram.getMaxNanos() >= histogram.getPercentileNanos(50));
+        Assert.assertEquals(1, metrics.listHottestMappings(5).length);
+
+        Assert.assertTrue(metrics.getStrategyCacheMisses() >= 1);
+        Assert.assertTrue(metrics.getStrategyCacheHits() >= 9);
+        Assert.assertTrue(metrics.getAutoGeneratedMapperCount() >= 1);
+        Assert.assertTrue(metrics.getGeneratedMapperCount() >= metrics.getAutoGeneratedMapperCount());
+        Assert.assertTrue(metrics.getContextPoolCapacity() > 0);
+        Assert.assertTrue(metrics.getContextPoolCreateCount() >= 1);
+
+        metrics.reset();
+        Assert.assertEquals(0, metrics.getMappingCount());
+        Assert.assertEquals(0, metrics.getStrategyCacheHits());
+        Assert.assertEquals(0, metrics.getAutoGeneratedMapperCount());
+    }
+
+    @Test
+    public void testBoundMapperRecorded() {
+        BoundMapperFacade<Node, NodeDto> mapper = factory.getMapperFacade(Node.class, NodeDto.class);
+        mapper.map(new Node("a"));
+        mapper.map(new Node("b"));
+
+        Assert.assertEquals(2, metrics.getHistogram(TypeFactory.valueOf(Node.class), TypeFactory.valueOf(NodeDto.class))
+                .getCount());
+    }
+
+    @Test
+    public void testEventsRecorded() {
+        MapperFacade mapper = factory.getMapperFacade();
+        mapper.map(new Node("a"), NodeDto.class);
+        Assert.assertTrue(metrics.getEvents().isEmpty());
+
+        metrics.setRecordingEvents(true);
+        metrics.setSlowMappingThreshold(0, TimeUnit.NANOSECONDS);
+        mapper.map(new Node("b"), NodeDto.class);
+        mapper.map(new Node("c"), Node.class);
+
+        Set<MappingEvent.Kind> kinds = EnumSet.noneOf(MappingEvent.Kind.class);
+        for (MappingEvent event : metrics.getEvents()) {
+            kinds.add(event.getKind());
+            Assert.assertNotNull(event.getDescription());
+        }
+        Assert.assertTrue(kinds.contains(MappingEvent.Kind.MAPPER_COMPILED));
+        Assert.assertTrue(kinds.contains(MappingEvent.Kind.STRATEGY_CREATED));
+        Assert.assertTrue(kinds.contains(MappingEvent.Kind.SLOW_MAPPING));
+        Assert.assertEquals(1, metrics.listRecentEvents(1).length);
+
+        metrics.setRecordingEvents(false);
+        int recorded = metrics.getEvents().size();
+        mapper.map(new Node("d"), NodeDto.class);
+        Assert.assertEquals(recorded, metrics.getEvents().size());
+    }
+
+    @Test
+    public void testPublishedOverJmx() throws Exception {
+        factory.getMapperFacade().map(new Node("a"), NodeDto.class);
+
+        ObjectName name = metrics.registerMBean(MappingMetricsTestCase.class.getSimpleName());
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Assert.assertTrue(server.isRegistered(name));
+            Assert.assertEquals(Long.valueOf(1), server.getAttribute(name, "MappingCount"));
+            String[] slowest = (String[]) server.invoke(name, "listSlowestMappings", new Object[] { 1 },
+                    new String[] { int.class.getName() });
+            Assert.assertEquals(1, slowest.length);
+        } finally {
+            metrics.unregisterMBean();
+        }
+        Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+}
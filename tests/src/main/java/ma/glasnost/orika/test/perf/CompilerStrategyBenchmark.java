@@ -0,0 +1,122 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.perf;
+
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.impl.generator.CompilerStrategy;
+import ma.glasnost.orika.impl.generator.DirectBytecodeCompilerStrategy;
+import ma.glasnost.orika.impl.generator.EclipseJdtCompilerStrategy;
+import ma.glasnost.orika.impl.generator.JavassistCompilerStrategy;
+import ma.glasnost.orika.test.common.types.TestCaseClasses.AuthorDTO;
+import ma.glasnost.orika.test.common.types.TestCaseClasses.AuthorMyDTO;
+import ma.glasnost.orika.test.common.types.TestCaseClasses.BookDTO;
+import ma.glasnost.orika.test.common.types.TestCaseClasses.BookMyDTO;
+import ma.glasnost.orika.test.common.types.TestCaseClasses.LibraryDTO;
+import ma.glasnost.orika.test.common.types.TestCaseClasses.LibraryMyDTO;
+import ma.glasnost.orika.test.common.types.TestCaseClasses.PrimitiveHolder;
+import ma.glasnost.orika.test.common.types.TestCaseClasses.PrimitiveHolderDTO;
+import ma.glasnost.orika.test.common.types.TestCaseClasses.PrimitiveWrapperHolder;
+import ma.glasnost.orika.test.common.types.TestCaseClasses.PrimitiveWrapperHolderDTO;
+
+/**
+ * CompilerStrategyBenchmark measures the time taken to generate (and compile)
+ * the mappers for a set of the tests' types, using each of the available
+ * compiler strategies: the flat holders of primitives and wrappers (whose
+ * mappers the DirectBytecodeCompilerStrategy emits directly), and the library
+ * types (whose mappers it compiles from source).<br>
+ * <br>
+ * It is launched manually (it is not a test case), and prints the best and
+ * mean build time of a new mapper factory for each strategy.
+ */
+public class CompilerStrategyBenchmark {
+    
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 50;
+    
+    private interface StrategyFactory {
+        CompilerStrategy create();
+    }
+    
+    public static void main(String[] args) {
+        
+        run("Javassist", new StrategyFactory() {
+            public CompilerStrategy create() {
+                return new JavassistCompilerStrategy(null);
+            }
+        });
+        run("EclipseJdt", new StrategyFactory() {
+            public CompilerStrategy create() {
+                return new EclipseJdtCompilerStrategy();
+            }
+        });
+        run("DirectBytecode", new StrategyFactory() {
+            public CompilerStrategy create() {
+                return new DirectBytecodeCompilerStrategy(null);
+            }
+        });
+    }
+    
+    private static void run(String name, StrategyFactory strategyFactory) {
+        try {
+            for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+                build(strategyFactory.create());
+            }
+            long best = Long.MAX_VALUE;
+            long total = 0;
+            CompilerStrategy compilerStrategy = null;
+            for (int i = 0; i < ROUNDS; ++i) {
+                compilerStrategy = strategyFactory.create();
+                long elapsed = build(compilerStrategy);
+                best = Math.min(best, elapsed);
+                total += elapsed;
+            }
+            System.out.println(String.format("%-16s best %8.2f ms    mean %8.2f ms", name, best / 1000000.0, total / 1000000.0 / ROUNDS));
+            if (compilerStrategy instanceof DirectBytecodeCompilerStrategy) {
+                DirectBytecodeCompilerStrategy direct = (DirectBytecodeCompilerStrategy) compilerStrategy;
+                System.out.println(String.format("%-16s %d methods emitted directly, %d compiled from source (per build)", "",
+                        direct.getDirectMethodCount(), direct.getSourceMethodCount()));
+            }
+        } catch (RuntimeException e) {
+            System.out.println(String.format("%-16s unavailable: %s", name, e));
+        } catch (LinkageError e) {
+            System.out.println(String.format("%-16s unavailable: %s", name, e));
+        }
+    }
+    
+    private static long build(CompilerStrategy compilerStrategy) {
+        MapperFactory factory = new DefaultMapperFactory.Builder().compilerStrategy(compilerStrategy).buildThreads(1).build();
+        factory.registerClassMap(factory.classMap(PrimitiveHolder.class, PrimitiveHolderDTO.class).byDefault());
+        factory.registerClassMap(factory.classMap(PrimitiveWrapperHolder.class, PrimitiveWrapperHolderDTO.class).byDefault());
+        factory.registerClassMap(factory.classMap(AuthorMyDTO.class, AuthorDTO.class)
+                .field("myName", "name")
+                .field("myAdditionalValue", "additionalValue"));
+        factory.registerClassMap(factory.classMap(BookMyDTO.class, BookDTO.class)
+                .field("myTitle", "title")
+                .field("myAuthor", "author")
+                .field("myAdditionalValue", "additionalValue"));
+        factory.registerClassMap(factory.classMap(LibraryMyDTO.class, LibraryDTO.class)
+                .field("myTitle", "title")
+                .field("myBooks", "books")
+                .field("myAdditionalValue", "additionalValue"));
+        
+        long start = System.nanoTime();
+        factory.getMapperFacade();
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.metadata.Type;
+import ma.glasnost.orika.metadata.TypeFactory;
+
+/**
+ * ParallelMappingBenchmark measures how mapAsListParallel scales with the
+ * number of partitions, from one up to the number of available processors,
+ * both with the identity of mapped objects shared across partitions and with
+ * it local to each partition; the sequential mapAsList is measured as the
+ * baseline.<br>
+ * <br>
+ * It is launched manually (it is not a test case), and prints the best and
+ * mean time taken to map the list, along with the speed-up of the best time
+ * over that of the sequential mapping.
+ */
+public class ParallelMappingBenchmark {
+
+    private static final int SIZE = 100000;
+    private static final int WARMUP_ROUNDS = 30;
+    private static final int ROUNDS = 50;
+
+    private static final Type<Order> ORDER = TypeFactory.valueOf(Order.class);
+    private static final Type<OrderDto> ORDER_DTO = TypeFactory.valueOf(OrderDto.class);
+
+    public static void main(String[] args) {
+        List<Order> orders = new ArrayList<Order>(SIZE);
+        for (int i = 0; i < SIZE; ++i) {
+            Order order = new Order();
+            order.setId(i);
+            order.setCustomer(new Customer());
+            order.getCustomer().setName("customer" + (i % 100));
+            order.setQuantity(i % 10);
+            orders.add(order);
+        }
+
+        MapperFacade mapper = new DefaultMapperFactory.Builder().build().getMapperFacade();
+        int processors = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(processors);
+        try {
+            long sequential = time("sequential", mapper, orders, null, 1, true, 0);
+            for (int parallelism = 1; parallelism <= processors; ++parallelism) {
+                time("shared x" + parallelism, mapper, orders, executor, parallelism, true, sequential);
+                time("local  x" + parallelism, mapper, orders, executor, parallelism, false, sequential);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static long time(String name, MapperFacade mapper, List<Order> orders, ExecutorService executor, int parallelism,
+            boolean shareMappedObjects, long baseline) {
+        for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+            map(mapper, orders, executor, parallelism, shareMappedObjects);
+        }
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (int i = 0; i < ROUNDS; ++i) {
+            long start = System.nanoTime();
+            map(mapper, orders, executor, parallelism, shareMappedObjects);
+            long elapsed = System.nanoTime() - start;
+            best = Math.min(best, elapsed);
+            total += elapsed;
+        }
+        System.out.println(String.format("%-14s best %8.2f ms  mean %8.2f ms  speed-up %5.2f", name, best / 1000000.0, total
+                / 1000000.0 / ROUNDS, baseline == 0 ? 1.0 : (double) baseline / best));
+        return best;
+    }
+
+    private static List<OrderDto> map(MapperFacade mapper, List<Order> orders, ExecutorService executor, int parallelism,
+            boolean shareMappedObjects) {
+        if (executor == null) {
+            return mapper.mapAsList(orders, ORDER, ORDER_DTO);
+        }
+        return mapper.mapAsListParallel(orders, ORDER, ORDER_DTO, executor, parallelism, shareMappedObjects);
+    }
+
+    public static class Customer {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class Order {
+        private long id;
+        private Customer customer;
+        private int quantity;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public Customer getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(Customer customer) {
+            this.customer = customer;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+
+    public static class OrderDto {
+        private long id;
+        private Customer customer;
+        private int quantity;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public Customer getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(Customer customer) {
+            this.customer = customer;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
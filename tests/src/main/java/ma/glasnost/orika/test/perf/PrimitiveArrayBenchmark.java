@@ -0,0 +1,154 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.perf;
+
+import ma.glasnost.orika.CustomConverter;
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.metadata.Type;
+
+/**
+ * PrimitiveArrayBenchmark measures the time taken to map large arrays of
+ * primitives, which are widened or narrowed by the generated mappers without
+ * boxing their elements, against the same mappings made element by
+ * element (as they are when a custom converter, rather than one of the
+ * built-in numeric converters, is registered for the element types).<br>
+ * <br>
+ * It is launched manually (it is not a test case), and prints the best and
+ * mean time taken to map each array for each of the mappings.
+ */
+public class PrimitiveArrayBenchmark {
+    
+    private static final int LENGTH = 100000;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int ROUNDS = 500;
+    
+    public static void main(String[] args) {
+        Source source = new Source();
+        source.setInts(new int[LENGTH]);
+        source.setLongs(new long[LENGTH]);
+        for (int i = 0; i < LENGTH; ++i) {
+            source.getInts()[i] = i;
+            source.getLongs()[i] = i;
+        }
+        
+        run("int[] -> long[]", "ints", LongHolder.class, source);
+        run("long[] -> int[]", "longs", IntHolder.class, source);
+    }
+    
+    private static void run(String name, String sourceField, Class<?> destinationType, Source source) {
+        MapperFacade direct = mapper(sourceField, destinationType, false);
+        MapperFacade elementwise = mapper(sourceField, destinationType, true);
+        System.out.println(String.format("%-16s direct %s    element-wise %s", name, time(direct, source, destinationType),
+                time(elementwise, source, destinationType)));
+    }
+    
+    private static MapperFacade mapper(String sourceField, Class<?> destinationType, boolean elementwise) {
+        MapperFactory factory = new DefaultMapperFactory.Builder().useBuiltinConverters(!elementwise).build();
+        if (elementwise) {
+            factory.getConverterFactory().registerConverter(new ElementConverter());
+        }
+        factory.classMap(Source.class, destinationType).field(sourceField, "values").register();
+        return factory.getMapperFacade();
+    }
+    
+    private static String time(MapperFacade mapper, Source source, Class<?> destinationType) {
+        for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+            mapper.map(source, destinationType);
+        }
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (int i = 0; i < ROUNDS; ++i) {
+            long start = System.nanoTime();
+            mapper.map(source, destinationType);
+            long elapsed = System.nanoTime() - start;
+            best = Math.min(best, elapsed);
+            total += elapsed;
+        }
+        return String.format("best %8.1f us  mean %8.1f us", best / 1000.0, total / 1000.0 / ROUNDS);
+    }
+    
+    /**
+     * Converts between the wrappers of the benchmarked element types, so that
+     * the elements can no longer be copied directly
+     */
+    public static class ElementConverter extends CustomConverter<Number, Number> {
+        
+        @Override
+        public boolean canConvert(Type<?> sourceType, Type<?> destinationType) {
+            return isNumber(sourceType) && isNumber(destinationType);
+        }
+        
+        private static boolean isNumber(Type<?> type) {
+            return Number.class.isAssignableFrom(type.isPrimitive() ? type.getWrapperType().getRawType() : type.getRawType());
+        }
+        
+        public Number convert(Number source, Type<? extends Number> destinationType) {
+            if (destinationType.getRawType() == Long.class || destinationType.getRawType() == Long.TYPE) {
+                return Long.valueOf(source.longValue());
+            }
+            return Integer.valueOf(source.intValue());
+        }
+    }
+    
+    public static class Source {
+        private int[] ints;
+        private long[] longs;
+        
+        public int[] getInts() {
+            return ints;
+        }
+        
+        public void setInts(int[] ints) {
+            this.ints = ints;
+        }
+        
+        public long[] getLongs() {
+            return longs;
+        }
+        
+        public void setLongs(long[] longs) {
+            this.longs = longs;
+        }
+    }
+    
+    public static class IntHolder {
+        private int[] values;
+        
+        public int[] getValues() {
+            return values;
+        }
+        
+        public void setValues(int[] values) {
+            this.values = values;
+        }
+    }
+    
+    public static class LongHolder {
+        private long[] values;
+        
+        public long[] getValues() {
+            return values;
+        }
+        
+        public void setValues(long[] values) {
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.perf;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import ma.glasnost.orika.metadata.MapperKey;
+import ma.glasnost.orika.metadata.Type;
+import ma.glasnost.orika.metadata.TypeFactory;
+import ma.glasnost.orika.util.SortedCollection;
+
+/**
+ * RegistrationBenchmark measures the time taken to register increasing
+ * numbers of mapper keys into a SortedCollection (as is done for the mappers
+ * of a MapperFactory), ordered by the same type-hierarchy comparison which is
+ * used for mappers.<br>
+ * <br>
+ * It is launched manually (it is not a test case), and prints the total and
+ * per-item registration time for each registry size.
+ */
+public class RegistrationBenchmark {
+
+    private static final int[] SIZES = { 250, 500, 1000, 2000, 4000 };
+    private static final int ROUNDS = 5;
+
+    private static final Class<?>[] ELEMENT_TYPES = { Object.class, String.class, Number.class, Integer.class, Long.class,
+            Short.class, Byte.class, Double.class, Float.class, BigDecimal.class, BigInteger.class, Boolean.class,
+            Character.class, Date.class, java.sql.Date.class, java.sql.Timestamp.class, CharSequence.class,
+            StringBuilder.class, Serializable.class, Comparable.class, Thread.class, Runnable.class, Exception.class,
+            RuntimeException.class, IllegalArgumentException.class, IllegalStateException.class, Error.class,
+            Throwable.class, Class.class, Enum.class, Iterable.class, Cloneable.class, Appendable.class,
+            Readable.class, StringBuffer.class, Process.class, ClassLoader.class, Package.class, Void.class,
+            ThreadLocal.class, InheritableThreadLocal.class, StackTraceElement.class, Math.class, System.class,
+            Runtime.class, SecurityManager.class, ThreadGroup.class, Object[].class, String[].class, int[].class };
+
+    private static final Class<?>[] CONTAINER_TYPES = { Collection.class, List.class, ArrayList.class, LinkedList.class,
+            Set.class, HashSet.class };
+
+    private static final Class<?>[] MAP_TYPES = { Map.class, HashMap.class, TreeMap.class };
+
+    private static final Comparator<MapperKey> COMPARATOR = new Comparator<MapperKey>() {
+        public int compare(MapperKey key1, MapperKey key2) {
+            if (key1.getAType().equals(key2.getAType()) && key1.getBType().equals(key2.getBType())) {
+                return 0;
+            } else if ((key1.getAType().isAssignableFrom(key2.getAType()) && key1.getBType().isAssignableFrom(key2.getBType()))
+                    || (key1.getAType().isAssignableFrom(key2.getBType()) && key1.getBType().isAssignableFrom(key2.getAType()))) {
+                return 1;
+            } else if ((key2.getAType().isAssignableFrom(key1.getAType()) && key2.getBType().isAssignableFrom(key1.getBType()))
+                    || (key2.getAType().isAssignableFrom(key1.getBType()) && key2.getBType().isAssignableFrom(key1.getAType()))) {
+                return -1;
+            } else {
+                return 0;
+            }
+        }
+    };
+
+    public static void main(String[] args) {
+
+        List<MapperKey> keys = createKeys(SIZES[SIZES.length - 1]);
+
+        /*
+         * Warm up
+         */
+        for (int i = 0; i < ROUNDS; ++i) {
+            register(keys.subList(0, SIZES[0]));
+        }
+
+        System.out.println("registry size    total (ms)    per item (us)");
+        for (int size : SIZES) {
+            List<MapperKey> subset = keys.subList(0, size);
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < ROUNDS; ++i) {
+                best = Math.min(best, register(subset));
+            }
+            System.out.println(String.format("%13d    %10.2f    %13.2f", size, best / 1000000.0, best / 1000.0 / size));
+        }
+    }
+
+    private static long register(List<MapperKey> keys) {
+        long start = System.nanoTime();
+        SortedCollection<MapperKey> registry = new SortedCollection<MapperKey>(COMPARATOR);
+        for (MapperKey key : keys) {
+            registry.add(key);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (registry.size() != keys.size()) {
+            throw new IllegalStateException("expected " + keys.size() + " items, but found " + registry.size());
+        }
+        return elapsed;
+    }
+
+    /**
+     * Creates distinct pairs of parameterized types, in a fixed (but mixed)
+     * order of specificity.
+     */
+    private static List<MapperKey> createKeys(int count) {
+        List<Type<?>> types = new ArrayList<Type<?>>();
+        for (Class<?> element : ELEMENT_TYPES) {
+            for (Class<?> container : CONTAINER_TYPES) {
+                types.add(TypeFactory.valueOf(container, element));
+            }
+            for (Class<?> map : MAP_TYPES) {
+                types.add(TypeFactory.valueOf(map, String.class, element));
+            }
+        }
+        List<MapperKey> keys = new ArrayList<MapperKey>(count);
+        int total = types.size();
+        for (int i = 0; keys.size() < count; ++i) {
+            Type<?> aType = types.get((i * 7) % total);
+            Type<?> bType = types.get((i * 13 + i / total) % total);
+            keys.add(new MapperKey(aType, bType));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.impl.MapperFacadeImpl;
+import ma.glasnost.orika.test.ConcurrentRule;
+import ma.glasnost.orika.test.ConcurrentRule.Concurrent;
+import ma.glasnost.orika.util.ConcurrentLFUCache;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ */
+public class ConcurrentLFUCacheTestCase {
+
+    @Rule
+    public ConcurrentRule concurrentRule = new ConcurrentRule();
+
+    private final ConcurrentLFUCache<Integer, String> sharedCache = new ConcurrentLFUCache<Integer, String>(64);
+    private final AtomicInteger threadIndex = new AtomicInteger();
+
+    @Test
+    public void testGetAndCache() {
+        ConcurrentLFUCache<String, String> cache = new ConcurrentLFUCache<String, String>(10);
+
+        Assert.assertNull(cache.get("a"));
+        cache.cache("a", "A");
+        Assert.assertEquals("A", cache.get("a"));
+        Assert.assertTrue(cache.containsKey("a"));
+        Assert.assertFalse(cache.containsKey("b"));
+
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(0, cache.getEvictionCount());
+
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        ConcurrentLFUCache<Integer, Integer> cache = new ConcurrentLFUCache<Integer, Integer>(100);
+        for (int round = 0; round < 3; ++round) {
+            for (int i = 0; i < 1000; ++i) {
+                if (cache.get(i) == null) {
+                    cache.cache(i, i);
+                }
+            }
+        }
+        Assert.assertTrue(cache.size() <= 100);
+        Assert.assertTrue(cache.getEvictionCount() > 0);
+    }
+
+    /**
+     * Verifies that frequently used entries survive a scan of many keys which
+     * are each used only once.
+     */
+    @Test
+    public void testFrequentEntriesSurviveScan() {
+        ConcurrentLFUCache<Integer, Integer> cache = new ConcurrentLFUCache<Integer, Integer>(50);
+        for (int i = 0; i < 20; ++i) {
+            cache.get(i);
+            cache.cache(i, i);
+        }
+        for (int repeat = 0; repeat < 10; ++repeat) {
+            for (int i = 0; i < 20; ++i) {
+                Assert.assertNotNull(cache.get(i));
+            }
+        }
+
+        for (int i = 1000; i < 5000; ++i) {
+            if (cache.get(i) == null) {
+                cache.cache(i, i);
+            }
+            cache.get(i % 20);
+        }
+
+        for (int i = 0; i < 20; ++i) {
+            Assert.assertEquals(Integer.valueOf(i), cache.get(i));
+        }
+    }
+
+    @Test
+    @Concurrent(32)
+    public void testConcurrentAccess() {
+        int offset = threadIndex.getAndIncrement();
+        for (int i = 0; i < 10000; ++i) {
+            Integer key = Integer.valueOf((i + offset) % 200);
+            String value = sharedCache.get(key);
+            if (value == null) {
+                sharedCache.cache(key, key.toString());
+            } else {
+                Assert.assertEquals(key.toString(), value);
+            }
+        }
+        Assert.assertTrue(sharedCache.size() <= 64);
+    }
+
+    @Test
+    public void testStrategyCacheSizeIsConfigurable() {
+        MapperFactory factory = new DefaultMapperFactory.Builder().strategyCacheSize(1234).build();
+        MapperFacadeImpl facade = (MapperFacadeImpl) factory.getMapperFacade();
+        Assert.assertEquals(1234, facade.getStrategyCache().getMaxSize());
+
+        facade.map(new Name("test"), Name.class);
+        facade.map(new Name("test"), Name.class);
+        Assert.assertTrue(facade.getStrategyCache().getHitCount() >= 1);
+    }
+
+    public static class Name {
+        private String value;
+
+        public Name() {
+        }
+
+        public Name(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import ma.glasnost.orika.metadata.Type;
+import ma.glasnost.orika.metadata.TypeFactory;
+import ma.glasnost.orika.test.ConcurrentRule;
+import ma.glasnost.orika.test.ConcurrentRule.Concurrent;
+import ma.glasnost.orika.test.util.ConcurrentLFUCacheTestCase.Name;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ */
+public class MappingContextFactoryTestCase {
+
+    @Rule
+    public ConcurrentRule concurrentRule = new ConcurrentRule();
+
+    private final MappingContext.Factory sharedContextFactory = new MappingContext.Factory(16);
+    private final MapperFacade sharedFacade = new DefaultMapperFactory.Builder().mappingContextFactory(sharedContextFactory).build()
+            .getMapperFacade();
+
+    @Test
+    public void testReleasedContextIsReused() {
+        MappingContext.Factory factory = new MappingContext.Factory();
+
+        MappingContext context = factory.getContext();
+        factory.release(context);
+        Assert.assertEquals(1, factory.getPoolSize());
+        Assert.assertSame(context, factory.getContext());
+
+        Assert.assertEquals(1, factory.getCreatedCount());
+        Assert.assertEquals(1, factory.getReusedCount());
+        Assert.assertEquals(0, factory.getPoolSize());
+    }
+
+    @Test
+    public void testPoolIsBounded() {
+        MappingContext.Factory factory = new MappingContext.Factory(8);
+        List<MappingContext> contexts = new ArrayList<MappingContext>();
+        for (int i = 0; i < 100; ++i) {
+            contexts.add(factory.getContext());
+        }
+        for (MappingContext context : contexts) {
+            factory.release(context);
+        }
+        Assert.assertEquals(8, factory.getPoolCapacity());
+        Assert.assertTrue(factory.getPoolSize() <= factory.getPoolCapacity());
+        Assert.assertEquals(100, factory.getPoolSize() + factory.getDiscardedCount());
+    }
+
+    @Test
+    public void testOversizedContextIsTrimmed() {
+        MappingContext.Factory factory = new MappingContext.Factory();
+        MappingContext context = factory.getContext();
+        Object source = new Object();
+        context.cacheMappedObject(source, TypeFactory.valueOf(Name.class), "a");
+        context.registerConcreteClass(TypeFactory.valueOf(Name.class), TypeFactory.valueOf(Name.class));
+        factory.release(context);
+        Assert.assertEquals(0, factory.getTrimmedCount());
+
+        context = factory.getContext();
+        Type<?> type = TypeFactory.valueOf(Name.class);
+        for (int i = 0; i < 100; ++i) {
+            type = TypeFactory.valueOf(List.class, type);
+            context.cacheMappedObject(source, type, "b");
+        }
+        factory.release(context);
+        Assert.assertEquals(1, factory.getTrimmedCount());
+
+        context = factory.getContext();
+        Assert.assertNull(context.getMappedObject(source, type));
+        context.cacheMappedObject(source, type, "c");
+        Assert.assertEquals("c", context.getMappedObject(source, type));
+    }
+
+    @Test
+    public void testGlobalPropertiesAreShared() {
+        MappingContext.Factory factory = new MappingContext.Factory();
+        factory.getGlobalProperties().put("key", "value");
+        MappingContext context = factory.getContext();
+        context.setProperty("local", "localValue");
+        Assert.assertEquals("value", context.getProperty("key"));
+        factory.release(context);
+
+        context = factory.getContext();
+        Assert.assertEquals("value", context.getProperty("key"));
+        Assert.assertNull(context.getProperty("local"));
+    }
+
+    @Test
+    @Concurrent(50)
+    public void testConcurrentMapping() {
+        for (int i = 0; i < 1000; ++i) {
+            Name result = sharedFacade.map(new Name("name" + i), Name.class);
+            Assert.assertEquals("name" + i, result.getValue());
+        }
+        Assert.assertTrue(sharedContextFactory.getPoolSize() <= sharedContextFactory.getPoolCapacity());
+        Assert.assertTrue(sharedContextFactory.getReusedCount() > 0);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Orika - simpler, better and faster Java bean mapping
+ *
+ * Copyright (C) 2011 Orika authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ma.glasnost.orika.test.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+import junit.framework.Assert;
+import ma.glasnost.orika.MappingContext;
+import ma.glasnost.orika.metadata.Type;
+import ma.glasnost.orika.metadata.TypeFactory;
+import ma.glasnost.orika.test.util.ConcurrentLFUCacheTestCase.Name;
+
+import org.junit.Test;
+
+/**
+ * Verifies the tracking of mapped objects by MappingContext
+ */
+public class MappingContextTestCase {
+
+    private static final Type<Name> NAME = TypeFactory.valueOf(Name.class);
+    private static final Type<String> STRING = TypeFactory.valueOf(String.class);
+
+    private final MappingContext.Factory contextFactory = new MappingContext.Factory();
+
+    @Test
+    public void testLookupIsByIdentityAndType() {
+        MappingContext context = contextFactory.getContext();
+        String source = new String("source");
+        Name destination = new Name("destination");
+
+        context.cacheMappedObject(source, NAME, destination);
+
+        Assert.assertSame(destination, context.getMappedObject(source, NAME));
+        Assert.assertNull(context.getMappedObject(new String("source"), NAME));
+        Assert.assertNull(context.getMappedObject(source, STRING));
+
+        Name replacement = new Name("replacement");
+        context.cacheMappedObject(source, NAME, replacement);
+        Assert.assertSame(replacement, context.getMappedObject(source, NAME));
+    }
+
+    @Test
+    public void testLookupByInterface() {
+        MappingContext context = contextFactory.getContext();
+        Object source = new Object();
+        List<String> arrayList = new ArrayList<String>();
+        List<String> linkedList = new LinkedList<String>();
+
+        context.cacheMappedObject(source, TypeFactory.valueOf(ArrayList.class, String.class), arrayList);
+
+        Assert.assertSame(arrayList, context.getMappedObject(source, TypeFactory.valueOf(List.class, String.class)));
+        Assert.assertSame(arrayList, context.getMappedObject(source, TypeFactory.valueOf(Collection.class, String.class)));
+        Assert.assertNull(context.getMappedObject(source, TypeFactory.valueOf(List.class, Name.class)));
+
+        context.cacheMappedObject(source, TypeFactory.valueOf(LinkedList.class, String.class), linkedList);
+
+        Assert.assertSame(linkedList, context.getMappedObject(source, TypeFactory.valueOf(List.class, String.class)));
+        Assert.assertSame(arrayList, context.getMappedObject(source, TypeFactory.valueOf(ArrayList.class, String.class)));
+    }
+
+    @Test
+    public void testManyEntriesAndReset() {
+        MappingContext context = contextFactory.getContext();
+        Object[] sources = new Object[5000];
+        for (int i = 0; i < sources.length; ++i) {
+            sources[i] = new Object();
+            context.cacheMappedObject(sources[i], NAME, new Name("" + i));
+            context.cacheMappedObject(sources[i], STRING, "" + i);
+        }
+        for (int i = 0; i < sources.length; ++i) {
+            Assert.assertEquals("" + i, ((Name) context.getMappedObject(sources[i], NAME)).getValue());
+            Assert.assertEquals("" + i, context.getMappedObject(sources[i], STRING));
+        }
+
+        contextFactory.release(context);
+        context = contextFactory.getContext();
+        for (int i = 0; i < sources.length; ++i) {
+            Assert.assertNull(context.getMappedObject(sources[i], NAME));
+        }
+        context.cacheMappedObject(sources[0], NAME, new Name("again"));
+        Assert.assertEquals("again", ((Name) context.getMappedObject(sources[0], NAME)).getValue());
+    }
+}